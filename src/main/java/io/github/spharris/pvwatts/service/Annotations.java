@@ -9,4 +9,16 @@ public final class Annotations {
   @Qualifier
   @Retention(RetentionPolicy.RUNTIME)
   public @interface WeatherDirectory {}
+
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface WeatherCacheSize {}
+
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface ResultCacheSize {}
+
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface SimulationTimeout {}
 }
@@ -0,0 +1,193 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.ssc.DataContainer;
+import io.github.spharris.ssc.ParallelSimulationRunner;
+import io.github.spharris.ssc.SscModule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * Runs the simulations for a batch of requests. Requests are grouped by weather file, and each
+ * group is run by one worker of the {@link ParallelSimulationRunner}, with the worker's module and
+ * a single data container, so the weather is only set once per group. Groups run in parallel; a
+ * station with many requests is split into several groups so that it doesn't keep the other
+ * workers idle.
+ */
+final class BatchExecutor {
+
+  /** Setting the weather is cheap next to a simulation, so groups don't need to be very big. */
+  static final int MAX_GROUP_SIZE = 50;
+
+  private final ParallelSimulationRunner runner;
+
+  @Inject
+  BatchExecutor(ParallelSimulationRunner runner) {
+    this.runner = runner;
+  }
+
+  /** Runs the simulations for one group, in a container that nothing else has set. */
+  interface GroupTask<Q> {
+    void run(SscModule module, DataContainer data, Group<Q> group);
+  }
+
+  /**
+   * Runs every group in <code>batch</code> with a module named <code>moduleName</code>, returning
+   * once they have all finished. A group whose task throws, or that couldn't be run at all, is
+   * passed to <code>onFailure</code> with the exception.
+   */
+  <Q> void run(
+      String moduleName,
+      Batch<Q> batch,
+      GroupTask<Q> task,
+      BiConsumer<Group<Q>, Throwable> onFailure) {
+    int threads = runner.getThreadCount();
+    List<Group<Q>> groups = batch.groups(threads);
+    if (groups.isEmpty()) {
+      return;
+    }
+
+    Queue<Group<Q>> remaining = new ConcurrentLinkedQueue<>(groups);
+    List<CompletableFuture<Void>> jobs = new ArrayList<>();
+    for (int i = 0; i < Math.min(threads, groups.size()); i++) {
+      jobs.add(
+          runner.submit(
+              moduleName,
+              (module, data) -> {
+                runGroups(module, data, remaining, task, onFailure);
+                return null;
+              }));
+    }
+
+    Throwable failure = null;
+    for (CompletableFuture<Void> job : jobs) {
+      try {
+        job.join();
+      } catch (CompletionException e) {
+        failure = e.getCause();
+      }
+    }
+
+    // Left over if a job couldn't be queued, or its worker couldn't create the module
+    Group<Q> group;
+    while ((group = remaining.poll()) != null) {
+      onFailure.accept(group, failure);
+    }
+  }
+
+  private static <Q> void runGroups(
+      SscModule module,
+      DataContainer data,
+      Queue<Group<Q>> remaining,
+      GroupTask<Q> task,
+      BiConsumer<Group<Q>, Throwable> onFailure) {
+    boolean used = false;
+    Group<Q> group;
+    while ((group = remaining.poll()) != null) {
+      if (used) {
+        data.clear();
+      }
+      used = true;
+
+      try {
+        task.run(module, data, group);
+      } catch (RuntimeException e) {
+        onFailure.accept(group, e);
+      }
+    }
+  }
+
+  /** The requests in a batch that need simulating. */
+  static final class Batch<Q> {
+
+    private final Map<List<Object>, List<Item<Q>>> byStation = new LinkedHashMap<>();
+    private final Map<SimulationResultCache.Key, Item<Q>> byKey = new HashMap<>();
+    private int itemCount = 0;
+
+    /**
+     * Adds the request at <code>index</code> of the batch. A request with the same cache key as
+     * one already added shares its simulation; one without a key always gets its own.
+     */
+    void add(
+        int index,
+        Q request,
+        WeatherSource weatherSource,
+        @Nullable String weatherFile,
+        @Nullable SimulationResultCache.Key key) {
+      Item<Q> item = key == null ? null : byKey.get(key);
+      if (item == null) {
+        item = new Item<>(request, weatherSource, weatherFile, key);
+        if (key != null) {
+          byKey.put(key, item);
+        }
+        List<Object> station = Arrays.asList(weatherSource, weatherFile);
+        byStation.computeIfAbsent(station, unused -> new ArrayList<>()).add(item);
+        itemCount++;
+      }
+
+      item.indices.add(index);
+    }
+
+    /** Splits the items into groups that share a weather file, enough to keep every thread busy. */
+    List<Group<Q>> groups(int threads) {
+      int size = Math.max(1, Math.min(MAX_GROUP_SIZE, (itemCount + threads - 1) / threads));
+
+      List<Group<Q>> groups = new ArrayList<>();
+      for (List<Item<Q>> items : byStation.values()) {
+        for (List<Item<Q>> part : Lists.partition(items, size)) {
+          groups.add(new Group<>(part.get(0).weatherSource, part.get(0).weatherFile, part));
+        }
+      }
+
+      return groups;
+    }
+  }
+
+  /** Requests that share a weather file, to be run one after another. */
+  static final class Group<Q> {
+
+    final WeatherSource weatherSource;
+    final @Nullable String weatherFile;
+    final ImmutableList<Item<Q>> items;
+
+    Group(WeatherSource weatherSource, @Nullable String weatherFile, List<Item<Q>> items) {
+      this.weatherSource = weatherSource;
+      this.weatherFile = weatherFile;
+      this.items = ImmutableList.copyOf(items);
+    }
+  }
+
+  /** A distinct request, and where in the batch its response goes. */
+  static final class Item<Q> {
+
+    final Q request;
+    final WeatherSource weatherSource;
+    final @Nullable String weatherFile;
+    final @Nullable SimulationResultCache.Key key;
+    final List<Integer> indices = new ArrayList<>();
+
+    Item(
+        Q request,
+        WeatherSource weatherSource,
+        @Nullable String weatherFile,
+        @Nullable SimulationResultCache.Key key) {
+      this.request = request;
+      this.weatherSource = weatherSource;
+      this.weatherFile = weatherFile;
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of a {@link SimulationCoalescer}. */
+@AutoValue
+public abstract class CoalescingStats {
+
+  CoalescingStats() {}
+
+  /** The number of simulations that were run. */
+  public abstract long getExecutionCount();
+
+  /**
+   * The number of requests that waited for an identical simulation already running, rather than
+   * running their own; that is, the number of executions saved.
+   */
+  public abstract long getCoalescedCount();
+
+  /** The number of simulations running now. */
+  public abstract long getInFlightCount();
+
+  static Builder builder() {
+    return new AutoValue_CoalescingStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setExecutionCount(long executionCount);
+
+    abstract Builder setCoalescedCount(long coalescedCount);
+
+    abstract Builder setInFlightCount(long inFlightCount);
+
+    abstract CoalescingStats build();
+  }
+}
@@ -0,0 +1,41 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+@AutoValue
+public abstract class NearbyStationsRequest {
+
+  NearbyStationsRequest() {}
+
+  public abstract @Nullable Float getLat();
+
+  public abstract @Nullable Float getLon();
+
+  public abstract @Nullable String getDataset();
+
+  public abstract @Nullable Integer getLimit();
+
+  public abstract @Nullable Integer getRadius();
+
+  public abstract Builder toBuilder();
+
+  public static Builder builder() {
+    return new AutoValue_NearbyStationsRequest.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder setLat(@Nullable Float lat);
+
+    public abstract Builder setLon(@Nullable Float lon);
+
+    public abstract Builder setDataset(@Nullable String dataset);
+
+    public abstract Builder setLimit(@Nullable Integer limit);
+
+    public abstract Builder setRadius(@Nullable Integer radius);
+
+    public abstract NearbyStationsRequest build();
+  }
+}
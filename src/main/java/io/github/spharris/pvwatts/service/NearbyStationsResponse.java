@@ -0,0 +1,51 @@
+package io.github.spharris.pvwatts.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.github.spharris.pvwatts.service.weather.NearbyStation;
+import io.github.spharris.pvwatts.utils.ImmutableMultimapSerializer;
+import javax.annotation.Nullable;
+
+@AutoValue
+@JsonInclude(Include.NON_NULL)
+public abstract class NearbyStationsResponse {
+
+  NearbyStationsResponse() {}
+
+  @JsonSerialize(using = ImmutableMultimapSerializer.class)
+  public abstract @Nullable ImmutableMultimap<String, String> getInputs();
+
+  public abstract @Nullable ImmutableList<String> getErrors();
+
+  public abstract @Nullable String getDataset();
+
+  /** The matching stations, closest first. */
+  public abstract @Nullable ImmutableList<NearbyStation> getStations();
+
+  public static Builder builder() {
+    return new AutoValue_NearbyStationsResponse.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setErrors(String... errors);
+
+    public abstract Builder setErrors(ImmutableList<String> errors);
+
+    public abstract Builder setDataset(String dataset);
+
+    public abstract Builder setStations(ImmutableList<NearbyStation> stations);
+
+    @JsonIgnore
+    public abstract Builder setInputs(Multimap<String, String> inputs);
+
+    public abstract NearbyStationsResponse build();
+  }
+}
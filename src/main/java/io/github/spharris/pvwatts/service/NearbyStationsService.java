@@ -0,0 +1,129 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import io.github.spharris.pvwatts.service.weather.BackgroundWeatherSource;
+import io.github.spharris.pvwatts.service.weather.NearbyStationSource;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.pvwatts.service.weather.WeatherSourceUnavailableException;
+import io.github.spharris.pvwatts.utils.RequestConverter;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+
+/**
+ * Lists the weather stations near a location, straight from the weather sources' indexes. Nothing
+ * is simulated, so this is cheap enough to call for every site in a portfolio, e.g. to group sites
+ * that share a station before simulating them.
+ */
+public final class NearbyStationsService {
+
+  /** The most stations a single request can return. */
+  static final int MAX_LIMIT = 1000;
+
+  private static final NearbyStationsRequest DEFAULT_REQUEST =
+      NearbyStationsRequest.builder().setDataset("tmy2").setLimit(10).setRadius(0).build();
+
+  private final ImmutableMap<String, WeatherSource> weatherSources;
+
+  @Inject
+  NearbyStationsService(Map<String, WeatherSource> weatherSources) {
+    this.weatherSources = ImmutableMap.copyOf(weatherSources);
+  }
+
+  public NearbyStationsResponse execute(ImmutableMultimap<String, String> parameters) {
+    return executeWithResponse(
+        setDefaults(RequestConverter.toNearbyStationsRequest(parameters)),
+        NearbyStationsResponse.builder().setInputs(parameters));
+  }
+
+  public NearbyStationsResponse execute(NearbyStationsRequest request) {
+    return executeWithResponse(setDefaults(request), NearbyStationsResponse.builder());
+  }
+
+  private NearbyStationsResponse executeWithResponse(
+      NearbyStationsRequest request, NearbyStationsResponse.Builder response) {
+    ImmutableList<String> errors = validate(request);
+    if (!errors.isEmpty()) {
+      return response.setErrors(errors).build();
+    }
+
+    WeatherSource weatherSource = weatherSources.get(request.getDataset());
+    if (weatherSource == null) {
+      return response
+          .setErrors(String.format("Unknown weather dataset %s", request.getDataset()))
+          .build();
+    }
+
+    try {
+      Optional<NearbyStationSource> nearbyStationSource = nearbyStationSource(weatherSource);
+      if (!nearbyStationSource.isPresent()) {
+        return response
+            .setErrors(
+                String.format(
+                    "Weather dataset %s can't list nearby stations", request.getDataset()))
+            .build();
+      }
+
+      return response
+          .setDataset(request.getDataset())
+          .setStations(
+              nearbyStationSource
+                  .get()
+                  .getNearbyStations(
+                      request.getLat(), request.getLon(), request.getLimit(), request.getRadius()))
+          .setErrors(ImmutableList.of())
+          .build();
+    } catch (WeatherSourceUnavailableException e) {
+      return response.setErrors(e.getMessage()).build();
+    }
+  }
+
+  /** Returns <code>source</code>, or the source it loads, if it can list nearby stations. */
+  private static Optional<NearbyStationSource> nearbyStationSource(WeatherSource source) {
+    if (source instanceof BackgroundWeatherSource) {
+      return ((BackgroundWeatherSource) source).getNearbyStationSource();
+    }
+
+    return source instanceof NearbyStationSource
+        ? Optional.of((NearbyStationSource) source)
+        : Optional.empty();
+  }
+
+  private static ImmutableList<String> validate(NearbyStationsRequest request) {
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    if (request.getLat() == null || request.getLat() < -90 || request.getLat() > 90) {
+      errors.add("lat must be a number between -90 and 90");
+    }
+    if (request.getLon() == null || request.getLon() < -180 || request.getLon() > 180) {
+      errors.add("lon must be a number between -180 and 180");
+    }
+    if (request.getLimit() == null || request.getLimit() < 1 || request.getLimit() > MAX_LIMIT) {
+      errors.add(String.format("limit must be a whole number between 1 and %d", MAX_LIMIT));
+    }
+    if (request.getRadius() == null || request.getRadius() < 0) {
+      errors.add("radius must be a whole number of miles, or 0 for no limit");
+    }
+
+    return errors.build();
+  }
+
+  /**
+   * Set default values on the request if they're not already set. A radius without a limit returns
+   * every station within the radius (up to {@link #MAX_LIMIT}).
+   */
+  private static NearbyStationsRequest setDefaults(NearbyStationsRequest request) {
+    Integer defaultLimit =
+        request.getRadius() != null && request.getRadius() > 0
+            ? MAX_LIMIT
+            : DEFAULT_REQUEST.getLimit();
+
+    return request
+        .toBuilder()
+        .setDataset(Optional.ofNullable(request.getDataset()).orElse(DEFAULT_REQUEST.getDataset()))
+        .setLimit(Optional.ofNullable(request.getLimit()).orElse(defaultLimit))
+        .setRadius(Optional.ofNullable(request.getRadius()).orElse(DEFAULT_REQUEST.getRadius()))
+        .build();
+  }
+}
@@ -0,0 +1,231 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import io.github.spharris.pvwatts.service.OrientationRequest.Objective;
+import io.github.spharris.pvwatts.service.PvWatts5Response.Outputs;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Inject;
+
+/**
+ * Finds the best tilt and azimuth for a PvWatts5 system by simulating it over a grid of
+ * orientations, then over finer grids around the best point found so far. Each pass is run as one
+ * {@link PvWatts5Service#executeBatch batch}, so its points are simulated in parallel and the
+ * location's weather is only looked up and set up once. Points already simulated by an earlier
+ * pass aren't run again.
+ */
+public final class OrientationOptimizer {
+
+  /** How much finer each refinement's grid is than the one before it. */
+  static final int REFINEMENT_FACTOR = 4;
+
+  private static final float TOLERANCE = 0.001f;
+
+  private final PvWatts5Service service;
+
+  @Inject
+  public OrientationOptimizer(PvWatts5Service service) {
+    this.service = service;
+  }
+
+  /**
+   * Searches for the orientation that maximizes the request's objective.
+   *
+   * @throws java.lang.IllegalArgumentException if the bounds, steps or month are invalid.
+   */
+  public OrientationResult optimize(OrientationRequest request) {
+    checkRequest(request);
+
+    boolean fullCircle = request.getMaxAzimuth() - request.getMinAzimuth() >= 360f;
+    List<Float> tilts =
+        axis(request.getMinTilt(), request.getMaxTilt(), request.getTiltStep(), false);
+    List<Float> azimuths =
+        axis(
+            request.getMinAzimuth(),
+            request.getMaxAzimuth(),
+            request.getAzimuthStep(),
+            fullCircle);
+    float tiltStep = request.getTiltStep();
+    float azimuthStep = request.getAzimuthStep();
+
+    Map<List<Float>, OrientationPoint> surface = new LinkedHashMap<>();
+    Set<List<Float>> evaluated = new LinkedHashSet<>();
+    Set<String> errors = new LinkedHashSet<>();
+    OrientationPoint best = null;
+    for (int pass = 0; pass <= request.getRefinements(); pass++) {
+      List<List<Float>> candidates = new ArrayList<>();
+      for (float tilt : tilts) {
+        for (float azimuth : azimuths) {
+          List<Float> candidate = Arrays.asList(tilt, azimuth);
+          if (evaluated.add(candidate)) {
+            candidates.add(candidate);
+          }
+        }
+      }
+
+      evaluate(request, candidates, surface, errors);
+
+      best = best(surface.values());
+      if (best == null) {
+        break;
+      }
+
+      tiltStep /= REFINEMENT_FACTOR;
+      azimuthStep /= REFINEMENT_FACTOR;
+      tilts =
+          around(best.getTilt(), tiltStep, request.getMinTilt(), request.getMaxTilt(), false);
+      azimuths =
+          around(
+              best.getAzimuth(),
+              azimuthStep,
+              request.getMinAzimuth(),
+              request.getMaxAzimuth(),
+              fullCircle);
+    }
+
+    return OrientationResult.create(
+        best,
+        ImmutableList.copyOf(surface.values()),
+        ImmutableList.copyOf(errors),
+        evaluated.size());
+  }
+
+  private void evaluate(
+      OrientationRequest request,
+      List<List<Float>> candidates,
+      Map<List<Float>, OrientationPoint> surface,
+      Set<String> errors) {
+    List<PvWatts5Request> requests = new ArrayList<>();
+    for (List<Float> candidate : candidates) {
+      requests.add(
+          request
+              .getSystem()
+              .toBuilder()
+              .setTilt(candidate.get(0))
+              .setAzimuth(candidate.get(1))
+              .setTimeframe("monthly")
+              .build());
+    }
+
+    ImmutableList<PvWatts5Response> responses = service.executeBatch(requests);
+    for (int i = 0; i < candidates.size(); i++) {
+      PvWatts5Response response = responses.get(i);
+      if (response.getErrors() != null && !response.getErrors().isEmpty()) {
+        errors.addAll(response.getErrors());
+        continue;
+      }
+
+      List<Float> candidate = candidates.get(i);
+      surface.put(
+          candidate,
+          OrientationPoint.create(
+              candidate.get(0), candidate.get(1), value(request, response.getOutputs())));
+    }
+  }
+
+  private static float value(OrientationRequest request, Outputs outputs) {
+    switch (request.getObjective()) {
+      case MONTHLY_AC:
+        return outputs.getAcMonthly().get(request.getMonth() - 1);
+      case CAPACITY_FACTOR:
+        return outputs.getCapacityFactor();
+      case ANNUAL_AC:
+      default:
+        return outputs.getAcAnnual();
+    }
+  }
+
+  /** The point with the highest value, or the first of them if several tie. */
+  private static OrientationPoint best(Iterable<OrientationPoint> points) {
+    OrientationPoint best = null;
+    for (OrientationPoint point : points) {
+      if (best == null || point.getValue() > best.getValue()) {
+        best = point;
+      }
+    }
+
+    return best;
+  }
+
+  /**
+   * The values from <code>min</code> to <code>max</code>, <code>step</code> apart. A full circle
+   * of azimuths doesn't repeat its start.
+   */
+  static ImmutableList<Float> axis(float min, float max, float step, boolean fullCircle) {
+    ImmutableList.Builder<Float> values = ImmutableList.builder();
+    for (int i = 0; ; i++) {
+      float value = min + i * step;
+      if (value > max + TOLERANCE || (fullCircle && value > min + 360f - TOLERANCE)) {
+        break;
+      }
+
+      values.add(round(fullCircle ? wrap(value) : value));
+    }
+
+    return values.build();
+  }
+
+  /**
+   * The values <code>step</code> apart around <code>center</code>, out to the previous pass's
+   * step on either side. Values past <code>min</code> or <code>max</code> are dropped, unless the
+   * azimuths span a full circle, in which case they wrap around.
+   */
+  static ImmutableList<Float> around(
+      float center, float step, float min, float max, boolean fullCircle) {
+    ImmutableList.Builder<Float> values = ImmutableList.builder();
+    for (int i = -REFINEMENT_FACTOR; i <= REFINEMENT_FACTOR; i++) {
+      float value = center + i * step;
+      if (fullCircle) {
+        values.add(round(wrap(value)));
+      } else if (value >= min - TOLERANCE && value <= max + TOLERANCE) {
+        values.add(round(value));
+      }
+    }
+
+    return values.build();
+  }
+
+  private static float wrap(float azimuth) {
+    return ((azimuth % 360f) + 360f) % 360f;
+  }
+
+  /** Rounds to the nearest thousandth of a degree, so that passes line up with each other. */
+  private static float round(float value) {
+    // Adding 0 folds -0 into 0
+    return Math.round(value * 1000f) / 1000f + 0f;
+  }
+
+  private static void checkRequest(OrientationRequest request) {
+    checkNotNull(request);
+    checkArgument(
+        request.getMinTilt() >= 0 && request.getMaxTilt() <= 90,
+        "The tilt must be between 0 and 90 degrees.");
+    checkArgument(
+        request.getMinTilt() <= request.getMaxTilt(),
+        "The minimum tilt must not be greater than the maximum.");
+    checkArgument(
+        request.getMinAzimuth() >= 0 && request.getMaxAzimuth() <= 360,
+        "The azimuth must be between 0 and 360 degrees.");
+    checkArgument(
+        request.getMinAzimuth() <= request.getMaxAzimuth(),
+        "The minimum azimuth must not be greater than the maximum.");
+    checkArgument(
+        request.getTiltStep() > 0 && request.getAzimuthStep() > 0,
+        "The tilt and azimuth steps must be > 0.");
+    checkArgument(request.getRefinements() >= 0, "The number of refinements must be >= 0.");
+    checkArgument(
+        (request.getObjective() == Objective.MONTHLY_AC) == (request.getMonth() != null),
+        "A month must be given for, and only for, the MONTHLY_AC objective.");
+    checkArgument(
+        request.getMonth() == null || (request.getMonth() >= 1 && request.getMonth() <= 12),
+        "The month must be between 1 and 12.");
+  }
+}
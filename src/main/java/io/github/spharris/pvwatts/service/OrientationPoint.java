@@ -0,0 +1,20 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+
+/** A tilt and azimuth, and the value of the objective there. */
+@AutoValue
+public abstract class OrientationPoint {
+
+  OrientationPoint() {}
+
+  public abstract float getTilt();
+
+  public abstract float getAzimuth();
+
+  public abstract float getValue();
+
+  public static OrientationPoint create(float tilt, float azimuth, float value) {
+    return new AutoValue_OrientationPoint(tilt, azimuth, value);
+  }
+}
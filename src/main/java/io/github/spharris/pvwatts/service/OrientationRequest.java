@@ -0,0 +1,98 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+/**
+ * A search for the tilt and azimuth that give the best result for a system at one location. The
+ * system's own tilt and azimuth are ignored.
+ *
+ * <p>The first pass evaluates a grid over the bounds, <tt>tiltStep</tt> and
+ * <tt>azimuthStep</tt> degrees apart. Each refinement then evaluates a grid with a quarter of the
+ * spacing around the best point so far, out to one step of the previous grid in each direction.
+ */
+@AutoValue
+public abstract class OrientationRequest {
+
+  /** What the optimizer maximizes. */
+  public enum Objective {
+    /** Annual AC output. */
+    ANNUAL_AC,
+    /** AC output in the request's month. */
+    MONTHLY_AC,
+    /** Capacity factor. */
+    CAPACITY_FACTOR
+  }
+
+  OrientationRequest() {}
+
+  /** The system and location to optimize. */
+  public abstract PvWatts5Request getSystem();
+
+  public abstract Objective getObjective();
+
+  /** The month to maximize, from 1 to 12, for {@link Objective#MONTHLY_AC}. */
+  public abstract @Nullable Integer getMonth();
+
+  public abstract float getMinTilt();
+
+  public abstract float getMaxTilt();
+
+  public abstract float getTiltStep();
+
+  /**
+   * The lowest azimuth to consider. If the bounds span a full circle the search wraps around, so
+   * any azimuth can be chosen.
+   */
+  public abstract float getMinAzimuth();
+
+  public abstract float getMaxAzimuth();
+
+  public abstract float getAzimuthStep();
+
+  /** The number of passes to run after the first. */
+  public abstract int getRefinements();
+
+  public abstract Builder toBuilder();
+
+  /**
+   * A builder that maximizes annual AC output over every tilt from 0 to 90 degrees and every
+   * azimuth, starting with a 10 by 30 degree grid and refining it twice.
+   */
+  public static Builder builder() {
+    return new AutoValue_OrientationRequest.Builder()
+        .setObjective(Objective.ANNUAL_AC)
+        .setMinTilt(0f)
+        .setMaxTilt(90f)
+        .setTiltStep(10f)
+        .setMinAzimuth(0f)
+        .setMaxAzimuth(360f)
+        .setAzimuthStep(30f)
+        .setRefinements(2);
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder setSystem(PvWatts5Request system);
+
+    public abstract Builder setObjective(Objective objective);
+
+    public abstract Builder setMonth(@Nullable Integer month);
+
+    public abstract Builder setMinTilt(float minTilt);
+
+    public abstract Builder setMaxTilt(float maxTilt);
+
+    public abstract Builder setTiltStep(float tiltStep);
+
+    public abstract Builder setMinAzimuth(float minAzimuth);
+
+    public abstract Builder setMaxAzimuth(float maxAzimuth);
+
+    public abstract Builder setAzimuthStep(float azimuthStep);
+
+    public abstract Builder setRefinements(int refinements);
+
+    public abstract OrientationRequest build();
+  }
+}
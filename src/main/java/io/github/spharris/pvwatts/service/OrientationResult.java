@@ -0,0 +1,32 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import javax.annotation.Nullable;
+
+/** The outcome of an {@link OrientationRequest}. */
+@AutoValue
+public abstract class OrientationResult {
+
+  OrientationResult() {}
+
+  /** The point with the highest value, or null if no simulation succeeded. */
+  public abstract @Nullable OrientationPoint getBest();
+
+  /** Every point that was simulated successfully, in the order they were evaluated. */
+  public abstract ImmutableList<OrientationPoint> getSurface();
+
+  /** The distinct errors from simulations that failed. */
+  public abstract ImmutableList<String> getErrors();
+
+  /** The number of points that were simulated, including any that failed. */
+  public abstract int getEvaluationCount();
+
+  static OrientationResult create(
+      @Nullable OrientationPoint best,
+      ImmutableList<OrientationPoint> surface,
+      ImmutableList<String> errors,
+      int evaluationCount) {
+    return new AutoValue_OrientationResult(best, surface, errors, evaluationCount);
+  }
+}
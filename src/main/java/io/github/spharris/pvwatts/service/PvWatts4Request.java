@@ -40,6 +40,12 @@ public abstract class PvWatts4Request {
 
   public abstract @Nullable String getCallback();
 
+  /**
+   * Whether the result may be served from, and stored in, the {@link SimulationResultCache}. Null
+   * means <tt>true</tt>.
+   */
+  public abstract @Nullable Boolean getCache();
+
   public abstract Builder toBuilder();
 
   public static Builder builder() {
@@ -80,6 +86,8 @@ public abstract class PvWatts4Request {
 
     public abstract Builder setCallback(@Nullable String callback);
 
+    public abstract Builder setCache(@Nullable Boolean cache);
+
     public abstract PvWatts4Request build();
   }
 }
@@ -42,6 +42,12 @@ public abstract class PvWatts5Request {
 
   public abstract @Nullable String getCallback();
 
+  /**
+   * Whether the result may be served from, and stored in, the {@link SimulationResultCache}. Null
+   * means <tt>true</tt>.
+   */
+  public abstract @Nullable Boolean getCache();
+
   public abstract Builder toBuilder();
 
   public static Builder builder() {
@@ -84,6 +90,8 @@ public abstract class PvWatts5Request {
 
     public abstract Builder setCallback(@Nullable String callback);
 
+    public abstract Builder setCache(@Nullable Boolean cache);
+
     public abstract PvWatts5Request build();
   }
 }
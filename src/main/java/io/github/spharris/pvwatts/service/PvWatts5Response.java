@@ -11,7 +11,11 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Multimap;
+import io.github.spharris.pvwatts.utils.FloatArrayDeserializer;
+import io.github.spharris.pvwatts.utils.FloatArraySerializer;
 import io.github.spharris.pvwatts.utils.ImmutableMultimapSerializer;
+import io.github.spharris.ssc.utils.FloatArray;
+import java.util.List;
 import javax.annotation.Nullable;
 
 @AutoValue
@@ -38,6 +42,8 @@ public abstract class PvWatts5Response {
   @JsonProperty("station_info")
   public abstract @Nullable StationInfo getStationInfo();
 
+  public abstract Builder toBuilder();
+
   public static Builder builder() {
     return new AutoValue_PvWatts5Response.Builder();
   }
@@ -157,30 +163,104 @@ public abstract class PvWatts5Response {
   @JsonDeserialize(builder = AutoValue_PvWatts5Response_Outputs.Builder.class)
   public abstract static class Outputs {
 
-    public abstract @Nullable ImmutableList<Float> getAc();
+    @JsonIgnore
+    public @Nullable List<Float> getAc() {
+      return getAcValues();
+    }
+
+    @JsonProperty("ac")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getAcValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getPoa() {
+      return getPoaValues();
+    }
+
+    @JsonProperty("poa")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getPoaValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getDn() {
+      return getDnValues();
+    }
+
+    @JsonProperty("dn")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getDnValues();
 
-    public abstract @Nullable ImmutableList<Float> getPoa();
+    @JsonIgnore
+    public @Nullable List<Float> getDc() {
+      return getDcValues();
+    }
+
+    @JsonProperty("dc")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getDcValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getDf() {
+      return getDfValues();
+    }
 
-    public abstract @Nullable ImmutableList<Float> getDn();
+    @JsonProperty("df")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getDfValues();
 
-    public abstract @Nullable ImmutableList<Float> getDc();
+    @JsonIgnore
+    public @Nullable List<Float> getTamb() {
+      return getTambValues();
+    }
 
-    public abstract @Nullable ImmutableList<Float> getDf();
+    @JsonProperty("tamb")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getTambValues();
 
-    public abstract @Nullable ImmutableList<Float> getTamb();
+    @JsonIgnore
+    public @Nullable List<Float> getTcell() {
+      return getTcellValues();
+    }
 
-    public abstract @Nullable ImmutableList<Float> getTcell();
+    @JsonProperty("tcell")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getTcellValues();
 
-    public abstract @Nullable ImmutableList<Float> getWspd();
+    @JsonIgnore
+    public @Nullable List<Float> getWspd() {
+      return getWspdValues();
+    }
+
+    @JsonProperty("wspd")
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getWspdValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getPoaMonthly() {
+      return getPoaMonthlyValues();
+    }
 
     @JsonProperty("poa_monthly")
-    public abstract @Nullable ImmutableList<Float> getPoaMonthly();
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getPoaMonthlyValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getDcMonthly() {
+      return getDcMonthlyValues();
+    }
 
     @JsonProperty("dc_monthly")
-    public abstract @Nullable ImmutableList<Float> getDcMonthly();
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getDcMonthlyValues();
+
+    @JsonIgnore
+    public @Nullable List<Float> getAcMonthly() {
+      return getAcMonthlyValues();
+    }
 
     @JsonProperty("ac_monthly")
-    public abstract @Nullable ImmutableList<Float> getAcMonthly();
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getAcMonthlyValues();
 
     @JsonProperty("ac_annual")
     public abstract @Nullable Float getAcAnnual();
@@ -191,8 +271,14 @@ public abstract class PvWatts5Response {
     @JsonProperty("capacity_factor")
     public abstract @Nullable Float getCapacityFactor();
 
+    @JsonIgnore
+    public @Nullable List<Float> getSolradMonthly() {
+      return getSolradMonthlyValues();
+    }
+
     @JsonProperty("solrad_monthly")
-    public abstract @Nullable ImmutableList<Float> getSolradMonthly();
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public abstract @Nullable FloatArray getSolradMonthlyValues();
 
     public static Builder builder() {
       return new AutoValue_PvWatts5Response_Outputs.Builder();
@@ -202,36 +288,116 @@ public abstract class PvWatts5Response {
     @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "set")
     public abstract static class Builder {
 
-      public abstract Builder setAc(Iterable<Float> ac);
-
-      public abstract Builder setPoa(Iterable<Float> poa);
-
-      public abstract Builder setDn(Iterable<Float> dn);
-
-      public abstract Builder setDc(Iterable<Float> dc);
-
-      public abstract Builder setDf(Iterable<Float> df);
-
-      public abstract Builder setTamb(Iterable<Float> tamb);
-
-      public abstract Builder setTcell(Iterable<Float> tcell);
-
-      public abstract Builder setWspd(Iterable<Float> wspd);
+      @JsonIgnore
+      public Builder setAc(Iterable<Float> ac) {
+        return setAcValues(FloatArray.copyOf(ac));
+      }
+
+      @JsonProperty("ac")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setAcValues(FloatArray ac);
+
+      @JsonIgnore
+      public Builder setPoa(Iterable<Float> poa) {
+        return setPoaValues(FloatArray.copyOf(poa));
+      }
+
+      @JsonProperty("poa")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setPoaValues(FloatArray poa);
+
+      @JsonIgnore
+      public Builder setDn(Iterable<Float> dn) {
+        return setDnValues(FloatArray.copyOf(dn));
+      }
+
+      @JsonProperty("dn")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setDnValues(FloatArray dn);
+
+      @JsonIgnore
+      public Builder setDc(Iterable<Float> dc) {
+        return setDcValues(FloatArray.copyOf(dc));
+      }
+
+      @JsonProperty("dc")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setDcValues(FloatArray dc);
+
+      @JsonIgnore
+      public Builder setDf(Iterable<Float> df) {
+        return setDfValues(FloatArray.copyOf(df));
+      }
+
+      @JsonProperty("df")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setDfValues(FloatArray df);
+
+      @JsonIgnore
+      public Builder setTamb(Iterable<Float> tamb) {
+        return setTambValues(FloatArray.copyOf(tamb));
+      }
+
+      @JsonProperty("tamb")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setTambValues(FloatArray tamb);
+
+      @JsonIgnore
+      public Builder setTcell(Iterable<Float> tcell) {
+        return setTcellValues(FloatArray.copyOf(tcell));
+      }
+
+      @JsonProperty("tcell")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setTcellValues(FloatArray tcell);
+
+      @JsonIgnore
+      public Builder setWspd(Iterable<Float> wspd) {
+        return setWspdValues(FloatArray.copyOf(wspd));
+      }
+
+      @JsonProperty("wspd")
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setWspdValues(FloatArray wspd);
+
+      @JsonIgnore
+      public Builder setPoaMonthly(Iterable<Float> poaMonthly) {
+        return setPoaMonthlyValues(FloatArray.copyOf(poaMonthly));
+      }
 
       @JsonProperty("poa_monthly")
-      public abstract Builder setPoaMonthly(Iterable<Float> poaMonthly);
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setPoaMonthlyValues(FloatArray poaMonthly);
+
+      @JsonIgnore
+      public Builder setSolradMonthly(Iterable<Float> solradMonthly) {
+        return setSolradMonthlyValues(FloatArray.copyOf(solradMonthly));
+      }
 
       @JsonProperty("solrad_monthly")
-      public abstract Builder setSolradMonthly(Iterable<Float> solradMonthly);
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setSolradMonthlyValues(FloatArray solradMonthly);
 
       @JsonProperty("capacity_factor")
       public abstract Builder setCapacityFactor(Float capacityFactor);
 
+      @JsonIgnore
+      public Builder setDcMonthly(Iterable<Float> dcMonthly) {
+        return setDcMonthlyValues(FloatArray.copyOf(dcMonthly));
+      }
+
       @JsonProperty("dc_monthly")
-      public abstract Builder setDcMonthly(Iterable<Float> dcMonthly);
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setDcMonthlyValues(FloatArray dcMonthly);
+
+      @JsonIgnore
+      public Builder setAcMonthly(Iterable<Float> acMonthly) {
+        return setAcMonthlyValues(FloatArray.copyOf(acMonthly));
+      }
 
       @JsonProperty("ac_monthly")
-      public abstract Builder setAcMonthly(Iterable<Float> acMonthly);
+      @JsonDeserialize(using = FloatArrayDeserializer.class)
+      public abstract Builder setAcMonthlyValues(FloatArray acMonthly);
 
       @JsonProperty("ac_annual")
       public abstract Builder setAcAnnual(Float acAnnual);
@@ -1,6 +1,8 @@
 package io.github.spharris.pvwatts.service;
 
+import static io.github.spharris.pvwatts.service.SimulationResultCache.canonical;
 import static io.github.spharris.ssc.ExecutionHandlers.messageLoggingHandler;
+import static io.github.spharris.ssc.ExecutionHandlers.replay;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -8,15 +10,25 @@ import com.google.common.collect.ImmutableMultimap;
 import io.github.spharris.pvwatts.service.PvWatts5Response.Outputs;
 import io.github.spharris.pvwatts.service.PvWatts5Response.SscInfo;
 import io.github.spharris.pvwatts.service.PvWatts5Response.StationInfo;
+import io.github.spharris.pvwatts.service.weather.WeatherData;
 import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.pvwatts.service.weather.WeatherSourceUnavailableException;
 import io.github.spharris.pvwatts.utils.RequestConverter;
 import io.github.spharris.ssc.DataContainer;
-import io.github.spharris.ssc.SimulationRunner;
 import io.github.spharris.ssc.SscModule;
+import io.github.spharris.ssc.SscModuleRegistry;
+import io.github.spharris.ssc.utils.SscVariable;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 
 /** A service for PvWatts5 (pvwattsv5) */
@@ -35,68 +47,266 @@ public final class PvWatts5Service {
           .setInvEff(96f)
           .build();
 
+  /** The inputs that come from the request, which are cleared between requests in a batch. */
+  private static final ImmutableList<SscVariable<?>> SYSTEM_VARIABLES =
+      ImmutableList.of(
+          Variables.SYSTEM_CAPACITY,
+          Variables.MODULE_TYPE,
+          Variables.LOSSES,
+          Variables.ARRAY_TYPE,
+          Variables.TILT,
+          Variables.AZIMUTH,
+          Variables.DC_AC_RATIO,
+          Variables.GCR,
+          Variables.INV_EFF);
+
   private final ImmutableMap<String, WeatherSource> weatherSources;
-  private final SimulationRunner runner;
+  private final TimedSimulationRunner runner;
+  private final SolarResources solarResources;
+  private final SimulationResultCache cache;
+  private final SimulationCoalescer coalescer;
+  private final BatchExecutor batchExecutor;
+  private final SscModuleRegistry registry;
 
   @Inject
-  PvWatts5Service(Map<String, WeatherSource> weatherSources, SimulationRunner runner) {
+  PvWatts5Service(
+      Map<String, WeatherSource> weatherSources,
+      TimedSimulationRunner runner,
+      SolarResources solarResources,
+      SimulationResultCache cache,
+      SimulationCoalescer coalescer,
+      BatchExecutor batchExecutor,
+      SscModuleRegistry registry) {
     this.weatherSources = ImmutableMap.copyOf(weatherSources);
     this.runner = runner;
+    this.solarResources = solarResources;
+    this.cache = cache;
+    this.coalescer = coalescer;
+    this.batchExecutor = batchExecutor;
+    this.registry = registry;
   }
 
   public PvWatts5Response execute(ImmutableMultimap<String, String> parameters) {
-    return executeWithResponse(
-        RequestConverter.toPvWatts5Request(parameters),
-        PvWatts5Response.builder().setInputs(parameters));
+    return executeWithCache(RequestConverter.toPvWatts5Request(parameters))
+        .toBuilder()
+        .setInputs(parameters)
+        .build();
   }
 
   public PvWatts5Response execute(PvWatts5Request request) {
-    return executeWithResponse(setDefaults(request), PvWatts5Response.builder());
+    return executeWithCache(setDefaults(request));
   }
 
-  private PvWatts5Response executeWithResponse(
-      PvWatts5Request request, PvWatts5Response.Builder response) {
-    return runner.run(
+  /**
+   * Runs many requests at once. Requests are grouped by the weather file they resolve to, and each
+   * group shares a module and its weather input (see {@link BatchExecutor}). Cached responses are
+   * used where there are any, and identical requests in the batch are only simulated once.
+   *
+   * @return A response for each request, in the same order. A request that couldn't be run gets a
+   *     response holding its errors, as from {@link #execute(PvWatts5Request)}.
+   */
+  public ImmutableList<PvWatts5Response> executeBatch(List<PvWatts5Request> requests) {
+    PvWatts5Response[] responses = new PvWatts5Response[requests.size()];
+    BatchExecutor.Batch<PvWatts5Request> batch = new BatchExecutor.Batch<>();
+    // Batches often hold many systems at one location, which only need looking up once
+    Map<List<Object>, String> weatherFiles = new HashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      PvWatts5Request request = setDefaults(requests.get(i));
+      WeatherSource weatherSource = weatherSources.get(request.getDataset());
+      if (weatherSource == null) {
+        responses[i] =
+            PvWatts5Response.builder()
+                .setErrors(String.format("Unknown weather dataset %s", request.getDataset()))
+                .build();
+        continue;
+      }
+
+      List<Object> location =
+          Arrays.asList(
+              request.getDataset(), request.getLat(), request.getLon(), request.getRadius());
+      String weatherFile = weatherFiles.get(location);
+      if (weatherFile == null) {
+        try {
+          weatherFile =
+              weatherSource.getWeatherFile(request.getLat(), request.getLon(), request.getRadius());
+        } catch (WeatherSourceUnavailableException e) {
+          responses[i] = PvWatts5Response.builder().setErrors(e.getMessage()).build();
+          continue;
+        }
+        weatherFiles.put(location, weatherFile);
+      }
+
+      Optional<String> unsupported =
+          solarResources.checkSupported(
+              MODULE_NAME, request.getDataset(), weatherSource, weatherFile);
+      if (unsupported.isPresent()) {
+        responses[i] = PvWatts5Response.builder().setErrors(unsupported.get()).build();
+        continue;
+      }
+
+      SimulationResultCache.Key key = null;
+      if (!Boolean.FALSE.equals(request.getCache())) {
+        key = cacheKey(request, weatherFile);
+        Optional<PvWatts5Response> cached = cache.get(key, PvWatts5Response.class);
+        if (cached.isPresent()) {
+          responses[i] = cached.get();
+          continue;
+        }
+      }
+
+      batch.add(i, request, weatherSource, weatherFile, key);
+    }
+
+    batchExecutor.run(
         MODULE_NAME,
-        (module, data) -> {
+        batch,
+        (module, data, group) -> {
           setRequiredValues(data);
-          Variables.SOLAR_RESOURCE_FILE.set(
-              weatherSources
-                  .get(request.getDataset())
-                  .getWeatherFile(request.getLat(), request.getLon(), request.getRadius()),
-              data);
-          Variables.SYSTEM_CAPACITY.set(request.getSystemCapacity(), data);
-          Variables.MODULE_TYPE.set(request.getModuleType(), data);
-          Variables.LOSSES.set(request.getLosses(), data);
-          Variables.ARRAY_TYPE.set(request.getArrayType(), data);
-          Variables.TILT.set(request.getTilt(), data);
-          Variables.AZIMUTH.set(request.getAzimuth(), data);
-          Variables.DC_AC_RATIO.set(request.getDcAcRatio(), data);
-          Variables.GCR.set(request.getGcr(), data);
-          Variables.INV_EFF.set(request.getInvEff(), data);
-
-          ImmutableList.Builder<String> errorListBuilder = ImmutableList.builder();
-          ImmutableList.Builder<String> warningListBuilder = ImmutableList.builder();
-          module.execute(data, messageLoggingHandler(errorListBuilder, warningListBuilder));
-
-          ImmutableList<String> errors = errorListBuilder.build();
-          if (errors.isEmpty()) {
-            buildResponse(module, data, request, response);
+          Optional<WeatherData> weather =
+              solarResources.set(module, data, group.weatherSource, group.weatherFile);
+          for (BatchExecutor.Item<PvWatts5Request> item : group.items) {
+            PvWatts5Response response;
+            try {
+              response = simulate(module, data, item.request, item.weatherFile, weather);
+            } catch (RuntimeException e) {
+              response = failed(e);
+            }
+
+            if (item.key != null && response.getErrors().isEmpty()) {
+              cache.put(item.key, response, countValues(response.getOutputs()));
+            }
+            for (int index : item.indices) {
+              responses[index] = response;
+            }
+
+            for (SscVariable<?> variable : SYSTEM_VARIABLES) {
+              data.unassign(variable.getName());
+            }
+          }
+        },
+        (group, e) -> {
+          PvWatts5Response response = failed(e);
+          for (BatchExecutor.Item<PvWatts5Request> item : group.items) {
+            for (int index : item.indices) {
+              if (responses[index] == null) {
+                responses[index] = response;
+              }
+            }
           }
+        });
+
+    return ImmutableList.copyOf(responses);
+  }
+
+  private PvWatts5Response executeWithCache(PvWatts5Request request) {
+    WeatherSource weatherSource = weatherSources.get(request.getDataset());
+    if (weatherSource == null) {
+      return PvWatts5Response.builder()
+          .setErrors(String.format("Unknown weather dataset %s", request.getDataset()))
+          .build();
+    }
+
+    String weatherFile;
+    try {
+      weatherFile =
+          weatherSource.getWeatherFile(request.getLat(), request.getLon(), request.getRadius());
+    } catch (WeatherSourceUnavailableException e) {
+      return PvWatts5Response.builder().setErrors(e.getMessage()).build();
+    }
+
+    Optional<String> unsupported =
+        solarResources.checkSupported(
+            MODULE_NAME, request.getDataset(), weatherSource, weatherFile);
+    if (unsupported.isPresent()) {
+      return PvWatts5Response.builder().setErrors(unsupported.get()).build();
+    }
+
+    if (Boolean.FALSE.equals(request.getCache())) {
+      return simulate(request, weatherSource, weatherFile);
+    }
+
+    SimulationResultCache.Key key = cacheKey(request, weatherFile);
+    Optional<PvWatts5Response> cached = cache.get(key, PvWatts5Response.class);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
 
-          response.setErrors(errors);
-          response.setWarnings(warningListBuilder.build());
+    // Identical requests that arrive while this one is running share its simulation
+    return coalescer.run(
+        key,
+        PvWatts5Response.class,
+        () -> {
+          PvWatts5Response response = simulate(request, weatherSource, weatherFile);
+          if (response.getErrors().isEmpty()) {
+            cache.put(key, response, countValues(response.getOutputs()));
+          }
 
-          return response.build();
+          return response;
         });
   }
 
+  private PvWatts5Response simulate(
+      PvWatts5Request request, WeatherSource weatherSource, String weatherFile) {
+    try {
+      return runner.run(
+          MODULE_NAME,
+          (module, data) -> {
+            setRequiredValues(data);
+            Optional<WeatherData> weather =
+                solarResources.set(module, data, weatherSource, weatherFile);
+            return simulate(module, data, request, weatherFile, weather);
+          });
+    } catch (TimeoutException | CancellationException | RejectedExecutionException e) {
+      return PvWatts5Response.builder().setErrors(e.getMessage()).build();
+    }
+  }
+
+  /** Runs <code>request</code> in <code>data</code>, which already holds the weather. */
+  private static PvWatts5Response simulate(
+      SscModule module,
+      DataContainer data,
+      PvWatts5Request request,
+      String weatherFile,
+      Optional<WeatherData> weather) {
+    Variables.SYSTEM_CAPACITY.set(request.getSystemCapacity(), data);
+    Variables.MODULE_TYPE.set(request.getModuleType(), data);
+    Variables.LOSSES.set(request.getLosses(), data);
+    Variables.ARRAY_TYPE.set(request.getArrayType(), data);
+    Variables.TILT.set(request.getTilt(), data);
+    Variables.AZIMUTH.set(request.getAzimuth(), data);
+    Variables.DC_AC_RATIO.set(request.getDcAcRatio(), data);
+    Variables.GCR.set(request.getGcr(), data);
+    Variables.INV_EFF.set(request.getInvEff(), data);
+
+    ImmutableList.Builder<String> errorListBuilder = ImmutableList.builder();
+    ImmutableList.Builder<String> warningListBuilder = ImmutableList.builder();
+    replay(
+        module.executeAndGetLog(data), messageLoggingHandler(errorListBuilder, warningListBuilder));
+
+    PvWatts5Response.Builder response = PvWatts5Response.builder();
+    ImmutableList<String> errors = errorListBuilder.build();
+    if (errors.isEmpty()) {
+      buildResponse(module, data, request, weatherFile, weather, response);
+    }
+
+    response.setErrors(errors);
+    response.setWarnings(warningListBuilder.build());
+
+    return response.build();
+  }
+
   /** Parameters that are always the same for every request, but are still required. */
   private static void setRequiredValues(DataContainer data) {
     Variables.ADJUST_CONSTANT.set(0f, data);
     Variables.ADJUST_FACTOR.set(0f, data);
   }
 
+  private static PvWatts5Response failed(Throwable e) {
+    return PvWatts5Response.builder()
+        .setErrors(String.format("The simulation failed: %s", e))
+        .build();
+  }
+
   /** Set default values on the request if they're not already set */
   private static PvWatts5Request setDefaults(PvWatts5Request request) {
     return request
@@ -112,10 +322,67 @@ public final class PvWatts5Service {
         .build();
   }
 
+  private SimulationResultCache.Key cacheKey(PvWatts5Request request, String weatherFile) {
+    return SimulationResultCache.Key.create(
+        MODULE_NAME,
+        registry.getSscVersion(),
+        request.getDataset(),
+        weatherFile,
+        normalize(request));
+  }
+
+  /**
+   * The request as the {@link SimulationResultCache} sees it: with its defaults, and without its
+   * location (which the weather file stands in for) or anything else that doesn't change the
+   * outputs.
+   */
+  private static PvWatts5Request normalize(PvWatts5Request request) {
+    PvWatts5Request withDefaults = setDefaults(request);
+    return withDefaults
+        .toBuilder()
+        .setAddress(null)
+        .setLat(null)
+        .setLon(null)
+        .setFileId(null)
+        .setDataset(null)
+        .setRadius(null)
+        .setCallback(null)
+        .setCache(null)
+        .setSystemCapacity(canonical(withDefaults.getSystemCapacity()))
+        .setLosses(canonical(withDefaults.getLosses()))
+        .setAzimuth(canonical(withDefaults.getAzimuth()))
+        .setTilt(canonical(withDefaults.getTilt()))
+        .setDcAcRatio(canonical(withDefaults.getDcAcRatio()))
+        .setGcr(canonical(withDefaults.getGcr()))
+        .setInvEff(canonical(withDefaults.getInvEff()))
+        .build();
+  }
+
+  private static int countValues(Outputs outputs) {
+    return Stream.of(
+            outputs.getAc(),
+            outputs.getPoa(),
+            outputs.getDn(),
+            outputs.getDc(),
+            outputs.getDf(),
+            outputs.getTamb(),
+            outputs.getTcell(),
+            outputs.getWspd(),
+            outputs.getPoaMonthly(),
+            outputs.getDcMonthly(),
+            outputs.getAcMonthly(),
+            outputs.getSolradMonthly())
+        .filter(Objects::nonNull)
+        .mapToInt(List::size)
+        .sum();
+  }
+
   private static void buildResponse(
       SscModule module,
       DataContainer data,
       PvWatts5Request request,
+      String weatherFile,
+      Optional<WeatherData> weather,
       PvWatts5Response.Builder response) {
     response
         .setVersion(SERVICE_VERSION)
@@ -130,11 +397,15 @@ public final class PvWatts5Service {
                 .setLon(Variables.LON.get(data))
                 .setElev(Variables.ELEV.get(data))
                 .setTz(Variables.TZ.get(data))
-                .setLocation(Variables.LOCATION.get(data))
-                .setCity(Variables.CITY.get(data))
-                .setState(Variables.STATE.get(data))
-                .setSolarResourceFile(
-                    Paths.get(Variables.SOLAR_RESOURCE_FILE.get(data)).getFileName().toString())
+                .setLocation(
+                    weather
+                        .map(WeatherData::getLocation)
+                        .orElseGet(() -> Variables.LOCATION.get(data)))
+                .setCity(
+                    weather.map(WeatherData::getCity).orElseGet(() -> Variables.CITY.get(data)))
+                .setState(
+                    weather.map(WeatherData::getState).orElseGet(() -> Variables.STATE.get(data)))
+                .setSolarResourceFile(Paths.get(weatherFile).getFileName().toString())
                 .build());
 
     Float acAnnual = Variables.AC_ANNUAL.get(data);
@@ -1,8 +1,11 @@
 package io.github.spharris.pvwatts.service;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import io.github.spharris.pvwatts.service.Annotations.ResultCacheSize;
 import io.github.spharris.pvwatts.service.weather.WeatherModule;
 import io.github.spharris.ssc.SscModuleFactory;
+import javax.inject.Singleton;
 
 /** Module for PvWatts services and dependencies */
 public final class PvWattsServiceModule extends AbstractModule {
@@ -15,5 +18,12 @@ public final class PvWattsServiceModule extends AbstractModule {
 
     bind(PvWatts4Service.class);
     bind(PvWatts5Service.class);
+    bind(NearbyStationsService.class);
+  }
+
+  @Provides
+  @Singleton
+  SimulationResultCache provideSimulationResultCache(@ResultCacheSize int sizeMb) {
+    return new SimulationResultCache(sizeMb);
   }
 }
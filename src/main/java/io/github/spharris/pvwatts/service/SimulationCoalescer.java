@@ -0,0 +1,77 @@
+package io.github.spharris.pvwatts.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Lets identical simulations that are running at the same time share one execution. The first
+ * request for a key runs the simulation; requests for the same key that arrive before it finishes
+ * wait for its future instead of starting their own, and get the same response (or exception).
+ * Nothing is kept once the simulation finishes; that's the {@link SimulationResultCache}'s job.
+ */
+@Singleton
+public final class SimulationCoalescer {
+
+  private final ConcurrentMap<SimulationResultCache.Key, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+  private final AtomicLong executionCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  @Inject
+  public SimulationCoalescer() {}
+
+  /**
+   * Runs <code>simulation</code>, unless a simulation for <code>key</code> is already running, in
+   * which case this waits for that one's result.
+   */
+  <T> T run(SimulationResultCache.Key key, Class<T> type, Supplier<T> simulation) {
+    CompletableFuture<Object> running = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, running);
+    if (existing != null) {
+      coalescedCount.incrementAndGet();
+      return type.cast(await(existing));
+    }
+
+    executionCount.incrementAndGet();
+    try {
+      T result = simulation.get();
+      running.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      running.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, running);
+    }
+  }
+
+  /** Counts of simulations run and of requests that shared another's simulation. */
+  public CoalescingStats stats() {
+    return CoalescingStats.builder()
+        .setExecutionCount(executionCount.get())
+        .setCoalescedCount(coalescedCount.get())
+        .setInFlightCount(inFlight.size())
+        .build();
+  }
+
+  private static Object await(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package io.github.spharris.pvwatts.service;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.File;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded cache of simulation responses. SSC is deterministic, so a response can be reused for
+ * any request that runs the same module, of the same SSC version, on the same weather file with the
+ * same system inputs. Entries are weighted by an estimate of their size, so a response with hourly
+ * outputs takes up as much of the cache as a few hundred with monthly ones, and are evicted
+ * least-recently-used first once the cache is full.
+ *
+ * <p>Only successful responses should be cached, and without their echoed inputs, which differ
+ * between requests that share a key.
+ *
+ * <p>{@link PvWattsServiceModule} provides the instance, sized from {@link
+ * Annotations.ResultCacheSize}.
+ */
+public final class SimulationResultCache {
+
+  /** The size of the cache if none is configured, in megabytes. */
+  public static final int DEFAULT_SIZE_MB = 64;
+
+  /** Roughly what a response costs before its outputs: the lists, station info and so on. */
+  private static final int ENTRY_OVERHEAD_BYTES = 2048;
+
+  /** A float in an output array. */
+  private static final int BYTES_PER_VALUE = 4;
+
+  private final Cache<Key, Entry> cache;
+  private final boolean enabled;
+
+  /** Creates a cache holding up to <code>sizeMb</code> megabytes. A size of 0 disables it. */
+  public SimulationResultCache(int sizeMb) {
+    this.enabled = sizeMb > 0;
+    this.cache =
+        CacheBuilder.newBuilder()
+            // A single segment, so the limit applies to the whole cache rather than being split
+            // between segments (which would turn away a large hourly response well under it)
+            .concurrencyLevel(1)
+            .maximumWeight(sizeMb * 1024L * 1024L)
+            .<Key, Entry>weigher((key, entry) -> entry.weight)
+            .recordStats()
+            .build();
+  }
+
+  /** The response cached for <code>key</code>, if there is one and it is a <code>type</code>. */
+  <T> Optional<T> get(Key key, Class<T> type) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null || !type.isInstance(entry.response)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(type.cast(entry.response));
+  }
+
+  /**
+   * Caches <code>response</code> for <code>key</code>.
+   *
+   * @param valueCount The number of values in the response's outputs, which it is weighed by.
+   */
+  void put(Key key, Object response, int valueCount) {
+    if (enabled) {
+      cache.put(key, new Entry(response, valueCount));
+    }
+  }
+
+  /** Hit, miss and eviction counts for the cache. Requests that opt out aren't counted. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** The number of responses currently cached. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Drops every cached response. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Replaces negative zero, which parses from "-0" but runs the same as zero. */
+  static @Nullable Float canonical(@Nullable Float value) {
+    return value != null && value == 0f ? Float.valueOf(0f) : value;
+  }
+
+  /**
+   * Everything a response depends on. The weather file stands in for the request's location, so
+   * nearby requests that resolve to the same station share an entry. The file's modification time
+   * and size are part of the key too, so a file that is replaced while the server is running (see
+   * {@link io.github.spharris.pvwatts.service.weather.LocalDirectoryWeatherSource#watch}) isn't
+   * answered with responses simulated from the old one.
+   */
+  @AutoValue
+  abstract static class Key {
+
+    Key() {}
+
+    abstract String getModuleName();
+
+    abstract int getSscVersion();
+
+    abstract String getDataset();
+
+    abstract @Nullable String getWeatherFile();
+
+    /** When the weather file was last modified, or 0 if it isn't a file that can be read. */
+    abstract long getWeatherFileModified();
+
+    /** The size of the weather file in bytes, or 0 if it isn't a file that can be read. */
+    abstract long getWeatherFileSize();
+
+    /** The request, without its location and with its defaults filled in. */
+    abstract Object getRequest();
+
+    /** Creates a key, reading the modification time and size of <code>weatherFile</code>. */
+    static Key create(
+        String moduleName,
+        int sscVersion,
+        String dataset,
+        @Nullable String weatherFile,
+        Object request) {
+      File file = weatherFile != null ? new File(weatherFile) : null;
+      return new AutoValue_SimulationResultCache_Key(
+          moduleName,
+          sscVersion,
+          dataset,
+          weatherFile,
+          file != null ? file.lastModified() : 0,
+          file != null ? file.length() : 0,
+          request);
+    }
+  }
+
+  private static final class Entry {
+
+    final Object response;
+    final int weight;
+
+    Entry(Object response, int valueCount) {
+      this.response = response;
+      long bytes = ENTRY_OVERHEAD_BYTES + (long) valueCount * BYTES_PER_VALUE;
+      this.weight = (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+  }
+}
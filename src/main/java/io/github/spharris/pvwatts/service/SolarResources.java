@@ -0,0 +1,151 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import io.github.spharris.pvwatts.service.weather.WeatherArchive;
+import io.github.spharris.pvwatts.service.weather.WeatherData;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
+import io.github.spharris.pvwatts.service.weather.WeatherDataSource;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.ssc.DataContainer;
+import io.github.spharris.ssc.SscModule;
+import io.github.spharris.ssc.SscModuleRegistry;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Supplies the weather input for a simulation. If the module accepts a
+ * <code>solar_resource_data</code> table and the weather file is in the {@link WeatherDataCache},
+ * the parsed data is passed in directly so SSC doesn't have to read and parse the file again.
+ * Otherwise the module is given the path in <code>solar_resource_file</code>, as before.
+ *
+ * <p>Weather held in memory by a {@link WeatherDataSource} is always passed as a table, since there
+ * is no file for SSC to read. Columns of archived stations (see {@link
+ * WeatherDataSource#getStation}) are handed to SSC straight from the mapped archive, so they are
+ * only copied once, by SSC itself.
+ */
+@Singleton
+final class SolarResources {
+
+  private static final String SOLAR_RESOURCE_DATA = "solar_resource_data";
+
+  private final WeatherDataCache cache;
+  private final Provider<DataContainer> tableProvider;
+  private final SscModuleRegistry registry;
+
+  @Inject
+  SolarResources(
+      WeatherDataCache cache, Provider<DataContainer> tableProvider, SscModuleRegistry registry) {
+    this.cache = cache;
+    this.tableProvider = tableProvider;
+    this.registry = registry;
+  }
+
+  /**
+   * Checks that a module named <code>moduleName</code> can be given <code>weatherFile</code>. Data
+   * held by a {@link WeatherDataSource} can only be passed as a table, which not every module
+   * accepts.
+   *
+   * @param dataset The name of the dataset that <code>source</code> serves, for the error.
+   * @return An error for the response, or an empty {@link Optional} if the weather can be used.
+   */
+  Optional<String> checkSupported(
+      String moduleName, String dataset, WeatherSource source, String weatherFile) {
+    if (weatherFile == null
+        || !(source instanceof WeatherDataSource)
+        || acceptsData(moduleName)
+        || !((WeatherDataSource) source).hasWeatherData(weatherFile)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        String.format("Weather dataset %s is not supported by module %s", dataset, moduleName));
+  }
+
+  /**
+   * Sets the weather input for <code>module</code> in <code>data</code>. If <code>weatherFile
+   * </code> is null, nothing is set.
+   *
+   * @param source The source that <code>weatherFile</code> came from.
+   * @return The parsed weather data, if it was passed as a table.
+   * @throws java.lang.IllegalArgumentException if the weather can only be passed as a table and
+   *     <code>module</code> doesn't accept one; see {@link #checkSupported}.
+   */
+  Optional<WeatherData> set(
+      SscModule module, DataContainer data, WeatherSource source, String weatherFile) {
+    if (weatherFile == null) {
+      return Optional.empty();
+    }
+
+    Optional<WeatherData> weather = Optional.empty();
+    if (source instanceof WeatherDataSource) {
+      WeatherDataSource dataSource = (WeatherDataSource) source;
+      Optional<WeatherArchive.Station> station = dataSource.getStation(weatherFile);
+      if (station.isPresent()) {
+        checkAcceptsData(module, weatherFile);
+        setTable(data, station.get());
+        return Optional.of(station.get().toWeatherHeader());
+      }
+
+      weather = dataSource.getWeatherData(weatherFile);
+      if (weather.isPresent()) {
+        checkAcceptsData(module, weatherFile);
+      }
+    }
+    if (!weather.isPresent() && acceptsData(module.getName())) {
+      weather = cache.get(weatherFile);
+    }
+
+    if (!weather.isPresent()) {
+      Variables.SOLAR_RESOURCE_FILE.set(weatherFile, data);
+      return Optional.empty();
+    }
+
+    try (DataContainer table = tableProvider.get()) {
+      WeatherData values = weather.get();
+      table
+          .setNumber("lat", values.getLat())
+          .setNumber("lon", values.getLon())
+          .setNumber("tz", values.getTz())
+          .setNumber("elev", values.getElev());
+      for (Map.Entry<String, float[]> column : values.getColumns().entrySet()) {
+        table.setArray(column.getKey(), column.getValue());
+      }
+
+      data.setTable(SOLAR_RESOURCE_DATA, table);
+    }
+
+    return weather;
+  }
+
+  private void setTable(DataContainer data, WeatherArchive.Station station) {
+    try (DataContainer table = tableProvider.get()) {
+      table
+          .setNumber("lat", station.getLat())
+          .setNumber("lon", station.getLon())
+          .setNumber("tz", station.getTz())
+          .setNumber("elev", station.getElev());
+      for (String column : station.getColumnNames()) {
+        table.setArray(column, station.getColumn(column).get());
+      }
+
+      data.setTable(SOLAR_RESOURCE_DATA, table);
+    }
+  }
+
+  private void checkAcceptsData(SscModule module, String weatherFile) {
+    checkArgument(
+        acceptsData(module.getName()),
+        "Weather file %s can only be passed as %s, which module %s doesn't accept",
+        weatherFile,
+        SOLAR_RESOURCE_DATA,
+        module.getName());
+  }
+
+  private boolean acceptsData(String moduleName) {
+    return registry.getVariable(moduleName, SOLAR_RESOURCE_DATA).isPresent();
+  }
+}
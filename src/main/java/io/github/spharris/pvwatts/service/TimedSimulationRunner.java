@@ -0,0 +1,123 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.spharris.pvwatts.service.Annotations.SimulationTimeout;
+import io.github.spharris.ssc.DataContainer;
+import io.github.spharris.ssc.SimulationRunner;
+import io.github.spharris.ssc.SscModule;
+import io.github.spharris.ssc.SscModulePool;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Runs the services' simulations, giving up on any that take longer than the configured timeout.
+ * With a timeout, each simulation is run by {@link SimulationRunner#runAsync} on another thread
+ * while the caller waits for it; without one, it is run on the caller's thread.
+ *
+ * <p>Either way, modules run without a handler, since a native callback for every message and
+ * progress update costs more than the timeout saves. So a module can't be stopped part way: when
+ * the timeout passes, the caller gets its error straight away, but the run goes on in the
+ * background until it finishes, and its result is thrown away. PVWatts runs are bounded by the
+ * length of the weather file, so this only delays when the module goes back to the pool.
+ *
+ * <p>Timed simulations run on at most {@link SscModulePool#DEFAULT_MAX_SIZE} threads, as many as
+ * there can be modules of one name. Up to {@link #MAX_QUEUED} more wait for a thread, and their
+ * time waiting counts towards their timeouts. Beyond that, simulations are rejected straight away.
+ */
+@Singleton
+public final class TimedSimulationRunner {
+
+  /** The timeout if none is configured, in milliseconds. */
+  public static final int DEFAULT_TIMEOUT_MS = 60_000;
+
+  /** The number of timed simulations that can wait for a thread. */
+  public static final int MAX_QUEUED = 1024;
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private final SimulationRunner runner;
+  private final int timeoutMs;
+  private final ThreadPoolExecutor executor;
+
+  /** Stops simulations after <code>timeoutMs</code> milliseconds. A timeout of 0 disables it. */
+  @Inject
+  TimedSimulationRunner(SimulationRunner runner, @SimulationTimeout int timeoutMs) {
+    this(runner, timeoutMs, SscModulePool.DEFAULT_MAX_SIZE, MAX_QUEUED);
+  }
+
+  TimedSimulationRunner(SimulationRunner runner, int timeoutMs, int threads, int maxQueued) {
+    checkArgument(timeoutMs >= 0, "The simulation timeout must be >= 0.");
+    checkArgument(threads >= 1, "The number of threads must be >= 1.");
+    checkArgument(maxQueued >= 1, "The queue size must be >= 1.");
+
+    this.runner = runner;
+    this.timeoutMs = timeoutMs;
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(maxQueued),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("timed-simulation-%d").build(),
+            (task, rejectedBy) -> {
+              throw new RejectedExecutionException(
+                  "Too many simulations are waiting to run. Try again later.");
+            });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Runs <code>transform</code> and waits for its result.
+   *
+   * @throws TimeoutException if the simulation didn't finish in time
+   * @throws CancellationException if this thread was interrupted while waiting, in which case the
+   *     thread's interrupt status is set again
+   * @throws RejectedExecutionException if too many simulations are already waiting to run
+   */
+  <T> T run(String moduleName, BiFunction<SscModule, DataContainer, T> transform)
+      throws TimeoutException {
+    if (timeoutMs == 0) {
+      return runner.run(moduleName, transform);
+    }
+
+    CompletableFuture<T> result =
+        runner.runAsync(
+            moduleName,
+            timeoutMs,
+            TimeUnit.MILLISECONDS,
+            (module, data, deadline) -> transform.apply(module, data),
+            executor);
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      // Nobody is waiting for the result any more, so don't start the simulation if it's queued
+      result.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new CancellationException(
+          String.format("Simulation of %s was cancelled", moduleName));
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof TimeoutException) {
+        throw (TimeoutException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -1,6 +1,6 @@
 package io.github.spharris.pvwatts.service;
 
-import com.google.common.collect.ImmutableList;
+import io.github.spharris.ssc.utils.FloatArray;
 import io.github.spharris.ssc.utils.InputVariable;
 import io.github.spharris.ssc.utils.SscVariable;
 import io.github.spharris.ssc.utils.SscVariables;
@@ -34,29 +34,29 @@ class Variables {
   public static final InputVariable<Float> ADJUST_FACTOR =
       SscVariables.numberInput("adjust:factor");
 
-  public static final SscVariable<ImmutableList<Float>> POA_MONTHLY =
-      SscVariables.arrayOutput("poa_monthly");
-  public static final SscVariable<ImmutableList<Float>> SOLRAD_MONTHLY =
-      SscVariables.arrayOutput("solrad_monthly");
-  public static final SscVariable<ImmutableList<Float>> DC_MONTHLY =
-      SscVariables.arrayOutput("dc_monthly");
-  public static final SscVariable<ImmutableList<Float>> AC_MONTHLY =
-      SscVariables.arrayOutput("ac_monthly");
-  public static final SscVariable<ImmutableList<Float>> MONTHLY_ENERGY =
-      SscVariables.arrayOutput("monthly_energy");
+  public static final SscVariable<FloatArray> POA_MONTHLY =
+      SscVariables.floatArrayOutput("poa_monthly");
+  public static final SscVariable<FloatArray> SOLRAD_MONTHLY =
+      SscVariables.floatArrayOutput("solrad_monthly");
+  public static final SscVariable<FloatArray> DC_MONTHLY =
+      SscVariables.floatArrayOutput("dc_monthly");
+  public static final SscVariable<FloatArray> AC_MONTHLY =
+      SscVariables.floatArrayOutput("ac_monthly");
+  public static final SscVariable<FloatArray> MONTHLY_ENERGY =
+      SscVariables.floatArrayOutput("monthly_energy");
   public static final SscVariable<Float> SOLRAD_ANNUAL = SscVariables.numberOutput("solrad_annual");
   public static final SscVariable<Float> AC_ANNUAL = SscVariables.numberOutput("ac_annual");
   public static final SscVariable<Float> ANNUAL_ENERGY = SscVariables.numberOutput("annual_energy");
   public static final SscVariable<Float> CAPACITY_FACTOR =
       SscVariables.numberOutput("capacity_factor");
-  public static final SscVariable<ImmutableList<Float>> AC = SscVariables.arrayOutput("ac");
-  public static final SscVariable<ImmutableList<Float>> POA = SscVariables.arrayOutput("poa");
-  public static final SscVariable<ImmutableList<Float>> DN = SscVariables.arrayOutput("dn");
-  public static final SscVariable<ImmutableList<Float>> DC = SscVariables.arrayOutput("dc");
-  public static final SscVariable<ImmutableList<Float>> DF = SscVariables.arrayOutput("df");
-  public static final SscVariable<ImmutableList<Float>> TAMB = SscVariables.arrayOutput("tamb");
-  public static final SscVariable<ImmutableList<Float>> TCELL = SscVariables.arrayOutput("tcell");
-  public static final SscVariable<ImmutableList<Float>> WSPD = SscVariables.arrayOutput("wspd");
+  public static final SscVariable<FloatArray> AC = SscVariables.floatArrayOutput("ac");
+  public static final SscVariable<FloatArray> POA = SscVariables.floatArrayOutput("poa");
+  public static final SscVariable<FloatArray> DN = SscVariables.floatArrayOutput("dn");
+  public static final SscVariable<FloatArray> DC = SscVariables.floatArrayOutput("dc");
+  public static final SscVariable<FloatArray> DF = SscVariables.floatArrayOutput("df");
+  public static final SscVariable<FloatArray> TAMB = SscVariables.floatArrayOutput("tamb");
+  public static final SscVariable<FloatArray> TCELL = SscVariables.floatArrayOutput("tcell");
+  public static final SscVariable<FloatArray> WSPD = SscVariables.floatArrayOutput("wspd");
 
   public static final SscVariable<String> LOCATION = SscVariables.stringOutput("location");
   public static final SscVariable<String> CITY = SscVariables.stringOutput("city");
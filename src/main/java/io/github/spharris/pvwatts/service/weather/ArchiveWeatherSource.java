@@ -0,0 +1,111 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * A weather source backed by a single {@link WeatherArchive}. Station lookups work the same way as
+ * in {@link LocalDirectoryWeatherSource}, but the weather data is read from the archive's memory
+ * mapping rather than from individual files. The names returned by {@link #getWeatherFile} are of
+ * the form <code>&lt;archive&gt;#&lt;station id&gt;</code>.
+ */
+public final class ArchiveWeatherSource implements WeatherDataSource, NearbyStationSource {
+
+  private static final double MI_TO_KM = 5280.0 * 12.0 * 2.54 / 100.0 / 1000.0;
+  private static final String SEPARATOR = "#";
+  private static final Logger logger = Logger.getLogger(ArchiveWeatherSource.class.getName());
+
+  private final Path path;
+
+  private volatile WeatherArchive archive;
+  private volatile StationIndex index = StationIndex.build(ImmutableList.of());
+  private final StationLookupCache lookups = new StationLookupCache();
+
+  public ArchiveWeatherSource(Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Opens the archive and indexes its stations.
+   *
+   * @throws UncheckedIOException if the archive can't be read.
+   */
+  public synchronized ArchiveWeatherSource initialize() {
+    WeatherArchive opened;
+    try {
+      opened = WeatherArchive.open(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Could not open weather archive %s", path), e);
+    }
+
+    index = StationIndex.build(opened.getRecords());
+    archive = opened;
+    logger.info(String.format("Loaded %d stations from weather archive %s", opened.size(), path));
+
+    return this;
+  }
+
+  @Override
+  public String getWeatherFile(Float lat, Float lon, Integer radius) {
+    if (lat == null || lon == null || radius == null) {
+      return null;
+    }
+
+    WeatherDataRecord closestStation = lookups.nearest(index, lat, lon);
+    if (closestStation == null) {
+      return null;
+    }
+
+    double distance =
+        Haversine.haversine(closestStation.getLat(), closestStation.getLon(), lat, lon);
+
+    double kmRadius = (double) radius * MI_TO_KM;
+    if (radius != 0 && distance > kmRadius) {
+      return null;
+    }
+
+    return path + SEPARATOR + closestStation.getFilename();
+  }
+
+  @Override
+  public ImmutableList<NearbyStation> getNearbyStations(
+      float lat, float lon, int limit, int radius) {
+    double kmRadius = radius != 0 ? (double) radius * MI_TO_KM : Double.POSITIVE_INFINITY;
+    return index.nearby(lat, lon, limit, kmRadius);
+  }
+
+  /** Returns hit and miss counts for the cache of nearest-station lookups. */
+  public LookupStats getLookupStats() {
+    return lookups.stats();
+  }
+
+  @Override
+  public Optional<WeatherData> getWeatherData(String weatherFile) {
+    return getStation(weatherFile).map(WeatherArchive.Station::toWeatherData);
+  }
+
+  @Override
+  public boolean hasWeatherData(String weatherFile) {
+    return getStation(weatherFile).isPresent();
+  }
+
+  @Override
+  public Optional<WeatherArchive.Station> getStation(String weatherFile) {
+    WeatherArchive current = archive;
+    String prefix = path + SEPARATOR;
+    if (current == null || weatherFile == null || !weatherFile.startsWith(prefix)) {
+      return Optional.empty();
+    }
+
+    return current.getStation(weatherFile.substring(prefix.length()));
+  }
+
+  /** The archive backing this source, or null if it hasn't been initialized. */
+  public WeatherArchive getArchive() {
+    return archive;
+  }
+}
@@ -0,0 +1,166 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A weather source that is loaded on a background thread. Until loading finishes, {@link
+ * #getWeatherFile} throws a {@link WeatherSourceUnavailableException} rather than blocking, so
+ * that requests for other datasets can be served in the meantime. If loading fails, the exception
+ * carries the reason.
+ */
+public final class BackgroundWeatherSource implements WeatherDataSource {
+
+  private static final Logger logger = Logger.getLogger(BackgroundWeatherSource.class.getName());
+
+  private final String dataset;
+  private final CompletableFuture<WeatherSource> source;
+
+  /** Starts loading <code>loader</code> on <code>executor</code>. */
+  public BackgroundWeatherSource(
+      String dataset, Callable<? extends WeatherSource> loader, Executor executor) {
+    this.dataset = dataset;
+    this.source = CompletableFuture.supplyAsync(() -> load(dataset, loader), executor);
+  }
+
+  @Override
+  public String getWeatherFile(Float lat, Float lon, Integer radius) {
+    return getSource().getWeatherFile(lat, lon, radius);
+  }
+
+  @Override
+  public Optional<WeatherData> getWeatherData(String weatherFile) {
+    WeatherSource loaded = getSource();
+    if (loaded instanceof WeatherDataSource) {
+      return ((WeatherDataSource) loaded).getWeatherData(weatherFile);
+    }
+
+    return Optional.empty();
+  }
+
+  @Override
+  public boolean hasWeatherData(String weatherFile) {
+    WeatherSource loaded = getSource();
+    return loaded instanceof WeatherDataSource
+        && ((WeatherDataSource) loaded).hasWeatherData(weatherFile);
+  }
+
+  @Override
+  public Optional<WeatherArchive.Station> getStation(String weatherFile) {
+    WeatherSource loaded = getSource();
+    if (loaded instanceof WeatherDataSource) {
+      return ((WeatherDataSource) loaded).getStation(weatherFile);
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the loaded source if it can list nearby stations.
+   *
+   * @throws WeatherSourceUnavailableException if it is still loading or failed to load.
+   */
+  public Optional<NearbyStationSource> getNearbyStationSource() {
+    WeatherSource loaded = getSource();
+    return loaded instanceof NearbyStationSource
+        ? Optional.of((NearbyStationSource) loaded)
+        : Optional.empty();
+  }
+
+  public WeatherSourceStatus getStatus() {
+    WeatherSourceStatus.Builder status = WeatherSourceStatus.builder().setDataset(dataset);
+    if (!source.isDone()) {
+      return status.setState(WeatherSourceStatus.State.LOADING).build();
+    } else if (source.isCompletedExceptionally()) {
+      return status
+          .setState(WeatherSourceStatus.State.FAILED)
+          .setError(failureMessage(failure()))
+          .build();
+    }
+
+    return status.setState(WeatherSourceStatus.State.READY).build();
+  }
+
+  /**
+   * Waits up to the given time for loading to finish.
+   *
+   * @return The loaded source.
+   * @throws WeatherSourceUnavailableException if loading failed or didn't finish in time.
+   */
+  public WeatherSource await(long timeout, TimeUnit unit) throws InterruptedException {
+    try {
+      return source.get(timeout, unit);
+    } catch (TimeoutException e) {
+      throw notReady();
+    } catch (ExecutionException e) {
+      throw failed(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the loaded source.
+   *
+   * @throws WeatherSourceUnavailableException if it is still loading or failed to load.
+   */
+  public WeatherSource getSource() {
+    if (!source.isDone()) {
+      throw notReady();
+    }
+
+    try {
+      return source.join();
+    } catch (CompletionException e) {
+      throw failed(e.getCause());
+    }
+  }
+
+  private Throwable failure() {
+    try {
+      source.join();
+      return null;
+    } catch (CompletionException e) {
+      return e.getCause();
+    }
+  }
+
+  private WeatherSourceUnavailableException notReady() {
+    return new WeatherSourceUnavailableException(
+        dataset, String.format("Weather dataset %s is still loading. Try again shortly.", dataset));
+  }
+
+  private WeatherSourceUnavailableException failed(Throwable cause) {
+    WeatherSourceUnavailableException e =
+        new WeatherSourceUnavailableException(
+            dataset,
+            String.format("Weather dataset %s failed to load: %s", dataset, failureMessage(cause)));
+    e.initCause(cause);
+    return e;
+  }
+
+  private static String failureMessage(Throwable cause) {
+    return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+  }
+
+  private static WeatherSource load(String dataset, Callable<? extends WeatherSource> loader) {
+    long start = System.nanoTime();
+    try {
+      WeatherSource loaded = loader.call();
+      logger.info(
+          String.format(
+              "Weather dataset %s ready in %d ms",
+              dataset, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+      return loaded;
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, String.format("Weather dataset %s failed to load", dataset), e);
+      throw new CompletionException(e);
+    }
+  }
+}
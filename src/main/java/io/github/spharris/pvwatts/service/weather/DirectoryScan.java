@@ -0,0 +1,140 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * Loads every regular file in a directory in parallel. Files are streamed from the directory in
+ * batches rather than listed up front, and only a bounded number of batches are queued at once,
+ * so memory use doesn't grow with the size of the directory beyond the results themselves.
+ *
+ * <p>A file that can't be loaded doesn't stop the scan; it is recorded in {@link #getFailures}
+ * along with the reason.
+ */
+final class DirectoryScan<T> {
+
+  /** Loads a single file. */
+  interface Loader<T> {
+
+    /**
+     * Loads <code>file</code>, or returns null to skip it. Attributes are read once by the scan,
+     * so loaders shouldn't need to stat the file again.
+     */
+    T load(Path file, BasicFileAttributes attributes) throws IOException;
+  }
+
+  private static final int BATCH_SIZE = 256;
+
+  /** File I/O blocks, so use more threads than there are processors. */
+  static final int DEFAULT_PARALLELISM = 2 * Runtime.getRuntime().availableProcessors();
+
+  private final ImmutableList<T> results;
+  private final ImmutableMap<Path, Exception> failures;
+
+  private DirectoryScan(ImmutableList<T> results, ImmutableMap<Path, Exception> failures) {
+    this.results = results;
+    this.failures = failures;
+  }
+
+  /**
+   * Loads the regular files in <code>directory</code> whose names aren't excluded.
+   *
+   * @throws UncheckedIOException if the directory itself can't be read.
+   */
+  static <T> DirectoryScan<T> run(
+      Path directory, Predicate<String> exclude, Loader<T> loader, int parallelism) {
+    Queue<T> results = new ConcurrentLinkedQueue<>();
+    Map<Path, Exception> failures = new ConcurrentHashMap<>();
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    int maxBatches = 2 * parallelism;
+    Semaphore batches = new Semaphore(maxBatches);
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      List<Path> batch = new ArrayList<>(BATCH_SIZE);
+      for (Path file : stream) {
+        if (exclude.test(file.getFileName().toString())) {
+          continue;
+        }
+
+        batch.add(file);
+        if (batch.size() == BATCH_SIZE) {
+          submit(pool, batches, batch, loader, results, failures);
+          batch = new ArrayList<>(BATCH_SIZE);
+        }
+      }
+      submit(pool, batches, batch, loader, results, failures);
+
+      // Wait for the remaining batches to finish
+      batches.acquire(maxBatches);
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Could not read directory %s", directory), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(
+          String.format("Interrupted while reading directory %s", directory), e);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    return new DirectoryScan<>(ImmutableList.copyOf(results), ImmutableMap.copyOf(failures));
+  }
+
+  /** The files that were loaded, in no particular order. */
+  ImmutableList<T> getResults() {
+    return results;
+  }
+
+  /** The files that couldn't be loaded, with the reason. */
+  ImmutableMap<Path, Exception> getFailures() {
+    return failures;
+  }
+
+  private static <T> void submit(
+      ForkJoinPool pool,
+      Semaphore batches,
+      List<Path> batch,
+      Loader<T> loader,
+      Queue<T> results,
+      Map<Path, Exception> failures)
+      throws InterruptedException {
+    batches.acquire();
+    pool.execute(
+        () -> {
+          try {
+            for (Path file : batch) {
+              try {
+                BasicFileAttributes attributes =
+                    Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                  continue;
+                }
+
+                T result = loader.load(file, attributes);
+                if (result != null) {
+                  results.add(result);
+                }
+              } catch (IOException | RuntimeException e) {
+                failures.put(file, e);
+              }
+            }
+          } finally {
+            batches.release();
+          }
+        });
+  }
+}
@@ -0,0 +1,376 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A weather source for datasets on a regular latitude/longitude grid, such as the NSRDB PSM data.
+ * Rather than indexing every file, it keeps the grid's origin and spacing plus one bit per cell
+ * recording whether that cell has a file, so a grid of millions of cells fits in a few megabytes.
+ * The cell for a location is found arithmetically; when that cell is present (the usual case for a
+ * dense grid) a lookup only has to look at it and its immediate neighbours.
+ *
+ * <p>Files must be named after their grid point using <code>filenameFormat</code>, which is passed
+ * the latitude and longitude as floats (for example <code>"%.2f_%.2f_tmy.csv"</code> for <code>
+ * 33.65_-117.86_tmy.csv</code>) and must write both with a decimal point. The grid's extent is
+ * taken from the files that are present. Grids that cross the antimeridian are not supported.
+ */
+public final class GridWeatherSource implements NearbyStationSource {
+
+  private static final double MI_TO_KM = 5280.0 * 12.0 * 2.54 / 100.0 / 1000.0;
+  private static final Pattern COORDINATES =
+      Pattern.compile("(-?\\d+\\.\\d+)_(-?\\d+\\.\\d+)");
+  private static final Logger logger = Logger.getLogger(GridWeatherSource.class.getName());
+
+  private final Path path;
+  private final double latSpacing;
+  private final double lonSpacing;
+  private final String filenameFormat;
+
+  private volatile Grid grid = Grid.EMPTY;
+
+  /**
+   * @param path The directory holding the weather files.
+   * @param latSpacing The distance between rows of the grid, in degrees.
+   * @param lonSpacing The distance between columns of the grid, in degrees.
+   * @param filenameFormat The format of the file names, as described above.
+   */
+  public GridWeatherSource(
+      Path path, double latSpacing, double lonSpacing, String filenameFormat) {
+    checkArgument(latSpacing > 0 && lonSpacing > 0, "Grid spacing must be positive");
+    this.path = path;
+    this.latSpacing = latSpacing;
+    this.lonSpacing = lonSpacing;
+    this.filenameFormat = filenameFormat;
+  }
+
+  /**
+   * Scans the directory and records which grid cells have a weather file. Files whose names don't
+   * fall on the grid are skipped.
+   *
+   * @throws UncheckedIOException if the directory can't be read.
+   */
+  public synchronized GridWeatherSource initialize() {
+    // Two passes over the names: one to find the extent of the grid, one to fill in the bitmap.
+    double minLat = Double.POSITIVE_INFINITY;
+    double minLon = Double.POSITIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    double maxLon = Double.NEGATIVE_INFINITY;
+    int candidates = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+      for (Path file : files) {
+        double[] coordinates = coordinates(file.getFileName().toString());
+        if (coordinates != null) {
+          minLat = Math.min(minLat, coordinates[0]);
+          maxLat = Math.max(maxLat, coordinates[0]);
+          minLon = Math.min(minLon, coordinates[1]);
+          maxLon = Math.max(maxLon, coordinates[1]);
+          candidates++;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Could not read weather path %s", path), e);
+    }
+
+    if (candidates == 0) {
+      grid = Grid.EMPTY;
+      logger.warning(String.format("No gridded weather files found in path %s", path));
+      return this;
+    }
+
+    int rows = (int) Math.round((maxLat - minLat) / latSpacing) + 1;
+    int cols = (int) Math.round((maxLon - minLon) / lonSpacing) + 1;
+    checkArgument(
+        (long) rows * cols <= Integer.MAX_VALUE, "Grid for %s has too many cells", path);
+    Grid scanned = new Grid(filenameFormat, minLat, minLon, latSpacing, lonSpacing, rows, cols);
+
+    int skipped = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        double[] coordinates = coordinates(name);
+        if (coordinates == null) {
+          continue;
+        }
+
+        int row = scanned.row(coordinates[0]);
+        int col = scanned.col(coordinates[1]);
+        // Only accept files whose name can be rebuilt from the cell, so lookups find them.
+        if (name.equals(filename(scanned.lat(row), scanned.lon(col)))) {
+          scanned.present.set(scanned.cell(row, col));
+        } else {
+          skipped++;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Could not read weather path %s", path), e);
+    }
+
+    grid = scanned;
+    logger.info(
+        String.format(
+            "Loaded %d gridded weather files (%d x %d cells) for path %s",
+            scanned.present.cardinality(), rows, cols, path));
+    if (skipped > 0) {
+      logger.warning(
+          String.format("Skipped %d weather files that aren't on the grid in %s", skipped, path));
+    }
+
+    return this;
+  }
+
+  /** The number of grid cells that have a weather file. */
+  public int size() {
+    return grid.present.cardinality();
+  }
+
+  @Override
+  public String getWeatherFile(Float lat, Float lon, Integer radius) {
+    if (lat == null || lon == null || radius == null) {
+      return null;
+    }
+
+    Grid current = grid;
+    List<CellMatch> matches = search(current, lat, lon, 1, radius);
+    if (matches.isEmpty()) {
+      return null;
+    }
+
+    return path.resolve(current.filename(matches.get(0).cell)).toString();
+  }
+
+  @Override
+  public ImmutableList<NearbyStation> getNearbyStations(
+      float lat, float lon, int limit, int radius) {
+    Grid current = grid;
+    List<CellMatch> matches =
+        search(current, lat, lon, limit > 0 ? limit : Integer.MAX_VALUE, radius);
+
+    ImmutableList.Builder<NearbyStation> stations = ImmutableList.builder();
+    for (CellMatch match : matches) {
+      int row = match.cell / current.cols;
+      int col = match.cell % current.cols;
+      stations.add(
+          NearbyStation.builder()
+              .setStation(current.filename(match.cell))
+              .setLat((float) current.lat(row))
+              .setLon((float) current.lon(col))
+              .setDistance((int) Math.round(match.distance * 1000))
+              .build());
+    }
+
+    return stations.build();
+  }
+
+  /**
+   * Finds up to <code>limit</code> present cells within <code>radius</code> miles (0 for no limit),
+   * closest first, by searching rings of cells outwards from the cell containing the point. The
+   * search stops once no cell in the next ring could be closer than the matches already found.
+   */
+  private List<CellMatch> search(Grid current, float lat, float lon, int limit, int radius) {
+    if (current.rows == 0) {
+      return ImmutableList.of();
+    }
+
+    double kmRadius = radius != 0 ? (double) radius * MI_TO_KM : Double.POSITIVE_INFINITY;
+    int centerRow = clamp(current.row(lat), current.rows);
+    int centerCol = clamp(current.col(lon), current.cols);
+    double maxAbsLat =
+        Math.min(
+            89.9,
+            Math.max(
+                Math.abs(lat),
+                Math.max(
+                    Math.abs(current.lat(0)), Math.abs(current.lat(current.rows - 1)))));
+
+    PriorityQueue<CellMatch> matches =
+        new PriorityQueue<>(Math.min(limit, 64), CellMatch.CLOSEST_FIRST.reversed());
+    int maxRing = Math.max(current.rows, current.cols);
+    for (int ring = 0; ring <= maxRing; ring++) {
+      double bound = ringDistanceBound(current, lat, lon, centerRow, centerCol, ring, maxAbsLat);
+      if (bound > kmRadius || (matches.size() == limit && bound > matches.peek().distance)) {
+        break;
+      }
+
+      for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+        if (row < 0 || row >= current.rows) {
+          continue;
+        }
+
+        boolean edgeRow = Math.abs(row - centerRow) == ring;
+        int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+        for (int col = centerCol - ring; col <= centerCol + ring; col += step) {
+          if (col < 0 || col >= current.cols || !current.present.get(current.cell(row, col))) {
+            continue;
+          }
+
+          double distance =
+              Haversine.haversine(
+                  (float) current.lat(row), (float) current.lon(col), lat, lon);
+          if (distance > kmRadius) {
+            continue;
+          }
+
+          CellMatch match = new CellMatch(current.cell(row, col), distance);
+          if (matches.size() < limit) {
+            matches.add(match);
+          } else if (CellMatch.CLOSEST_FIRST.compare(match, matches.peek()) < 0) {
+            matches.poll();
+            matches.add(match);
+          }
+        }
+      }
+    }
+
+    List<CellMatch> sorted = new ArrayList<>(matches);
+    sorted.sort(CellMatch.CLOSEST_FIRST);
+    return sorted;
+  }
+
+  /**
+   * A lower bound on the distance from the query point to any cell in the given ring around the
+   * center cell. Every cell in ring <code>k</code> is at least <code>k</code> cells, less the
+   * query point's offset from the center cell, away in latitude or in longitude.
+   */
+  private static double ringDistanceBound(
+      Grid grid,
+      float lat,
+      float lon,
+      int centerRow,
+      int centerCol,
+      int ring,
+      double maxAbsLat) {
+    if (ring == 0) {
+      return 0;
+    }
+
+    // The query may lie outside the grid, in which case the center cell was clamped and the
+    // offset to it has to be taken into account.
+    double rowOffset = Math.abs((lat - grid.lat(centerRow)) / grid.latSpacing);
+    double colOffset = Math.abs((lon - grid.lon(centerCol)) / grid.lonSpacing);
+    double latCells = Math.max(0, ring - rowOffset);
+    double lonCells = Math.max(0, ring - colOffset);
+
+    double latKm = Haversine.R * Math.toRadians(latCells * grid.latSpacing);
+    double lonKm =
+        2
+            * Haversine.R
+            * Math.asin(
+                Math.min(
+                    1,
+                    Math.cos(Math.toRadians(maxAbsLat))
+                        * Math.sin(Math.toRadians(Math.min(180, lonCells * grid.lonSpacing)) / 2)));
+
+    return Math.min(latKm, lonKm);
+  }
+
+  private String filename(double lat, double lon) {
+    return filename(filenameFormat, lat, lon);
+  }
+
+  private static String filename(String format, double lat, double lon) {
+    return String.format(Locale.ROOT, format, (float) lat, (float) lon);
+  }
+
+  private static double[] coordinates(String filename) {
+    Matcher matcher = COORDINATES.matcher(filename);
+    if (!matcher.find()) {
+      return null;
+    }
+
+    return new double[] {
+      Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2))
+    };
+  }
+
+  private static int clamp(int index, int size) {
+    return Math.max(0, Math.min(size - 1, index));
+  }
+
+  /** The shape of the grid and the cells that are present. */
+  private static final class Grid {
+
+    static final Grid EMPTY = new Grid("", 0, 0, 1, 1, 0, 0);
+
+    final String filenameFormat;
+    final double originLat;
+    final double originLon;
+    final double latSpacing;
+    final double lonSpacing;
+    final int rows;
+    final int cols;
+    final BitSet present;
+
+    Grid(
+        String filenameFormat,
+        double originLat,
+        double originLon,
+        double latSpacing,
+        double lonSpacing,
+        int rows,
+        int cols) {
+      this.filenameFormat = filenameFormat;
+      this.originLat = originLat;
+      this.originLon = originLon;
+      this.latSpacing = latSpacing;
+      this.lonSpacing = lonSpacing;
+      this.rows = rows;
+      this.cols = cols;
+      this.present = new BitSet(rows * cols);
+    }
+
+    int row(double lat) {
+      return (int) Math.round((lat - originLat) / latSpacing);
+    }
+
+    int col(double lon) {
+      return (int) Math.round((lon - originLon) / lonSpacing);
+    }
+
+    double lat(int row) {
+      return originLat + row * latSpacing;
+    }
+
+    double lon(int col) {
+      return originLon + col * lonSpacing;
+    }
+
+    int cell(int row, int col) {
+      return row * cols + col;
+    }
+
+    String filename(int cell) {
+      return GridWeatherSource.filename(filenameFormat, lat(cell / cols), lon(cell % cols));
+    }
+  }
+
+  private static final class CellMatch {
+
+    static final Comparator<CellMatch> CLOSEST_FIRST =
+        Comparator.<CellMatch>comparingDouble(match -> match.distance)
+            .thenComparingInt(match -> match.cell);
+
+    final int cell;
+    final double distance;
+
+    CellMatch(int cell, double distance) {
+      this.cell = cell;
+      this.distance = distance;
+    }
+  }
+}
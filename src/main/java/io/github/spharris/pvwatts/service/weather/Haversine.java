@@ -8,7 +8,7 @@ final class Haversine {
 
   private Haversine() {}
 
-  private static final float R = 6371;
+  static final float R = 6371;
 
   static double haversine(float lat1, float lon1, float lat2, float lon2) {
     double dLat = Math.toRadians(lat2 - lat1);
@@ -1,36 +1,77 @@
 package io.github.spharris.pvwatts.service.weather;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
 import com.google.common.collect.ImmutableList;
-import java.io.File;
-import java.io.FileReader;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.Objects;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * A weather source that reads weather files from the specified directory and finds the one closest
  * to the specified latitude and longitude.
+ *
+ * <p>The stations are held in an immutable snapshot that is replaced wholesale whenever the
+ * directory changes, so lookups never block and never see a partially built index. Call {@link
+ * #watch} to have new, changed and deleted files picked up without a restart.
  */
-public final class LocalDirectoryWeatherSource implements WeatherSource {
+public final class LocalDirectoryWeatherSource implements NearbyStationSource, Closeable {
 
   private static final double MI_TO_KM = 5280.0 * 12.0 * 2.54 / 100.0 / 1000.0;
   private static final Logger logger =
       Logger.getLogger(LocalDirectoryWeatherSource.class.getName());
 
+  /** Failures beyond this many in a single load are counted rather than logged individually. */
+  private static final int MAX_REPORTED_FAILURES = 20;
+
+  /** How long the directory must be quiet before a batch of changes is applied. */
+  private static final long DEBOUNCE_MILLIS = 500;
+
   private final Path path;
   private final WeatherSummarizer summarizer;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+  private final StationLookupCache lookups = new StationLookupCache();
+  private final ThreadLocal<ByteBuffer> headerBuffers;
 
-  private ImmutableList<WeatherDataRecord> weatherData;
+  private WatchService watchService;
+  private ExecutorService watchExecutor;
 
   public LocalDirectoryWeatherSource(Path path, WeatherSummarizer summarizer) {
     this.path = path;
     this.summarizer = summarizer;
+    this.headerBuffers =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(summarizer.getHeaderLength()));
   }
 
   @Override
@@ -39,7 +80,11 @@ public final class LocalDirectoryWeatherSource implements WeatherSource {
       return null;
     }
 
-    WeatherDataRecord closestStation = Collections.min(weatherData, byDistanceFrom(lat, lon));
+    WeatherDataRecord closestStation = lookups.nearest(snapshot.get().index, lat, lon);
+    if (closestStation == null) {
+      return null;
+    }
+
     double distance =
         Haversine.haversine(closestStation.getLat(), closestStation.getLon(), lat, lon);
 
@@ -51,38 +96,360 @@ public final class LocalDirectoryWeatherSource implements WeatherSource {
     return path.resolve(closestStation.getFilename()).toString();
   }
 
-  public LocalDirectoryWeatherSource initialize() {
-    weatherData = loadSummaryData();
+  @Override
+  public ImmutableList<NearbyStation> getNearbyStations(
+      float lat, float lon, int limit, int radius) {
+    double kmRadius = radius != 0 ? (double) radius * MI_TO_KM : Double.POSITIVE_INFINITY;
+    return snapshot.get().index.nearby(lat, lon, limit, kmRadius);
+  }
+
+  public synchronized LocalDirectoryWeatherSource initialize() {
+    long start = System.nanoTime();
+    DirectoryScan<StationIndexFile.Entry> scan =
+        loadSummaryData(
+            StationIndexFile.read(path.resolve(StationIndexFile.FILE_NAME), summarizer));
+    publish(scan.getResults(), scan.getFailures().size(), start);
     logger.info(
-        String.format("Loaded %d weather files for path %s", weatherData.size(), path.toString()));
+        String.format(
+            "Loaded %d weather files for path %s", getReloadStats().getStationCount(), path));
 
     return this;
   }
 
-  private ImmutableList<WeatherDataRecord> loadSummaryData() {
-    File[] files = path.toFile().listFiles();
-    return ImmutableList.copyOf(
-        Arrays.stream(files)
-            .parallel()
-            .filter(File::isFile)
-            .map(
-                (file) -> {
-                  try (Reader reader = new FileReader(file)) {
-                    return summarizer.summarizeFile(reader);
-                  } catch (IOException e) {
-                    return null;
-                  }
-                })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList()));
-  }
-
-  private Comparator<WeatherDataRecord> byDistanceFrom(final float lat, final float lon) {
-    return (left, right) -> {
-      double leftDist = Haversine.haversine(left.getLat(), left.getLon(), lat, lon);
-      double rightDist = Haversine.haversine(right.getLat(), right.getLon(), lat, lon);
-
-      return Double.compare(leftDist, rightDist);
-    };
+  /**
+   * Starts watching the directory for changes on a background thread. Added or modified files are
+   * summarized and deleted files dropped, after which a new index is published. If the source has
+   * already been initialized, the directory is rescanned once the watch is in place, so that files
+   * added in between aren't missed. If the directory can't be watched, a warning is logged and the
+   * current index is kept as-is.
+   */
+  public synchronized LocalDirectoryWeatherSource watch() {
+    if (watchService != null) {
+      return this;
+    }
+
+    try {
+      watchService = path.getFileSystem().newWatchService();
+      path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, String.format("Could not watch weather path %s", path), e);
+      return this;
+    }
+
+    WatchService service = watchService;
+    watchExecutor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("weather-watcher-" + path.getFileName() + "-%d")
+                .build());
+    watchExecutor.execute(() -> watchLoop(service));
+
+    return this;
+  }
+
+  /** Returns the size of the current index and how long it took to build. */
+  public ReloadStats getReloadStats() {
+    return snapshot.get().stats;
+  }
+
+  /**
+   * Returns hit and miss counts for the cache of nearest-station lookups. The cache carries over
+   * across reloads; cells resolved against an older index are resolved again.
+   */
+  public LookupStats getLookupStats() {
+    return lookups.stats();
+  }
+
+  /** Stops watching the directory. Lookups continue to work against the last published index. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+      watchExecutor.shutdownNow();
+      watchService = null;
+      watchExecutor = null;
+    }
+  }
+
+  /**
+   * Summarizes every weather file in the directory. Files whose size and modification time match
+   * an entry in <code>known</code> are taken from it rather than being re-read, and the on-disk
+   * {@link StationIndexFile} is rewritten if anything changed. Files that can't be summarized are
+   * logged and recorded as failed, so that they aren't read again until they change. Files whose
+   * attributes can't be read are left out, and show up in the scan's failures.
+   */
+  private DirectoryScan<StationIndexFile.Entry> loadSummaryData(
+      Map<String, StationIndexFile.Entry> known) {
+    Map<Path, Exception> failures = new ConcurrentHashMap<>();
+    DirectoryScan<StationIndexFile.Entry> scan;
+    try {
+      scan =
+          DirectoryScan.run(
+              path,
+              StationIndexFile::isIndexFile,
+              (file, attributes) ->
+                  loadEntry(
+                      file, attributes, known.get(file.getFileName().toString()), failures),
+              DirectoryScan.DEFAULT_PARALLELISM);
+    } catch (UncheckedIOException e) {
+      throw new IllegalStateException(String.format("Could not read weather path %s", path), e);
+    }
+    failures.putAll(scan.getFailures());
+    reportFailures(failures);
+
+    long summarized =
+        scan.getResults()
+            .stream()
+            .filter(entry -> known.get(entry.getSourceName()) != entry)
+            .count();
+    if (summarized > 0 || scan.getResults().size() != known.size()) {
+      logger.info(
+          String.format(
+              "Summarized %d new or changed weather files for path %s", summarized, path));
+      StationIndexFile.write(
+          path.resolve(StationIndexFile.FILE_NAME), summarizer, scan.getResults());
+    }
+
+    return scan;
+  }
+
+  /** Rescans the whole directory, for when changes to it may have been missed. */
+  private synchronized void reloadAll() {
+    long start = System.nanoTime();
+    DirectoryScan<StationIndexFile.Entry> scan = loadSummaryData(snapshot.get().entries);
+    publish(scan.getResults(), scan.getFailures().size(), start);
+
+    ReloadStats stats = getReloadStats();
+    logger.info(
+        String.format(
+            "Rescanned weather path %s in %d ms (%d stations)",
+            path, stats.getLastReloadMillis(), stats.getStationCount()));
+  }
+
+  private void reportFailures(Map<Path, Exception> failures) {
+    failures
+        .entrySet()
+        .stream()
+        .limit(MAX_REPORTED_FAILURES)
+        .forEach(
+            failure ->
+                logger.warning(
+                    String.format(
+                        "Could not summarize weather file %s: %s",
+                        failure.getKey(), failure.getValue())));
+    if (failures.size() > MAX_REPORTED_FAILURES) {
+      logger.warning(
+          String.format(
+              "Could not summarize %d more weather files in %s",
+              failures.size() - MAX_REPORTED_FAILURES, path));
+    }
+  }
+
+  /**
+   * Re-examines the named files and publishes a new index reflecting them. Files that no longer
+   * exist (or whose attributes can no longer be read) are removed, and files that can no longer be
+   * summarized are recorded as failed; everything else is carried over from the current snapshot.
+   */
+  private synchronized void refresh(Collection<String> filenames) {
+    long start = System.nanoTime();
+
+    Map<String, StationIndexFile.Entry> entries = new LinkedHashMap<>(snapshot.get().entries);
+    Map<Path, Exception> failures = new LinkedHashMap<>();
+    int unreadCount = 0;
+    for (String filename : filenames) {
+      Path file = path.resolve(filename);
+      StationIndexFile.Entry entry = null;
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.isRegularFile()) {
+          entry = loadEntry(file, attributes, entries.get(filename), failures);
+        }
+      } catch (NoSuchFileException e) {
+        // Deleted
+      } catch (IOException | RuntimeException e) {
+        failures.put(file, e);
+        unreadCount++;
+      }
+
+      if (entry == null) {
+        entries.remove(filename);
+      } else {
+        entries.put(filename, entry);
+      }
+    }
+
+    reportFailures(failures);
+    publish(entries.values(), unreadCount, start);
+    StationIndexFile.write(path.resolve(StationIndexFile.FILE_NAME), summarizer, entries.values());
+
+    ReloadStats stats = getReloadStats();
+    logger.info(
+        String.format(
+            "Reloaded %d changed weather files for path %s in %d ms (%d stations)",
+            filenames.size(), path, stats.getLastReloadMillis(), stats.getStationCount()));
+  }
+
+  /**
+   * Builds an index of <code>entries</code> and makes it current. Entries are sorted by name first,
+   * so that ties between stations are broken the same way regardless of the order files were read.
+   * Failed entries are kept, so that they aren't retried, but left out of the index. They count
+   * towards the failures along with the <code>unreadCount</code> files that have no entry at all.
+   */
+  private void publish(
+      Collection<StationIndexFile.Entry> entries, int unreadCount, long startNanos) {
+    List<StationIndexFile.Entry> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(StationIndexFile.Entry::getSourceName));
+
+    ImmutableMap.Builder<String, StationIndexFile.Entry> byName = ImmutableMap.builder();
+    ImmutableList.Builder<WeatherDataRecord> records = ImmutableList.builder();
+    int failedCount = unreadCount;
+    for (StationIndexFile.Entry entry : sorted) {
+      byName.put(entry.getSourceName(), entry);
+      if (entry.isFailed()) {
+        failedCount++;
+      } else {
+        records.add(entry.getRecord());
+      }
+    }
+
+    StationIndex index = StationIndex.build(records.build());
+    ReloadStats stats =
+        ReloadStats.builder()
+            .setStationCount(index.size())
+            .setReloadCount(snapshot.get().stats.getReloadCount() + 1)
+            .setFailedCount(failedCount)
+            .setLastReloadMillis(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+            .build();
+
+    snapshot.set(new Snapshot(byName.build(), index, stats));
+  }
+
+  private void watchLoop(WatchService service) {
+    // Files added after the first scan but before the watch was registered raised no events
+    boolean rescan = getReloadStats().getReloadCount() > 0;
+    while (true) {
+      try {
+        if (rescan) {
+          rescan = false;
+          reloadAll();
+        }
+
+        WatchKey key = service.take();
+        Set<String> changed = new LinkedHashSet<>();
+        boolean overflow = false;
+
+        // Wait for the directory to settle, so that a file being copied in is only read once.
+        while (key != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+              overflow = true;
+            } else {
+              changed.add(((Path) event.context()).getFileName().toString());
+            }
+          }
+          key.reset();
+          key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        changed.removeIf(StationIndexFile::isIndexFile);
+        if (overflow) {
+          reloadAll();
+        } else if (!changed.isEmpty()) {
+          refresh(changed);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ClosedWatchServiceException e) {
+        // close() was called
+        return;
+      } catch (RuntimeException e) {
+        // Keep watching; the next change will be picked up even if this one wasn't
+        logger.log(Level.WARNING, String.format("Could not reload weather path %s", path), e);
+      }
+    }
+  }
+
+  /**
+   * Returns <code>indexed</code> if it is still current, whether or not it failed, otherwise
+   * summarizes the file again from its header. If that fails, the reason is added to <code>
+   * failures</code> and a failed entry is returned.
+   *
+   * @throws NoSuchFileException if the file was deleted before it could be read
+   */
+  private StationIndexFile.Entry loadEntry(
+      Path file,
+      BasicFileAttributes attributes,
+      StationIndexFile.Entry indexed,
+      Map<Path, Exception> failures)
+      throws NoSuchFileException {
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    if (indexed != null && indexed.matches(size, lastModified)) {
+      return indexed;
+    }
+
+    WeatherDataRecord record = null;
+    try {
+      record = summarizeHeader(file);
+    } catch (NoSuchFileException e) {
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      failures.put(file, e);
+    }
+
+    return StationIndexFile.Entry.builder()
+        .setSourceName(file.getFileName().toString())
+        .setSize(size)
+        .setLastModified(lastModified)
+        .setRecord(record)
+        .build();
+  }
+
+  /**
+   * Reads just the header of <code>file</code> into a reusable per-thread buffer and summarizes
+   * it.
+   */
+  private WeatherDataRecord summarizeHeader(Path file) throws IOException {
+    ByteBuffer header = headerBuffers.get();
+    header.clear();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        // Keep reading until the header is full or the file ends
+      }
+    }
+    header.flip();
+
+    return summarizer.summarizeHeader(header);
+  }
+
+  /** An immutable view of the stations in the directory at some point in time. */
+  private static final class Snapshot {
+
+    static final Snapshot EMPTY =
+        new Snapshot(
+            ImmutableMap.of(),
+            StationIndex.build(ImmutableList.of()),
+            ReloadStats.builder()
+                .setStationCount(0)
+                .setReloadCount(0)
+                .setFailedCount(0)
+                .setLastReloadMillis(0)
+                .build());
+
+    final ImmutableMap<String, StationIndexFile.Entry> entries;
+    final StationIndex index;
+    final ReloadStats stats;
+
+    Snapshot(
+        ImmutableMap<String, StationIndexFile.Entry> entries,
+        StationIndex index,
+        ReloadStats stats) {
+      this.entries = entries;
+      this.index = index;
+      this.stats = stats;
+    }
   }
 }
@@ -0,0 +1,43 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of a weather source's cache of station lookups. */
+@AutoValue
+public abstract class LookupStats {
+
+  LookupStats() {}
+
+  /** The number of lookups in a cell that had already been resolved. */
+  public abstract long getHitCount();
+
+  /** The number of lookups in a cell that had to be resolved first. */
+  public abstract long getMissCount();
+
+  /**
+   * The number of lookups (hits or misses) in a cell that straddles two or more stations, which
+   * had to search the index anyway.
+   */
+  public abstract long getUnresolvedCount();
+
+  /** The number of cells currently cached. */
+  public abstract long getCellCount();
+
+  static Builder builder() {
+    return new AutoValue_LookupStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setHitCount(long hitCount);
+
+    abstract Builder setMissCount(long missCount);
+
+    abstract Builder setUnresolvedCount(long unresolvedCount);
+
+    abstract Builder setCellCount(long cellCount);
+
+    abstract LookupStats build();
+  }
+}
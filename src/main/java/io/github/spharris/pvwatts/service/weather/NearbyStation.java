@@ -0,0 +1,50 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.auto.value.AutoValue;
+
+/** A weather station and its distance from a queried location. */
+@AutoValue
+public abstract class NearbyStation {
+
+  NearbyStation() {}
+
+  /**
+   * The station's weather file name (or id, for sources that aren't backed by individual files).
+   * Locations that resolve to the same station will use the same weather data.
+   */
+  public abstract String getStation();
+
+  public abstract float getLat();
+
+  public abstract float getLon();
+
+  /** The great-circle distance from the queried location, in meters. */
+  public abstract int getDistance();
+
+  static NearbyStation of(WeatherDataRecord record, double distanceKm) {
+    return builder()
+        .setStation(record.getFilename())
+        .setLat(record.getLat())
+        .setLon(record.getLon())
+        .setDistance((int) Math.round(distanceKm * 1000))
+        .build();
+  }
+
+  static Builder builder() {
+    return new AutoValue_NearbyStation.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setStation(String station);
+
+    abstract Builder setLat(float lat);
+
+    abstract Builder setLon(float lon);
+
+    abstract Builder setDistance(int distance);
+
+    abstract NearbyStation build();
+  }
+}
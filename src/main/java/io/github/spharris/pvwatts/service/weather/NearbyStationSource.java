@@ -0,0 +1,18 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.collect.ImmutableList;
+
+/** A {@link WeatherSource} that can list every station near a location, not just the closest. */
+public interface NearbyStationSource extends WeatherSource {
+
+  /**
+   * Finds the stations closest to the given location, closest first. The first station is the one
+   * that {@link #getWeatherFile} would choose.
+   *
+   * @param lat The latitude.
+   * @param lon The longitude.
+   * @param limit The maximum number of stations to return, or 0 for no limit.
+   * @param radius The search radius (in mi), or 0 for no limit.
+   */
+  ImmutableList<NearbyStation> getNearbyStations(float lat, float lon, int limit, int radius);
+}
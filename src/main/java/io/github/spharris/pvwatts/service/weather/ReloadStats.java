@@ -0,0 +1,43 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of the index held by a {@link LocalDirectoryWeatherSource}. */
+@AutoValue
+public abstract class ReloadStats {
+
+  ReloadStats() {}
+
+  /** The number of stations in the current index. */
+  public abstract int getStationCount();
+
+  /** The number of times the index has been built or rebuilt, including the initial load. */
+  public abstract long getReloadCount();
+
+  /** How long the most recent (re)load took, in milliseconds. */
+  public abstract long getLastReloadMillis();
+
+  /**
+   * The number of files that couldn't be summarized as of the most recent (re)load, including those
+   * that failed before and haven't changed since.
+   */
+  public abstract int getFailedCount();
+
+  static Builder builder() {
+    return new AutoValue_ReloadStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setStationCount(int stationCount);
+
+    abstract Builder setReloadCount(long reloadCount);
+
+    abstract Builder setLastReloadMillis(long lastReloadMillis);
+
+    abstract Builder setFailedCount(int failedCount);
+
+    abstract ReloadStats build();
+  }
+}
@@ -0,0 +1,369 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A static k-d tree over the unit-sphere (x, y, z) coordinates of a set of weather stations.
+ *
+ * <p>Straight-line (chord) distance between two points on the sphere increases monotonically with
+ * their great-circle distance, so the tree can prune on chord distance while candidates are still
+ * ranked with {@link Haversine#haversine}. Ties are broken by position in the original list, which
+ * means {@link #nearest} returns exactly the station that a linear {@code Collections.min} scan
+ * would.
+ */
+final class StationIndex {
+
+  /** Slack added to pruning bounds so that floating point error never discards the true best. */
+  private static final double PRUNE_EPSILON = 1e-9;
+
+  private final ImmutableList<WeatherDataRecord> records;
+
+  // Tree nodes, stored implicitly: the subtree for [lo, hi) is rooted at (lo + hi) >>> 1.
+  private final int[] order;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] zs;
+  private final byte[] axes;
+
+  private StationIndex(ImmutableList<WeatherDataRecord> records) {
+    this.records = records;
+
+    int n = records.size();
+    this.order = new int[n];
+    this.xs = new double[n];
+    this.ys = new double[n];
+    this.zs = new double[n];
+    this.axes = new byte[n];
+
+    double[][] points = new double[n][];
+    for (int i = 0; i < n; i++) {
+      WeatherDataRecord record = records.get(i);
+      points[i] = toUnitVector(record.getLat(), record.getLon());
+      order[i] = i;
+    }
+
+    build(points, 0, n);
+
+    for (int i = 0; i < n; i++) {
+      double[] point = points[order[i]];
+      xs[i] = point[0];
+      ys[i] = point[1];
+      zs[i] = point[2];
+    }
+  }
+
+  /** Builds an index over <code>records</code>. Iteration order is used to break ties. */
+  static StationIndex build(List<WeatherDataRecord> records) {
+    return new StationIndex(ImmutableList.copyOf(records));
+  }
+
+  int size() {
+    return records.size();
+  }
+
+  ImmutableList<WeatherDataRecord> getRecords() {
+    return records;
+  }
+
+  /**
+   * Finds the station closest to the given point.
+   *
+   * @return The closest station, or <code>null</code> if the index is empty.
+   */
+  WeatherDataRecord nearest(float lat, float lon) {
+    if (records.isEmpty()) {
+      return null;
+    }
+
+    double[] target = toUnitVector(lat, lon);
+    NearestSearch search = new NearestSearch(lat, lon, target);
+    search.visit(0, records.size());
+
+    return records.get(search.bestIndex);
+  }
+
+  /**
+   * Finds the stations closest to the given point, closest first, with ties broken the same way as
+   * in {@link #nearest}.
+   *
+   * @param limit The maximum number of stations to return, or 0 for no limit.
+   * @param maxKm Only stations within this great-circle distance are returned.
+   */
+  ImmutableList<NearbyStation> nearby(float lat, float lon, int limit, double maxKm) {
+    if (records.isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    double[] target = toUnitVector(lat, lon);
+    NearbySearch search =
+        new NearbySearch(lat, lon, target, limit > 0 ? limit : Integer.MAX_VALUE, maxKm);
+    search.visit(0, records.size());
+
+    return search.results();
+  }
+
+  private void build(double[][] points, int lo, int hi) {
+    if (hi - lo <= 1) {
+      if (hi - lo == 1) {
+        axes[lo] = 0;
+      }
+      return;
+    }
+
+    int axis = widestAxis(points, lo, hi);
+    int mid = (lo + hi) >>> 1;
+    select(points, lo, hi - 1, mid, axis);
+    axes[mid] = (byte) axis;
+
+    build(points, lo, mid);
+    build(points, mid + 1, hi);
+  }
+
+  private int widestAxis(double[][] points, int lo, int hi) {
+    double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+    double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    for (int i = lo; i < hi; i++) {
+      double[] point = points[order[i]];
+      for (int axis = 0; axis < 3; axis++) {
+        min[axis] = Math.min(min[axis], point[axis]);
+        max[axis] = Math.max(max[axis], point[axis]);
+      }
+    }
+
+    int widest = 0;
+    for (int axis = 1; axis < 3; axis++) {
+      if (max[axis] - min[axis] > max[widest] - min[widest]) {
+        widest = axis;
+      }
+    }
+
+    return widest;
+  }
+
+  /** Quickselect on <code>order[lo..hi]</code> so that position <code>k</code> holds the median. */
+  private void select(double[][] points, int lo, int hi, int k, int axis) {
+    while (hi > lo) {
+      double pivot = points[order[(lo + hi) >>> 1]][axis];
+      int i = lo;
+      int j = hi;
+      while (i <= j) {
+        while (points[order[i]][axis] < pivot) {
+          i++;
+        }
+        while (points[order[j]][axis] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          int tmp = order[i];
+          order[i] = order[j];
+          order[j] = tmp;
+          i++;
+          j--;
+        }
+      }
+
+      if (k <= j) {
+        hi = j;
+      } else if (k >= i) {
+        lo = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private double coordinate(int node, int axis) {
+    switch (axis) {
+      case 0:
+        return xs[node];
+      case 1:
+        return ys[node];
+      default:
+        return zs[node];
+    }
+  }
+
+  static double[] toUnitVector(float lat, float lon) {
+    double phi = Math.toRadians(lat);
+    double lambda = Math.toRadians(lon);
+    double cosPhi = Math.cos(phi);
+
+    return new double[] {cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+  }
+
+  /** Converts a great-circle distance (in km) to the equivalent chord length on the unit sphere. */
+  static double chordLength(double km) {
+    double angle = km / Haversine.R;
+    if (angle >= Math.PI) {
+      return 2.0;
+    }
+
+    return 2.0 * Math.sin(angle / 2.0);
+  }
+
+  private final class NearestSearch {
+
+    private final float lat;
+    private final float lon;
+    private final double[] target;
+
+    private int bestIndex = -1;
+    private double bestDistance = Double.POSITIVE_INFINITY;
+    private double bestChord = Double.POSITIVE_INFINITY;
+
+    NearestSearch(float lat, float lon, double[] target) {
+      this.lat = lat;
+      this.lon = lon;
+      this.target = target;
+    }
+
+    void visit(int lo, int hi) {
+      if (lo >= hi) {
+        return;
+      }
+
+      int node = (lo + hi) >>> 1;
+      consider(order[node]);
+
+      if (hi - lo == 1) {
+        return;
+      }
+
+      int axis = axes[node];
+      double delta = target[axis] - coordinate(node, axis);
+      boolean goLeft = delta <= 0;
+
+      if (goLeft) {
+        visit(lo, node);
+      } else {
+        visit(node + 1, hi);
+      }
+
+      if (Math.abs(delta) <= bestChord + PRUNE_EPSILON) {
+        if (goLeft) {
+          visit(node + 1, hi);
+        } else {
+          visit(lo, node);
+        }
+      }
+    }
+
+    private void consider(int index) {
+      WeatherDataRecord record = records.get(index);
+      double distance = Haversine.haversine(record.getLat(), record.getLon(), lat, lon);
+      if (distance < bestDistance || (distance == bestDistance && index < bestIndex)) {
+        bestIndex = index;
+        bestDistance = distance;
+        bestChord = chordLength(distance);
+      }
+    }
+  }
+
+  /** A bounded best-first search, keeping the current matches in a max-heap. */
+  private final class NearbySearch {
+
+    private final float lat;
+    private final float lon;
+    private final double[] target;
+    private final int limit;
+    private final double maxKm;
+    private final double maxChord;
+    private final PriorityQueue<Match> matches;
+
+    NearbySearch(float lat, float lon, double[] target, int limit, double maxKm) {
+      this.lat = lat;
+      this.lon = lon;
+      this.target = target;
+      this.limit = limit;
+      this.maxKm = maxKm;
+      this.maxChord = Double.isInfinite(maxKm) ? Double.POSITIVE_INFINITY : chordLength(maxKm);
+      this.matches = new PriorityQueue<>(Math.min(limit, 64), Match.CLOSEST_FIRST.reversed());
+    }
+
+    void visit(int lo, int hi) {
+      if (lo >= hi) {
+        return;
+      }
+
+      int node = (lo + hi) >>> 1;
+      consider(order[node]);
+
+      if (hi - lo == 1) {
+        return;
+      }
+
+      int axis = axes[node];
+      double delta = target[axis] - coordinate(node, axis);
+      boolean goLeft = delta <= 0;
+
+      if (goLeft) {
+        visit(lo, node);
+      } else {
+        visit(node + 1, hi);
+      }
+
+      if (Math.abs(delta) <= bound() + PRUNE_EPSILON) {
+        if (goLeft) {
+          visit(node + 1, hi);
+        } else {
+          visit(lo, node);
+        }
+      }
+    }
+
+    ImmutableList<NearbyStation> results() {
+      List<Match> sorted = new ArrayList<>(matches);
+      sorted.sort(Match.CLOSEST_FIRST);
+
+      ImmutableList.Builder<NearbyStation> results = ImmutableList.builder();
+      for (Match match : sorted) {
+        results.add(NearbyStation.of(records.get(match.index), match.distance));
+      }
+
+      return results.build();
+    }
+
+    private double bound() {
+      if (matches.size() < limit) {
+        return maxChord;
+      }
+
+      return Math.min(maxChord, chordLength(matches.peek().distance));
+    }
+
+    private void consider(int index) {
+      WeatherDataRecord record = records.get(index);
+      double distance = Haversine.haversine(record.getLat(), record.getLon(), lat, lon);
+      if (distance > maxKm) {
+        return;
+      }
+
+      Match match = new Match(index, distance);
+      if (matches.size() < limit) {
+        matches.add(match);
+      } else if (Match.CLOSEST_FIRST.compare(match, matches.peek()) < 0) {
+        matches.poll();
+        matches.add(match);
+      }
+    }
+  }
+
+  private static final class Match {
+
+    static final Comparator<Match> CLOSEST_FIRST =
+        Comparator.<Match>comparingDouble(match -> match.distance)
+            .thenComparingInt(match -> match.index);
+
+    final int index;
+    final double distance;
+
+    Match(int index, double distance) {
+      this.index = index;
+      this.distance = distance;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes the binary station index that {@link LocalDirectoryWeatherSource} keeps next to
+ * its weather files. Each entry records the name, size and modification time of a weather file
+ * along with its summary, so that unchanged files don't need to be re-read on startup. Files that
+ * couldn't be summarized are recorded too, so that they aren't retried until they change.
+ */
+final class StationIndexFile {
+
+  /** Name of the index file inside a weather directory. */
+  static final String FILE_NAME = ".station_index";
+
+  private static final int MAGIC = 0x50565749; // "PVWI"
+  private static final int VERSION = 2;
+
+  private static final Logger logger = Logger.getLogger(StationIndexFile.class.getName());
+
+  private StationIndexFile() {}
+
+  /** Returns true if <code>filename</code> belongs to the index rather than to the weather data. */
+  static boolean isIndexFile(String filename) {
+    return filename.startsWith(FILE_NAME);
+  }
+
+  /**
+   * Reads the index at <code>file</code>, keyed by weather file name. Returns an empty map if the
+   * index is missing, unreadable, or was written for a different summarizer.
+   */
+  static ImmutableMap<String, Entry> read(Path file, WeatherSummarizer summarizer) {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC
+          || in.readInt() != VERSION
+          || !in.readUTF().equals(summarizerName(summarizer))) {
+        logger.info(String.format("Ignoring out of date station index %s", file));
+        return ImmutableMap.of();
+      }
+
+      int count = in.readInt();
+      ImmutableMap.Builder<String, Entry> entries = ImmutableMap.builder();
+      for (int i = 0; i < count; i++) {
+        Entry.Builder builder =
+            Entry.builder()
+                .setSourceName(in.readUTF())
+                .setSize(in.readLong())
+                .setLastModified(in.readLong());
+        if (in.readBoolean()) {
+          builder.setRecord(
+              WeatherDataRecord.builder()
+                  .setFilename(in.readUTF())
+                  .setLat(in.readFloat())
+                  .setLon(in.readFloat())
+                  .build());
+        }
+        Entry entry = builder.build();
+        entries.put(entry.getSourceName(), entry);
+      }
+
+      return entries.build();
+    } catch (NoSuchFileException e) {
+      return ImmutableMap.of();
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, String.format("Could not read station index %s", file), e);
+      return ImmutableMap.of();
+    }
+  }
+
+  /**
+   * Atomically replaces the index at <code>file</code> with <code>entries</code>. Failures are
+   * logged rather than thrown, since the index is only an optimization (and the weather directory
+   * may well be read-only).
+   */
+  static void write(Path file, WeatherSummarizer summarizer, Collection<Entry> entries) {
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(summarizerName(summarizer));
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+          out.writeUTF(entry.getSourceName());
+          out.writeLong(entry.getSize());
+          out.writeLong(entry.getLastModified());
+          out.writeBoolean(!entry.isFailed());
+          if (!entry.isFailed()) {
+            out.writeUTF(entry.getRecord().getFilename());
+            out.writeFloat(entry.getRecord().getLat());
+            out.writeFloat(entry.getRecord().getLon());
+          }
+        }
+      }
+
+      Files.move(
+          temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, String.format("Could not write station index %s", file), e);
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+          // Nothing else to do
+        }
+      }
+    }
+  }
+
+  private static String summarizerName(WeatherSummarizer summarizer) {
+    return summarizer.getClass().getName();
+  }
+
+  /** A weather file in the index, along with the attributes used to check whether it changed. */
+  @AutoValue
+  abstract static class Entry {
+
+    Entry() {}
+
+    abstract String getSourceName();
+
+    abstract long getSize();
+
+    abstract long getLastModified();
+
+    /** The file's summary, or null if it couldn't be summarized. */
+    abstract @Nullable WeatherDataRecord getRecord();
+
+    /** Returns true if the file couldn't be summarized when it had this size and mtime. */
+    boolean isFailed() {
+      return getRecord() == null;
+    }
+
+    /** Returns true if this entry still describes a file with the given size and mtime. */
+    boolean matches(long size, long lastModified) {
+      return getSize() == size && getLastModified() == lastModified;
+    }
+
+    static Builder builder() {
+      return new AutoValue_StationIndexFile_Entry.Builder();
+    }
+
+    @AutoValue.Builder
+    abstract static class Builder {
+
+      abstract Builder setSourceName(String sourceName);
+
+      abstract Builder setSize(long size);
+
+      abstract Builder setLastModified(long lastModified);
+
+      abstract Builder setRecord(@Nullable WeatherDataRecord record);
+
+      abstract Entry build();
+    }
+  }
+}
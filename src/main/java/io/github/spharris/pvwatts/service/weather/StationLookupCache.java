@@ -0,0 +1,118 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which station is closest to each small cell of latitude and longitude, so that
+ * repeated lookups for the same (or nearby) locations don't search the {@link StationIndex} again.
+ *
+ * <p>A cell is only cached as belonging to a station if every point in it is provably closest to
+ * that station: the runner-up must be further from the cell's center than the closest station by
+ * more than twice the cell's width. Cells that straddle the boundary between two stations are
+ * remembered as such, and lookups in them fall through to the index, so results are always
+ * identical to {@link StationIndex#nearest}.
+ */
+final class StationLookupCache {
+
+  /** The default number of cells to remember. */
+  static final int DEFAULT_MAXIMUM_CELLS = 100_000;
+
+  /** The width and height of a cell, in degrees (about 1 km). */
+  static final double CELL_DEGREES = 0.01;
+
+  /**
+   * An upper bound on the distance from a cell's center to any point in it, in km. Moving half a
+   * cell north or south and then half a cell east or west covers at most one cell's width of arc.
+   */
+  private static final double CELL_RADIUS_KM = Haversine.R * Math.toRadians(CELL_DEGREES);
+
+  /**
+   * Allows for cell centers being rounded to float precision and for {@link NearbyStation}
+   * distances being rounded to the meter.
+   */
+  private static final double SLACK_KM = 0.005;
+
+  private final Cache<Long, Cell> cells;
+  private final LongAdder unresolved = new LongAdder();
+
+  StationLookupCache() {
+    this(DEFAULT_MAXIMUM_CELLS);
+  }
+
+  StationLookupCache(int maximumCells) {
+    this.cells = CacheBuilder.newBuilder().maximumSize(maximumCells).recordStats().build();
+  }
+
+  /**
+   * Returns the same station as <code>index.nearest(lat, lon)</code>. Cells computed against an
+   * older index are recomputed, so the cache can be shared across reloads.
+   */
+  WeatherDataRecord nearest(StationIndex index, float lat, float lon) {
+    long row = (long) Math.floor((lat + 90.0) / CELL_DEGREES);
+    long col = (long) Math.floor((lon + 180.0) / CELL_DEGREES);
+    Long key = (row << 32) | (col & 0xffffffffL);
+
+    Cell cell;
+    try {
+      cell = cells.get(key, () -> resolve(index, row, col));
+      if (cell.index != index) {
+        cells.asMap().remove(key, cell);
+        cell = cells.get(key, () -> resolve(index, row, col));
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+
+    if (cell.index == index && cell.station != null) {
+      return cell.station;
+    }
+
+    unresolved.increment();
+    return index.nearest(lat, lon);
+  }
+
+  LookupStats stats() {
+    CacheStats stats = cells.stats();
+    return LookupStats.builder()
+        .setHitCount(stats.hitCount())
+        .setMissCount(stats.missCount())
+        .setUnresolvedCount(unresolved.sum())
+        .setCellCount(cells.size())
+        .build();
+  }
+
+  private static Cell resolve(StationIndex index, long row, long col) {
+    float lat = (float) ((row + 0.5) * CELL_DEGREES - 90.0);
+    float lon = (float) ((col + 0.5) * CELL_DEGREES - 180.0);
+
+    ImmutableList<NearbyStation> closest = index.nearby(lat, lon, 2, Double.POSITIVE_INFINITY);
+    if (closest.isEmpty()) {
+      return new Cell(index, null);
+    }
+    if (closest.size() == 2) {
+      double margin = (closest.get(1).getDistance() - closest.get(0).getDistance()) / 1000.0;
+      if (margin <= 2 * CELL_RADIUS_KM + SLACK_KM) {
+        return new Cell(index, null);
+      }
+    }
+
+    return new Cell(index, index.nearest(lat, lon));
+  }
+
+  /** The station closest to every point in a cell, or null if there isn't a single one. */
+  private static final class Cell {
+
+    final StationIndex index;
+    final WeatherDataRecord station;
+
+    Cell(StationIndex index, WeatherDataRecord station) {
+      this.index = index;
+      this.station = station;
+    }
+  }
+}
@@ -2,40 +2,50 @@ package io.github.spharris.pvwatts.service.weather;
 
 import static com.google.common.base.Preconditions.checkState;
 
-import java.io.IOException;
-import java.io.Reader;
+import java.nio.ByteBuffer;
 
 /** Summarize a .tm2 file. */
 public final class Tm2FileSummarizer implements WeatherSummarizer {
 
-  /** Reads the header from a TM2 file and returns a {@link WeatherDataRecord} summarizing it. */
+  // http://rredc.nrel.gov/solar/pubs/tmy2/tab3-1.html
+  private static final int HEADER_LENGTH = 59;
+
   @Override
-  public WeatherDataRecord summarizeFile(Reader file) throws IOException {
-    WeatherDataRecord.Builder builder = WeatherDataRecord.builder();
+  public int getHeaderLength() {
+    return HEADER_LENGTH;
+  }
 
-    // http://rredc.nrel.gov/solar/pubs/tmy2/tab3-1.html
-    char[] header = new char[59];
-    int read = file.read(header);
+  /** Reads the header from a TM2 file and returns a {@link WeatherDataRecord} summarizing it. */
+  @Override
+  public WeatherDataRecord summarizeHeader(ByteBuffer header) {
     checkState(
-        read == header.length,
-        "Read an incorrect number of bytes from TM2 header. Got %d expected %d.",
-        read,
-        header.length);
+        header.remaining() >= HEADER_LENGTH,
+        "Read an incorrect number of bytes from TM2 header. Got %s expected %s.",
+        header.remaining(),
+        HEADER_LENGTH);
 
-    builder
-        .setFilename(new String(header, 1, 5).trim() + ".tm2")
+    return WeatherDataRecord.builder()
+        .setFilename(field(header, 1, 5).trim() + ".tm2")
         .setLat(
             getCoord(
-                new String(header, 37, 1),
-                Integer.parseInt(new String(header, 39, 2).trim()),
-                Integer.parseInt(new String(header, 42, 2).trim())))
+                field(header, 37, 1),
+                Integer.parseInt(field(header, 39, 2).trim()),
+                Integer.parseInt(field(header, 42, 2).trim())))
         .setLon(
             getCoord(
-                new String(header, 45, 1),
-                Integer.parseInt(new String(header, 47, 3).trim()),
-                Integer.parseInt(new String(header, 51, 2).trim())));
+                field(header, 45, 1),
+                Integer.parseInt(field(header, 47, 3).trim()),
+                Integer.parseInt(field(header, 51, 2).trim())))
+        .build();
+  }
+
+  private static String field(ByteBuffer header, int offset, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) (header.get(header.position() + offset + i) & 0xff);
+    }
 
-    return builder.build();
+    return new String(chars);
   }
 
   private static float getCoord(String direction, int degrees, int minutes) {
@@ -1,24 +1,70 @@
 package io.github.spharris.pvwatts.service.weather;
 
 import java.io.IOException;
-import java.io.Reader;
-import java.util.Iterator;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 /** Summarizes TMY3-style CSV files */
 public final class Tmy3CsvFileSummarizer implements WeatherSummarizer {
 
-  /** Reads a the header from a TMY3-style CSV file and summarizes it. */
+  /** Comfortably longer than the first line of any TMY3 file. */
+  private static final int HEADER_LENGTH = 512;
+
+  @Override
+  public int getHeaderLength() {
+    return HEADER_LENGTH;
+  }
+
+  /**
+   * Reads the header (the first line) from a TMY3-style CSV file and summarizes it. The line is
+   * split in place rather than with a full CSV parser, since only the first row is needed.
+   */
   @Override
-  public WeatherDataRecord summarizeFile(Reader file) throws IOException {
-    Iterator<CSVRecord> records = CSVFormat.DEFAULT.parse(file).iterator();
-    CSVRecord header = records.next();
+  public WeatherDataRecord summarizeHeader(ByteBuffer header) throws IOException {
+    List<String> fields = parseFirstLine(header);
+    if (fields.size() < 6) {
+      throw new IOException(
+          String.format("Expected at least 6 fields in TMY3 header, got %d", fields.size()));
+    }
 
     return WeatherDataRecord.builder()
-        .setFilename(header.get(0) + "TYA.csv")
-        .setLat(Float.valueOf(header.get(4)))
-        .setLon(Float.valueOf(header.get(5)))
+        .setFilename(fields.get(0) + "TYA.csv")
+        .setLat(Float.valueOf(fields.get(4)))
+        .setLon(Float.valueOf(fields.get(5)))
         .build();
   }
+
+  /** Splits the first line of <code>header</code> on commas, allowing for quoted fields. */
+  private static List<String> parseFirstLine(ByteBuffer header) throws IOException {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = header.position(); i < header.limit(); i++) {
+      char c = (char) (header.get(i) & 0xff);
+      if (c == '"') {
+        if (quoted && i + 1 < header.limit() && header.get(i + 1) == '"') {
+          field.append(c);
+          i++;
+        } else {
+          quoted = !quoted;
+        }
+      } else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if ((c == '\n' || c == '\r') && !quoted) {
+        fields.add(field.toString());
+        return fields;
+      } else {
+        field.append(c);
+      }
+    }
+
+    if (header.remaining() >= HEADER_LENGTH) {
+      throw new IOException(
+          String.format("TMY3 header is longer than %d bytes", HEADER_LENGTH));
+    }
+    fields.add(field.toString());
+    return fields;
+  }
 }
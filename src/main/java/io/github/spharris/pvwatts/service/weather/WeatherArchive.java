@@ -0,0 +1,339 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A read-only view of a packed weather archive, as written by {@link WeatherArchiveWriter}. An
+ * archive holds many stations in a single file: a header listing each station's id, location and
+ * columns, followed by the column data as little-endian floats. The data is memory-mapped, so
+ * opening an archive only reads the header, and columns are returned as slices of the mapping
+ * rather than copies.
+ *
+ * <p>The layout is:
+ *
+ * <pre>
+ * int     magic ("PVWA")
+ * int     version
+ * int     header length, in bytes
+ * header  station count, then for each station: id, city, state, lat, lon, tz, elev, row count,
+ *         column names and the offset of its data from the start of the data section
+ * data    starting at the next multiple of 8 bytes; each station's columns stored one after
+ *         another, each column holding one float per row
+ * </pre>
+ */
+public final class WeatherArchive {
+
+  static final int MAGIC = 0x50565741; // "PVWA"
+  static final int VERSION = 1;
+
+  /** Length of the magic number, version and header length that precede the header. */
+  static final int PREAMBLE_SIZE = 12;
+
+  static final ByteOrder DATA_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  private final Path path;
+  private final ImmutableMap<String, Station> stations;
+
+  private WeatherArchive(Path path, ImmutableMap<String, Station> stations) {
+    this.path = path;
+    this.stations = stations;
+  }
+
+  /**
+   * Opens the archive at <code>path</code>, reading its header and mapping its data.
+   *
+   * @throws IOException if the file can't be read or isn't a weather archive.
+   */
+  public static WeatherArchive open(Path path) throws IOException {
+    List<Header> headers = new ArrayList<>();
+    long dataStart;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(String.format("%s is not a weather archive", path));
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException(
+            String.format("%s has unsupported archive version %d", path, version));
+      }
+
+      int headerLength = in.readInt();
+      dataStart = dataStart(headerLength);
+
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        headers.add(Header.read(in));
+      }
+    }
+
+    ImmutableMap.Builder<String, Station> stations = ImmutableMap.builder();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      MappedByteBuffer mapping = null;
+      long mappingStart = 0;
+      for (Header header : headers) {
+        long start = dataStart + header.offset;
+        long end = start + header.length();
+        if (end > size) {
+          throw new IOException(String.format("%s is truncated", path));
+        }
+
+        // A single mapping is limited to 2GB, so large archives are covered by several.
+        // Stations are laid out in order, so each new mapping starts at a station boundary.
+        if (mapping == null || end - mappingStart > mapping.capacity()) {
+          mappingStart = start;
+          long mappingSize = Math.min(size - start, Integer.MAX_VALUE);
+          if (header.length() > mappingSize) {
+            throw new IOException(String.format("Station %s is too large to map", header.id));
+          }
+          mapping = channel.map(FileChannel.MapMode.READ_ONLY, mappingStart, mappingSize);
+        }
+
+        stations.put(header.id, new Station(header, slice(mapping, start - mappingStart, header)));
+      }
+    }
+
+    return new WeatherArchive(path, stations.build());
+  }
+
+  /** The file this archive was read from. */
+  public Path getPath() {
+    return path;
+  }
+
+  /** The number of stations in the archive. */
+  public int size() {
+    return stations.size();
+  }
+
+  /** Summaries of every station in the archive, with the station id as the filename. */
+  public ImmutableList<WeatherDataRecord> getRecords() {
+    ImmutableList.Builder<WeatherDataRecord> records = ImmutableList.builder();
+    for (Station station : stations.values()) {
+      records.add(station.getRecord());
+    }
+
+    return records.build();
+  }
+
+  /** Returns the station with the given id, if it is in the archive. */
+  public Optional<Station> getStation(String id) {
+    return Optional.ofNullable(stations.get(id));
+  }
+
+  static long dataStart(int headerLength) {
+    long end = PREAMBLE_SIZE + (long) headerLength;
+    return (end + 7) & ~7L;
+  }
+
+  private static ByteBuffer slice(MappedByteBuffer mapping, long position, Header header) {
+    ByteBuffer view = mapping.duplicate();
+    view.position((int) position);
+    view.limit((int) (position + header.length()));
+    return view.slice().order(DATA_ORDER);
+  }
+
+  /** A single station in the archive. */
+  public static final class Station {
+
+    private final Header header;
+    private final ByteBuffer data;
+
+    private Station(Header header, ByteBuffer data) {
+      this.header = header;
+      this.data = data;
+    }
+
+    public String getId() {
+      return header.id;
+    }
+
+    public String getCity() {
+      return header.city;
+    }
+
+    public String getState() {
+      return header.state;
+    }
+
+    public float getLat() {
+      return header.lat;
+    }
+
+    public float getLon() {
+      return header.lon;
+    }
+
+    public float getTz() {
+      return header.tz;
+    }
+
+    public float getElev() {
+      return header.elev;
+    }
+
+    /** The number of values in each column. */
+    public int getRows() {
+      return header.rows;
+    }
+
+    public ImmutableList<String> getColumnNames() {
+      return header.columns;
+    }
+
+    /**
+     * Returns a read-only view of the named column, backed directly by the mapped archive. The
+     * buffer has its own position and limit, so it can be read freely.
+     */
+    public Optional<FloatBuffer> getColumn(String name) {
+      int index = header.columns.indexOf(name);
+      if (index < 0) {
+        return Optional.empty();
+      }
+
+      int columnBytes = header.rows * Float.BYTES;
+      ByteBuffer view = data.duplicate();
+      view.position(index * columnBytes);
+      view.limit((index + 1) * columnBytes);
+      return Optional.of(view.slice().order(DATA_ORDER).asFloatBuffer().asReadOnlyBuffer());
+    }
+
+    /** Copies this station's columns onto the heap. */
+    public WeatherData toWeatherData() {
+      Map<String, float[]> columns = new LinkedHashMap<>();
+      for (String name : header.columns) {
+        float[] values = new float[header.rows];
+        getColumn(name).get().get(values);
+        columns.put(name, values);
+      }
+
+      return toWeatherData(ImmutableMap.copyOf(columns));
+    }
+
+    /**
+     * Returns this station's header values without copying any of its columns, for callers that
+     * read the columns with {@link #getColumn} instead.
+     */
+    public WeatherData toWeatherHeader() {
+      return toWeatherData(ImmutableMap.of());
+    }
+
+    private WeatherData toWeatherData(ImmutableMap<String, float[]> columns) {
+      return WeatherData.builder()
+          .setLocation(header.id)
+          .setCity(header.city)
+          .setState(header.state)
+          .setLat(header.lat)
+          .setLon(header.lon)
+          .setTz(header.tz)
+          .setElev(header.elev)
+          .setColumns(columns)
+          .build();
+    }
+
+    WeatherDataRecord getRecord() {
+      return WeatherDataRecord.builder()
+          .setFilename(header.id)
+          .setLat(header.lat)
+          .setLon(header.lon)
+          .build();
+    }
+  }
+
+  /** A station's entry in the archive header. */
+  static final class Header {
+
+    final String id;
+    final String city;
+    final String state;
+    final float lat;
+    final float lon;
+    final float tz;
+    final float elev;
+    final int rows;
+    final ImmutableList<String> columns;
+    final long offset;
+
+    Header(
+        String id,
+        String city,
+        String state,
+        float lat,
+        float lon,
+        float tz,
+        float elev,
+        int rows,
+        ImmutableList<String> columns,
+        long offset) {
+      this.id = id;
+      this.city = city;
+      this.state = state;
+      this.lat = lat;
+      this.lon = lon;
+      this.tz = tz;
+      this.elev = elev;
+      this.rows = rows;
+      this.columns = columns;
+      this.offset = offset;
+    }
+
+    /** The size of this station's data, in bytes. */
+    long length() {
+      return (long) rows * columns.size() * Float.BYTES;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeUTF(id);
+      out.writeUTF(city);
+      out.writeUTF(state);
+      out.writeFloat(lat);
+      out.writeFloat(lon);
+      out.writeFloat(tz);
+      out.writeFloat(elev);
+      out.writeInt(rows);
+      out.writeInt(columns.size());
+      for (String column : columns) {
+        out.writeUTF(column);
+      }
+      out.writeLong(offset);
+    }
+
+    static Header read(DataInputStream in) throws IOException {
+      String id = in.readUTF();
+      String city = in.readUTF();
+      String state = in.readUTF();
+      float lat = in.readFloat();
+      float lon = in.readFloat();
+      float tz = in.readFloat();
+      float elev = in.readFloat();
+      int rows = in.readInt();
+      int columnCount = in.readInt();
+      ImmutableList.Builder<String> columns = ImmutableList.builder();
+      for (int i = 0; i < columnCount; i++) {
+        columns.add(in.readUTF());
+      }
+      long offset = in.readLong();
+
+      return new Header(id, city, state, lat, lon, tz, elev, rows, columns.build(), offset);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a {@link WeatherArchive}. Stations are added one at a time and their data is spooled to a
+ * temporary file, so packing a large dataset doesn't need to hold it all in memory. Nothing is
+ * written to the destination until {@link #commit}, which replaces it atomically.
+ *
+ * <p>Can also be run from the command line to pack directories of TM2 and TMY3 files:
+ *
+ * <pre>
+ * WeatherArchiveWriter &lt;archive&gt; &lt;weather directory&gt;...
+ * </pre>
+ */
+public final class WeatherArchiveWriter implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(WeatherArchiveWriter.class.getName());
+
+  private final Path archive;
+  private final Path data;
+  private final FileChannel dataChannel;
+  private final List<WeatherArchive.Header> headers = new ArrayList<>();
+  private final Set<String> ids = new HashSet<>();
+
+  private long dataSize = 0;
+  private boolean committed = false;
+
+  private WeatherArchiveWriter(Path archive, Path data) throws IOException {
+    this.archive = archive;
+    this.data = data;
+    this.dataChannel = FileChannel.open(data, StandardOpenOption.WRITE);
+  }
+
+  /** Starts writing a new archive to <code>archive</code>. */
+  public static WeatherArchiveWriter create(Path archive) throws IOException {
+    Path directory = archive.toAbsolutePath().getParent();
+    Path data = Files.createTempFile(directory, archive.getFileName().toString(), ".data");
+    return new WeatherArchiveWriter(archive, data);
+  }
+
+  /**
+   * Adds a station to the archive. Its data is written out immediately, so <code>station</code>
+   * can be discarded once this returns.
+   *
+   * @throws IllegalArgumentException if a station with the same location id was already added, or
+   *     if the station's columns are not all the same length.
+   */
+  public WeatherArchiveWriter add(WeatherData station) throws IOException {
+    checkState(!committed, "This archive has already been committed.");
+    checkArgument(
+        !ids.contains(station.getLocation()), "Duplicate station %s", station.getLocation());
+
+    int rows = -1;
+    for (float[] column : station.getColumns().values()) {
+      checkArgument(
+          rows < 0 || column.length == rows,
+          "Station %s has columns of different lengths",
+          station.getLocation());
+      rows = column.length;
+    }
+
+    ByteBuffer buffer =
+        ByteBuffer.allocate(Math.max(rows, 0) * Float.BYTES).order(WeatherArchive.DATA_ORDER);
+    long offset = dataSize;
+    for (Map.Entry<String, float[]> column : station.getColumns().entrySet()) {
+      buffer.clear();
+      buffer.asFloatBuffer().put(column.getValue());
+      while (buffer.hasRemaining()) {
+        dataSize += dataChannel.write(buffer);
+      }
+    }
+
+    headers.add(
+        new WeatherArchive.Header(
+            station.getLocation(),
+            station.getCity(),
+            station.getState(),
+            station.getLat(),
+            station.getLon(),
+            station.getTz(),
+            station.getElev(),
+            Math.max(rows, 0),
+            ImmutableList.copyOf(station.getColumns().keySet()),
+            offset));
+    ids.add(station.getLocation());
+    return this;
+  }
+
+  /** The number of stations added so far. */
+  public int size() {
+    return headers.size();
+  }
+
+  /**
+   * Writes the header and data to a temporary file next to the destination and moves it into
+   * place.
+   */
+  public void commit() throws IOException {
+    checkState(!committed, "This archive has already been committed.");
+    dataChannel.close();
+
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(headerBytes)) {
+      out.writeInt(headers.size());
+      for (WeatherArchive.Header header : headers) {
+        header.write(out);
+      }
+    }
+
+    Path temp = Files.createTempFile(data.getParent(), archive.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+          FileChannel in = FileChannel.open(data, StandardOpenOption.READ)) {
+        long dataStart = WeatherArchive.dataStart(headerBytes.size());
+        ByteBuffer preamble = ByteBuffer.allocate((int) dataStart);
+        preamble
+            .putInt(WeatherArchive.MAGIC)
+            .putInt(WeatherArchive.VERSION)
+            .putInt(headerBytes.size())
+            .put(headerBytes.toByteArray());
+        preamble.clear();
+        while (preamble.hasRemaining()) {
+          out.write(preamble);
+        }
+
+        long transferred = 0;
+        while (transferred < dataSize) {
+          transferred += in.transferTo(transferred, dataSize - transferred, out);
+        }
+      }
+
+      Files.move(
+          temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      committed = true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /** Discards the temporary data. If {@link #commit} wasn't called, nothing is written. */
+  @Override
+  public void close() throws IOException {
+    dataChannel.close();
+    Files.deleteIfExists(data);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: WeatherArchiveWriter <archive> <weather directory>...");
+      System.exit(1);
+    }
+
+    Path archive = Paths.get(args[0]);
+    try (WeatherArchiveWriter writer = create(archive)) {
+      for (int i = 1; i < args.length; i++) {
+        addDirectory(writer, Paths.get(args[i]));
+      }
+
+      writer.commit();
+      logger.info(String.format("Wrote %d stations to %s", writer.size(), archive));
+    }
+  }
+
+  private static void addDirectory(WeatherArchiveWriter writer, Path directory)
+      throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+
+    for (Path file : files) {
+      try {
+        Optional<WeatherData> station = WeatherFileParser.parse(file);
+        if (station.isPresent()) {
+          writer.add(station.get());
+        }
+      } catch (IOException | RuntimeException e) {
+        logger.log(Level.WARNING, String.format("Skipping weather file %s", file), e);
+      }
+    }
+  }
+}
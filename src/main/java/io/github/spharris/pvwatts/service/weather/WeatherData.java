@@ -0,0 +1,69 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Parsed weather data for a single station: the header values plus one primitive column per
+ * field, keyed by the names SSC expects in a <code>solar_resource_data</code> table ("dn", "tdry",
+ * etc.). The column arrays are shared and must not be modified.
+ *
+ * <p>Data made by {@link WeatherArchive.Station#toWeatherHeader} has no columns.
+ */
+@AutoValue
+public abstract class WeatherData {
+
+  WeatherData() {}
+
+  public abstract String getLocation();
+
+  public abstract String getCity();
+
+  public abstract String getState();
+
+  public abstract float getLat();
+
+  public abstract float getLon();
+
+  public abstract float getTz();
+
+  public abstract float getElev();
+
+  public abstract ImmutableMap<String, float[]> getColumns();
+
+  /** The approximate amount of heap held by this object's columns, in bytes. */
+  public long sizeInBytes() {
+    long size = 0;
+    for (float[] column : getColumns().values()) {
+      size += (long) column.length * Float.BYTES;
+    }
+
+    return size;
+  }
+
+  public static Builder builder() {
+    return new AutoValue_WeatherData.Builder();
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setLocation(String location);
+
+    public abstract Builder setCity(String city);
+
+    public abstract Builder setState(String state);
+
+    public abstract Builder setLat(float lat);
+
+    public abstract Builder setLon(float lon);
+
+    public abstract Builder setTz(float tz);
+
+    public abstract Builder setElev(float elev);
+
+    public abstract Builder setColumns(ImmutableMap<String, float[]> columns);
+
+    public abstract WeatherData build();
+  }
+}
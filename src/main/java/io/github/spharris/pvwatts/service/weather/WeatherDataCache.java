@@ -0,0 +1,104 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded cache of parsed weather files, keyed by path. Entries are weighted by the size of
+ * their columns and evicted least-recently-used first once the cache is full. A file that has been
+ * modified since it was cached is parsed again.
+ *
+ * <p>{@link WeatherModule} provides a single instance sized by {@link
+ * io.github.spharris.pvwatts.service.Annotations.WeatherCacheSize}.
+ */
+public final class WeatherDataCache {
+
+  /** The size of the cache if none is configured, in megabytes. */
+  public static final int DEFAULT_SIZE_MB = 256;
+
+  private static final Logger logger = Logger.getLogger(WeatherDataCache.class.getName());
+
+  private final Cache<String, Entry> cache;
+  private final boolean enabled;
+
+  /** Creates a cache holding up to <code>sizeMb</code> megabytes. A size of 0 disables it. */
+  public WeatherDataCache(int sizeMb) {
+    this.enabled = sizeMb > 0;
+    this.cache =
+        CacheBuilder.newBuilder()
+            // A single segment, so the limit applies to the whole cache rather than being split
+            // between segments (which would turn away a parsed file well under it)
+            .concurrencyLevel(1)
+            .maximumWeight(sizeMb * 1024L * 1024L)
+            .<String, Entry>weigher((file, entry) -> entry.weight())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Returns the parsed contents of <code>weatherFile</code>. The result is empty if the cache is
+   * disabled, or if the file is in a format that can't be parsed (in which case the file should be
+   * handed to SSC directly).
+   */
+  public Optional<WeatherData> get(String weatherFile) {
+    if (!enabled || weatherFile == null) {
+      return Optional.empty();
+    }
+
+    File file = new File(weatherFile);
+    long lastModified = file.lastModified();
+
+    try {
+      Entry entry = cache.get(weatherFile, () -> load(file, lastModified));
+      if (entry.lastModified != lastModified) {
+        cache.asMap().remove(weatherFile, entry);
+        entry = cache.get(weatherFile, () -> load(file, lastModified));
+      }
+
+      return entry.data;
+    } catch (ExecutionException e) {
+      logger.log(Level.WARNING, String.format("Could not load weather file %s", weatherFile), e);
+      return Optional.empty();
+    }
+  }
+
+  /** Hit, miss and eviction counts for the cache. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static Entry load(File file, long lastModified) throws IOException {
+    Optional<WeatherData> data;
+    try {
+      data = WeatherFileParser.parse(file.toPath());
+    } catch (RuntimeException e) {
+      // Remember unparseable files, so they aren't re-read (and logged) on every request.
+      logger.log(Level.WARNING, String.format("Could not parse weather file %s", file), e);
+      data = Optional.empty();
+    }
+
+    return new Entry(lastModified, data);
+  }
+
+  private static final class Entry {
+
+    final long lastModified;
+    final Optional<WeatherData> data;
+
+    Entry(long lastModified, Optional<WeatherData> data) {
+      this.lastModified = lastModified;
+      this.data = data;
+    }
+
+    int weight() {
+      return (int) Math.min(Integer.MAX_VALUE, data.map(WeatherData::sizeInBytes).orElse(0L));
+    }
+  }
+}
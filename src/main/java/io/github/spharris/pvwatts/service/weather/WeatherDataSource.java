@@ -0,0 +1,37 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import java.util.Optional;
+
+/**
+ * A {@link WeatherSource} that can hold weather data itself rather than pointing at files on disk.
+ * The names it returns from {@link #getWeatherFile} for such data identify a station within the
+ * source and can't be opened directly, so the data must be passed to SSC as a table instead.
+ */
+public interface WeatherDataSource extends WeatherSource {
+
+  /**
+   * Returns the weather data for <code>weatherFile</code>, a name previously returned by {@link
+   * #getWeatherFile}.
+   *
+   * @return The data, or an empty {@link Optional} if this source doesn't hold the data for <code>
+   *     weatherFile</code>, in which case it is treated as the path to a file.
+   */
+  Optional<WeatherData> getWeatherData(String weatherFile);
+
+  /**
+   * Whether this source holds the data for <code>weatherFile</code>, in which case it can only be
+   * passed to SSC as a table. Sources whose data is expensive to build should override this.
+   */
+  default boolean hasWeatherData(String weatherFile) {
+    return getWeatherData(weatherFile).isPresent();
+  }
+
+  /**
+   * Returns the archived station for <code>weatherFile</code>, if this source's data for it is
+   * held in a {@link WeatherArchive}. Its columns can then be read straight from the archive's
+   * mapping instead of being copied by {@link #getWeatherData}.
+   */
+  default Optional<WeatherArchive.Station> getStation(String weatherFile) {
+    return Optional.empty();
+  }
+}
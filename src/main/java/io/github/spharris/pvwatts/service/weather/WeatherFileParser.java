@@ -0,0 +1,210 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Parses whole TM2 and TMY3 weather files into {@link WeatherData}. Values are converted the same
+ * way SSC converts them when it reads the file itself, so a simulation run from the parsed data
+ * sees the same inputs as one run from the file.
+ */
+public final class WeatherFileParser {
+
+  private WeatherFileParser() {}
+
+  /**
+   * Parses the weather file at <code>file</code>.
+   *
+   * @return The parsed data, or an empty {@link Optional} if the file is not a format this class
+   *     understands.
+   * @throws IOException if the file can't be read.
+   */
+  public static Optional<WeatherData> parse(Path file) throws IOException {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".tm2")) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+        return Optional.of(parseTm2(reader));
+      }
+    } else if (name.endsWith(".csv")) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+        return Optional.of(parseTmy3(reader));
+      }
+    }
+
+    return Optional.empty();
+  }
+
+  /** Parses a TM2 file. See http://rredc.nrel.gov/solar/pubs/tmy2/tab3-2.html for the layout. */
+  static WeatherData parseTm2(BufferedReader reader) throws IOException {
+    String[] header = reader.readLine().trim().split("\\s+");
+    checkState(header.length >= 11, "Malformed TM2 header: %s", String.join(" ", header));
+
+    List<String> lines = new ArrayList<>(8760);
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      if (!line.trim().isEmpty()) {
+        lines.add(line);
+      }
+    }
+
+    Columns columns = new Columns(lines.size(), "snow");
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      columns.year[i] = 1900 + field(line, 1, 3);
+      columns.month[i] = field(line, 3, 5);
+      columns.day[i] = field(line, 5, 7);
+      columns.hour[i] = field(line, 7, 9) - 1;
+      columns.minute[i] = 30;
+      columns.gh[i] = field(line, 17, 21);
+      columns.dn[i] = field(line, 23, 27);
+      columns.df[i] = field(line, 29, 33);
+      columns.tdry[i] = field(line, 67, 71) / 10f;
+      columns.tdew[i] = field(line, 73, 77) / 10f;
+      columns.rhum[i] = field(line, 79, 82);
+      columns.pres[i] = field(line, 84, 88);
+      columns.wdir[i] = field(line, 90, 93);
+      columns.wspd[i] = field(line, 95, 98) / 10f;
+      columns.extra[i] = field(line, 133, 136);
+    }
+
+    return WeatherData.builder()
+        .setLocation(header[0])
+        .setCity(header[1])
+        .setState(header[2])
+        .setTz(Float.parseFloat(header[3]))
+        .setLat(coordinate(header[4], header[5], header[6]))
+        .setLon(coordinate(header[7], header[8], header[9]))
+        .setElev(Float.parseFloat(header[10]))
+        .setColumns(columns.build())
+        .build();
+  }
+
+  /** Parses a TMY3-style CSV file: a station header row, a column header row, then 8760 rows. */
+  static WeatherData parseTmy3(Reader reader) throws IOException {
+    Iterator<CSVRecord> records = CSVFormat.DEFAULT.parse(reader).iterator();
+    CSVRecord header = records.next();
+    records.next();
+
+    List<CSVRecord> rows = new ArrayList<>(8760);
+    records.forEachRemaining(rows::add);
+
+    Columns columns = new Columns(rows.size(), "alb");
+    for (int i = 0; i < rows.size(); i++) {
+      CSVRecord row = rows.get(i);
+      String[] date = row.get(0).split("/");
+      columns.year[i] = Integer.parseInt(date[2]);
+      columns.month[i] = Integer.parseInt(date[0]);
+      columns.day[i] = Integer.parseInt(date[1]);
+      columns.hour[i] = Integer.parseInt(row.get(1).split(":")[0]) - 1;
+      columns.minute[i] = 30;
+      columns.gh[i] = Float.parseFloat(row.get(4));
+      columns.dn[i] = Float.parseFloat(row.get(7));
+      columns.df[i] = Float.parseFloat(row.get(10));
+      columns.tdry[i] = Float.parseFloat(row.get(31));
+      columns.tdew[i] = Float.parseFloat(row.get(34));
+      columns.rhum[i] = Float.parseFloat(row.get(37));
+      columns.pres[i] = Float.parseFloat(row.get(40));
+      columns.wdir[i] = Float.parseFloat(row.get(43));
+      columns.wspd[i] = Float.parseFloat(row.get(46));
+      columns.extra[i] = Float.parseFloat(row.get(61));
+    }
+
+    return WeatherData.builder()
+        .setLocation(header.get(0))
+        .setCity(header.get(1))
+        .setState(header.get(2))
+        .setTz(Float.parseFloat(header.get(3)))
+        .setLat(Float.parseFloat(header.get(4)))
+        .setLon(Float.parseFloat(header.get(5)))
+        .setElev(Float.parseFloat(header.get(6)))
+        .setColumns(columns.build())
+        .build();
+  }
+
+  private static int field(String line, int start, int end) {
+    return Integer.parseInt(line.substring(start, end).trim());
+  }
+
+  private static float coordinate(String direction, String degrees, String minutes) {
+    float coord = Integer.parseInt(degrees) + Integer.parseInt(minutes) / 60f;
+    if (direction.equals("W") || direction.equals("S")) {
+      return coord * -1.0f;
+    }
+
+    return coord;
+  }
+
+  /** The columns common to every format, plus one format-specific column. */
+  private static final class Columns {
+
+    final float[] year;
+    final float[] month;
+    final float[] day;
+    final float[] hour;
+    final float[] minute;
+    final float[] gh;
+    final float[] dn;
+    final float[] df;
+    final float[] tdry;
+    final float[] tdew;
+    final float[] rhum;
+    final float[] pres;
+    final float[] wdir;
+    final float[] wspd;
+    final float[] extra;
+
+    private final String extraName;
+
+    Columns(int rows, String extraName) {
+      this.year = new float[rows];
+      this.month = new float[rows];
+      this.day = new float[rows];
+      this.hour = new float[rows];
+      this.minute = new float[rows];
+      this.gh = new float[rows];
+      this.dn = new float[rows];
+      this.df = new float[rows];
+      this.tdry = new float[rows];
+      this.tdew = new float[rows];
+      this.rhum = new float[rows];
+      this.pres = new float[rows];
+      this.wdir = new float[rows];
+      this.wspd = new float[rows];
+      this.extra = new float[rows];
+      this.extraName = extraName;
+    }
+
+    ImmutableMap<String, float[]> build() {
+      return ImmutableMap.<String, float[]>builder()
+          .put("year", year)
+          .put("month", month)
+          .put("day", day)
+          .put("hour", hour)
+          .put("minute", minute)
+          .put("gh", gh)
+          .put("dn", dn)
+          .put("df", df)
+          .put("tdry", tdry)
+          .put("tdew", tdew)
+          .put("rhum", rhum)
+          .put("pres", pres)
+          .put("wdir", wdir)
+          .put("wspd", wspd)
+          .put(extraName, extra)
+          .build();
+    }
+  }
+}
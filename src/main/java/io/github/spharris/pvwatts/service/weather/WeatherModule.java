@@ -1,14 +1,20 @@
 package io.github.spharris.pvwatts.service.weather;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Binder;
+import com.google.inject.Provides;
 import com.google.inject.multibindings.MapBinder;
+import io.github.spharris.pvwatts.service.Annotations.WeatherCacheSize;
 import io.github.spharris.pvwatts.service.Annotations.WeatherDirectory;
 import java.nio.file.Paths;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
-/** Module for provided weather sources. */
+/**
+ * Module for provided weather sources. Each dataset starts loading in the background as soon as
+ * the injector is created; see {@link BackgroundWeatherSource}.
+ */
 public final class WeatherModule extends AbstractModule {
 
   @Override
@@ -19,29 +25,130 @@ public final class WeatherModule extends AbstractModule {
     weatherBinder
         .addBinding("tmy2")
         .toProvider(new LocalDirectoryWeatherSourceProvider("tmy2", new Tm2FileSummarizer()))
-        .in(Singleton.class);
+        .asEagerSingleton();
 
     weatherBinder
         .addBinding("tmy3")
         .toProvider(new LocalDirectoryWeatherSourceProvider("tmy3", new Tmy3CsvFileSummarizer()))
-        .in(Singleton.class);
+        .asEagerSingleton();
   }
 
-  private static class LocalDirectoryWeatherSourceProvider
-      implements Provider<LocalDirectoryWeatherSource> {
+  /**
+   * Registers the {@link WeatherArchive} at <code>archive</code> as the dataset <code>name</code>,
+   * alongside the provided datasets. Relative paths are resolved against the weather directory.
+   * Call this from the <code>configure</code> method of any module installed with this one.
+   */
+  public static void bindArchive(Binder binder, String name, String archive) {
+    MapBinder.newMapBinder(binder, String.class, WeatherSource.class)
+        .addBinding(name)
+        .toProvider(new ArchiveWeatherSourceProvider(name, archive))
+        .asEagerSingleton();
+  }
+
+  /**
+   * Registers the gridded dataset in <code>subdirectory</code> of the weather directory as the
+   * dataset <code>name</code>. See {@link GridWeatherSource} for how the files must be named.
+   */
+  public static void bindGrid(
+      Binder binder,
+      String name,
+      String subdirectory,
+      double latSpacing,
+      double lonSpacing,
+      String filenameFormat) {
+    MapBinder.newMapBinder(binder, String.class, WeatherSource.class)
+        .addBinding(name)
+        .toProvider(
+            new GridWeatherSourceProvider(
+                name, subdirectory, latSpacing, lonSpacing, filenameFormat))
+        .asEagerSingleton();
+  }
+
+  @Provides
+  @Singleton
+  WeatherDataCache provideWeatherDataCache(@WeatherCacheSize int sizeMb) {
+    return new WeatherDataCache(sizeMb);
+  }
+
+  /** Hands a dataset's (slow) construction off to the {@link WeatherSourceLoader}. */
+  private abstract static class BackgroundWeatherSourceProvider
+      implements Provider<BackgroundWeatherSource> {
 
-    @Inject @WeatherDirectory private String weatherDirectory;
+    @Inject @WeatherDirectory String weatherDirectory;
+    @Inject private WeatherSourceLoader loader;
+
+    private final String name;
+
+    BackgroundWeatherSourceProvider(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public BackgroundWeatherSource get() {
+      return loader.load(name, this::load);
+    }
+
+    abstract WeatherSource load();
+  }
+
+  private static class LocalDirectoryWeatherSourceProvider extends BackgroundWeatherSourceProvider {
 
     private final String subdirectory;
     private final WeatherSummarizer summarizer;
 
     LocalDirectoryWeatherSourceProvider(String subdirectory, WeatherSummarizer summarizer) {
+      super(subdirectory);
       this.subdirectory = subdirectory;
       this.summarizer = summarizer;
     }
 
-    public LocalDirectoryWeatherSource get() {
+    @Override
+    WeatherSource load() {
       return new LocalDirectoryWeatherSource(Paths.get(weatherDirectory, subdirectory), summarizer)
+          .initialize()
+          .watch();
+    }
+  }
+
+  private static class ArchiveWeatherSourceProvider extends BackgroundWeatherSourceProvider {
+
+    private final String archive;
+
+    ArchiveWeatherSourceProvider(String name, String archive) {
+      super(name);
+      this.archive = archive;
+    }
+
+    @Override
+    WeatherSource load() {
+      return new ArchiveWeatherSource(Paths.get(weatherDirectory).resolve(archive)).initialize();
+    }
+  }
+
+  private static class GridWeatherSourceProvider extends BackgroundWeatherSourceProvider {
+
+    private final String subdirectory;
+    private final double latSpacing;
+    private final double lonSpacing;
+    private final String filenameFormat;
+
+    GridWeatherSourceProvider(
+        String name,
+        String subdirectory,
+        double latSpacing,
+        double lonSpacing,
+        String filenameFormat) {
+      super(name);
+      this.subdirectory = subdirectory;
+      this.latSpacing = latSpacing;
+      this.lonSpacing = lonSpacing;
+      this.filenameFormat = filenameFormat;
+    }
+
+    @Override
+    WeatherSource load() {
+      return new GridWeatherSource(
+              Paths.get(weatherDirectory, subdirectory), latSpacing, lonSpacing, filenameFormat)
           .initialize();
     }
   }
@@ -0,0 +1,28 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Loads weather datasets in the background, each on its own thread, so that they index
+ * concurrently and don't hold up startup.
+ */
+@Singleton
+public final class WeatherSourceLoader {
+
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("weather-loader-%d").build());
+
+  @Inject
+  public WeatherSourceLoader() {}
+
+  /** Starts loading <code>dataset</code> and returns a source that serves it once it's ready. */
+  public BackgroundWeatherSource load(String dataset, Callable<? extends WeatherSource> loader) {
+    return new BackgroundWeatherSource(dataset, loader, executor);
+  }
+}
@@ -0,0 +1,56 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.google.auto.value.AutoValue;
+import javax.annotation.Nullable;
+
+/** Whether a weather dataset is ready to serve requests. */
+@AutoValue
+@JsonInclude(Include.NON_NULL)
+public abstract class WeatherSourceStatus {
+
+  /** The states a dataset can be in. */
+  public enum State {
+    LOADING,
+    READY,
+    FAILED
+  }
+
+  WeatherSourceStatus() {}
+
+  public abstract String getDataset();
+
+  public abstract State getState();
+
+  /** Why the dataset failed to load, if it did. */
+  public abstract @Nullable String getError();
+
+  /**
+   * Returns the status of <code>source</code>. Sources that aren't loaded in the background are
+   * always ready.
+   */
+  public static WeatherSourceStatus of(String dataset, WeatherSource source) {
+    if (source instanceof BackgroundWeatherSource) {
+      return ((BackgroundWeatherSource) source).getStatus();
+    }
+
+    return builder().setDataset(dataset).setState(State.READY).build();
+  }
+
+  static Builder builder() {
+    return new AutoValue_WeatherSourceStatus.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setDataset(String dataset);
+
+    abstract Builder setState(State state);
+
+    abstract Builder setError(String error);
+
+    abstract WeatherSourceStatus build();
+  }
+}
@@ -0,0 +1,21 @@
+package io.github.spharris.pvwatts.service.weather;
+
+/**
+ * Thrown when a weather dataset is asked for a weather file before it has finished loading, or
+ * after it failed to load. The message is suitable for returning to the caller.
+ */
+public final class WeatherSourceUnavailableException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String dataset;
+
+  public WeatherSourceUnavailableException(String dataset, String message) {
+    super(message);
+    this.dataset = dataset;
+  }
+
+  public String getDataset() {
+    return dataset;
+  }
+}
@@ -2,8 +2,37 @@ package io.github.spharris.pvwatts.service.weather;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
-/** An interface for summarizing weather data, usually from a local file. */
+/**
+ * An interface for summarizing weather data, usually from a local file. Everything a summary needs
+ * is in a short header at the start of the file, so summarizers work from the first {@link
+ * #getHeaderLength} bytes rather than the whole file.
+ */
 public interface WeatherSummarizer {
-  WeatherDataRecord summarizeFile(Reader file) throws IOException;
+
+  /** The number of bytes from the start of a file that {@link #summarizeHeader} needs. */
+  int getHeaderLength();
+
+  /**
+   * Summarizes a file from its first bytes. <code>header</code> holds the start of the file from
+   * its position to its limit, which is shorter than {@link #getHeaderLength} only if the file is.
+   * Implementations must not modify the buffer's position or limit.
+   */
+  WeatherDataRecord summarizeHeader(ByteBuffer header) throws IOException;
+
+  /** Summarizes the file read by <code>file</code>, one byte per character. */
+  default WeatherDataRecord summarizeFile(Reader file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(getHeaderLength());
+    char[] chars = new char[getHeaderLength()];
+    int read;
+    while (header.hasRemaining() && (read = file.read(chars, 0, header.remaining())) >= 0) {
+      for (int i = 0; i < read; i++) {
+        header.put((byte) chars[i]);
+      }
+    }
+    header.flip();
+
+    return summarizeHeader(header);
+  }
 }
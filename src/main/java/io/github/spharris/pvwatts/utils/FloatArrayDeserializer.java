@@ -0,0 +1,17 @@
+package io.github.spharris.pvwatts.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import io.github.spharris.ssc.utils.FloatArray;
+import java.io.IOException;
+
+/** Reads a JSON array of numbers into a {@link FloatArray}, without boxing the values. */
+public final class FloatArrayDeserializer extends JsonDeserializer<FloatArray> {
+
+  @Override
+  public FloatArray deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    return FloatArray.copyOf(context.readValue(parser, float[].class));
+  }
+}
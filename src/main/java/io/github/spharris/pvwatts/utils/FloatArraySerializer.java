@@ -0,0 +1,24 @@
+package io.github.spharris.pvwatts.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import io.github.spharris.ssc.utils.FloatArray;
+import java.io.IOException;
+
+/**
+ * Writes a {@link FloatArray} straight from its primitive values, rather than boxing each one and
+ * looking up a serializer for it.
+ */
+public final class FloatArraySerializer extends JsonSerializer<FloatArray> {
+
+  @Override
+  public void serialize(FloatArray value, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
+    gen.writeStartArray(value.size());
+    for (int i = 0; i < value.size(); i++) {
+      gen.writeNumber(value.getFloat(i));
+    }
+    gen.writeEndArray();
+  }
+}
@@ -2,6 +2,7 @@ package io.github.spharris.pvwatts.utils;
 
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
+import io.github.spharris.pvwatts.service.NearbyStationsRequest;
 import io.github.spharris.pvwatts.service.PvWatts4Request;
 import io.github.spharris.pvwatts.service.PvWatts5Request;
 
@@ -27,6 +28,7 @@ public final class RequestConverter {
         .setInoct(parseFloat(Iterables.getFirst(multimap.get("inoct"), null)))
         .setGamma(parseFloat(Iterables.getFirst(multimap.get("gamma"), null)))
         .setCallback(Iterables.getFirst(multimap.get("callback"), null))
+        .setCache(parseBoolean(Iterables.getFirst(multimap.get("cache"), null)))
         .build();
   }
 
@@ -49,6 +51,18 @@ public final class RequestConverter {
         .setGcr(parseFloat(Iterables.getFirst(multimap.get("gcr"), "0.4")))
         .setInvEff(parseFloat(Iterables.getFirst(multimap.get("inv_eff"), null)))
         .setCallback(Iterables.getFirst(multimap.get("callback"), null))
+        .setCache(parseBoolean(Iterables.getFirst(multimap.get("cache"), null)))
+        .build();
+  }
+
+  public static NearbyStationsRequest toNearbyStationsRequest(
+      ImmutableMultimap<String, String> multimap) {
+    return NearbyStationsRequest.builder()
+        .setLat(parseFloat(Iterables.getFirst(multimap.get("lat"), null)))
+        .setLon(parseFloat(Iterables.getFirst(multimap.get("lon"), null)))
+        .setDataset(Iterables.getFirst(multimap.get("dataset"), null))
+        .setLimit(parseInt(Iterables.getFirst(multimap.get("limit"), null)))
+        .setRadius(parseInt(Iterables.getFirst(multimap.get("radius"), null)))
         .build();
   }
 
@@ -60,6 +74,10 @@ public final class RequestConverter {
     }
   }
 
+  private static Boolean parseBoolean(String data) {
+    return data == null ? null : Boolean.valueOf(data);
+  }
+
   private static Float parseFloat(String data) {
     try {
       return Float.valueOf(data);
@@ -1,10 +1,16 @@
 package io.github.spharris.pvwatts.web;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import io.github.spharris.pvwatts.service.NearbyStationsResponse;
+import io.github.spharris.pvwatts.service.NearbyStationsService;
 import io.github.spharris.pvwatts.service.PvWatts4Response;
 import io.github.spharris.pvwatts.service.PvWatts4Service;
 import io.github.spharris.pvwatts.service.PvWatts5Response;
 import io.github.spharris.pvwatts.service.PvWatts5Service;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.pvwatts.service.weather.WeatherSourceStatus;
 import java.util.List;
 import java.util.Map;
 import javax.inject.Inject;
@@ -14,6 +20,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 @Path("/")
@@ -21,11 +29,19 @@ public final class PvWattsController {
 
   private final PvWatts4Service v4Service;
   private final PvWatts5Service v5Service;
+  private final NearbyStationsService stationsService;
+  private final ImmutableSortedMap<String, WeatherSource> weatherSources;
 
   @Inject
-  public PvWattsController(PvWatts4Service v4Service, PvWatts5Service v5Service) {
+  public PvWattsController(
+      PvWatts4Service v4Service,
+      PvWatts5Service v5Service,
+      NearbyStationsService stationsService,
+      Map<String, WeatherSource> weatherSources) {
     this.v4Service = v4Service;
     this.v5Service = v5Service;
+    this.stationsService = stationsService;
+    this.weatherSources = ImmutableSortedMap.copyOf(weatherSources);
   }
 
   @Path("v4.json")
@@ -42,6 +58,38 @@ public final class PvWattsController {
     return v5Service.execute(transformMap(uriInfo.getQueryParameters()));
   }
 
+  /**
+   * Lists the weather stations nearest to <code>lat</code>/<code>lon</code> in a dataset, with
+   * their distances, without running a simulation.
+   */
+  @Path("stations.json")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public NearbyStationsResponse stationsJsonResource(@Context UriInfo uriInfo) {
+    return stationsService.execute(transformMap(uriInfo.getQueryParameters()));
+  }
+
+  /**
+   * Reports whether each weather dataset has finished loading. Responds with 503 until all of them
+   * are ready, so it can be used as a readiness check.
+   */
+  @Path("ready")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response readiness() {
+    ImmutableList.Builder<WeatherSourceStatus> statuses = ImmutableList.builder();
+    boolean ready = true;
+    for (Map.Entry<String, WeatherSource> source : weatherSources.entrySet()) {
+      WeatherSourceStatus status = WeatherSourceStatus.of(source.getKey(), source.getValue());
+      ready &= status.getState() == WeatherSourceStatus.State.READY;
+      statuses.add(status);
+    }
+
+    return Response.status(ready ? Status.OK : Status.SERVICE_UNAVAILABLE)
+        .entity(statuses.build())
+        .build();
+  }
+
   private static ImmutableMultimap<String, String> transformMap(
       MultivaluedMap<String, String> map) {
     ImmutableMultimap.Builder<String, String> builder = ImmutableMultimap.builder();
@@ -3,7 +3,13 @@ package io.github.spharris.pvwatts.web;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import io.github.spharris.pvwatts.service.Annotations.ResultCacheSize;
+import io.github.spharris.pvwatts.service.Annotations.SimulationTimeout;
+import io.github.spharris.pvwatts.service.Annotations.WeatherCacheSize;
 import io.github.spharris.pvwatts.service.Annotations.WeatherDirectory;
+import io.github.spharris.pvwatts.service.SimulationResultCache;
+import io.github.spharris.pvwatts.service.TimedSimulationRunner;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
 import io.github.spharris.pvwatts.web.Annotations.Port;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -18,6 +24,9 @@ final class PvWattsFlagsModule extends AbstractModule {
       ImmutableMap.<String, String>builder()
           .put("port", "3000")
           .put("weather_directory", "weather/")
+          .put("weather_cache_mb", String.valueOf(WeatherDataCache.DEFAULT_SIZE_MB))
+          .put("result_cache_mb", String.valueOf(SimulationResultCache.DEFAULT_SIZE_MB))
+          .put("simulation_timeout_ms", String.valueOf(TimedSimulationRunner.DEFAULT_TIMEOUT_MS))
           .build();
 
   private CommandLine flags;
@@ -31,6 +40,12 @@ final class PvWattsFlagsModule extends AbstractModule {
     bind(Key.get(Integer.class, Port.class)).toInstance(Integer.valueOf(getFlagValue("port")));
     bind(Key.get(String.class, WeatherDirectory.class))
         .toInstance(flags.getOptionValue("weather_directory"));
+    bind(Key.get(Integer.class, WeatherCacheSize.class))
+        .toInstance(Integer.valueOf(getFlagValue("weather_cache_mb")));
+    bind(Key.get(Integer.class, ResultCacheSize.class))
+        .toInstance(Integer.valueOf(getFlagValue("result_cache_mb")));
+    bind(Key.get(Integer.class, SimulationTimeout.class))
+        .toInstance(Integer.valueOf(getFlagValue("simulation_timeout_ms")));
   }
 
   private String getFlagValue(String flagName) {
@@ -59,6 +74,27 @@ final class PvWattsFlagsModule extends AbstractModule {
                     .desc("The directory where weather data is stored")
                     .hasArg()
                     .argName("directory")
+                    .build())
+            .addOption(
+                Option.builder("weather_cache_mb")
+                    .longOpt("weather_cache_mb")
+                    .desc("Megabytes of parsed weather data to keep in memory (0 to disable)")
+                    .hasArg()
+                    .argName("megabytes")
+                    .build())
+            .addOption(
+                Option.builder("result_cache_mb")
+                    .longOpt("result_cache_mb")
+                    .desc("Megabytes of simulation results to keep in memory (0 to disable)")
+                    .hasArg()
+                    .argName("megabytes")
+                    .build())
+            .addOption(
+                Option.builder("simulation_timeout_ms")
+                    .longOpt("simulation_timeout_ms")
+                    .desc("Milliseconds after which a simulation is stopped (0 to disable)")
+                    .hasArg()
+                    .argName("milliseconds")
                     .build());
 
     CommandLine helpFlag = new DefaultParser().parse(helpDef, args, true);
@@ -1,6 +1,7 @@
 package io.github.spharris.pvwatts.web;
 
 import com.google.inject.AbstractModule;
+import io.github.spharris.pvwatts.service.NearbyStationsService;
 import io.github.spharris.pvwatts.service.PvWatts4Service;
 import io.github.spharris.pvwatts.service.PvWatts5Service;
 
@@ -10,6 +11,7 @@ public final class PvWattsWebModule extends AbstractModule {
   protected void configure() {
     requireBinding(PvWatts4Service.class);
     requireBinding(PvWatts5Service.class);
+    requireBinding(NearbyStationsService.class);
 
     bind(PvWattsController.class);
   }
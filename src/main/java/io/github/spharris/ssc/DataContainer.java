@@ -7,23 +7,39 @@ import static com.google.common.base.Preconditions.checkState;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.FloatByReference;
 import com.sun.jna.ptr.IntByReference;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Optional;
+import java.util.OptionalInt;
 import javax.inject.Inject;
 
-/** A container for data that is passed to an {@link SscModule} for execution */
+/**
+ * A container for data that is passed to an {@link SscModule} for execution.
+ *
+ * <p>Containers handed out by a {@link DataContainerPool} give their underlying SSC table back to
+ * the pool when they are closed, rather than freeing it. Either way, a container can't be used
+ * once it has been closed.
+ */
 public class DataContainer implements AutoCloseable {
 
   private static final int FLOAT_SIZE = 4;
 
   private final Ssc api;
   private final Pointer data;
+  private final DataContainerPool pool;
 
   private boolean closed = false;
 
   @Inject
   DataContainer(Ssc api) {
+    this(api, api.ssc_data_create(), null);
+  }
+
+  /** Wraps an existing SSC table, which is returned to <code>pool</code> (if not null) on close. */
+  DataContainer(Ssc api, Pointer data, DataContainerPool pool) {
     this.api = api;
-    this.data = api.ssc_data_create();
+    this.data = data;
+    this.pool = pool;
   }
 
   /**
@@ -139,6 +155,31 @@ public class DataContainer implements AutoCloseable {
     return setArray(variableName, floats);
   }
 
+  /**
+   * Set an array input value for this module from the values remaining in <tt>value</tt>. If
+   * <tt>value</tt> is a direct buffer in native byte order, SSC copies the values straight out of
+   * it; otherwise they are copied to an array first. The buffer's position is not changed.
+   *
+   * @param variableName The name of the variable to set.
+   * @param value The value.
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>value</tt> is
+   *     null
+   * @throws java.lang.IllegalArgumentException if <tt>value</tt> has no values remaining.
+   */
+  public DataContainer setArray(String variableName, FloatBuffer value) {
+    checkNotClosed();
+    checkNotNull(value);
+    checkArgument(value.remaining() >= 1, "The length of the array must be >= 1.");
+
+    if (isNative(value)) {
+      api.ssc_data_set_array(data, variableName, value.slice(), value.remaining());
+      return this;
+    }
+
+    return setArray(variableName, toArray(value));
+  }
+
   /**
    * Set an array input value for this module.
    *
@@ -150,7 +191,6 @@ public class DataContainer implements AutoCloseable {
    * @throws java.lang.IllegalArgumentException if <tt>value</tt> has zero rows or columns
    */
   public DataContainer setMatrix(String variableName, float[][] value) {
-    checkNotClosed();
     checkNotNull(value);
     checkArgument(value.length >= 1, "The number of rows must be >= 1.");
     checkArgument(value[0].length >= 1, "The number of columns must be >= 1.");
@@ -159,13 +199,10 @@ public class DataContainer implements AutoCloseable {
     int cols = value[0].length;
     float[] inputArray = new float[rows * cols];
     for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < cols; j++) {
-        inputArray[arrayIndex(i, j, cols)] = value[i][j];
-      }
+      System.arraycopy(value[i], 0, inputArray, arrayIndex(i, 0, cols), cols);
     }
 
-    api.ssc_data_set_matrix(data, variableName, inputArray, rows, cols);
-    return this;
+    return setMatrix(variableName, inputArray, rows, cols);
   }
 
   public DataContainer setMatrix(String variableName, int[][] value) {
@@ -173,14 +210,16 @@ public class DataContainer implements AutoCloseable {
     checkArgument(value.length >= 1, "The number of rows must be >= 1.");
     checkArgument(value[0].length >= 1, "The number of columns must be >= 1.");
 
-    float[][] floats = new float[value.length][value[0].length];
-    for (int i = 0; i < value.length; i++) {
-      for (int j = 0; j < value[i].length; i++) {
-        floats[i][j] = value[i][j];
+    int rows = value.length;
+    int cols = value[0].length;
+    float[] inputArray = new float[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        inputArray[arrayIndex(i, j, cols)] = value[i][j];
       }
     }
 
-    return setMatrix(variableName, floats);
+    return setMatrix(variableName, inputArray, rows, cols);
   }
 
   public DataContainer setMatrix(String variableName, long[][] value) {
@@ -188,14 +227,16 @@ public class DataContainer implements AutoCloseable {
     checkArgument(value.length >= 1, "The number of rows must be >= 1.");
     checkArgument(value[0].length >= 1, "The number of columns must be >= 1.");
 
-    float[][] floats = new float[value.length][value[0].length];
-    for (int i = 0; i < value.length; i++) {
-      for (int j = 0; j < value[i].length; i++) {
-        floats[i][j] = value[i][j];
+    int rows = value.length;
+    int cols = value[0].length;
+    float[] inputArray = new float[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        inputArray[arrayIndex(i, j, cols)] = value[i][j];
       }
     }
 
-    return setMatrix(variableName, floats);
+    return setMatrix(variableName, inputArray, rows, cols);
   }
 
   public DataContainer setMatrix(String variableName, double[][] value) {
@@ -203,14 +244,16 @@ public class DataContainer implements AutoCloseable {
     checkArgument(value.length >= 1, "The number of rows must be >= 1.");
     checkArgument(value[0].length >= 1, "The number of columns must be >= 1.");
 
-    float[][] floats = new float[value.length][value[0].length];
-    for (int i = 0; i < value.length; i++) {
-      for (int j = 0; j < value[i].length; i++) {
-        floats[i][j] = (float) value[i][j];
+    int rows = value.length;
+    int cols = value[0].length;
+    float[] inputArray = new float[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        inputArray[arrayIndex(i, j, cols)] = (float) value[i][j];
       }
     }
 
-    return setMatrix(variableName, floats);
+    return setMatrix(variableName, inputArray, rows, cols);
   }
 
   public DataContainer setMatrix(String variableName, Number[][] value) {
@@ -218,14 +261,87 @@ public class DataContainer implements AutoCloseable {
     checkArgument(value.length >= 1, "The number of rows must be >= 1.");
     checkArgument(value[0].length >= 1, "The number of columns must be >= 1.");
 
-    float[][] floats = new float[value.length][value[0].length];
-    for (int i = 0; i < value.length; i++) {
-      for (int j = 0; j < value[i].length; i++) {
-        floats[i][j] = value[i][j].floatValue();
+    int rows = value.length;
+    int cols = value[0].length;
+    float[] inputArray = new float[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        inputArray[arrayIndex(i, j, cols)] = value[i][j].floatValue();
       }
     }
 
-    return setMatrix(variableName, floats);
+    return setMatrix(variableName, inputArray, rows, cols);
+  }
+
+  /**
+   * Set a matrix input value for this module from its values in row-major order, without copying
+   * them into a nested array first.
+   *
+   * @param variableName The name of the variable to set.
+   * @param value The values, one row after another.
+   * @param rows The number of rows.
+   * @param cols The number of columns.
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>value</tt> is
+   *     null
+   * @throws java.lang.IllegalArgumentException if <tt>rows</tt> or <tt>cols</tt> is less than one,
+   *     or <tt>value</tt> doesn't hold exactly <tt>rows * cols</tt> values
+   */
+  public DataContainer setMatrix(String variableName, float[] value, int rows, int cols) {
+    checkNotClosed();
+    checkNotNull(value);
+    checkMatrixSize(value.length, rows, cols);
+
+    api.ssc_data_set_matrix(data, variableName, value, rows, cols);
+    return this;
+  }
+
+  /**
+   * Set a matrix input value for this module from the values remaining in <tt>value</tt>, in
+   * row-major order. As with {@link #setArray(String, FloatBuffer)}, a direct buffer in native
+   * byte order is read by SSC in place. The buffer's position is not changed.
+   *
+   * @param variableName The name of the variable to set.
+   * @param value The values, one row after another.
+   * @param rows The number of rows.
+   * @param cols The number of columns.
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>value</tt> is
+   *     null
+   * @throws java.lang.IllegalArgumentException if <tt>rows</tt> or <tt>cols</tt> is less than one,
+   *     or <tt>value</tt> doesn't have exactly <tt>rows * cols</tt> values remaining
+   */
+  public DataContainer setMatrix(String variableName, FloatBuffer value, int rows, int cols) {
+    checkNotClosed();
+    checkNotNull(value);
+    checkMatrixSize(value.remaining(), rows, cols);
+
+    if (isNative(value)) {
+      api.ssc_data_set_matrix(data, variableName, value.slice(), rows, cols);
+      return this;
+    }
+
+    return setMatrix(variableName, toArray(value), rows, cols);
+  }
+
+  /**
+   * Set a table input value for this module. SSC copies the contents of <tt>value</tt>, so it can
+   * be closed (or reused) as soon as this method returns.
+   *
+   * @param variableName The name of the variable to set.
+   * @param value The table.
+   * @throws java.lang.IllegalStateException if either container has already been {@link
+   *     #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>value</tt> is
+   *     null
+   */
+  public DataContainer setTable(String variableName, DataContainer value) {
+    checkNotClosed();
+    checkNotNull(variableName);
+    checkNotNull(value);
+
+    api.ssc_data_set_table(data, variableName, value.getPointer());
+    return this;
   }
 
   /**
@@ -286,15 +402,87 @@ public class DataContainer implements AutoCloseable {
 
     if (result == null) {
       return Optional.empty();
+    } else {
+      return Optional.of(result.getFloatArray(0, length.getValue()));
+    }
+  }
+
+  /**
+   * Copy an array input or output into <tt>dest</tt>, starting at index 0, so that the same
+   * buffer can be reused across calls.
+   *
+   * @param variableName The name of the variable to retrieve.
+   * @param dest The array to copy the values into.
+   * @return If <tt>variableName</tt> is found, the number of values copied. Otherwise, an empty
+   *     {@link OptionalInt}
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>dest</tt> is null
+   * @throws java.lang.IllegalArgumentException if the array doesn't fit in <tt>dest</tt>
+   */
+  public OptionalInt getArrayInto(String variableName, float[] dest) {
+    checkNotClosed();
+    checkNotNull(variableName);
+    checkNotNull(dest);
+
+    IntByReference length = new IntByReference();
+    Pointer result = api.ssc_data_get_array(data, variableName, length);
+
+    if (result == null) {
+      return OptionalInt.empty();
     } else {
       int len = length.getValue();
-      float[] arr = new float[len];
+      checkArgument(
+          len <= dest.length,
+          "%s has %s values, but the destination only has room for %s.",
+          variableName,
+          len,
+          dest.length);
+
+      result.read(0, dest, 0, len);
+      return OptionalInt.of(len);
+    }
+  }
 
-      for (int i = 0; i < len; i++) {
-        arr[i] = result.getFloat(i * FLOAT_SIZE);
-      }
+  /**
+   * Copy an array input or output into <tt>dest</tt>, starting at its current position. On return
+   * the position of <tt>dest</tt> has been advanced past the copied values.
+   *
+   * @param variableName The name of the variable to retrieve.
+   * @param dest The buffer to copy the values into.
+   * @return If <tt>variableName</tt> is found, the number of values copied. Otherwise, an empty
+   *     {@link OptionalInt}
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> or <tt>dest</tt> is null
+   * @throws java.lang.IllegalArgumentException if the array doesn't fit in the remaining space in
+   *     <tt>dest</tt>
+   */
+  public OptionalInt getArrayInto(String variableName, FloatBuffer dest) {
+    checkNotClosed();
+    checkNotNull(variableName);
+    checkNotNull(dest);
+
+    IntByReference length = new IntByReference();
+    Pointer result = api.ssc_data_get_array(data, variableName, length);
 
-      return Optional.of(arr);
+    if (result == null) {
+      return OptionalInt.empty();
+    } else {
+      int len = length.getValue();
+      checkArgument(
+          len <= dest.remaining(),
+          "%s has %s values, but the destination only has room for %s.",
+          variableName,
+          len,
+          dest.remaining());
+
+      if (len > 0) {
+        dest.put(
+            result
+                .getByteBuffer(0, (long) len * FLOAT_SIZE)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer());
+      }
+      return OptionalInt.of(len);
     }
   }
 
@@ -318,26 +506,80 @@ public class DataContainer implements AutoCloseable {
     if (result == null) {
       return Optional.empty();
     } else {
-      float[][] value = new float[rows.getValue()][cols.getValue()];
-      for (int i = 0; i < rows.getValue(); i++) {
-        for (int j = 0; j < cols.getValue(); j++) {
-          value[i][j] = result.getFloat(arrayIndex(i, j, cols.getValue()) * FLOAT_SIZE);
-        }
+      int numCols = cols.getValue();
+      float[][] value = new float[rows.getValue()][numCols];
+      for (int i = 0; i < value.length; i++) {
+        result.read((long) arrayIndex(i, 0, numCols) * FLOAT_SIZE, value[i], 0, numCols);
       }
 
       return Optional.of(value);
     }
   }
 
+  private static void checkMatrixSize(int length, int rows, int cols) {
+    checkArgument(rows >= 1, "The number of rows must be >= 1.");
+    checkArgument(cols >= 1, "The number of columns must be >= 1.");
+    checkArgument(
+        length == (long) rows * cols,
+        "A %s x %s matrix needs %s values, but %s were given.",
+        rows,
+        cols,
+        (long) rows * cols,
+        length);
+  }
+
+  /** Whether SSC can read <tt>buffer</tt>'s memory directly. */
+  private static boolean isNative(FloatBuffer buffer) {
+    return buffer.isDirect() && buffer.order() == ByteOrder.nativeOrder();
+  }
+
+  private static float[] toArray(FloatBuffer buffer) {
+    float[] values = new float[buffer.remaining()];
+    buffer.duplicate().get(values);
+    return values;
+  }
+
   private static int arrayIndex(int i, int j, int cols) {
     return (i * cols) + j;
   }
 
+  /**
+   * Remove a variable, if it is set, so that a container reused for another simulation doesn't
+   * pass on a value the new simulation leaves unset.
+   *
+   * @param variableName The name of the variable to remove.
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   * @throws java.lang.NullPointerException if <tt>variableName</tt> is null
+   */
+  public DataContainer unassign(String variableName) {
+    checkNotClosed();
+    checkNotNull(variableName);
+
+    api.ssc_data_unassign(data, variableName);
+    return this;
+  }
+
+  /**
+   * Remove every variable, leaving the container as if it had just been created.
+   *
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close}ed.
+   */
+  public DataContainer clear() {
+    checkNotClosed();
+
+    api.ssc_data_clear(data);
+    return this;
+  }
+
   @Override
   public void close() {
     if (!closed) {
-      api.ssc_data_free(data);
       closed = true;
+      if (pool != null) {
+        pool.release(data);
+      } else {
+        api.ssc_data_free(data);
+      }
     }
   }
 
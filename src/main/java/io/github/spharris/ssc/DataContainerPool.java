@@ -0,0 +1,177 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.FinalizablePhantomReference;
+import com.google.common.base.FinalizableReferenceQueue;
+import com.sun.jna.Pointer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Hands out {@link DataContainer DataContainers} backed by recycled SSC tables. When a container is
+ * closed its table is emptied with <code>ssc_data_clear</code> and kept for the next caller, so
+ * simulations don't allocate and free a table each time. The container itself is not reused: once
+ * closed it stays closed, so code holding on to it can't see another caller's data.
+ *
+ * <p>Containers that are garbage collected without being closed are logged as leaks and their
+ * tables are reclaimed. Enable <code>FINE</code> logging for this class to record where each leaked
+ * container was created.
+ */
+@Singleton
+public final class DataContainerPool implements Provider<DataContainer>, AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(DataContainerPool.class.getName());
+
+  /** A simulation uses a table for its inputs and outputs, and usually one for its weather. */
+  public static final int DEFAULT_MAX_IDLE = 4 * Runtime.getRuntime().availableProcessors();
+
+  private final Ssc api;
+  private final int maxIdle;
+  private final Deque<Pointer> idle = new ArrayDeque<>();
+  private final FinalizableReferenceQueue leakQueue = new FinalizableReferenceQueue();
+
+  /** The tables of the containers that are currently handed out. */
+  private final Map<Pointer, Lease> leases = new ConcurrentHashMap<>();
+
+  private final LongAdder createdCount = new LongAdder();
+  private final LongAdder reusedCount = new LongAdder();
+  private final LongAdder leakedCount = new LongAdder();
+
+  private boolean closed = false;
+
+  @Inject
+  DataContainerPool(Ssc api) {
+    this(api, DEFAULT_MAX_IDLE);
+  }
+
+  DataContainerPool(Ssc api, int maxIdle) {
+    checkArgument(maxIdle >= 0, "The maximum number of idle tables must be >= 0.");
+
+    this.api = api;
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Returns an empty container. Close it when finished to give its table back to the pool.
+   *
+   * @throws java.lang.IllegalStateException if the pool has been {@link #close closed}.
+   */
+  @Override
+  public DataContainer get() {
+    Pointer table;
+    synchronized (idle) {
+      checkState(!closed, "This data container pool has already been closed.");
+      table = idle.pollFirst();
+    }
+
+    if (table == null) {
+      table = api.ssc_data_create();
+      createdCount.increment();
+    } else {
+      reusedCount.increment();
+    }
+
+    DataContainer container = new DataContainer(api, table, this);
+    Throwable createdAt =
+        logger.isLoggable(Level.FINE) ? new Throwable("DataContainer created here") : null;
+    leases.put(table, new Lease(container, table, createdAt));
+    return container;
+  }
+
+  public DataContainerPoolStats getStats() {
+    int idleCount;
+    synchronized (idle) {
+      idleCount = idle.size();
+    }
+
+    return DataContainerPoolStats.builder()
+        .setInUse(leases.size())
+        .setIdle(idleCount)
+        .setCreatedCount(createdCount.sum())
+        .setReusedCount(reusedCount.sum())
+        .setLeakedCount(leakedCount.sum())
+        .build();
+  }
+
+  /**
+   * Frees every idle table. Tables of containers that are still open are freed when they are
+   * closed, and no more containers can be handed out.
+   */
+  @Override
+  public void close() {
+    synchronized (idle) {
+      closed = true;
+      for (Pointer table : idle) {
+        api.ssc_data_free(table);
+      }
+      idle.clear();
+    }
+
+    leakQueue.close();
+  }
+
+  /** Called by {@link DataContainer#close} with the container's table. */
+  void release(Pointer table) {
+    Lease lease = leases.remove(table);
+    checkState(lease != null, "This data container was not handed out by this pool.");
+
+    lease.clear();
+    recycle(table);
+  }
+
+  private void recycle(Pointer table) {
+    api.ssc_data_clear(table);
+    synchronized (idle) {
+      if (!closed && idle.size() < maxIdle) {
+        idle.addFirst(table);
+        return;
+      }
+    }
+
+    api.ssc_data_free(table);
+  }
+
+  /** Tracks a handed out container, so that its table can be reclaimed if it is never closed. */
+  private final class Lease extends FinalizablePhantomReference<DataContainer> {
+
+    private final Pointer table;
+    private final Throwable createdAt;
+
+    Lease(DataContainer container, Pointer table, Throwable createdAt) {
+      super(container, leakQueue);
+      this.table = table;
+      this.createdAt = createdAt;
+    }
+
+    @Override
+    public void finalizeReferent() {
+      if (!leases.remove(table, this)) {
+        return;
+      }
+
+      leakedCount.increment();
+      logger.log(
+          Level.WARNING,
+          String.format(
+              "A DataContainer was garbage collected without being closed; its table has been "
+                  + "reclaimed.%s",
+              createdAt == null
+                  ? String.format(
+                      " Enable FINE logging for %s to see where it was created.",
+                      DataContainerPool.class.getName())
+                  : ""),
+          createdAt);
+      recycle(table);
+    }
+  }
+}
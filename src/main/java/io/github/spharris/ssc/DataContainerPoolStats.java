@@ -0,0 +1,45 @@
+package io.github.spharris.ssc;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of a {@link DataContainerPool}. */
+@AutoValue
+public abstract class DataContainerPoolStats {
+
+  DataContainerPoolStats() {}
+
+  /** The number of containers that have been handed out and not yet closed. */
+  public abstract int getInUse();
+
+  /** The number of cleared tables waiting in the pool to be reused. */
+  public abstract int getIdle();
+
+  /** The number of tables that have been created with <code>ssc_data_create</code>. */
+  public abstract long getCreatedCount();
+
+  /** The number of containers handed out with a recycled table. */
+  public abstract long getReusedCount();
+
+  /** The number of containers that were garbage collected without being closed. */
+  public abstract long getLeakedCount();
+
+  static Builder builder() {
+    return new AutoValue_DataContainerPoolStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setInUse(int inUse);
+
+    abstract Builder setIdle(int idle);
+
+    abstract Builder setCreatedCount(long createdCount);
+
+    abstract Builder setReusedCount(long reusedCount);
+
+    abstract Builder setLeakedCount(long leakedCount);
+
+    abstract DataContainerPoolStats build();
+  }
+}
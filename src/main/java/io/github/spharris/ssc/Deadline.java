@@ -0,0 +1,62 @@
+package io.github.spharris.ssc;
+
+import com.google.common.base.Ticker;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time by which an asynchronous simulation must finish, tied to the future waiting for it. A
+ * deadline expires when that time passes or when the future completes some other way (because it
+ * was cancelled, for example), after which nobody wants the result.
+ *
+ * <p>SSC stops a module as soon as a callback of its execution handler returns <tt>false</tt>, so
+ * passing the handler through {@link #wrap} before calling {@link SscModule#execute(DataContainer,
+ * ExecutionHandler)} stops the module at its next log message or progress update once the
+ * deadline expires.
+ */
+public final class Deadline {
+
+  private final long deadlineNanos;
+  private final Ticker ticker;
+  private final Future<?> future;
+
+  Deadline(long deadlineNanos, Ticker ticker, Future<?> future) {
+    this.deadlineNanos = deadlineNanos;
+    this.ticker = ticker;
+    this.future = future;
+  }
+
+  /** Whether the deadline has passed or the future has completed. */
+  public boolean isExpired() {
+    return isPassed() || future.isDone();
+  }
+
+  /** Whether the deadline has passed. */
+  public boolean isPassed() {
+    return ticker.read() - deadlineNanos >= 0;
+  }
+
+  /** The time left before the deadline, or 0 if it has passed. */
+  public long getRemaining(TimeUnit unit) {
+    return unit.convert(Math.max(0, deadlineNanos - ticker.read()), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * A handler that passes every callback on to <code>handler</code>, but tells SSC to stop once the
+   * deadline has expired.
+   */
+  public ExecutionHandler wrap(final ExecutionHandler handler) {
+    return new ExecutionHandler() {
+
+      @Override
+      public boolean handleLogMessage(MessageType type, float time, String message) {
+        return handler.handleLogMessage(type, time, message) && !isExpired();
+      }
+
+      @Override
+      public boolean handleProgressUpdate(float percentComplete, float time, String text) {
+        return handler.handleProgressUpdate(percentComplete, time, text) && !isExpired();
+      }
+    };
+  }
+}
@@ -0,0 +1,311 @@
+package io.github.spharris.ssc;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.FloatByReference;
+import com.sun.jna.ptr.IntByReference;
+import java.nio.FloatBuffer;
+
+/**
+ * An {@link Ssc} backed by JNA direct mapping. Each function is bound once, to a static native
+ * method, when the library is loaded, so calls skip the reflective proxy (and its per-call argument
+ * conversion) that {@link Native#loadLibrary} uses.
+ */
+final class DirectSsc implements Ssc {
+
+  private static DirectSsc instance;
+
+  private DirectSsc() {}
+
+  /**
+   * Registers the native methods against the SSC library, the first time it is called.
+   *
+   * @throws UnsatisfiedLinkError if the library, or any of the functions in it, can't be found.
+   */
+  static synchronized DirectSsc load() {
+    if (instance == null) {
+      Native.register(Natives.class, SSC_LIB_NAME);
+      instance = new DirectSsc();
+    }
+
+    return instance;
+  }
+
+  @Override
+  public int ssc_version() {
+    return Natives.ssc_version();
+  }
+
+  @Override
+  public String ssc_build_info() {
+    return Natives.ssc_build_info();
+  }
+
+  @Override
+  public Pointer ssc_data_create() {
+    return Natives.ssc_data_create();
+  }
+
+  @Override
+  public void ssc_data_free(Pointer data) {
+    Natives.ssc_data_free(data);
+  }
+
+  @Override
+  public void ssc_data_clear(Pointer data) {
+    Natives.ssc_data_clear(data);
+  }
+
+  @Override
+  public void ssc_data_unassign(Pointer data, String name) {
+    Natives.ssc_data_unassign(data, name);
+  }
+
+  @Override
+  public int ssc_data_query(Pointer data, String name) {
+    return Natives.ssc_data_query(data, name);
+  }
+
+  @Override
+  public String ssc_data_first(Pointer data) {
+    return Natives.ssc_data_first(data);
+  }
+
+  @Override
+  public String ssc_data_next(Pointer data) {
+    return Natives.ssc_data_next(data);
+  }
+
+  @Override
+  public void ssc_data_set_number(Pointer data, String name, float value) {
+    Natives.ssc_data_set_number(data, name, value);
+  }
+
+  @Override
+  public void ssc_data_set_string(Pointer data, String name, String value) {
+    Natives.ssc_data_set_string(data, name, value);
+  }
+
+  @Override
+  public void ssc_data_set_array(Pointer data, String name, float[] values, int length) {
+    Natives.ssc_data_set_array(data, name, values, length);
+  }
+
+  @Override
+  public void ssc_data_set_matrix(Pointer data, String name, float[] values, int rows, int cols) {
+    Natives.ssc_data_set_matrix(data, name, values, rows, cols);
+  }
+
+  @Override
+  public void ssc_data_set_array(Pointer data, String name, FloatBuffer values, int length) {
+    Natives.ssc_data_set_array(data, name, values, length);
+  }
+
+  @Override
+  public void ssc_data_set_matrix(
+      Pointer data, String name, FloatBuffer values, int rows, int cols) {
+    Natives.ssc_data_set_matrix(data, name, values, rows, cols);
+  }
+
+  @Override
+  public void ssc_data_set_table(Pointer data, String name, Pointer table) {
+    Natives.ssc_data_set_table(data, name, table);
+  }
+
+  @Override
+  public boolean ssc_data_get_number(Pointer data, String name, FloatByReference value) {
+    return Natives.ssc_data_get_number(data, name, value);
+  }
+
+  @Override
+  public String ssc_data_get_string(Pointer data, String name) {
+    return Natives.ssc_data_get_string(data, name);
+  }
+
+  @Override
+  public Pointer ssc_data_get_array(Pointer data, String name, IntByReference length) {
+    return Natives.ssc_data_get_array(data, name, length);
+  }
+
+  @Override
+  public Pointer ssc_data_get_matrix(
+      Pointer data, String name, IntByReference rows, IntByReference cols) {
+    return Natives.ssc_data_get_matrix(data, name, rows, cols);
+  }
+
+  @Override
+  public Pointer ssc_data_get_table(Pointer data, String name) {
+    return Natives.ssc_data_get_table(data, name);
+  }
+
+  @Override
+  public Pointer ssc_module_entry(int index) {
+    return Natives.ssc_module_entry(index);
+  }
+
+  @Override
+  public String ssc_entry_name(Pointer entry) {
+    return Natives.ssc_entry_name(entry);
+  }
+
+  @Override
+  public String ssc_entry_description(Pointer entry) {
+    return Natives.ssc_entry_description(entry);
+  }
+
+  @Override
+  public int ssc_entry_version(Pointer entry) {
+    return Natives.ssc_entry_version(entry);
+  }
+
+  @Override
+  public Pointer ssc_module_create(String moduleName) {
+    return Natives.ssc_module_create(moduleName);
+  }
+
+  @Override
+  public void ssc_module_free(Pointer module) {
+    Natives.ssc_module_free(module);
+  }
+
+  @Override
+  public Pointer ssc_module_var_info(Pointer module, int index) {
+    return Natives.ssc_module_var_info(module, index);
+  }
+
+  @Override
+  public int ssc_info_var_type(Pointer info) {
+    return Natives.ssc_info_var_type(info);
+  }
+
+  @Override
+  public int ssc_info_data_type(Pointer info) {
+    return Natives.ssc_info_data_type(info);
+  }
+
+  @Override
+  public String ssc_info_name(Pointer info) {
+    return Natives.ssc_info_name(info);
+  }
+
+  @Override
+  public String ssc_info_label(Pointer info) {
+    return Natives.ssc_info_label(info);
+  }
+
+  @Override
+  public String ssc_info_units(Pointer info) {
+    return Natives.ssc_info_units(info);
+  }
+
+  @Override
+  public String ssc_info_meta(Pointer info) {
+    return Natives.ssc_info_meta(info);
+  }
+
+  @Override
+  public String ssc_info_group(Pointer info) {
+    return Natives.ssc_info_group(info);
+  }
+
+  @Override
+  public String ssc_info_required(Pointer info) {
+    return Natives.ssc_info_required(info);
+  }
+
+  @Override
+  public String ssc_info_constraints(Pointer info) {
+    return Natives.ssc_info_constraints(info);
+  }
+
+  @Override
+  public void ssc_module_exec_set_print(int print) {
+    Natives.ssc_module_exec_set_print(print);
+  }
+
+  @Override
+  public boolean ssc_module_exec_simple(String name, Pointer data) {
+    return Natives.ssc_module_exec_simple(name, data);
+  }
+
+  @Override
+  public String ssc_module_exec_simple_nothread(String name, Pointer data) {
+    return Natives.ssc_module_exec_simple_nothread(name, data);
+  }
+
+  @Override
+  public boolean ssc_module_exec(Pointer module, Pointer data) {
+    return Natives.ssc_module_exec(module, data);
+  }
+
+  @Override
+  public String ssc_module_log(
+      Pointer module, int index, IntByReference itemType, FloatByReference time) {
+    return Natives.ssc_module_log(module, index, itemType, time);
+  }
+
+  @Override
+  public boolean ssc_module_exec_with_handler(
+      Pointer module, Pointer data, SscExecutionHandler handler, Pointer userData) {
+    return Natives.ssc_module_exec_with_handler(module, data, handler, userData);
+  }
+
+  /**
+   * The directly mapped functions. They can't be declared on {@link DirectSsc} itself, since static
+   * and instance methods can't share a signature.
+   */
+  private static final class Natives {
+
+    private Natives() {}
+
+    static native int ssc_version();
+    static native String ssc_build_info();
+    static native Pointer ssc_data_create();
+    static native void ssc_data_free(Pointer data);
+    static native void ssc_data_clear(Pointer data);
+    static native void ssc_data_unassign(Pointer data, String name);
+    static native int ssc_data_query(Pointer data, String name);
+    static native String ssc_data_first(Pointer data);
+    static native String ssc_data_next(Pointer data);
+    static native void ssc_data_set_number(Pointer data, String name, float value);
+    static native void ssc_data_set_string(Pointer data, String name, String value);
+    static native void ssc_data_set_array(Pointer data, String name, float[] values, int length);
+    static native void ssc_data_set_matrix(
+        Pointer data, String name, float[] values, int rows, int cols);
+    static native void ssc_data_set_array(
+        Pointer data, String name, FloatBuffer values, int length);
+    static native void ssc_data_set_matrix(
+        Pointer data, String name, FloatBuffer values, int rows, int cols);
+    static native void ssc_data_set_table(Pointer data, String name, Pointer table);
+    static native boolean ssc_data_get_number(Pointer data, String name, FloatByReference value);
+    static native String ssc_data_get_string(Pointer data, String name);
+    static native Pointer ssc_data_get_array(Pointer data, String name, IntByReference length);
+    static native Pointer ssc_data_get_matrix(
+        Pointer data, String name, IntByReference rows, IntByReference cols);
+    static native Pointer ssc_data_get_table(Pointer data, String name);
+    static native Pointer ssc_module_entry(int index);
+    static native String ssc_entry_name(Pointer entry);
+    static native String ssc_entry_description(Pointer entry);
+    static native int ssc_entry_version(Pointer entry);
+    static native Pointer ssc_module_create(String moduleName);
+    static native void ssc_module_free(Pointer module);
+    static native Pointer ssc_module_var_info(Pointer module, int index);
+    static native int ssc_info_var_type(Pointer info);
+    static native int ssc_info_data_type(Pointer info);
+    static native String ssc_info_name(Pointer info);
+    static native String ssc_info_label(Pointer info);
+    static native String ssc_info_units(Pointer info);
+    static native String ssc_info_meta(Pointer info);
+    static native String ssc_info_group(Pointer info);
+    static native String ssc_info_required(Pointer info);
+    static native String ssc_info_constraints(Pointer info);
+    static native void ssc_module_exec_set_print(int print);
+    static native boolean ssc_module_exec_simple(String name, Pointer data);
+    static native String ssc_module_exec_simple_nothread(String name, Pointer data);
+    static native boolean ssc_module_exec(Pointer module, Pointer data);
+    static native String ssc_module_log(
+        Pointer module, int index, IntByReference itemType, FloatByReference time);
+    static native boolean ssc_module_exec_with_handler(
+        Pointer module, Pointer data, SscExecutionHandler handler, Pointer userData);
+  }
+}
@@ -30,6 +30,36 @@ public final class ExecutionHandlers {
     };
   }
 
+  /** A handler that adds every message the module logs to <code>messages</code>. */
+  public static ExecutionHandler messageCollectingHandler(
+      final ImmutableList.Builder<LogMessage> messages) {
+    return new ExecutionHandler() {
+
+      @Override
+      public boolean handleLogMessage(MessageType type, float time, String message) {
+        messages.add(LogMessage.create(type, time, message));
+        return true;
+      }
+
+      @Override
+      public boolean handleProgressUpdate(float percentComplete, float time, String text) {
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Passes logged <code>messages</code> to <code>handler</code> in order, as if it had been given
+   * them during execution. Stops early if the handler returns <tt>false</tt>.
+   */
+  public static void replay(Iterable<LogMessage> messages, ExecutionHandler handler) {
+    for (LogMessage message : messages) {
+      if (!handler.handleLogMessage(message.getType(), message.getTime(), message.getText())) {
+        return;
+      }
+    }
+  }
+
   private static final ExecutionHandler NO_OP_HANDLER = new ExecutionHandler() {
 
     @Override
@@ -0,0 +1,22 @@
+package io.github.spharris.ssc;
+
+import com.google.auto.value.AutoValue;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
+
+/** A message logged by an SSC module while it was executing. */
+@AutoValue
+public abstract class LogMessage {
+
+  LogMessage() {}
+
+  public abstract MessageType getType();
+
+  /** The simulation time at which the message was logged. */
+  public abstract float getTime();
+
+  public abstract String getText();
+
+  public static LogMessage create(MessageType type, float time, String text) {
+    return new AutoValue_LogMessage(type, time, text);
+  }
+}
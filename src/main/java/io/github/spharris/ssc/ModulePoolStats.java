@@ -0,0 +1,75 @@
+package io.github.spharris.ssc;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of an {@link SscModulePool}'s modules for one compute module name. */
+@AutoValue
+public abstract class ModulePoolStats {
+
+  ModulePoolStats() {}
+
+  /** The most modules that can be live at once. */
+  public abstract int getMaxSize();
+
+  /** The number of modules currently borrowed. */
+  public abstract int getInUse();
+
+  /** The number of modules waiting in the pool to be borrowed. */
+  public abstract int getIdle();
+
+  /** The number of times a module has been borrowed. */
+  public abstract long getBorrowCount();
+
+  /** The number of borrows that had to wait for another caller to return a module. */
+  public abstract long getWaitCount();
+
+  /** The total time that borrowers have spent waiting, in nanoseconds. */
+  public abstract long getTotalWaitNanos();
+
+  /** The longest time that any borrower has waited, in nanoseconds. */
+  public abstract long getMaxWaitNanos();
+
+  /** The number of modules that have been created. */
+  public abstract long getCreatedCount();
+
+  /** The number of idle modules that have been freed for going unused. */
+  public abstract long getEvictedCount();
+
+  /** The fraction of {@link #getMaxSize} that is currently borrowed, from 0 to 1. */
+  public double getUtilization() {
+    return (double) getInUse() / getMaxSize();
+  }
+
+  /** The average time spent waiting per borrow (waits of zero included), in nanoseconds. */
+  public double getAverageWaitNanos() {
+    return getBorrowCount() == 0 ? 0 : (double) getTotalWaitNanos() / getBorrowCount();
+  }
+
+  static Builder builder() {
+    return new AutoValue_ModulePoolStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setMaxSize(int maxSize);
+
+    abstract Builder setInUse(int inUse);
+
+    abstract Builder setIdle(int idle);
+
+    abstract Builder setBorrowCount(long borrowCount);
+
+    abstract Builder setWaitCount(long waitCount);
+
+    abstract Builder setTotalWaitNanos(long totalWaitNanos);
+
+    abstract Builder setMaxWaitNanos(long maxWaitNanos);
+
+    abstract Builder setCreatedCount(long createdCount);
+
+    abstract Builder setEvictedCount(long evictedCount);
+
+    abstract ModulePoolStats build();
+  }
+}
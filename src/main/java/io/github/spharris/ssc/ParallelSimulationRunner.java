@@ -0,0 +1,248 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Runs SSC simulations on a fixed set of worker threads. Each worker creates its own {@link
+ * SscModule SscModules} the first time it runs a module of a given name and keeps them until it
+ * exits, so a module is only ever used by the thread that created it. Each job gets its own {@link
+ * DataContainer}, which is closed when the job finishes.
+ *
+ * <p>Jobs wait in a bounded queue. What happens when the queue is full is set by the {@link
+ * RejectionPolicy}. The injected runner uses the defaults below; construct one directly to change
+ * them.
+ */
+@Singleton
+public final class ParallelSimulationRunner implements AutoCloseable {
+
+  /** What {@link #submit} does when every worker is busy and the queue is full. */
+  public enum RejectionPolicy {
+    /** Fail the returned future with a {@link RejectedExecutionException}. */
+    ABORT,
+    /** Run the job on the submitting thread, with a module created just for it. */
+    CALLER_RUNS,
+    /** Wait for room in the queue. */
+    BLOCK
+  }
+
+  /** Simulations are CPU bound, so more workers than processors only adds contention. */
+  public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private static final AtomicInteger runnerCount = new AtomicInteger();
+
+  private final SscModuleFactory moduleFactory;
+  private final Provider<DataContainer> dataContainerProvider;
+  private final ThreadPoolExecutor executor;
+
+  @Inject
+  ParallelSimulationRunner(
+      SscModuleFactory moduleFactory, Provider<DataContainer> dataContainerProvider) {
+    this(
+        moduleFactory,
+        dataContainerProvider,
+        DEFAULT_THREADS,
+        DEFAULT_QUEUE_CAPACITY,
+        RejectionPolicy.ABORT);
+  }
+
+  /**
+   * @param threads The number of worker threads.
+   * @param queueCapacity The number of jobs that can wait for a worker.
+   * @param rejectionPolicy What to do with jobs that arrive when the queue is full.
+   */
+  public ParallelSimulationRunner(
+      SscModuleFactory moduleFactory,
+      Provider<DataContainer> dataContainerProvider,
+      int threads,
+      int queueCapacity,
+      RejectionPolicy rejectionPolicy) {
+    checkArgument(threads >= 1, "The number of threads must be >= 1.");
+    checkArgument(queueCapacity >= 1, "The queue capacity must be >= 1.");
+    checkNotNull(rejectionPolicy);
+
+    this.moduleFactory = moduleFactory;
+    this.dataContainerProvider = dataContainerProvider;
+
+    int runner = runnerCount.incrementAndGet();
+    AtomicInteger workerCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task ->
+                new Worker(
+                    task,
+                    String.format("ssc-worker-%d-%d", runner, workerCount.incrementAndGet())),
+            rejectionHandler(rejectionPolicy));
+  }
+
+  /**
+   * Queues a simulation. <code>transform</code> is given a module named <code>moduleName</code>
+   * and an empty data container, and must not hold on to either after it returns.
+   *
+   * @return A future holding the result of <code>transform</code>, or the exception it (or module
+   *     creation) threw. Cancelling the future before the job starts stops it from running.
+   */
+  public <T> CompletableFuture<T> submit(
+      String moduleName, BiFunction<SscModule, DataContainer, T> transform) {
+    checkNotNull(moduleName);
+    checkNotNull(transform);
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable job =
+        () -> {
+          if (result.isDone()) {
+            return;
+          }
+
+          try {
+            result.complete(run(moduleName, transform));
+          } catch (Throwable e) {
+            result.completeExceptionally(e);
+          }
+        };
+
+    try {
+      executor.execute(job);
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+
+    return result;
+  }
+
+  /** The number of jobs waiting for a worker. */
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  /** The number of workers currently running a job. */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /** The number of worker threads, and so the most jobs that can run at once. */
+  public int getThreadCount() {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * Stops accepting jobs, waits for the queued ones to finish, and frees every worker's modules.
+   *
+   * @throws java.lang.IllegalStateException if the thread is interrupted while waiting.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Keep waiting; jobs can't be interrupted part way through a simulation
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for simulations to finish", e);
+    }
+  }
+
+  private <T> T run(String moduleName, BiFunction<SscModule, DataContainer, T> transform) {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof Worker) {
+      SscModule module = ((Worker) thread).getModule(moduleName);
+      try (DataContainer data = dataContainerProvider.get()) {
+        return transform.apply(module, data);
+      }
+    }
+
+    // Rejected jobs run by the caller can't use a worker's modules
+    try (SscModule module = moduleFactory.create(moduleName);
+        DataContainer data = dataContainerProvider.get()) {
+      return transform.apply(module, data);
+    }
+  }
+
+  private static RejectedExecutionHandler rejectionHandler(RejectionPolicy policy) {
+    switch (policy) {
+      case CALLER_RUNS:
+        return (job, executor) -> {
+          checkNotShutdown(executor);
+          job.run();
+        };
+      case BLOCK:
+        return (job, executor) -> {
+          checkNotShutdown(executor);
+          try {
+            executor.getQueue().put(job);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to queue a job", e);
+          }
+        };
+      case ABORT:
+      default:
+        return (job, executor) -> {
+          checkNotShutdown(executor);
+          throw new RejectedExecutionException(
+              String.format("The simulation queue is full (%d jobs).", executor.getQueue().size()));
+        };
+    }
+  }
+
+  private static void checkNotShutdown(ThreadPoolExecutor executor) {
+    if (executor.isShutdown()) {
+      throw new RejectedExecutionException("The simulation runner has been closed.");
+    }
+  }
+
+  /** A worker thread, which owns the modules it creates. */
+  private final class Worker extends Thread {
+
+    private final Map<String, SscModule> modules = new HashMap<>();
+
+    Worker(Runnable task, String name) {
+      super(task, name);
+      setDaemon(true);
+    }
+
+    SscModule getModule(String moduleName) {
+      SscModule module = modules.get(moduleName);
+      if (module == null || module.isClosed()) {
+        module = moduleFactory.create(moduleName);
+        modules.put(moduleName, module);
+      }
+
+      return module;
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        for (SscModule module : modules.values()) {
+          module.close();
+        }
+        modules.clear();
+      }
+    }
+  }
+}
@@ -1,27 +1,131 @@
 package io.github.spharris.ssc;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
-/** Class that runs an SSC simulation. */
+/**
+ * Class that runs an SSC simulation. Modules are borrowed from the {@link SscModulePool}, so
+ * <code>transform</code> must not hold on to the module after it returns.
+ */
 public class SimulationRunner {
 
-  private final SscModuleFactory moduleFactory;
+  private final SscModulePool modulePool;
   private final Provider<DataContainer> dataContainerProvider;
 
   @Inject
-  SimulationRunner(SscModuleFactory moduleFactory,
+  SimulationRunner(SscModulePool modulePool,
       Provider<DataContainer> dataContainerProvider) {
-    this.moduleFactory = moduleFactory;
+    this.modulePool = modulePool;
     this.dataContainerProvider = dataContainerProvider;
   }
 
   public <T> T run(String moduleName, BiFunction<SscModule, DataContainer, T> transform) {
-    try (SscModule module = moduleFactory.create(moduleName)) {
-      try (DataContainer data = dataContainerProvider.get()) {
-        return transform.apply(module, data);
-      }
+    SscModule module = modulePool.borrow(moduleName);
+    try (DataContainer data = dataContainerProvider.get()) {
+      return transform.apply(module, data);
+    } finally {
+      modulePool.release(module);
+    }
+  }
+
+  /**
+   * Like {@link #runAsync(String, long, TimeUnit, SimulationTask, Executor)}, on the common pool.
+   */
+  public <T> CompletableFuture<T> runAsync(
+      String moduleName, long timeout, TimeUnit unit, SimulationTask<T> task) {
+    return runAsync(moduleName, timeout, unit, task, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Runs a simulation on <code>executor</code>, which must finish within <code>timeout</code>.
+   *
+   * <p>When the timeout passes, the returned future fails with a {@link TimeoutException}, and the
+   * task's {@link Deadline} expires. The same happens to the deadline if the future is cancelled.
+   * A task that hasn't started by then is never run. One that is running stops at the module's next
+   * callback if it executes the module with a handler wrapped by the deadline; otherwise it runs to
+   * the end, holding its module and thread until then.
+   *
+   * @return A future holding the result of <code>task</code>, or the exception it threw.
+   * @throws java.lang.IllegalArgumentException if <code>timeout</code> is negative
+   */
+  public <T> CompletableFuture<T> runAsync(
+      String moduleName, long timeout, TimeUnit unit, SimulationTask<T> task, Executor executor) {
+    checkNotNull(moduleName);
+    checkNotNull(task);
+    checkArgument(timeout >= 0, "The timeout must be >= 0.");
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Ticker ticker = Ticker.systemTicker();
+    Deadline deadline = new Deadline(ticker.read() + unit.toNanos(timeout), ticker, result);
+
+    ScheduledFuture<?> timer =
+        Timeouts.SCHEDULER.schedule(
+            () -> result.completeExceptionally(timeoutException(moduleName, timeout, unit)),
+            timeout,
+            unit);
+    result.whenComplete((value, e) -> timer.cancel(false));
+
+    try {
+      executor.execute(
+          () -> {
+            if (deadline.isExpired()) {
+              return;
+            }
+
+            try {
+              T value = run(moduleName, (module, data) -> task.run(module, data, deadline));
+              if (deadline.isPassed()) {
+                // The module may have been stopped part way, so the value can't be trusted
+                result.completeExceptionally(timeoutException(moduleName, timeout, unit));
+              } else {
+                result.complete(value);
+              }
+            } catch (Throwable e) {
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+
+    return result;
+  }
+
+  private static TimeoutException timeoutException(String moduleName, long timeout, TimeUnit unit) {
+    return new TimeoutException(
+        String.format("Simulation of %s did not finish within %d %s", moduleName, timeout, unit));
+  }
+
+  /** Fails futures whose timeouts have passed, shared by every runner. */
+  private static final class Timeouts {
+
+    static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+      ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("simulation-timeouts-%d")
+                  .build());
+      // Most simulations finish well within their timeouts, so don't keep cancelled timers around
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
     }
   }
 }
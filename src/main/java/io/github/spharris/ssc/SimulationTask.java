@@ -0,0 +1,12 @@
+package io.github.spharris.ssc;
+
+/**
+ * A simulation run by {@link SimulationRunner#runAsync}. To stop the module when the result is no
+ * longer wanted, execute it with a handler {@link Deadline#wrap wrapped} by <code>deadline</code>.
+ * A module executed without a handler finishes its run, and the result is thrown away.
+ */
+@FunctionalInterface
+public interface SimulationTask<T> {
+
+  T run(SscModule module, DataContainer data, Deadline deadline);
+}
@@ -4,6 +4,7 @@ import com.sun.jna.Library;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.FloatByReference;
 import com.sun.jna.ptr.IntByReference;
+import java.nio.FloatBuffer;
 
 /*
  * import jnr.ffi.Pointer; import jnr.ffi.annotations.In; import jnr.ffi.annotations.Out; import
@@ -53,6 +54,14 @@ public interface Ssc extends Library {
 
   void ssc_data_set_matrix(Pointer data, String name, float[] values, int rows, int cols);
 
+  /*
+   * The same setters, reading the values straight from a direct buffer in native byte order. SSC
+   * copies the values, so the buffer can be reused as soon as the call returns.
+   */
+  void ssc_data_set_array(Pointer data, String name, FloatBuffer values, int length);
+
+  void ssc_data_set_matrix(Pointer data, String name, FloatBuffer values, int rows, int cols);
+
   void ssc_data_set_table(Pointer data, String name, Pointer table);
 
   boolean ssc_data_get_number(Pointer data, String name, FloatByReference value);
@@ -0,0 +1,33 @@
+package io.github.spharris.ssc;
+
+import com.sun.jna.Native;
+
+/** The ways the {@link Ssc} functions can be bound to the native library. */
+public enum SscBinding {
+
+  /**
+   * JNA direct mapping: each function is registered once against a static native method. This has
+   * far less overhead per call than {@link #PROXY}, which matters for the many small calls made
+   * while setting inputs and reading outputs.
+   */
+  DIRECT {
+    @Override
+    Ssc load() {
+      return DirectSsc.load();
+    }
+  },
+
+  /**
+   * JNA's reflective interface proxy. Every call looks up the function and converts its arguments
+   * dynamically. Slower, but tolerant of functions missing from the library until they are called.
+   */
+  PROXY {
+    @Override
+    Ssc load() {
+      return (Ssc) Native.loadLibrary(Ssc.SSC_LIB_NAME, Ssc.class);
+    }
+  };
+
+  /** Loads the SSC library using this binding. */
+  abstract Ssc load();
+}
@@ -2,14 +2,53 @@ package io.github.spharris.ssc;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
-import com.sun.jna.Native;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Binds {@link Ssc}, the {@link SscModuleRegistry} and the {@link SscModuleFactory}, and hands out
+ * {@link DataContainer DataContainers} from the {@link DataContainerPool}. By default the library
+ * is bound with {@link SscBinding#DIRECT}, falling back to {@link SscBinding#PROXY} if direct
+ * mapping fails (for example, because the installed library is missing one of the functions in
+ * {@link Ssc}).
+ */
 public final class SscGuiceModule extends AbstractModule {
 
+  private static final Logger logger = Logger.getLogger(SscGuiceModule.class.getName());
+
+  private final SscBinding binding;
+
+  public SscGuiceModule() {
+    this(SscBinding.DIRECT);
+  }
+
+  /** Binds the library with <code>binding</code>, falling back to the proxy if it can't be used. */
+  public SscGuiceModule(SscBinding binding) {
+    this.binding = binding;
+  }
+
   @Override
   protected void configure() {
-    bind(Ssc.class).toInstance((Ssc) Native.loadLibrary(Ssc.SSC_LIB_NAME, Ssc.class));
+    bind(Ssc.class).toInstance(loadSsc(binding));
+    bind(SscModuleRegistry.class);
 
     install(new FactoryModuleBuilder().build(SscModuleFactory.class));
+    bind(DataContainer.class).toProvider(DataContainerPool.class);
+  }
+
+  private static Ssc loadSsc(SscBinding binding) {
+    if (binding != SscBinding.PROXY) {
+      try {
+        return binding.load();
+      } catch (LinkageError e) {
+        logger.log(
+            Level.WARNING,
+            String.format(
+                "Could not bind SSC with %s, falling back to %s", binding, SscBinding.PROXY),
+            e);
+      }
+    }
+
+    return SscBinding.PROXY.load();
   }
 }
@@ -4,16 +4,15 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.ImmutableList;
-import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
+import com.sun.jna.ptr.FloatByReference;
+import com.sun.jna.ptr.IntByReference;
 import io.github.spharris.ssc.ExecutionHandler.MessageType;
 import io.github.spharris.ssc.exceptions.UnknownModuleNameException;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * A <code>Module</code> represents an SSC compute module ("pvwattsv1", for example). This class is
@@ -28,43 +27,34 @@ public final class SscModule implements AutoCloseable {
   private final Pointer module;
   private final Pointer entry;
   private final Ssc api;
+  private final SscModuleRegistry registry;
 
-  private ImmutableList<Variable> variables;
   private boolean closed = false;
 
-  /** Gets a list of the available modules. */
+  /**
+   * Gets a list of the available modules.
+   *
+   * @deprecated Inject an {@link SscModuleRegistry} and use {@link SscModuleRegistry#getModules}
+   *     instead.
+   */
+  @Deprecated
   public static ImmutableList<SscModuleSummary> getAvailableModules() {
-    Ssc api = loadSscLibrary();
-
-    ImmutableList.Builder<SscModuleSummary> builder = ImmutableList.builder();
-
-    int i = 0;
-    Pointer entry = api.ssc_module_entry(i);
-    while (entry != null) {
-      String name = api.ssc_entry_name(entry);
-      String desc = api.ssc_entry_description(entry);
-      int version = api.ssc_entry_version(entry);
-
-      builder.add(
-          SscModuleSummary.builder()
-              .setName(name)
-              .setDescription(desc)
-              .setVersion(version)
-              .build());
+    return DefaultRegistry.INSTANCE.getModules();
+  }
 
-      i++;
-      entry = api.ssc_module_entry(i);
-    }
+  /** A registry for the static methods, which loads the library the first time it's used. */
+  private static final class DefaultRegistry {
 
-    return builder.build();
+    static final SscModuleRegistry INSTANCE =
+        new SscModuleRegistry((Ssc) Native.loadLibrary(Ssc.SSC_LIB_NAME, Ssc.class));
   }
 
-  private static Ssc loadSscLibrary() {
-    return (Ssc) Native.loadLibrary(Ssc.SSC_LIB_NAME, Ssc.class);
+  SscModule(String moduleName, Ssc api) {
+    this(moduleName, api, new SscModuleRegistry(api));
   }
 
   @AssistedInject
-  SscModule(@Assisted String moduleName, Ssc api) {
+  SscModule(@Assisted String moduleName, Ssc api, SscModuleRegistry registry) {
     this.module = api.ssc_module_create(moduleName);
     if (module == null) {
       throw new UnknownModuleNameException(moduleName);
@@ -72,28 +62,8 @@ public final class SscModule implements AutoCloseable {
 
     this.moduleName = moduleName;
     this.api = api;
-    this.entry = getEntry(api, moduleName);
-  }
-
-  /**
-   * Helper to get the SSC entry for this module. Generally you should only use this once you're
-   * sure that the module in question exists.
-   */
-  private static Pointer getEntry(Ssc api, String moduleName) {
-    int i = 0;
-    Pointer entry = api.ssc_module_entry(i);
-    while (entry != null) {
-      String name = api.ssc_entry_name(entry);
-      if (Objects.equals(name, moduleName)) {
-        return entry;
-      }
-
-      i++;
-      entry = api.ssc_module_entry(i);
-    }
-
-    // Should never get here.
-    throw new IllegalArgumentException("You cannot call getEntry for a module that doesn't exist.");
+    this.registry = registry;
+    this.entry = registry.getEntry(moduleName);
   }
 
   public int getSscVersion() {
@@ -127,46 +97,80 @@ public final class SscModule implements AutoCloseable {
   }
 
   /**
-   * Returns a list of all of the variables for this module.
+   * Returns a list of all of the variables for this module. They are read from SSC once per
+   * module name and shared through the {@link SscModuleRegistry}.
    *
    * @throws java.lang.IllegalStateException if the module has already been {@link #close closed}.
    */
   public ImmutableList<Variable> getVariables() {
     checkNotClosed();
 
-    if (variables != null) {
-      return variables;
+    return registry.getVariables(moduleName, module);
+  }
+
+  public void execute(DataContainer data) {
+    checkNotClosed();
+    api.ssc_module_exec(module, data.getPointer());
+  }
+
+  /**
+   * Executes the module without a handler, then reads back the messages it logged. This saves
+   * creating a native callback for every run and calling into Java for every message and progress
+   * update, at the cost of not being able to stop the run part way. Pass the result to {@link
+   * ExecutionHandlers#replay} to handle the messages the same way a handler would have.
+   *
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close closed}.
+   */
+  public ImmutableList<LogMessage> executeAndGetLog(DataContainer data) {
+    checkNotClosed();
+    // Printing was turned off when the registry was created
+    api.ssc_module_exec(module, data.getPointer());
+
+    return getLog();
+  }
+
+  /**
+   * Executes the module, passing the messages it logs to <code>handler</code>. Without a <code>
+   * deadline</code>, the module runs without a handler (see {@link #executeAndGetLog}) and the
+   * messages are replayed afterwards. With one, the module runs with <code>handler</code> wrapped
+   * by {@link Deadline#wrap}, so that it stops once the deadline expires.
+   *
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close closed}.
+   */
+  public void execute(DataContainer data, ExecutionHandler handler, @Nullable Deadline deadline) {
+    if (deadline == null) {
+      ExecutionHandlers.replay(executeAndGetLog(data), handler);
+    } else {
+      execute(data, deadline.wrap(handler));
     }
+  }
 
-    ImmutableList.Builder<Variable> builder = ImmutableList.builder();
+  /**
+   * The messages logged by the module's last execution, with or without a handler. SSC clears the
+   * log at the start of each execution.
+   *
+   * @throws java.lang.IllegalStateException if the module has already been {@link #close closed}.
+   */
+  public ImmutableList<LogMessage> getLog() {
+    checkNotClosed();
+
+    ImmutableList.Builder<LogMessage> messages = ImmutableList.builder();
+    IntByReference type = new IntByReference();
+    FloatByReference time = new FloatByReference();
     int i = 0;
-    Pointer infoPointer = api.ssc_module_var_info(module, i);
-    while (infoPointer != null) {
-      Variable var =
-          Variable.builder()
-              .setVariableType(Variable.VariableType.forInt(api.ssc_info_var_type(infoPointer)))
-              .setDataType(Variable.DataType.forInt(api.ssc_info_data_type(infoPointer)))
-              .setName(api.ssc_info_name(infoPointer))
-              .setLabel(api.ssc_info_label(infoPointer))
-              .setUnits(api.ssc_info_units(infoPointer))
-              .setMeta(api.ssc_info_meta(infoPointer))
-              .setGroup(api.ssc_info_group(infoPointer))
-              .setRequired(api.ssc_info_required(infoPointer))
-              .build();
-
-      builder.add(var);
+    String text = api.ssc_module_log(module, i, type, time);
+    while (text != null) {
+      MessageType messageType = MessageType.forInt(type.getValue());
+      // Handlers are given null for unknown types, which messageLoggingHandler ignores
+      if (messageType != null) {
+        messages.add(LogMessage.create(messageType, time.getValue(), text));
+      }
 
       i++;
-      infoPointer = api.ssc_module_var_info(module, i);
+      text = api.ssc_module_log(module, i, type, time);
     }
 
-    variables = builder.build();
-    return variables;
-  }
-
-  public void execute(DataContainer data) {
-    checkNotClosed();
-    api.ssc_module_exec(module, data.getPointer());
+    return messages.build();
   }
 
   public void execute(DataContainer data, final ExecutionHandler handler) {
@@ -220,6 +224,10 @@ public final class SscModule implements AutoCloseable {
     }
   }
 
+  boolean isClosed() {
+    return closed;
+  }
+
   private void checkNotClosed() {
     checkState(!closed, "This module has already been closed.");
   }
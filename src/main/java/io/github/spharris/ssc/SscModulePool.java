@@ -0,0 +1,379 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Keeps live {@link SscModule SscModules} around between simulations, so that creating a module
+ * (and looking up its entry) happens once rather than on every request.
+ *
+ * <p>Modules are pooled separately for each compute module name. At most <tt>maxSize</tt> modules
+ * of each name are live at once; once they are all borrowed, {@link #borrow} waits up to the
+ * borrow timeout for one to be returned. Modules that sit idle for longer than the idle timeout are
+ * freed by a background thread, which checks for them once every idle timeout.
+ *
+ * <p>A borrowed module must be given back with {@link #release}, whether or not using it succeeded,
+ * and must not be used afterwards.
+ */
+@Singleton
+public final class SscModulePool implements AutoCloseable {
+
+  /** SSC simulations are CPU bound, but reading a weather file from disk isn't. */
+  public static final int DEFAULT_MAX_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+  public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+
+  public static final long DEFAULT_BORROW_TIMEOUT_SECONDS = 60;
+
+  /** Keeps a very short idle timeout from turning eviction into a busy loop. */
+  private static final long MIN_EVICTION_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final SscModuleFactory factory;
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+  private final long borrowTimeoutNanos;
+  private final Ticker ticker;
+  private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService evictor;
+
+  private volatile boolean closed = false;
+
+  @Inject
+  SscModulePool(SscModuleFactory factory) {
+    this(
+        factory,
+        DEFAULT_MAX_SIZE,
+        DEFAULT_IDLE_TIMEOUT_SECONDS,
+        DEFAULT_BORROW_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS,
+        Ticker.systemTicker());
+  }
+
+  SscModulePool(
+      SscModuleFactory factory,
+      int maxSize,
+      long idleTimeout,
+      long borrowTimeout,
+      TimeUnit unit,
+      Ticker ticker) {
+    checkArgument(maxSize >= 1, "The maximum pool size must be >= 1.");
+    checkArgument(idleTimeout >= 0, "The idle timeout must be >= 0.");
+    checkArgument(borrowTimeout >= 0, "The borrow timeout must be >= 0.");
+
+    this.factory = factory;
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+    this.borrowTimeoutNanos = unit.toNanos(borrowTimeout);
+    this.ticker = ticker;
+
+    this.evictor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("ssc-module-evictor-%d")
+                .build());
+    long period = Math.max(idleTimeoutNanos, MIN_EVICTION_PERIOD_NANOS);
+    evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Borrows a module named <code>moduleName</code>, creating one if none are idle and fewer than
+   * the maximum are live. Otherwise, waits until another caller releases one.
+   *
+   * @throws io.github.spharris.ssc.exceptions.UnknownModuleNameException if there is no module
+   *     named <tt>moduleName</tt>
+   * @throws java.lang.IllegalStateException if the pool has been {@link #close closed}, no module
+   *     was released within the borrow timeout, or the thread is interrupted while waiting.
+   */
+  public SscModule borrow(String moduleName) {
+    checkNotNull(moduleName);
+    checkNotClosed();
+
+    return pools.computeIfAbsent(moduleName, Pool::new).borrow();
+  }
+
+  /**
+   * Returns a module borrowed with {@link #borrow} to the pool. If the module has been closed, or
+   * the pool has, the module is freed instead.
+   *
+   * @throws java.lang.IllegalArgumentException if <tt>module</tt> isn't currently borrowed from
+   *     this pool.
+   */
+  public void release(SscModule module) {
+    checkNotNull(module);
+
+    Pool pool = pools.get(module.getName());
+    checkArgument(pool != null, "Module %s was not borrowed from this pool.", module.getName());
+    pool.release(module);
+  }
+
+  /** Frees every module that has been idle for longer than the idle timeout. */
+  public void evictIdle() {
+    for (Pool pool : pools.values()) {
+      pool.evictIdle();
+    }
+  }
+
+  /** Statistics for each compute module name that has been borrowed. */
+  public ImmutableMap<String, ModulePoolStats> getStats() {
+    ImmutableMap.Builder<String, ModulePoolStats> stats = ImmutableMap.builder();
+    for (Map.Entry<String, Pool> pool : pools.entrySet()) {
+      stats.put(pool.getKey(), pool.getValue().stats());
+    }
+
+    return stats.build();
+  }
+
+  /**
+   * Frees every idle module. Modules that are still borrowed are freed when they are released, and
+   * no more can be borrowed. Callers waiting in {@link #borrow} fail straight away.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    evictor.shutdownNow();
+    for (Pool pool : pools.values()) {
+      pool.clear();
+    }
+  }
+
+  private void checkNotClosed() {
+    checkState(!closed, "This module pool has already been closed.");
+  }
+
+  /** The modules for a single compute module name. */
+  private final class Pool {
+
+    private final String moduleName;
+    private final Lock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    /** Most recently released first, so the least recently used modules are the ones evicted. */
+    private final Deque<IdleModule> idle = new ArrayDeque<>();
+
+    private final Set<SscModule> borrowed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Idle and borrowed modules, plus any that are being created. */
+    private int live = 0;
+
+    private long borrowCount = 0;
+    private long waitCount = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+    private long createdCount = 0;
+    private long evictedCount = 0;
+
+    Pool(String moduleName) {
+      this.moduleName = moduleName;
+    }
+
+    SscModule borrow() {
+      List<SscModule> expired;
+      IdleModule reused;
+      lock.lock();
+      try {
+        long start = ticker.read();
+        boolean waited = false;
+        long remaining = borrowTimeoutNanos;
+        while (!closed && idle.isEmpty() && live >= maxSize) {
+          if (remaining <= 0) {
+            throw new IllegalStateException(
+                String.format(
+                    "Timed out after %d ms waiting for one of the %d %s modules to be released",
+                    TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos), maxSize, moduleName));
+          }
+          waited = true;
+          remaining = available.awaitNanos(remaining);
+        }
+        checkNotClosed();
+
+        long now = ticker.read();
+        borrowCount++;
+        if (waited) {
+          long wait = now - start;
+          waitCount++;
+          totalWaitNanos += wait;
+          maxWaitNanos = Math.max(maxWaitNanos, wait);
+        }
+
+        reused = idle.pollFirst();
+        if (reused != null) {
+          borrowed.add(reused.module);
+        } else {
+          live++;
+        }
+        expired = removeExpired(now);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(
+            String.format("Interrupted while waiting for module %s", moduleName), e);
+      } finally {
+        lock.unlock();
+      }
+
+      free(expired);
+      if (reused != null) {
+        return reused.module;
+      }
+
+      return create();
+    }
+
+    /** Creates a new module outside of the lock, in a slot already counted in {@link #live}. */
+    private SscModule create() {
+      SscModule module;
+      try {
+        module = factory.create(moduleName);
+      } catch (RuntimeException | Error e) {
+        lock.lock();
+        try {
+          live--;
+          available.signal();
+        } finally {
+          lock.unlock();
+        }
+        throw e;
+      }
+
+      lock.lock();
+      try {
+        createdCount++;
+        borrowed.add(module);
+      } finally {
+        lock.unlock();
+      }
+
+      return module;
+    }
+
+    void release(SscModule module) {
+      List<SscModule> expired;
+      boolean discard;
+      lock.lock();
+      try {
+        checkArgument(
+            borrowed.remove(module), "Module %s was not borrowed from this pool.", moduleName);
+
+        long now = ticker.read();
+        discard = closed || module.isClosed();
+        if (discard) {
+          live--;
+        } else {
+          idle.addFirst(new IdleModule(module, now));
+        }
+        available.signal();
+        expired = removeExpired(now);
+      } finally {
+        lock.unlock();
+      }
+
+      if (discard) {
+        module.close();
+      }
+      free(expired);
+    }
+
+    void evictIdle() {
+      List<SscModule> expired;
+      lock.lock();
+      try {
+        expired = removeExpired(ticker.read());
+      } finally {
+        lock.unlock();
+      }
+
+      free(expired);
+    }
+
+    void clear() {
+      List<SscModule> modules = new ArrayList<>();
+      lock.lock();
+      try {
+        for (IdleModule module : idle) {
+          modules.add(module.module);
+        }
+        live -= idle.size();
+        idle.clear();
+        available.signalAll();
+      } finally {
+        lock.unlock();
+      }
+
+      free(modules);
+    }
+
+    ModulePoolStats stats() {
+      lock.lock();
+      try {
+        return ModulePoolStats.builder()
+            .setMaxSize(maxSize)
+            .setInUse(borrowed.size())
+            .setIdle(idle.size())
+            .setBorrowCount(borrowCount)
+            .setWaitCount(waitCount)
+            .setTotalWaitNanos(totalWaitNanos)
+            .setMaxWaitNanos(maxWaitNanos)
+            .setCreatedCount(createdCount)
+            .setEvictedCount(evictedCount)
+            .build();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** Removes the modules that have been idle for too long. Must be called with the lock held. */
+    private List<SscModule> removeExpired(long now) {
+      if (idle.isEmpty() || now - idle.peekLast().releasedAt <= idleTimeoutNanos) {
+        return Collections.emptyList();
+      }
+
+      List<SscModule> expired = new ArrayList<>();
+      while (!idle.isEmpty() && now - idle.peekLast().releasedAt > idleTimeoutNanos) {
+        expired.add(idle.pollLast().module);
+      }
+
+      live -= expired.size();
+      evictedCount += expired.size();
+      return expired;
+    }
+
+    private void free(List<SscModule> modules) {
+      for (SscModule module : modules) {
+        module.close();
+      }
+    }
+  }
+
+  private static final class IdleModule {
+
+    final SscModule module;
+    final long releasedAt;
+
+    IdleModule(SscModule module, long releasedAt) {
+      this.module = module;
+      this.releasedAt = releasedAt;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package io.github.spharris.ssc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.jna.Pointer;
+import io.github.spharris.ssc.exceptions.UnknownModuleNameException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Metadata about the compute modules in the SSC library, read from the library once and then
+ * shared. The list of modules is read the first time it is needed; each module's variables are
+ * read the first time they are asked for.
+ */
+@Singleton
+public final class SscModuleRegistry {
+
+  private final Ssc api;
+  private final Map<String, ImmutableMap<String, Variable>> variables = new ConcurrentHashMap<>();
+
+  private volatile ImmutableMap<String, ModuleEntry> entries;
+
+  @Inject
+  SscModuleRegistry(Ssc api) {
+    this.api = api;
+    // Modules run without a handler print every message to standard output unless told not to.
+    // The setting is global to the library, so it only needs to be made once.
+    api.ssc_module_exec_set_print(0);
+  }
+
+  /** The version of the SSC library the modules come from. */
+  public int getSscVersion() {
+    return api.ssc_version();
+  }
+
+  /** Summaries of every available module, without their variables. */
+  public ImmutableList<SscModuleSummary> getModules() {
+    ImmutableList.Builder<SscModuleSummary> modules = ImmutableList.builder();
+    for (ModuleEntry entry : entries().values()) {
+      modules.add(entry.summary);
+    }
+
+    return modules.build();
+  }
+
+  /** A summary of the module named <code>moduleName</code>, including its variables. */
+  public Optional<SscModuleSummary> getModule(String moduleName) {
+    ModuleEntry entry = entries().get(moduleName);
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        SscModuleSummary.builder()
+            .setName(entry.summary.getName())
+            .setDescription(entry.summary.getDescription())
+            .setVersion(entry.summary.getVersion())
+            .setVariables(getVariables(moduleName))
+            .build());
+  }
+
+  /**
+   * The variables of the module named <code>moduleName</code>, in the order SSC lists them.
+   *
+   * @throws io.github.spharris.ssc.exceptions.UnknownModuleNameException if there is no such module
+   */
+  public ImmutableList<Variable> getVariables(String moduleName) {
+    return variablesByName(moduleName, null).values().asList();
+  }
+
+  /**
+   * The variable named <code>variableName</code> in the module named <code>moduleName</code>.
+   *
+   * @throws io.github.spharris.ssc.exceptions.UnknownModuleNameException if there is no such module
+   */
+  public Optional<Variable> getVariable(String moduleName, String variableName) {
+    return Optional.ofNullable(variablesByName(moduleName, null).get(variableName));
+  }
+
+  /**
+   * The SSC entry for the module named <code>moduleName</code>.
+   *
+   * @throws io.github.spharris.ssc.exceptions.UnknownModuleNameException if there is no such module
+   */
+  Pointer getEntry(String moduleName) {
+    ModuleEntry entry = entries().get(moduleName);
+    if (entry == null) {
+      throw new UnknownModuleNameException(moduleName);
+    }
+
+    return entry.entry;
+  }
+
+  /** Like {@link #getVariables(String)}, but reads them from an existing module if needed. */
+  ImmutableList<Variable> getVariables(String moduleName, Pointer module) {
+    return variablesByName(moduleName, module).values().asList();
+  }
+
+  private ImmutableMap<String, ModuleEntry> entries() {
+    ImmutableMap<String, ModuleEntry> result = entries;
+    if (result == null) {
+      synchronized (this) {
+        result = entries;
+        if (result == null) {
+          result = readEntries();
+          entries = result;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private ImmutableMap<String, ModuleEntry> readEntries() {
+    Map<String, ModuleEntry> result = new LinkedHashMap<>();
+
+    int i = 0;
+    Pointer entry = api.ssc_module_entry(i);
+    while (entry != null) {
+      SscModuleSummary summary =
+          SscModuleSummary.builder()
+              .setName(api.ssc_entry_name(entry))
+              .setDescription(api.ssc_entry_description(entry))
+              .setVersion(api.ssc_entry_version(entry))
+              .build();
+      result.putIfAbsent(summary.getName(), new ModuleEntry(entry, summary));
+
+      i++;
+      entry = api.ssc_module_entry(i);
+    }
+
+    return ImmutableMap.copyOf(result);
+  }
+
+  private ImmutableMap<String, Variable> variablesByName(String moduleName, Pointer module) {
+    ImmutableMap<String, Variable> result = variables.get(moduleName);
+    if (result != null) {
+      return result;
+    }
+
+    return variables.computeIfAbsent(moduleName, name -> readVariables(name, module));
+  }
+
+  /** Reads a module's variables, creating (and then freeing) a module if none is given. */
+  private ImmutableMap<String, Variable> readVariables(String moduleName, Pointer module) {
+    if (module != null) {
+      return readVariables(module);
+    }
+
+    Pointer created = api.ssc_module_create(moduleName);
+    if (created == null) {
+      throw new UnknownModuleNameException(moduleName);
+    }
+
+    try {
+      return readVariables(created);
+    } finally {
+      api.ssc_module_free(created);
+    }
+  }
+
+  private ImmutableMap<String, Variable> readVariables(Pointer module) {
+    Map<String, Variable> result = new LinkedHashMap<>();
+
+    int i = 0;
+    Pointer infoPointer = api.ssc_module_var_info(module, i);
+    while (infoPointer != null) {
+      Variable var =
+          Variable.builder()
+              .setVariableType(Variable.VariableType.forInt(api.ssc_info_var_type(infoPointer)))
+              .setDataType(Variable.DataType.forInt(api.ssc_info_data_type(infoPointer)))
+              .setName(api.ssc_info_name(infoPointer))
+              .setLabel(api.ssc_info_label(infoPointer))
+              .setUnits(api.ssc_info_units(infoPointer))
+              .setMeta(api.ssc_info_meta(infoPointer))
+              .setGroup(api.ssc_info_group(infoPointer))
+              .setRequired(api.ssc_info_required(infoPointer))
+              .build();
+      result.putIfAbsent(var.getName(), var);
+
+      i++;
+      infoPointer = api.ssc_module_var_info(module, i);
+    }
+
+    return ImmutableMap.copyOf(result);
+  }
+
+  private static final class ModuleEntry {
+
+    final Pointer entry;
+    final SscModuleSummary summary;
+
+    ModuleEntry(Pointer entry, SscModuleSummary summary) {
+      this.entry = entry;
+      this.summary = summary;
+    }
+  }
+}
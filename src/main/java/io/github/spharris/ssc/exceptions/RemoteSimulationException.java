@@ -0,0 +1,22 @@
+package io.github.spharris.ssc.exceptions;
+
+/**
+ * Thrown when a simulation fails with an exception inside an SSC worker process. The worker itself
+ * is still usable.
+ */
+public final class RemoteSimulationException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String remoteType;
+
+  public RemoteSimulationException(String remoteType, String message) {
+    super(String.format("%s: %s", remoteType, message));
+    this.remoteType = remoteType;
+  }
+
+  /** The class name of the exception thrown in the worker. */
+  public String getRemoteType() {
+    return remoteType;
+  }
+}
@@ -0,0 +1,14 @@
+package io.github.spharris.ssc.exceptions;
+
+/**
+ * Thrown when an SSC worker process dies, or stops following the worker protocol, while running a
+ * simulation. The worker is replaced before it runs anything else.
+ */
+public final class WorkerCrashedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public WorkerCrashedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
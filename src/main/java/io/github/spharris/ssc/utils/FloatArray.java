@@ -0,0 +1,96 @@
+package io.github.spharris.ssc.utils;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of floats, backed by a primitive <tt>float[]</tt>. Use {@link #getFloat} to
+ * read values without boxing them; the {@link java.util.List} methods box each value as it is
+ * read, so that code written against a <tt>List&lt;Float&gt;</tt> keeps working.
+ */
+public final class FloatArray extends AbstractList<Float> implements RandomAccess {
+
+  private static final FloatArray EMPTY = new FloatArray(new float[0]);
+
+  private final float[] values;
+
+  private FloatArray(float[] values) {
+    this.values = values;
+  }
+
+  public static FloatArray of(float... values) {
+    return copyOf(values);
+  }
+
+  public static FloatArray copyOf(float[] values) {
+    checkNotNull(values);
+    return values.length == 0 ? EMPTY : new FloatArray(values.clone());
+  }
+
+  /**
+   * @throws java.lang.NullPointerException if <tt>values</tt> or any of its elements is null
+   */
+  public static FloatArray copyOf(Iterable<Float> values) {
+    checkNotNull(values);
+    if (values instanceof FloatArray) {
+      return (FloatArray) values;
+    }
+
+    float[] copy = new float[values instanceof Collection ? ((Collection<?>) values).size() : 16];
+    int size = 0;
+    for (Float value : values) {
+      if (size == copy.length) {
+        copy = Arrays.copyOf(copy, size * 2);
+      }
+      copy[size++] = value.floatValue();
+    }
+
+    return wrap(size == copy.length ? copy : Arrays.copyOf(copy, size));
+  }
+
+  /** Takes ownership of <tt>values</tt>, which the caller must not change afterwards. */
+  static FloatArray wrap(float[] values) {
+    return values.length == 0 ? EMPTY : new FloatArray(values);
+  }
+
+  /** The value at <tt>index</tt>, without boxing it. */
+  public float getFloat(int index) {
+    checkElementIndex(index, values.length);
+    return values[index];
+  }
+
+  @Override
+  public Float get(int index) {
+    return getFloat(index);
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  /** A copy of the values. */
+  public float[] toFloatArray() {
+    return values.clone();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (other instanceof FloatArray) {
+      return Arrays.equals(values, ((FloatArray) other).values);
+    }
+
+    return super.equals(other);
+  }
+
+  @Override
+  public int hashCode() {
+    // The same as List.hashCode, since Float.hashCode is floatToIntBits
+    return Arrays.hashCode(values);
+  }
+}
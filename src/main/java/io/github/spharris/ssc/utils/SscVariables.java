@@ -51,6 +51,24 @@ public final class SscVariables {
     }
   }
 
+  /** Like {@link #arrayOutput}, but keeps the values in a {@link FloatArray}, unboxed. */
+  public static SscVariable<FloatArray> floatArrayOutput(String varName) {
+    return new FloatArraySscVariable(varName);
+  }
+
+  private static class FloatArraySscVariable extends AbstractVariable<FloatArray> {
+
+    FloatArraySscVariable(String varName) {
+      super(varName);
+    }
+
+    @Override
+    public FloatArray get(DataContainer data) {
+      // The container returns a fresh copy of the values, so there's no need to copy it again
+      return FloatArray.wrap(data.getArray(varName).get());
+    }
+  }
+
   public static SscVariable<Float> numberOutput(String varName) {
     return new NumberSscVariable(varName);
   }
@@ -0,0 +1,241 @@
+package io.github.spharris.ssc.worker;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.github.spharris.ssc.Variable.DataType;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An immutable copy of an SSC data table that lives on the Java heap, used to send inputs to and
+ * results back from {@link SscWorker} processes. Like a {@link
+ * io.github.spharris.ssc.DataContainer}, it holds numbers, strings, arrays, matrices and nested
+ * tables by name. Arrays are copied on the way in and out.
+ */
+public final class DataTable {
+
+  private static final DataTable EMPTY = new DataTable(ImmutableMap.of());
+
+  private final ImmutableMap<String, Object> values;
+
+  private DataTable(ImmutableMap<String, Object> values) {
+    this.values = values;
+  }
+
+  public static DataTable empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** The names of every value in the table, in the order they were set. */
+  public ImmutableSet<String> getNames() {
+    return values.keySet();
+  }
+
+  /** The type of the value named <tt>name</tt>, if there is one. */
+  public Optional<DataType> getType(String name) {
+    checkNotNull(name);
+    Object value = values.get(name);
+    return value == null ? Optional.empty() : Optional.of(typeOf(value));
+  }
+
+  public Optional<Float> getNumber(String name) {
+    return get(name, Float.class);
+  }
+
+  public Optional<String> getString(String name) {
+    return get(name, String.class);
+  }
+
+  public Optional<float[]> getArray(String name) {
+    return get(name, float[].class).map(float[]::clone);
+  }
+
+  public Optional<float[][]> getMatrix(String name) {
+    return get(name, Matrix.class).map(Matrix::toRows);
+  }
+
+  public Optional<DataTable> getTable(String name) {
+    return get(name, DataTable.class);
+  }
+
+  /** The value named <tt>name</tt> as it is stored, without copying. */
+  Object getValue(String name) {
+    return values.get(name);
+  }
+
+  private <T> Optional<T> get(String name, Class<T> type) {
+    checkNotNull(name);
+    Object value = values.get(name);
+    return type.isInstance(value) ? Optional.of(type.cast(value)) : Optional.empty();
+  }
+
+  static DataType typeOf(Object value) {
+    if (value instanceof Float) {
+      return DataType.NUMBER;
+    } else if (value instanceof String) {
+      return DataType.STRING;
+    } else if (value instanceof float[]) {
+      return DataType.ARRAY;
+    } else if (value instanceof Matrix) {
+      return DataType.MATRIX;
+    } else if (value instanceof DataTable) {
+      return DataType.TABLE;
+    }
+
+    throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof DataTable)) {
+      return false;
+    }
+
+    Map<String, Object> other = ((DataTable) obj).values;
+    if (!values.keySet().equals(other.keySet())) {
+      return false;
+    }
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      if (!Objects.deepEquals(entry.getValue(), other.get(entry.getKey()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      hash += entry.getKey().hashCode() ^ Arrays.deepHashCode(new Object[] {entry.getValue()});
+    }
+
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "DataTable" + values.keySet();
+  }
+
+  /** A matrix, stored row-major. */
+  static final class Matrix {
+
+    final int rows;
+    final int cols;
+    final float[] values;
+
+    Matrix(int rows, int cols, float[] values) {
+      this.rows = rows;
+      this.cols = cols;
+      this.values = values;
+    }
+
+    float[][] toRows() {
+      float[][] result = new float[rows][];
+      for (int i = 0; i < rows; i++) {
+        result[i] = Arrays.copyOfRange(values, i * cols, (i + 1) * cols);
+      }
+
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Matrix)) {
+        return false;
+      }
+
+      Matrix other = (Matrix) obj;
+      return rows == other.rows && cols == other.cols && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * rows + cols) + Arrays.hashCode(values);
+    }
+  }
+
+  /** Builds a {@link DataTable}. Setting a name again replaces its value. */
+  public static final class Builder {
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    private Builder() {}
+
+    public Builder setNumber(String name, float value) {
+      return put(name, value);
+    }
+
+    public Builder setString(String name, String value) {
+      return put(name, checkNotNull(value));
+    }
+
+    public Builder setArray(String name, float[] value) {
+      return put(name, value.clone());
+    }
+
+    /**
+     * @throws java.lang.IllegalArgumentException if <tt>value</tt> is empty or its rows aren't all
+     *     the same length
+     */
+    public Builder setMatrix(String name, float[][] value) {
+      checkArgument(value.length >= 1, "The number of rows must be >= 1.");
+      int cols = value[0].length;
+      float[] rowMajor = new float[value.length * cols];
+      for (int i = 0; i < value.length; i++) {
+        checkArgument(value[i].length == cols, "Every row must have %s columns.", cols);
+        System.arraycopy(value[i], 0, rowMajor, i * cols, cols);
+      }
+
+      return put(name, new Matrix(value.length, cols, rowMajor));
+    }
+
+    /**
+     * @throws java.lang.IllegalArgumentException if <tt>rowMajor</tt> doesn't have exactly
+     *     <tt>rows * cols</tt> values
+     */
+    public Builder setMatrix(String name, float[] rowMajor, int rows, int cols) {
+      checkArgument(rows >= 1, "The number of rows must be >= 1.");
+      checkArgument(cols >= 1, "The number of columns must be >= 1.");
+      checkArgument(
+          rowMajor.length == (long) rows * cols,
+          "A %s x %s matrix needs %s values, but %s were given.",
+          rows,
+          cols,
+          (long) rows * cols,
+          rowMajor.length);
+
+      return put(name, new Matrix(rows, cols, rowMajor.clone()));
+    }
+
+    public Builder setTable(String name, DataTable value) {
+      return put(name, checkNotNull(value));
+    }
+
+    /** Sets a value that has already been copied, without copying it again. */
+    Builder put(String name, Object value) {
+      checkNotNull(name);
+      values.put(name, value);
+      return this;
+    }
+
+    public DataTable build() {
+      return values.isEmpty() ? EMPTY : new DataTable(ImmutableMap.copyOf(values));
+    }
+  }
+}
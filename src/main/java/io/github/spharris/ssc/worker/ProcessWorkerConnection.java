@@ -0,0 +1,82 @@
+package io.github.spharris.ssc.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A worker running as a child process, connected over its standard input and output. The worker's
+ * standard error (where it logs) goes to this process's standard error.
+ */
+final class ProcessWorkerConnection implements WorkerConnection {
+
+  private static final Logger logger = Logger.getLogger(ProcessWorkerConnection.class.getName());
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+  private final Process process;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  private ProcessWorkerConnection(Process process) {
+    this.process = process;
+    this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+  }
+
+  /** A launcher that runs <code>command</code>, which should start an {@link SscWorker}. */
+  static Launcher launcher(List<String> command) {
+    return () -> start(command);
+  }
+
+  private static ProcessWorkerConnection start(List<String> command) throws IOException {
+    Process process = new ProcessBuilder(command).redirectError(Redirect.INHERIT).start();
+    ProcessWorkerConnection connection = new ProcessWorkerConnection(process);
+    try {
+      WorkerProtocol.readHello(connection.in);
+    } catch (IOException e) {
+      connection.destroy();
+      throw e;
+    }
+
+    return connection;
+  }
+
+  @Override
+  public SimulationResult run(SimulationRequest request) throws IOException {
+    WorkerProtocol.writeRequest(out, request);
+    return WorkerProtocol.readResponse(in);
+  }
+
+  @Override
+  public void close() {
+    try {
+      WorkerProtocol.writeShutdown(out);
+      out.close();
+      if (process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        return;
+      }
+      logger.warning(
+          String.format(
+              "Worker didn't exit within %d seconds, killing it", SHUTDOWN_TIMEOUT_SECONDS));
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Could not ask worker to exit, killing it", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    destroy();
+  }
+
+  @Override
+  public void destroy() {
+    process.destroyForcibly();
+  }
+}
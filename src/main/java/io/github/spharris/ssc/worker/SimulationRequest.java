@@ -0,0 +1,41 @@
+package io.github.spharris.ssc.worker;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+
+/** A simulation to run in a worker process. */
+@AutoValue
+public abstract class SimulationRequest {
+
+  SimulationRequest() {}
+
+  /** The name of the SSC compute module to run. */
+  public abstract String getModuleName();
+
+  /** The values to set in the module's data container before running it. */
+  public abstract DataTable getInputs();
+
+  /**
+   * The names of the outputs to send back. If empty, every output the module lists (and sets) is
+   * sent back.
+   */
+  public abstract ImmutableSet<String> getOutputs();
+
+  public static Builder builder() {
+    return new AutoValue_SimulationRequest.Builder()
+        .setInputs(DataTable.empty())
+        .setOutputs(ImmutableSet.of());
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setModuleName(String moduleName);
+
+    public abstract Builder setInputs(DataTable inputs);
+
+    public abstract Builder setOutputs(Iterable<String> outputs);
+
+    public abstract SimulationRequest build();
+  }
+}
@@ -0,0 +1,26 @@
+package io.github.spharris.ssc.worker;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
+import io.github.spharris.ssc.LogMessage;
+
+/** The outputs of a simulation run in a worker process, and the messages the module logged. */
+@AutoValue
+public abstract class SimulationResult {
+
+  SimulationResult() {}
+
+  public abstract DataTable getOutputs();
+
+  public abstract ImmutableList<LogMessage> getMessages();
+
+  /** Whether the module logged any errors, in which case the outputs are probably incomplete. */
+  public boolean hasErrors() {
+    return getMessages().stream().anyMatch(m -> m.getType() == MessageType.ERROR);
+  }
+
+  public static SimulationResult create(DataTable outputs, Iterable<LogMessage> messages) {
+    return new AutoValue_SimulationResult(outputs, ImmutableList.copyOf(messages));
+  }
+}
@@ -0,0 +1,176 @@
+package io.github.spharris.ssc.worker;
+
+import static io.github.spharris.ssc.ExecutionHandlers.messageCollectingHandler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import io.github.spharris.ssc.DataContainer;
+import io.github.spharris.ssc.LogMessage;
+import io.github.spharris.ssc.SimulationRunner;
+import io.github.spharris.ssc.SscBinding;
+import io.github.spharris.ssc.SscGuiceModule;
+import io.github.spharris.ssc.SscModuleRegistry;
+import io.github.spharris.ssc.Variable;
+import io.github.spharris.ssc.Variable.VariableType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * The main class of an SSC worker process, which an {@link SscWorkerPool} starts. A worker loads
+ * its own copy of the SSC library, then reads simulation requests from standard input and writes
+ * each result to standard output (see {@link WorkerProtocol}) until it is told to shut down or its
+ * input is closed. Since anything else written to standard output would corrupt the replies,
+ * {@link System#out} is pointed at standard error.
+ */
+public final class SscWorker {
+
+  private static final Logger logger = Logger.getLogger(SscWorker.class.getName());
+
+  private final SimulationRunner runner;
+  private final SscModuleRegistry registry;
+  private final Provider<DataContainer> dataContainerProvider;
+
+  @Inject
+  SscWorker(
+      SimulationRunner runner,
+      SscModuleRegistry registry,
+      Provider<DataContainer> dataContainerProvider) {
+    this.runner = runner;
+    this.registry = registry;
+    this.dataContainerProvider = dataContainerProvider;
+  }
+
+  /** Takes an optional {@link SscBinding} name, which defaults to {@link SscBinding#DIRECT}. */
+  public static void main(String[] args) throws IOException {
+    FileOutputStream replies = new FileOutputStream(FileDescriptor.out);
+    System.setOut(System.err);
+
+    SscBinding binding = args.length > 0 ? SscBinding.valueOf(args[0]) : SscBinding.DIRECT;
+    SscWorker worker =
+        Guice.createInjector(new SscGuiceModule(binding)).getInstance(SscWorker.class);
+
+    worker.serve(
+        new DataInputStream(new BufferedInputStream(System.in)),
+        new DataOutputStream(new BufferedOutputStream(replies)));
+  }
+
+  /**
+   * Answers requests from <code>in</code> until a shutdown frame or the end of the stream. A
+   * simulation that throws is answered with a failure frame and doesn't stop the worker.
+   *
+   * @throws java.io.IOException if either stream fails, or <code>in</code> isn't following the
+   *     protocol
+   */
+  void serve(DataInputStream in, DataOutputStream out) throws IOException {
+    WorkerProtocol.writeHello(out);
+
+    while (true) {
+      int frame = in.read();
+      if (frame == -1 || frame == WorkerProtocol.SHUTDOWN) {
+        return;
+      } else if (frame != WorkerProtocol.RUN) {
+        throw new IOException("Unexpected frame type " + frame);
+      }
+
+      SimulationRequest request = WorkerProtocol.readRequest(in);
+      SimulationResult result;
+      try {
+        result = run(request);
+      } catch (RuntimeException e) {
+        logger.log(
+            Level.FINE, String.format("Simulation of %s failed", request.getModuleName()), e);
+        WorkerProtocol.writeFailure(out, e);
+        continue;
+      }
+
+      WorkerProtocol.writeResult(out, result);
+    }
+  }
+
+  SimulationResult run(SimulationRequest request) {
+    return runner.run(
+        request.getModuleName(),
+        (module, data) -> {
+          setInputs(request.getInputs(), data);
+
+          ImmutableList.Builder<LogMessage> messages = ImmutableList.builder();
+          module.execute(data, messageCollectingHandler(messages));
+
+          return SimulationResult.create(getOutputs(request, data), messages.build());
+        });
+  }
+
+  private void setInputs(DataTable inputs, DataContainer data) {
+    for (String name : inputs.getNames()) {
+      Object value = inputs.getValue(name);
+      switch (DataTable.typeOf(value)) {
+        case NUMBER:
+          data.setNumber(name, ((Float) value).floatValue());
+          break;
+        case STRING:
+          data.setString(name, (String) value);
+          break;
+        case ARRAY:
+          data.setArray(name, (float[]) value);
+          break;
+        case MATRIX:
+          DataTable.Matrix matrix = (DataTable.Matrix) value;
+          data.setMatrix(name, matrix.values, matrix.rows, matrix.cols);
+          break;
+        case TABLE:
+          // SSC copies the table, so it can be freed as soon as it has been set
+          try (DataContainer table = dataContainerProvider.get()) {
+            setInputs((DataTable) value, table);
+            data.setTable(name, table);
+          }
+          break;
+        default:
+          throw new AssertionError(value);
+      }
+    }
+  }
+
+  /** Reads the requested outputs, skipping any that the module doesn't list or didn't set. */
+  private DataTable getOutputs(SimulationRequest request, DataContainer data) {
+    DataTable.Builder outputs = DataTable.builder();
+    for (Variable var : registry.getVariables(request.getModuleName())) {
+      String name = var.getName();
+      boolean wanted =
+          request.getOutputs().isEmpty()
+              ? var.getVariableType() != VariableType.INPUT
+              : request.getOutputs().contains(name);
+      if (!wanted) {
+        continue;
+      }
+
+      switch (var.getDataType()) {
+        case NUMBER:
+          data.getNumber(name).ifPresent(value -> outputs.setNumber(name, value));
+          break;
+        case STRING:
+          data.getString(name).ifPresent(value -> outputs.setString(name, value));
+          break;
+        case ARRAY:
+          data.getArray(name).ifPresent(value -> outputs.put(name, value));
+          break;
+        case MATRIX:
+          data.getMatrix(name).ifPresent(value -> outputs.setMatrix(name, value));
+          break;
+        default:
+          // Tables can't be read back out of a DataContainer
+          break;
+      }
+    }
+
+    return outputs.build();
+  }
+}
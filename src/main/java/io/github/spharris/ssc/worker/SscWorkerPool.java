@@ -0,0 +1,366 @@
+package io.github.spharris.ssc.worker;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.spharris.ssc.exceptions.RemoteSimulationException;
+import io.github.spharris.ssc.exceptions.WorkerCrashedException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Runs SSC simulations in a pool of {@link SscWorker} processes, each with its own copy of the SSC
+ * library, so that a crash in the library only takes down one worker and the native memory a
+ * worker has used is given back to the operating system when it exits.
+ *
+ * <p>Each worker process is owned by one thread of the pool, which starts it the first time it is
+ * needed. A worker that dies is replaced before the next simulation, and a worker that has run
+ * <code>maxRunsPerWorker</code> simulations is shut down and replaced, which bounds how long a
+ * slow native leak can grow. The simulation that was running when a worker died fails with a
+ * {@link WorkerCrashedException}; it isn't retried, since the same inputs are likely to crash the
+ * next worker too. A simulation that runs for longer than the run timeout is treated the same way:
+ * its worker is killed, and the simulation fails with a {@link WorkerCrashedException}.
+ *
+ * <p>Workers are started with the same <code>java</code> binary and class path as this process,
+ * plus the given JVM arguments and this process's <code>jna.library.path</code>, if set.
+ *
+ * <p>This is a library API: the PVWatts services run simulations in process and don't use it.
+ */
+@Singleton
+public final class SscWorkerPool implements AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(SscWorkerPool.class.getName());
+
+  public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+
+  public static final int DEFAULT_MAX_RUNS_PER_WORKER = 1000;
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  public static final long DEFAULT_RUN_TIMEOUT_SECONDS = 300;
+
+  private final WorkerConnection.Launcher launcher;
+  private final int maxRunsPerWorker;
+  private final long runTimeoutNanos;
+  private final Ticker ticker;
+  private final ThreadPoolExecutor executor;
+  private final ScheduledExecutorService watchdog =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ssc-worker-watchdog").build());
+  private final List<Slot> slots = new CopyOnWriteArrayList<>();
+  private final AtomicInteger slotCount = new AtomicInteger();
+
+  @Inject
+  SscWorkerPool() {
+    this(
+        DEFAULT_WORKERS,
+        DEFAULT_MAX_RUNS_PER_WORKER,
+        DEFAULT_RUN_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS,
+        ImmutableList.of());
+  }
+
+  /**
+   * @param workers The number of worker processes.
+   * @param maxRunsPerWorker The number of simulations a worker runs before it is replaced.
+   * @param runTimeout How long a simulation may run before its worker is killed.
+   * @param jvmArguments Extra arguments for the worker JVMs, such as <code>-Xmx256m</code>.
+   */
+  public SscWorkerPool(
+      int workers,
+      int maxRunsPerWorker,
+      long runTimeout,
+      TimeUnit unit,
+      List<String> jvmArguments) {
+    this(
+        ProcessWorkerConnection.launcher(workerCommand(jvmArguments)),
+        workers,
+        maxRunsPerWorker,
+        unit.toNanos(runTimeout),
+        DEFAULT_QUEUE_CAPACITY,
+        Ticker.systemTicker());
+  }
+
+  SscWorkerPool(
+      WorkerConnection.Launcher launcher,
+      int workers,
+      int maxRunsPerWorker,
+      long runTimeoutNanos,
+      int queueCapacity,
+      Ticker ticker) {
+    checkArgument(workers >= 1, "The number of workers must be >= 1.");
+    checkArgument(maxRunsPerWorker >= 1, "The maximum runs per worker must be >= 1.");
+    checkArgument(runTimeoutNanos > 0, "The run timeout must be > 0.");
+    checkArgument(queueCapacity >= 1, "The queue capacity must be >= 1.");
+
+    this.launcher = launcher;
+    this.maxRunsPerWorker = maxRunsPerWorker;
+    this.runTimeoutNanos = runTimeoutNanos;
+    this.ticker = ticker;
+    this.executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+              Slot slot = new Slot(task, slotCount.getAndIncrement());
+              slots.add(slot);
+              return slot;
+            },
+            (job, executor) -> {
+              throw new RejectedExecutionException(
+                  executor.isShutdown()
+                      ? "The worker pool has been closed."
+                      : String.format(
+                          "The simulation queue is full (%d jobs).", executor.getQueue().size()));
+            });
+  }
+
+  /**
+   * Queues a simulation.
+   *
+   * @return A future holding the result, or failed with a {@link RemoteSimulationException} if the
+   *     simulation threw, a {@link WorkerCrashedException} if the worker died, or a {@link
+   *     RejectedExecutionException} if the queue is full or the pool has been closed. Cancelling
+   *     the future before the simulation starts stops it from being sent to a worker.
+   */
+  public CompletableFuture<SimulationResult> submit(SimulationRequest request) {
+    checkNotNull(request);
+
+    CompletableFuture<SimulationResult> result = new CompletableFuture<>();
+    Runnable job =
+        () -> {
+          if (result.isDone()) {
+            return;
+          }
+
+          try {
+            result.complete(((Slot) Thread.currentThread()).run(request));
+          } catch (Throwable e) {
+            result.completeExceptionally(e);
+          }
+        };
+
+    try {
+      executor.execute(job);
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+
+    return result;
+  }
+
+  /** Stats for each worker that has been started so far. */
+  public ImmutableList<WorkerStats> getStats() {
+    ImmutableList.Builder<WorkerStats> stats = ImmutableList.builder();
+    for (Slot slot : slots) {
+      stats.add(slot.getStats());
+    }
+
+    return stats.build();
+  }
+
+  /** The number of simulations waiting for a worker. */
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Stops accepting simulations, waits for the queued ones to finish, and shuts down every worker.
+   *
+   * @throws java.lang.IllegalStateException if the thread is interrupted while waiting.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Keep waiting; a simulation can't be stopped part way through
+      }
+      for (Slot slot : slots) {
+        slot.join();
+      }
+      watchdog.shutdownNow();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for simulations to finish", e);
+    }
+  }
+
+  private static ImmutableList<String> workerCommand(List<String> jvmArguments) {
+    ImmutableList.Builder<String> command = ImmutableList.builder();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArguments);
+
+    String libraryPath = System.getProperty("jna.library.path");
+    if (libraryPath != null) {
+      command.add("-Djna.library.path=" + libraryPath);
+    }
+
+    command.add("-cp", System.getProperty("java.class.path"), SscWorker.class.getName());
+    return command.build();
+  }
+
+  /** A pool thread, which owns one worker process at a time. */
+  private final class Slot extends Thread {
+
+    private final int index;
+
+    // Only changed by this thread
+    private volatile WorkerConnection connection;
+    private int runsSinceStart;
+
+    // Guarded by this
+    private long startCount;
+    private long runCount;
+    private long failureCount;
+    private long crashCount;
+    private long recycleCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    Slot(Runnable task, int index) {
+      super(task, "ssc-worker-process-" + index);
+      this.index = index;
+      setDaemon(true);
+    }
+
+    SimulationResult run(SimulationRequest request) {
+      WorkerConnection worker = connect();
+
+      long start = ticker.read();
+      boolean failed = false;
+      AtomicBoolean timedOut = new AtomicBoolean();
+      ScheduledFuture<?> timeout =
+          watchdog.schedule(
+              () -> {
+                timedOut.set(true);
+                worker.destroy();
+              },
+              runTimeoutNanos,
+              TimeUnit.NANOSECONDS);
+      try {
+        return worker.run(request);
+      } catch (RemoteSimulationException e) {
+        failed = true;
+        throw e;
+      } catch (IOException e) {
+        worker.destroy();
+        connection = null;
+        synchronized (this) {
+          crashCount++;
+        }
+        if (timedOut.get()) {
+          logger.warning(
+              String.format(
+                  "Worker %d timed out running %s, replacing it",
+                  index, request.getModuleName()));
+          throw new WorkerCrashedException(
+              String.format(
+                  "Worker %d was killed after running %s for more than %d ms",
+                  index,
+                  request.getModuleName(),
+                  TimeUnit.NANOSECONDS.toMillis(runTimeoutNanos)),
+              e);
+        }
+        logger.log(Level.WARNING, String.format("Worker %d crashed, replacing it", index), e);
+        throw new WorkerCrashedException(
+            String.format("Worker %d crashed running %s", index, request.getModuleName()), e);
+      } finally {
+        if (!timeout.cancel(false) && connection != null) {
+          // The worker answered just as it was being killed, so it can't be used again
+          worker.destroy();
+          connection = null;
+        }
+        record(ticker.read() - start, failed);
+        if (connection != null && ++runsSinceStart >= maxRunsPerWorker) {
+          recycle();
+        }
+      }
+    }
+
+    private WorkerConnection connect() {
+      if (connection == null) {
+        try {
+          connection = launcher.start();
+        } catch (IOException e) {
+          synchronized (this) {
+            crashCount++;
+          }
+          throw new WorkerCrashedException(String.format("Worker %d failed to start", index), e);
+        }
+
+        runsSinceStart = 0;
+        synchronized (this) {
+          startCount++;
+        }
+      }
+
+      return connection;
+    }
+
+    private void recycle() {
+      connection.close();
+      connection = null;
+      synchronized (this) {
+        recycleCount++;
+      }
+    }
+
+    private synchronized void record(long latencyNanos, boolean failed) {
+      runCount++;
+      if (failed) {
+        failureCount++;
+      }
+      totalLatencyNanos += latencyNanos;
+      maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+    }
+
+    synchronized WorkerStats getStats() {
+      return WorkerStats.builder()
+          .setIndex(index)
+          .setRunning(connection != null)
+          .setStartCount(startCount)
+          .setRunCount(runCount)
+          .setFailureCount(failureCount)
+          .setCrashCount(crashCount)
+          .setRecycleCount(recycleCount)
+          .setTotalLatencyNanos(totalLatencyNanos)
+          .setMaxLatencyNanos(maxLatencyNanos)
+          .build();
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        if (connection != null) {
+          connection.close();
+          connection = null;
+        }
+      }
+    }
+  }
+}
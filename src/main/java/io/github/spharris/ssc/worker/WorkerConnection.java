@@ -0,0 +1,33 @@
+package io.github.spharris.ssc.worker;
+
+import java.io.IOException;
+
+/** A connection to one worker process, used by one thread at a time. */
+interface WorkerConnection {
+
+  /**
+   * Runs a simulation in the worker and waits for the result.
+   *
+   * @throws io.github.spharris.ssc.exceptions.RemoteSimulationException if the simulation failed,
+   *     in which case the worker can still be used
+   * @throws java.io.IOException if the worker died or sent something unexpected, in which case it
+   *     can't
+   */
+  SimulationResult run(SimulationRequest request) throws IOException;
+
+  /** Asks the worker to exit, killing it if it doesn't. */
+  void close();
+
+  /**
+   * Kills the worker without waiting for it. Unlike the other methods, this can be called from any
+   * thread, which makes a {@link #run} in progress fail with an {@link IOException}.
+   */
+  void destroy();
+
+  /** Starts workers. */
+  interface Launcher {
+
+    /** Starts a worker and waits until it is ready for requests. */
+    WorkerConnection start() throws IOException;
+  }
+}
@@ -0,0 +1,257 @@
+package io.github.spharris.ssc.worker;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
+import io.github.spharris.ssc.LogMessage;
+import io.github.spharris.ssc.exceptions.RemoteSimulationException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol spoken between an {@link SscWorkerPool} and its {@link SscWorker} processes.
+ * Everything is big-endian, as written by {@link DataOutputStream}.
+ *
+ * <p>When a worker starts it writes a hello (a magic number and the protocol version). After that
+ * the pool writes one frame at a time and waits for the reply: a run frame is answered with a
+ * result or failure frame, and a shutdown frame (or the end of the stream) makes the worker exit.
+ * Strings are a length followed by UTF-8 bytes, and float arrays are a length followed by the raw
+ * values, so an 8760-value array costs 35 KB on the wire rather than a text encoding of it.
+ */
+final class WorkerProtocol {
+
+  static final int MAGIC = 0x53534357; // "SSCW"
+  static final int VERSION = 1;
+
+  static final byte RUN = 1;
+  static final byte SHUTDOWN = 2;
+  static final byte RESULT = 3;
+  static final byte FAILURE = 4;
+
+  private static final byte NUMBER = 1;
+  private static final byte STRING = 2;
+  private static final byte ARRAY = 3;
+  private static final byte MATRIX = 4;
+  private static final byte TABLE = 5;
+
+  /** A bound on lengths, so that a corrupt stream fails fast rather than allocating gigabytes. */
+  private static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+  private static final int FLOAT_SIZE = 4;
+
+  private WorkerProtocol() {}
+
+  static void writeHello(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.flush();
+  }
+
+  static void readHello(DataInputStream in) throws IOException {
+    int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException(String.format("Not an SSC worker (read 0x%08x)", magic));
+    }
+
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException(
+          String.format("Worker speaks protocol version %d, expected %d", version, VERSION));
+    }
+  }
+
+  static void writeRequest(DataOutputStream out, SimulationRequest request) throws IOException {
+    out.writeByte(RUN);
+    writeString(out, request.getModuleName());
+    writeTable(out, request.getInputs());
+    out.writeInt(request.getOutputs().size());
+    for (String output : request.getOutputs()) {
+      writeString(out, output);
+    }
+    out.flush();
+  }
+
+  static void writeShutdown(DataOutputStream out) throws IOException {
+    out.writeByte(SHUTDOWN);
+    out.flush();
+  }
+
+  /** Reads the body of a run frame, after its frame type. */
+  static SimulationRequest readRequest(DataInputStream in) throws IOException {
+    SimulationRequest.Builder request =
+        SimulationRequest.builder().setModuleName(readString(in)).setInputs(readTable(in));
+
+    int count = readLength(in);
+    ImmutableSet.Builder<String> outputs = ImmutableSet.builder();
+    for (int i = 0; i < count; i++) {
+      outputs.add(readString(in));
+    }
+
+    return request.setOutputs(outputs.build()).build();
+  }
+
+  static void writeResult(DataOutputStream out, SimulationResult result) throws IOException {
+    out.writeByte(RESULT);
+    writeTable(out, result.getOutputs());
+    out.writeInt(result.getMessages().size());
+    for (LogMessage message : result.getMessages()) {
+      out.writeByte(message.getType().ordinal());
+      out.writeFloat(message.getTime());
+      writeString(out, message.getText());
+    }
+    out.flush();
+  }
+
+  static void writeFailure(DataOutputStream out, Throwable failure) throws IOException {
+    out.writeByte(FAILURE);
+    writeString(out, failure.getClass().getName());
+    writeString(out, Strings.nullToEmpty(failure.getMessage()));
+    out.flush();
+  }
+
+  /**
+   * Reads a result or failure frame.
+   *
+   * @throws io.github.spharris.ssc.exceptions.RemoteSimulationException if the simulation failed
+   * @throws java.io.IOException if the stream ends or isn't a reply
+   */
+  static SimulationResult readResponse(DataInputStream in) throws IOException {
+    byte frame = in.readByte();
+    if (frame == FAILURE) {
+      String type = readString(in);
+      throw new RemoteSimulationException(type, readString(in));
+    } else if (frame != RESULT) {
+      throw new IOException("Unexpected frame type " + frame);
+    }
+
+    DataTable outputs = readTable(in);
+    int count = readLength(in);
+    ImmutableList.Builder<LogMessage> messages = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      int type = in.readUnsignedByte();
+      if (type >= MessageType.values().length) {
+        throw new IOException("Unknown message type " + type);
+      }
+      float time = in.readFloat();
+      messages.add(LogMessage.create(MessageType.values()[type], time, readString(in)));
+    }
+
+    return SimulationResult.create(outputs, messages.build());
+  }
+
+  static void writeTable(DataOutputStream out, DataTable table) throws IOException {
+    out.writeInt(table.getNames().size());
+    for (String name : table.getNames()) {
+      writeString(out, name);
+
+      Object value = table.getValue(name);
+      switch (DataTable.typeOf(value)) {
+        case NUMBER:
+          out.writeByte(NUMBER);
+          out.writeFloat((Float) value);
+          break;
+        case STRING:
+          out.writeByte(STRING);
+          writeString(out, (String) value);
+          break;
+        case ARRAY:
+          out.writeByte(ARRAY);
+          writeFloats(out, (float[]) value);
+          break;
+        case MATRIX:
+          DataTable.Matrix matrix = (DataTable.Matrix) value;
+          out.writeByte(MATRIX);
+          out.writeInt(matrix.rows);
+          out.writeInt(matrix.cols);
+          writeFloats(out, matrix.values);
+          break;
+        case TABLE:
+          out.writeByte(TABLE);
+          writeTable(out, (DataTable) value);
+          break;
+        default:
+          throw new AssertionError(value);
+      }
+    }
+  }
+
+  static DataTable readTable(DataInputStream in) throws IOException {
+    int count = readLength(in);
+    DataTable.Builder table = DataTable.builder();
+    for (int i = 0; i < count; i++) {
+      String name = readString(in);
+
+      byte type = in.readByte();
+      switch (type) {
+        case NUMBER:
+          table.put(name, in.readFloat());
+          break;
+        case STRING:
+          table.put(name, readString(in));
+          break;
+        case ARRAY:
+          table.put(name, readFloats(in));
+          break;
+        case MATRIX:
+          int rows = readLength(in);
+          int cols = readLength(in);
+          float[] values = readFloats(in);
+          if (values.length != (long) rows * cols) {
+            throw new IOException(
+                String.format("A %d x %d matrix can't hold %d values", rows, cols, values.length));
+          }
+          table.put(name, new DataTable.Matrix(rows, cols, values));
+          break;
+        case TABLE:
+          table.put(name, readTable(in));
+          break;
+        default:
+          throw new IOException("Unknown value type " + type);
+      }
+    }
+
+    return table.build();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readLength(in)];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /** Writes the values in one block, rather than one {@link DataOutputStream#writeFloat} each. */
+  private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate(values.length * FLOAT_SIZE);
+    bytes.asFloatBuffer().put(values);
+    out.writeInt(values.length);
+    out.write(bytes.array());
+  }
+
+  private static float[] readFloats(DataInputStream in) throws IOException {
+    float[] values = new float[readLength(in)];
+    byte[] bytes = new byte[values.length * FLOAT_SIZE];
+    in.readFully(bytes);
+    ByteBuffer.wrap(bytes).asFloatBuffer().get(values);
+    return values;
+  }
+
+  private static int readLength(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_LENGTH) {
+      throw new IOException("Invalid length " + length);
+    }
+
+    return length;
+  }
+}
@@ -0,0 +1,70 @@
+package io.github.spharris.ssc.worker;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time summary of one of an {@link SscWorkerPool}'s workers. */
+@AutoValue
+public abstract class WorkerStats {
+
+  WorkerStats() {}
+
+  /** The worker's position in the pool, from 0. */
+  public abstract int getIndex();
+
+  /** Whether the worker currently has a live process. */
+  public abstract boolean isRunning();
+
+  /** The number of processes started, counting restarts after crashes and recycling. */
+  public abstract long getStartCount();
+
+  /** The number of simulations run, however they ended. */
+  public abstract long getRunCount();
+
+  /** The number of simulations that threw an exception in the worker. */
+  public abstract long getFailureCount();
+
+  /** The number of times the process died, was killed for taking too long, or failed to start. */
+  public abstract long getCrashCount();
+
+  /** The number of times the process was replaced after reaching its run limit. */
+  public abstract long getRecycleCount();
+
+  /** The total time from sending a request to reading its reply, in nanoseconds. */
+  public abstract long getTotalLatencyNanos();
+
+  /** The longest time from sending a request to reading its reply, in nanoseconds. */
+  public abstract long getMaxLatencyNanos();
+
+  /** The average time from sending a request to reading its reply, in nanoseconds. */
+  public double getAverageLatencyNanos() {
+    return getRunCount() == 0 ? 0 : (double) getTotalLatencyNanos() / getRunCount();
+  }
+
+  static Builder builder() {
+    return new AutoValue_WorkerStats.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+
+    abstract Builder setIndex(int index);
+
+    abstract Builder setRunning(boolean running);
+
+    abstract Builder setStartCount(long startCount);
+
+    abstract Builder setRunCount(long runCount);
+
+    abstract Builder setFailureCount(long failureCount);
+
+    abstract Builder setCrashCount(long crashCount);
+
+    abstract Builder setRecycleCount(long recycleCount);
+
+    abstract Builder setTotalLatencyNanos(long totalLatencyNanos);
+
+    abstract Builder setMaxLatencyNanos(long maxLatencyNanos);
+
+    abstract WorkerStats build();
+  }
+}
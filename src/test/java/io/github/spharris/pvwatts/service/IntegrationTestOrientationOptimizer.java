@@ -0,0 +1,190 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.multibindings.MapBinder;
+import io.github.spharris.pvwatts.service.Annotations.SimulationTimeout;
+import io.github.spharris.pvwatts.service.OrientationRequest.Objective;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.ssc.SscGuiceModule;
+import javax.inject.Inject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IntegrationTestOrientationOptimizer {
+
+  private static final PvWatts5Request SYSTEM =
+      PvWatts5Request.builder()
+          .setLat(33.816f)
+          .setLon(-118.15f)
+          .setSystemCapacity(4f)
+          .setModuleType(0)
+          .setLosses(15f)
+          .setArrayType(0)
+          .setTilt(1.5f)
+          .setAzimuth(30f)
+          .build();
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Mock private WeatherSource tmy2WeatherSource;
+  @Inject private OrientationOptimizer optimizer;
+  @Inject private PvWatts5Service service;
+
+  @Before
+  public void createInjector() {
+    Guice.createInjector(
+            new SscGuiceModule(),
+            new AbstractModule() {
+
+              @Override
+              protected void configure() {
+                MapBinder.<String, WeatherSource>newMapBinder(
+                        binder(), String.class, WeatherSource.class)
+                    .addBinding("tmy2")
+                    .toInstance(tmy2WeatherSource);
+                bind(SimulationResultCache.class)
+                    .toInstance(new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB));
+                bind(Key.get(Integer.class, SimulationTimeout.class)).toInstance(0);
+                bind(WeatherDataCache.class)
+                    .toInstance(new WeatherDataCache(WeatherDataCache.DEFAULT_SIZE_MB));
+              }
+            })
+        .injectMembers(this);
+  }
+
+  @Before
+  public void returnWeatherData() {
+    when(tmy2WeatherSource.getWeatherFile(anyFloat(), anyFloat(), anyInt()))
+        .thenReturn("target/test-classes/weather/tmy2/23129.tm2");
+  }
+
+  @Test
+  public void bestIsHighestPointOnSurface() {
+    OrientationResult result =
+        optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).build());
+
+    assertThat(result.getErrors()).isEmpty();
+    for (OrientationPoint point : result.getSurface()) {
+      assertThat(result.getBest().getValue()).isAtLeast(point.getValue());
+    }
+  }
+
+  @Test
+  public void bestMatchesSingleRequest() {
+    OrientationPoint best =
+        optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).build()).getBest();
+
+    PvWatts5Response response =
+        service.execute(
+            SYSTEM.toBuilder().setTilt(best.getTilt()).setAzimuth(best.getAzimuth()).build());
+
+    assertThat(response.getOutputs().getAcAnnual()).isEqualTo(best.getValue());
+  }
+
+  @Test
+  public void facesSouthInNorthernHemisphere() {
+    OrientationPoint best =
+        optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).build()).getBest();
+
+    assertThat(best.getAzimuth()).isWithin(30f).of(180f);
+    assertThat(best.getTilt()).isGreaterThan(0f);
+  }
+
+  @Test
+  public void simulatesEachPointOnce() {
+    OrientationResult result =
+        optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).build());
+
+    assertThat(ImmutableSet.copyOf(result.getSurface())).hasSize(result.getEvaluationCount());
+  }
+
+  @Test
+  public void looksUpWeatherOncePerPass() {
+    optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).setRefinements(1).build());
+
+    verify(tmy2WeatherSource, times(2)).getWeatherFile(anyFloat(), anyFloat(), anyInt());
+  }
+
+  @Test
+  public void staysWithinBounds() {
+    OrientationResult result =
+        optimizer.optimize(
+            OrientationRequest.builder()
+                .setSystem(SYSTEM)
+                .setMinTilt(40f)
+                .setMaxTilt(60f)
+                .setMinAzimuth(200f)
+                .setMaxAzimuth(270f)
+                .build());
+
+    for (OrientationPoint point : result.getSurface()) {
+      assertThat(point.getTilt()).isAtLeast(40f);
+      assertThat(point.getTilt()).isAtMost(60f);
+      assertThat(point.getAzimuth()).isAtLeast(200f);
+      assertThat(point.getAzimuth()).isAtMost(270f);
+    }
+  }
+
+  @Test
+  public void maximizesMonth() {
+    OrientationResult result =
+        optimizer.optimize(
+            OrientationRequest.builder()
+                .setSystem(SYSTEM)
+                .setObjective(Objective.MONTHLY_AC)
+                .setMonth(12)
+                .setRefinements(0)
+                .build());
+
+    OrientationPoint best = result.getBest();
+    PvWatts5Response response =
+        service.execute(
+            SYSTEM.toBuilder().setTilt(best.getTilt()).setAzimuth(best.getAzimuth()).build());
+
+    assertThat(response.getOutputs().getAcMonthly().get(11)).isEqualTo(best.getValue());
+  }
+
+  @Test
+  public void reportsErrors() {
+    OrientationResult result =
+        optimizer.optimize(
+            OrientationRequest.builder()
+                .setSystem(SYSTEM.toBuilder().setSystemCapacity(null).build())
+                .build());
+
+    assertThat(result.getBest()).isNull();
+    assertThat(result.getSurface()).isEmpty();
+    assertThat(result.getErrors()).isNotEmpty();
+  }
+
+  @Test
+  public void rejectsMonthWithoutMonthlyObjective() {
+    thrown.expect(IllegalArgumentException.class);
+
+    optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).setMonth(6).build());
+  }
+
+  @Test
+  public void rejectsTiltOutOfRange() {
+    thrown.expect(IllegalArgumentException.class);
+
+    optimizer.optimize(OrientationRequest.builder().setSystem(SYSTEM).setMaxTilt(100f).build());
+  }
+}
@@ -11,13 +11,24 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
+import com.google.inject.Key;
 import com.google.inject.multibindings.MapBinder;
+import io.github.spharris.pvwatts.service.Annotations.SimulationTimeout;
+import io.github.spharris.pvwatts.service.weather.ArchiveWeatherSource;
+import io.github.spharris.pvwatts.service.weather.WeatherArchiveWriter;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
+import io.github.spharris.pvwatts.service.weather.WeatherFileParser;
 import io.github.spharris.pvwatts.service.weather.WeatherSource;
 import io.github.spharris.pvwatts.utils.RequestConverter;
 import io.github.spharris.ssc.SscGuiceModule;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import javax.inject.Inject;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -45,20 +56,35 @@ public class IntegrationTestPvWatts4Service {
 
   private final ObjectMapper mapper = new ObjectMapper().registerModule(new GuavaModule());
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   @Mock private WeatherSource tmy2WeatherSource;
   @Inject private PvWatts4Service service;
 
   @Before
-  public void createInjector() {
+  public void createInjector() throws Exception {
+    Path archivePath = folder.getRoot().toPath().resolve("tmy2.pvwa");
+    Path longBeach = Paths.get("target/test-classes/weather/tmy2/23129.tm2");
+    try (WeatherArchiveWriter writer = WeatherArchiveWriter.create(archivePath)) {
+      writer.add(WeatherFileParser.parse(longBeach).get()).commit();
+    }
+    ArchiveWeatherSource archive = new ArchiveWeatherSource(archivePath).initialize();
+
     Guice.createInjector(
             new SscGuiceModule(),
             new AbstractModule() {
 
               @Override
               protected void configure() {
-                MapBinder.newMapBinder(binder(), String.class, WeatherSource.class)
-                    .addBinding("tmy2")
-                    .toInstance(tmy2WeatherSource);
+                MapBinder<String, WeatherSource> weatherBinder =
+                    MapBinder.newMapBinder(binder(), String.class, WeatherSource.class);
+                weatherBinder.addBinding("tmy2").toInstance(tmy2WeatherSource);
+                weatherBinder.addBinding("archive").toInstance(archive);
+                bind(SimulationResultCache.class)
+                    .toInstance(new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB));
+                bind(Key.get(Integer.class, SimulationTimeout.class)).toInstance(0);
+                bind(WeatherDataCache.class)
+                    .toInstance(new WeatherDataCache(WeatherDataCache.DEFAULT_SIZE_MB));
               }
             })
         .injectMembers(this);
@@ -172,7 +198,57 @@ public class IntegrationTestPvWatts4Service {
     assertThat(result.getWarnings()).isEmpty();
   }
 
-  private static void arraysAreClose(ImmutableList<Float> result, ImmutableList<Float> expected) {
+  @Test
+  public void batchMatchesSingleRequests() {
+    ImmutableList<PvWatts4Request> requests =
+        ImmutableList.of(
+            requestBuilder.build(),
+            requestBuilder.setTilt(20f).build(),
+            requestBuilder.setAzimuth(null).build(),
+            requestBuilder.build());
+
+    ImmutableList<PvWatts4Response> results = service.executeBatch(requests);
+
+    assertThat(results).hasSize(4);
+    for (int i = 0; i < requests.size(); i++) {
+      assertThat(results.get(i))
+          .isEqualTo(service.execute(requests.get(i).toBuilder().setCache(false).build()));
+    }
+  }
+
+  @Test
+  public void batchReportsErrorsPerRequest() {
+    ImmutableList<PvWatts4Request> requests =
+        ImmutableList.of(
+            requestBuilder.build(),
+            requestBuilder.setDataset("unknown").build(),
+            requestBuilder.setDataset("tmy2").setSystemSize(null).build());
+
+    ImmutableList<PvWatts4Response> results = service.executeBatch(requests);
+
+    assertThat(results.get(0).getErrors()).isEmpty();
+    assertThat(results.get(1).getErrors()).containsExactly("Unknown weather dataset unknown");
+    assertThat(results.get(2).getErrors()).isNotEmpty();
+  }
+
+  @Test
+  public void reportsArchiveDatasetAsUnsupported() {
+    PvWatts4Response result = service.execute(requestBuilder.setDataset("archive").build());
+
+    assertThat(result.getErrors())
+        .containsExactly("Weather dataset archive is not supported by module pvwattsv1");
+  }
+
+  @Test
+  public void batchReportsArchiveDatasetAsUnsupported() {
+    ImmutableList<PvWatts4Response> results =
+        service.executeBatch(ImmutableList.of(requestBuilder.setDataset("archive").build()));
+
+    assertThat(results.get(0).getErrors())
+        .containsExactly("Weather dataset archive is not supported by module pvwattsv1");
+  }
+
+  private static void arraysAreClose(List<Float> result, List<Float> expected) {
     for (int i = 0; i < result.size(); i++) {
       assertThat(result.get(i)).isWithin(EPSILON).of(expected.get(i));
     }
@@ -12,11 +12,17 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
+import com.google.inject.Key;
 import com.google.inject.multibindings.MapBinder;
+import io.github.spharris.pvwatts.service.Annotations.SimulationTimeout;
+import io.github.spharris.pvwatts.service.PvWatts5Response.Outputs;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
+import io.github.spharris.pvwatts.service.weather.WeatherFileParser;
 import io.github.spharris.pvwatts.service.weather.WeatherSource;
 import io.github.spharris.pvwatts.utils.RequestConverter;
 import io.github.spharris.ssc.SscGuiceModule;
-import javax.inject.Inject;
+import java.nio.file.Paths;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -47,23 +53,11 @@ public class IntegrationTestPvWatts5Service {
   private final ObjectMapper mapper = new ObjectMapper().registerModule(new GuavaModule());
 
   @Mock private WeatherSource tmy2WeatherSource;
-  @Inject private PvWatts5Service service;
+  private PvWatts5Service service;
 
   @Before
-  public void createInjector() {
-    Guice.createInjector(
-            new SscGuiceModule(),
-            new AbstractModule() {
-
-              @Override
-              protected void configure() {
-                MapBinder.<String, WeatherSource>newMapBinder(
-                        binder(), String.class, WeatherSource.class)
-                    .addBinding("tmy2")
-                    .toInstance(tmy2WeatherSource);
-              }
-            })
-        .injectMembers(this);
+  public void createService() {
+    service = createService(new WeatherDataCache(WeatherDataCache.DEFAULT_SIZE_MB));
   }
 
   @Before
@@ -189,8 +183,154 @@ public class IntegrationTestPvWatts5Service {
     assertThat(result.getWarnings()).isEmpty();
   }
 
-  private static void assertArraysAreClose(
-      ImmutableList<Float> result, ImmutableList<Float> expected) {
+  @Test
+  public void reusesResultForSameWeatherFile() {
+    PvWatts5Response first = service.execute(requestBuilder.build());
+    PvWatts5Response second =
+        service.execute(requestBuilder.setLat(33.8f).setAddress("Long Beach").build());
+
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  public void cachedResultFromParametersWritesInputs() {
+    service.execute(requestBuilder.build());
+
+    PvWatts5Response result = service.execute(URL_PARAMETERS);
+
+    assertThat(result.getInputs()).isEqualTo(URL_PARAMETERS);
+    assertThat(result.getOutputs().getAcAnnual()).isGreaterThan(0f);
+  }
+
+  @Test
+  public void doesNotReuseResultForDifferentSystem() {
+    PvWatts5Response first = service.execute(requestBuilder.build());
+    PvWatts5Response second = service.execute(requestBuilder.setTilt(20f).build());
+
+    assertThat(second.getOutputs().getAcAnnual())
+        .isNotEqualTo(first.getOutputs().getAcAnnual());
+  }
+
+  @Test
+  public void skipsCacheWhenRequested() {
+    PvWatts5Response first = service.execute(requestBuilder.build());
+    PvWatts5Response second = service.execute(requestBuilder.setCache(false).build());
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second).isEqualTo(first);
+  }
+
+  @Test
+  public void batchMatchesSingleRequests() {
+    ImmutableList<PvWatts5Request> requests =
+        ImmutableList.of(
+            requestBuilder.build(),
+            requestBuilder.setTilt(20f).build(),
+            requestBuilder.setAzimuth(null).build(),
+            requestBuilder.build());
+
+    ImmutableList<PvWatts5Response> results = service.executeBatch(requests);
+
+    assertThat(results).hasSize(4);
+    for (int i = 0; i < requests.size(); i++) {
+      assertThat(results.get(i))
+          .isEqualTo(service.execute(requests.get(i).toBuilder().setCache(false).build()));
+    }
+  }
+
+  @Test
+  public void batchReportsErrorsPerRequest() {
+    ImmutableList<PvWatts5Request> requests =
+        ImmutableList.of(
+            requestBuilder.build(),
+            requestBuilder.setDataset("unknown").build(),
+            requestBuilder.setDataset("tmy2").setSystemCapacity(null).build());
+
+    ImmutableList<PvWatts5Response> results = service.executeBatch(requests);
+
+    assertThat(results.get(0).getErrors()).isEmpty();
+    assertThat(results.get(1).getErrors()).containsExactly("Unknown weather dataset unknown");
+    assertThat(results.get(2).getErrors()).isNotEmpty();
+  }
+
+  @Test
+  public void parsedTm2WeatherMatchesSscReader() throws Exception {
+    assertParsedWeatherMatchesSscReader("target/test-classes/weather/tmy2/23129.tm2");
+  }
+
+  @Test
+  public void parsedTmy3WeatherMatchesSscReader() throws Exception {
+    assertParsedWeatherMatchesSscReader("target/test-classes/weather/722977TYA.CSV");
+  }
+
+  /**
+   * Runs the same request with <code>weatherFile</code> passed to SSC as a path, and parsed by
+   * {@link WeatherFileParser} and passed as a <code>solar_resource_data</code> table.
+   */
+  private void assertParsedWeatherMatchesSscReader(String weatherFile) throws Exception {
+    when(tmy2WeatherSource.getWeatherFile(anyFloat(), anyFloat(), anyInt()))
+        .thenReturn(weatherFile);
+    PvWatts5Request request = requestBuilder.setTimeframe("hourly").setCache(false).build();
+
+    WeatherDataCache weatherCache = new WeatherDataCache(WeatherDataCache.DEFAULT_SIZE_MB);
+    PvWatts5Response parsed = createService(weatherCache).execute(request);
+    PvWatts5Response fromFile = createService(new WeatherDataCache(0)).execute(request);
+
+    assertThat(WeatherFileParser.parse(Paths.get(weatherFile)).isPresent()).isTrue();
+    assertThat(weatherCache.stats().loadCount()).isEqualTo(1);
+    assertThat(parsed.getErrors()).isEmpty();
+    assertThat(fromFile.getErrors()).isEmpty();
+
+    Outputs expected = fromFile.getOutputs();
+    Outputs result = parsed.getOutputs();
+    assertArraysMatch(result.getAc(), expected.getAc());
+    assertArraysMatch(result.getDc(), expected.getDc());
+    assertArraysMatch(result.getDf(), expected.getDf());
+    assertArraysMatch(result.getDn(), expected.getDn());
+    assertArraysMatch(result.getPoa(), expected.getPoa());
+    assertArraysMatch(result.getTamb(), expected.getTamb());
+    assertArraysMatch(result.getTcell(), expected.getTcell());
+    assertArraysMatch(result.getWspd(), expected.getWspd());
+    assertArraysMatch(result.getAcMonthly(), expected.getAcMonthly());
+    assertArraysMatch(result.getSolradMonthly(), expected.getSolradMonthly());
+    assertValuesMatch(result.getAcAnnual(), expected.getAcAnnual());
+    assertValuesMatch(result.getSolradAnnual(), expected.getSolradAnnual());
+  }
+
+  private PvWatts5Service createService(WeatherDataCache weatherCache) {
+    return Guice.createInjector(
+            new SscGuiceModule(),
+            new AbstractModule() {
+
+              @Override
+              protected void configure() {
+                MapBinder.<String, WeatherSource>newMapBinder(
+                        binder(), String.class, WeatherSource.class)
+                    .addBinding("tmy2")
+                    .toInstance(tmy2WeatherSource);
+                bind(SimulationResultCache.class)
+                    .toInstance(new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB));
+                bind(Key.get(Integer.class, SimulationTimeout.class))
+                    .toInstance(TimedSimulationRunner.DEFAULT_TIMEOUT_MS);
+                bind(WeatherDataCache.class).toInstance(weatherCache);
+              }
+            })
+        .getInstance(PvWatts5Service.class);
+  }
+
+  /** Allows only for floats parsed by SSC and by Java rounding differently. */
+  private static void assertArraysMatch(List<Float> result, List<Float> expected) {
+    assertThat(result).hasSize(expected.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertValuesMatch(result.get(i), expected.get(i));
+    }
+  }
+
+  private static void assertValuesMatch(float result, float expected) {
+    assertThat(result).isWithin(Math.max(1e-3f, Math.abs(expected) * 1e-4f)).of(expected);
+  }
+
+  private static void assertArraysAreClose(List<Float> result, List<Float> expected) {
     for (int i = 0; i < result.size(); i++) {
       assertValuesAreClose(result.get(i), expected.get(i));
     }
@@ -0,0 +1,88 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import io.github.spharris.pvwatts.service.Annotations.WeatherDirectory;
+import io.github.spharris.pvwatts.service.weather.BackgroundWeatherSource;
+import io.github.spharris.pvwatts.service.weather.WeatherArchiveWriter;
+import io.github.spharris.pvwatts.service.weather.WeatherData;
+import io.github.spharris.pvwatts.service.weather.WeatherDataCache;
+import io.github.spharris.pvwatts.service.weather.WeatherFileParser;
+import io.github.spharris.pvwatts.service.weather.WeatherModule;
+import io.github.spharris.pvwatts.service.weather.WeatherSource;
+import io.github.spharris.ssc.DataContainer;
+import io.github.spharris.ssc.SscGuiceModule;
+import io.github.spharris.ssc.SscModule;
+import io.github.spharris.ssc.SscModuleFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntegrationTestSolarResources {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final WeatherDataCache cache = new WeatherDataCache(WeatherDataCache.DEFAULT_SIZE_MB);
+
+  @Inject private SolarResources solarResources;
+  @Inject private Map<String, WeatherSource> weatherSources;
+  @Inject private SscModuleFactory moduleFactory;
+  @Inject private Provider<DataContainer> dataContainerProvider;
+
+  @Before
+  public void createInjector() throws Exception {
+    Path longBeach = Paths.get("target/test-classes/weather/tmy2/23129.tm2");
+    try (WeatherArchiveWriter writer =
+        WeatherArchiveWriter.create(folder.getRoot().toPath().resolve("tmy2.pvwa"))) {
+      writer.add(WeatherFileParser.parse(longBeach).get()).commit();
+    }
+
+    Guice.createInjector(
+            new SscGuiceModule(),
+            new AbstractModule() {
+
+              @Override
+              protected void configure() {
+                bind(String.class)
+                    .annotatedWith(WeatherDirectory.class)
+                    .toInstance(folder.getRoot().toString());
+                bind(WeatherDataCache.class).toInstance(cache);
+                WeatherModule.bindArchive(binder(), "archive", "tmy2.pvwa");
+              }
+            })
+        .injectMembers(this);
+  }
+
+  @Test
+  public void passesArchivedColumnsStraightFromTheMapping() throws Exception {
+    WeatherSource source = weatherSources.get("archive");
+    assertThat(source).isInstanceOf(BackgroundWeatherSource.class);
+    ((BackgroundWeatherSource) source).await(10, TimeUnit.SECONDS);
+    String weatherFile = source.getWeatherFile(33.816f, -118.15f, 0);
+
+    try (SscModule module = moduleFactory.create("pvwattsv5");
+        DataContainer data = dataContainerProvider.get()) {
+      Optional<WeatherData> weather = solarResources.set(module, data, source, weatherFile);
+
+      // Only the header is returned when the columns are read from the archive's mapping.
+      assertThat(weather.isPresent()).isTrue();
+      assertThat(weather.get().getColumns()).isEmpty();
+      assertThat(weather.get().getLat()).isWithin(0.01f).of(33.82f);
+    }
+
+    assertThat(cache.stats().loadCount()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,159 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.inject.Guice;
+import io.github.spharris.ssc.SimulationRunner;
+import io.github.spharris.ssc.SscGuiceModule;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Inject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntegrationTestTimedSimulationRunner {
+
+  private static final String MODULE_NAME = "pvwattsv5";
+
+  @Inject private SimulationRunner simulationRunner;
+
+  /** Holds up simulations until the test has checked what their callers saw. */
+  private final CountDownLatch finish = new CountDownLatch(1);
+
+  @Before
+  public void createInjector() {
+    Guice.createInjector(new SscGuiceModule()).injectMembers(this);
+  }
+
+  @After
+  public void finishSimulations() {
+    finish.countDown();
+  }
+
+  @Test
+  public void runsOnCallingThreadWithoutTimeout() throws Exception {
+    TimedSimulationRunner runner = new TimedSimulationRunner(simulationRunner, 0);
+
+    Thread thread = runner.run(MODULE_NAME, (module, data) -> Thread.currentThread());
+
+    assertThat(thread).isSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void returnsResultWithinTimeout() throws Exception {
+    TimedSimulationRunner runner = new TimedSimulationRunner(simulationRunner, 60_000);
+
+    String name = runner.run(MODULE_NAME, (module, data) -> module.getName());
+
+    assertThat(name).isEqualTo(MODULE_NAME);
+  }
+
+  @Test
+  public void failsWithoutWaitingForSimulationAfterTimeout() throws Exception {
+    TimedSimulationRunner runner = new TimedSimulationRunner(simulationRunner, 50);
+
+    try {
+      runner.run(MODULE_NAME, (module, data) -> awaitFinish());
+      fail();
+    } catch (TimeoutException e) {
+      assertThat(e.getMessage()).contains(MODULE_NAME);
+    }
+    assertThat(finish.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void returnsWhenInterrupted() throws Exception {
+    TimedSimulationRunner runner = new TimedSimulationRunner(simulationRunner, 60_000);
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread caller =
+        new Thread(
+            () -> {
+              try {
+                runner.run(
+                    MODULE_NAME,
+                    (module, data) -> {
+                      started.countDown();
+                      return awaitFinish();
+                    });
+              } catch (CancellationException e) {
+                cancelled.set(Thread.currentThread().isInterrupted());
+              } catch (TimeoutException | RuntimeException e) {
+                failure.set(e);
+              }
+            });
+    caller.start();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    caller.interrupt();
+    caller.join(10_000);
+
+    assertThat(failure.get()).isNull();
+    assertThat(cancelled.get()).isTrue();
+  }
+
+  @Test
+  public void rejectsSimulationsWhenQueueIsFull() throws Exception {
+    TimedSimulationRunner runner = new TimedSimulationRunner(simulationRunner, 60_000, 1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+
+    Thread running =
+        new Thread(
+            () -> {
+              try {
+                runner.run(
+                    MODULE_NAME,
+                    (module, data) -> {
+                      started.countDown();
+                      return awaitFinish();
+                    });
+              } catch (TimeoutException e) {
+                throw new AssertionError(e);
+              }
+            });
+    running.start();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    Thread queued =
+        new Thread(
+            () -> {
+              try {
+                runner.run(MODULE_NAME, (module, data) -> true);
+              } catch (TimeoutException e) {
+                throw new AssertionError(e);
+              }
+            });
+    queued.start();
+    while (queued.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+
+    try {
+      runner.run(MODULE_NAME, (module, data) -> true);
+      fail();
+    } catch (RejectedExecutionException e) {
+      assertThat(e.getMessage()).contains("Too many simulations");
+    }
+  }
+
+  /** Stands in for a module that runs for longer than the test's timeout. */
+  private boolean awaitFinish() {
+    try {
+      return finish.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.github.spharris.pvwatts.service.PvWatts5Response.Outputs;
+import io.github.spharris.ssc.utils.FloatArray;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestPvWatts5Response {
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void boxedOutputsShareValuesWithArrays() {
+    Outputs outputs = Outputs.builder().setAc(ImmutableList.of(1f, 2.5f)).build();
+
+    assertThat(outputs.getAc()).containsExactly(1f, 2.5f).inOrder();
+    assertThat(outputs.getAcValues().getFloat(1)).isEqualTo(2.5f);
+    assertThat(outputs.getAc()).isSameAs(outputs.getAcValues());
+  }
+
+  @Test
+  public void setsArraysWithoutCopying() {
+    FloatArray ac = FloatArray.of(1f);
+
+    assertThat(Outputs.builder().setAc(ac).build().getAcValues()).isSameAs(ac);
+  }
+
+  @Test
+  public void writesArraysUnderOutputNames() throws Exception {
+    Outputs outputs =
+        Outputs.builder()
+            .setAc(ImmutableList.of(1f))
+            .setAcMonthly(ImmutableList.of(2f))
+            .setAcAnnual(3f)
+            .build();
+    String expected = "{\"ac\":[1.0],\"ac_monthly\":[2.0],\"ac_annual\":3.0}";
+
+    assertThat(mapper.writeValueAsString(outputs)).isEqualTo(expected);
+  }
+
+  @Test
+  public void readsArraysUnderOutputNames() throws Exception {
+    Outputs outputs = mapper.readValue("{\"ac\":[1],\"ac_monthly\":[2]}", Outputs.class);
+
+    assertThat(outputs.getAcValues()).isEqualTo(FloatArray.of(1f));
+    assertThat(outputs.getAcMonthly()).containsExactly(2f);
+  }
+}
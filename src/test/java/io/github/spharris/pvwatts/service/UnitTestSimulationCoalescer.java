@@ -0,0 +1,130 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestSimulationCoalescer {
+
+  private static final SimulationResultCache.Key KEY =
+      SimulationResultCache.Key.create(
+          "pvwattsv5", 1, "tmy2", "23129.tm2", PvWatts5Request.builder().build());
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private final SimulationCoalescer coalescer = new SimulationCoalescer();
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger runs = new AtomicInteger();
+
+  @Test
+  public void sharesRunningSimulation() throws Exception {
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> run("result"));
+    started.await(5, TimeUnit.SECONDS);
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> run("other"));
+    awaitCoalesced(1);
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    assertThat(runs.get()).isEqualTo(1);
+
+    CoalescingStats stats = coalescer.stats();
+    assertThat(stats.getExecutionCount()).isEqualTo(1L);
+    assertThat(stats.getCoalescedCount()).isEqualTo(1L);
+    assertThat(stats.getInFlightCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void runsAgainOnceFinished() {
+    release.countDown();
+
+    run("first");
+    assertThat(run("second")).isEqualTo("second");
+
+    assertThat(runs.get()).isEqualTo(2);
+    assertThat(coalescer.stats().getCoalescedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void sharesException() throws Exception {
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.run(
+                    KEY,
+                    String.class,
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      throw new IllegalStateException("failed");
+                    }));
+    started.await(5, TimeUnit.SECONDS);
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> run("other"));
+    awaitCoalesced(1);
+    release.countDown();
+
+    assertThat(failure(first)).isInstanceOf(IllegalStateException.class);
+    assertThat(failure(second)).isInstanceOf(IllegalStateException.class);
+    assertThat(runs.get()).isEqualTo(0);
+    assertThat(coalescer.stats().getInFlightCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void leaderSeesOwnException() {
+    thrown.expect(IllegalStateException.class);
+
+    coalescer.run(
+        KEY,
+        String.class,
+        () -> {
+          throw new IllegalStateException();
+        });
+  }
+
+  private String run(String result) {
+    return coalescer.run(
+        KEY,
+        String.class,
+        () -> {
+          runs.incrementAndGet();
+          started.countDown();
+          await(release);
+          return result;
+        });
+  }
+
+  private void awaitCoalesced(long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (coalescer.stats().getCoalescedCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static Throwable failure(CompletableFuture<?> future) throws Exception {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      throw new AssertionError("Expected the simulation to fail");
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.spharris.pvwatts.service;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestSimulationResultCache {
+
+  private static final int MONTHLY_VALUES = 4 * 12;
+  private static final int HOURLY_VALUES = 8 * 8760 + MONTHLY_VALUES;
+
+  private static final PvWatts5Request REQUEST =
+      PvWatts5Request.builder().setSystemCapacity(4f).setTimeframe("monthly").build();
+
+  private static final SimulationResultCache.Key KEY =
+      SimulationResultCache.Key.create("pvwattsv5", 1, "tmy2", "23129.tm2", REQUEST);
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final PvWatts5Response response = PvWatts5Response.builder().setVersion("1").build();
+
+  @Test
+  public void returnsCachedResponse() {
+    SimulationResultCache cache = new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB);
+
+    assertThat(cache.get(KEY, PvWatts5Response.class)).isEqualTo(Optional.empty());
+    cache.put(KEY, response, MONTHLY_VALUES);
+
+    assertThat(cache.get(KEY, PvWatts5Response.class).get()).isSameAs(response);
+    assertThat(cache.stats().missCount()).isEqualTo(1L);
+    assertThat(cache.stats().hitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void keyIncludesWeatherFileAndVersion() {
+    SimulationResultCache cache = new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB);
+    cache.put(KEY, response, MONTHLY_VALUES);
+
+    assertThat(
+            cache.get(
+                SimulationResultCache.Key.create("pvwattsv5", 1, "tmy2", "11641.tm2", REQUEST),
+                PvWatts5Response.class))
+        .isEqualTo(Optional.empty());
+    assertThat(
+            cache.get(
+                SimulationResultCache.Key.create("pvwattsv5", 2, "tmy2", "23129.tm2", REQUEST),
+                PvWatts5Response.class))
+        .isEqualTo(Optional.empty());
+    assertThat(
+            cache.get(
+                SimulationResultCache.Key.create(
+                    "pvwattsv5", 1, "tmy2", "23129.tm2", REQUEST.toBuilder().setTilt(20f).build()),
+                PvWatts5Response.class))
+        .isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void keyChangesWithWeatherFile() throws Exception {
+    File weatherFile = folder.newFile("23129.tm2");
+    Files.write(weatherFile.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+    SimulationResultCache cache = new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB);
+    cache.put(key(weatherFile.getPath(), REQUEST), response, MONTHLY_VALUES);
+
+    Files.write(weatherFile.toPath(), "replaced".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(cache.get(key(weatherFile.getPath(), REQUEST), PvWatts5Response.class))
+        .isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void ignoresResponseOfOtherType() {
+    SimulationResultCache cache = new SimulationResultCache(SimulationResultCache.DEFAULT_SIZE_MB);
+    cache.put(KEY, response, MONTHLY_VALUES);
+
+    assertThat(cache.get(KEY, PvWatts4Response.class)).isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void weighsHourlyResultsMoreThanMonthly() {
+    // An hourly response weighs about 280 KB and a monthly one about 2 KB, so 1 MB holds three
+    // hourly responses but hundreds of monthly ones
+    SimulationResultCache cache = new SimulationResultCache(1);
+    PvWatts5Request hourlyRequest = REQUEST.toBuilder().setTimeframe("hourly").build();
+    for (int i = 0; i < 4; i++) {
+      cache.put(key("station-" + i, hourlyRequest), response, HOURLY_VALUES);
+    }
+
+    assertThat(cache.size()).isEqualTo(3L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(1L);
+    assertThat(cache.get(key("station-0", hourlyRequest), PvWatts5Response.class).isPresent())
+        .isFalse();
+
+    cache.invalidateAll();
+    for (int i = 0; i < 400; i++) {
+      cache.put(key("station-" + i, REQUEST), response, MONTHLY_VALUES);
+    }
+
+    assertThat(cache.size()).isEqualTo(400L);
+    assertThat(cache.stats().evictionCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void disabledWithSizeZero() {
+    SimulationResultCache cache = new SimulationResultCache(0);
+    cache.put(KEY, response, MONTHLY_VALUES);
+
+    assertThat(cache.get(KEY, PvWatts5Response.class)).isEqualTo(Optional.empty());
+    assertThat(cache.size()).isEqualTo(0L);
+  }
+
+  @Test
+  public void treatsNegativeZeroAsZero() {
+    assertThat(SimulationResultCache.canonical(-0f)).isEqualTo(Float.valueOf(0f));
+    assertThat(SimulationResultCache.canonical(1.5f)).isEqualTo(Float.valueOf(1.5f));
+    assertThat(SimulationResultCache.canonical(null)).isNull();
+  }
+
+  private static SimulationResultCache.Key key(String weatherFile, PvWatts5Request request) {
+    return SimulationResultCache.Key.create("pvwattsv5", 1, "tmy2", weatherFile, request);
+  }
+}
@@ -2,16 +2,25 @@ package io.github.spharris.pvwatts.service.weather;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 @RunWith(JUnit4.class)
 public class IntegrationTestLocalDirectoryWeatherSource {
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   private Path basePath;
   private WeatherSource tm2;
 
@@ -45,4 +54,111 @@ public class IntegrationTestLocalDirectoryWeatherSource {
 
     assertThat(result).isEqualTo(expected);
   }
+
+  @Test
+  public void countsLoadedStations() {
+    ReloadStats stats = ((LocalDirectoryWeatherSource) tm2).getReloadStats();
+
+    assertThat(stats.getStationCount()).isEqualTo(2);
+    assertThat(stats.getReloadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void countsFilesThatCantBeSummarized() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    Files.copy(basePath.resolve("23129.tm2"), directory.resolve("23129.tm2"));
+    Files.write(directory.resolve("README.txt"), "Not a weather file".getBytes());
+
+    LocalDirectoryWeatherSource source =
+        new LocalDirectoryWeatherSource(directory, new Tm2FileSummarizer()).initialize();
+
+    assertThat(source.getReloadStats().getStationCount()).isEqualTo(1);
+    assertThat(source.getReloadStats().getFailedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void retriesFailedFilesOnlyOnceChanged() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    Path readme = directory.resolve("README.txt");
+    Files.write(readme, "Not a weather file".getBytes());
+    CountingSummarizer summarizer = new CountingSummarizer();
+
+    new LocalDirectoryWeatherSource(directory, summarizer).initialize();
+    LocalDirectoryWeatherSource unchanged =
+        new LocalDirectoryWeatherSource(directory, summarizer).initialize();
+
+    assertThat(summarizer.calls.get()).isEqualTo(1);
+    assertThat(unchanged.getReloadStats().getFailedCount()).isEqualTo(1);
+
+    Files.write(readme, "Still not a weather file".getBytes());
+    LocalDirectoryWeatherSource changed =
+        new LocalDirectoryWeatherSource(directory, summarizer).initialize();
+
+    assertThat(summarizer.calls.get()).isEqualTo(2);
+    assertThat(changed.getReloadStats().getFailedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void watchPicksUpNewAndDeletedFiles() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    Files.copy(basePath.resolve("23129.tm2"), directory.resolve("23129.tm2"));
+
+    try (LocalDirectoryWeatherSource source =
+        new LocalDirectoryWeatherSource(directory, new Tm2FileSummarizer()).initialize().watch()) {
+      String longBeach = directory.resolve("23129.tm2").toString();
+      String sanJuan = directory.resolve("11641.tm2").toString();
+      assertThat(source.getWeatherFile(0.0f, 0.0f, 0)).isEqualTo(longBeach);
+
+      Files.copy(basePath.resolve("11641.tm2"), directory.resolve("11641.tm2"));
+      assertThat(awaitWeatherFile(source, sanJuan)).isEqualTo(sanJuan);
+
+      Files.delete(directory.resolve("11641.tm2"));
+      assertThat(awaitWeatherFile(source, longBeach)).isEqualTo(longBeach);
+    }
+  }
+
+  @Test
+  public void watchPicksUpFilesAddedBeforeWatching() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    Files.copy(basePath.resolve("23129.tm2"), directory.resolve("23129.tm2"));
+    LocalDirectoryWeatherSource source =
+        new LocalDirectoryWeatherSource(directory, new Tm2FileSummarizer()).initialize();
+
+    Files.copy(basePath.resolve("11641.tm2"), directory.resolve("11641.tm2"));
+    try (LocalDirectoryWeatherSource watched = source.watch()) {
+      String sanJuan = directory.resolve("11641.tm2").toString();
+      assertThat(awaitWeatherFile(watched, sanJuan)).isEqualTo(sanJuan);
+    }
+  }
+
+  /** Polls until the source returns <code>expected</code> for (0, 0), or a timeout elapses. */
+  private static String awaitWeatherFile(WeatherSource source, String expected)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 30_000;
+    String result = source.getWeatherFile(0.0f, 0.0f, 0);
+    while (!Objects.equals(result, expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+      result = source.getWeatherFile(0.0f, 0.0f, 0);
+    }
+
+    return result;
+  }
+
+  /** Counts the headers it is asked to summarize. */
+  private static final class CountingSummarizer implements WeatherSummarizer {
+
+    final AtomicInteger calls = new AtomicInteger();
+    private final Tm2FileSummarizer delegate = new Tm2FileSummarizer();
+
+    @Override
+    public int getHeaderLength() {
+      return delegate.getHeaderLength();
+    }
+
+    @Override
+    public WeatherDataRecord summarizeHeader(ByteBuffer header) throws IOException {
+      calls.incrementAndGet();
+      return delegate.summarizeHeader(header);
+    }
+  }
 }
@@ -0,0 +1,121 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestBackgroundWeatherSource {
+
+  private static final WeatherSource LOADED = (lat, lon, radius) -> "weather/tmy2/23129.tm2";
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void delegatesOnceLoaded() {
+    BackgroundWeatherSource source =
+        new BackgroundWeatherSource("tmy2", () -> LOADED, MoreExecutors.directExecutor());
+
+    assertThat(source.getWeatherFile(33.8f, -118.1f, 100)).isEqualTo("weather/tmy2/23129.tm2");
+    assertThat(source.getStatus().getState()).isEqualTo(WeatherSourceStatus.State.READY);
+  }
+
+  @Test
+  public void doesNotBlockWhileLoading() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    BackgroundWeatherSource source =
+        new BackgroundWeatherSource(
+            "tmy2",
+            () -> {
+              loading.await();
+              return LOADED;
+            },
+            executor);
+
+    assertThat(source.getStatus().getState()).isEqualTo(WeatherSourceStatus.State.LOADING);
+    try {
+      source.getWeatherFile(33.8f, -118.1f, 100);
+      fail();
+    } catch (WeatherSourceUnavailableException e) {
+      assertThat(e.getDataset()).isEqualTo("tmy2");
+      assertThat(e.getMessage()).contains("still loading");
+    }
+
+    loading.countDown();
+    assertThat(source.await(10, TimeUnit.SECONDS)).isSameAs(LOADED);
+    assertThat(source.getStatus().getState()).isEqualTo(WeatherSourceStatus.State.READY);
+  }
+
+  @Test
+  public void reportsFailure() {
+    BackgroundWeatherSource source =
+        new BackgroundWeatherSource(
+            "tmy3",
+            () -> {
+              throw new IOException("weather/tmy3 does not exist");
+            },
+            MoreExecutors.directExecutor());
+
+    WeatherSourceStatus status = source.getStatus();
+    assertThat(status.getState()).isEqualTo(WeatherSourceStatus.State.FAILED);
+    assertThat(status.getError()).isEqualTo("weather/tmy3 does not exist");
+    try {
+      source.getWeatherFile(33.8f, -118.1f, 100);
+      fail();
+    } catch (WeatherSourceUnavailableException e) {
+      assertThat(e.getMessage())
+          .isEqualTo("Weather dataset tmy3 failed to load: weather/tmy3 does not exist");
+    }
+  }
+
+  @Test
+  public void exposesLoadedNearbyStationSource() {
+    NearbyStationSource nearby =
+        new NearbyStationSource() {
+          @Override
+          public String getWeatherFile(Float lat, Float lon, Integer radius) {
+            return "weather/tmy2/23129.tm2";
+          }
+
+          @Override
+          public ImmutableList<NearbyStation> getNearbyStations(
+              float lat, float lon, int limit, int radius) {
+            return ImmutableList.of();
+          }
+        };
+    BackgroundWeatherSource source =
+        new BackgroundWeatherSource("tmy2", () -> nearby, MoreExecutors.directExecutor());
+
+    assertThat(source.getNearbyStationSource().get()).isSameAs(nearby);
+  }
+
+  @Test
+  public void hasNoNearbyStationSourceIfLoadedSourceCantListThem() {
+    BackgroundWeatherSource source =
+        new BackgroundWeatherSource("tmy2", () -> LOADED, MoreExecutors.directExecutor());
+
+    assertThat(source.getNearbyStationSource().isPresent()).isFalse();
+  }
+
+  @Test
+  public void otherSourcesAreAlwaysReady() {
+    assertThat(WeatherSourceStatus.of("tmy2", LOADED).getState())
+        .isEqualTo(WeatherSourceStatus.State.READY);
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestGridWeatherSource {
+
+  private static final String FORMAT = "%.2f_%.2f_tmy.csv";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private GridWeatherSource source;
+
+  @Before
+  public void createGrid() throws Exception {
+    // A 3 x 3 grid with the middle cell missing
+    for (String lat : new String[] {"33.65", "33.69", "33.73"}) {
+      for (String lon : new String[] {"-117.86", "-117.82", "-117.78"}) {
+        if (!(lat.equals("33.69") && lon.equals("-117.82"))) {
+          folder.newFile(lat + "_" + lon + "_tmy.csv");
+        }
+      }
+    }
+    folder.newFile("197774_33.65_-117.86_tmy.csv");
+    folder.newFile("notes.txt");
+
+    source = new GridWeatherSource(folder.getRoot().toPath(), 0.04, 0.04, FORMAT).initialize();
+  }
+
+  @Test
+  public void countsFilesOnGrid() {
+    assertThat(source.size()).isEqualTo(8);
+  }
+
+  @Test
+  public void findsContainingCell() {
+    assertThat(filename(source.getWeatherFile(33.74f, -117.79f, 0)))
+        .isEqualTo("33.73_-117.78_tmy.csv");
+  }
+
+  @Test
+  public void findsNeighbourOfMissingCell() {
+    assertThat(filename(source.getWeatherFile(33.71f, -117.82f, 0)))
+        .isEqualTo("33.73_-117.82_tmy.csv");
+  }
+
+  @Test
+  public void findsNearestCellOutsideGrid() {
+    assertThat(filename(source.getWeatherFile(34f, -117f, 0))).isEqualTo("33.73_-117.78_tmy.csv");
+  }
+
+  @Test
+  public void respectsRadius() {
+    assertThat(source.getWeatherFile(34f, -117f, 10)).isNull();
+    assertThat(source.getWeatherFile(34f, -117f, 100)).isNotNull();
+  }
+
+  @Test
+  public void listsNearbyCellsClosestFirst() {
+    ImmutableList<NearbyStation> stations = source.getNearbyStations(33.69f, -117.82f, 2, 0);
+
+    // Cells are closer together east-west than north-south at this latitude
+    assertThat(stations).hasSize(2);
+    assertThat(ImmutableList.of(stations.get(0).getStation(), stations.get(1).getStation()))
+        .containsExactly("33.69_-117.86_tmy.csv", "33.69_-117.78_tmy.csv");
+    assertThat(source.getNearbyStations(33.69f, -117.82f, 0, 3)).hasSize(4);
+    assertThat(source.getNearbyStations(33.69f, -117.82f, 0, 5)).hasSize(8);
+  }
+
+  @Test
+  public void emptyDirectoryReturnsNull() throws Exception {
+    GridWeatherSource empty =
+        new GridWeatherSource(folder.newFolder().toPath(), 0.04, 0.04, FORMAT).initialize();
+
+    assertThat(empty.getWeatherFile(33.7f, -117.8f, 0)).isNull();
+  }
+
+  private static String filename(String path) {
+    Path file = Paths.get(path);
+    return file.getFileName().toString();
+  }
+}
@@ -0,0 +1,148 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestStationIndex {
+
+  @Test
+  public void emptyIndexReturnsNull() {
+    StationIndex index = StationIndex.build(ImmutableList.of());
+
+    assertThat(index.nearest(0f, 0f)).isNull();
+  }
+
+  @Test
+  public void findsClosestStation() {
+    WeatherDataRecord longBeach = record("23129.tm2", 33.816f, -118.15f);
+    WeatherDataRecord sanJuan = record("11641.tm2", 18.433f, -66f);
+    StationIndex index = StationIndex.build(ImmutableList.of(longBeach, sanJuan));
+
+    assertThat(index.nearest(34f, -118f)).isEqualTo(longBeach);
+    assertThat(index.nearest(0f, 0f)).isEqualTo(sanJuan);
+  }
+
+  @Test
+  public void findsClosestStationAcrossAntimeridian() {
+    WeatherDataRecord east = record("east", 0f, 179.9f);
+    WeatherDataRecord west = record("west", 0f, -170f);
+    StationIndex index = StationIndex.build(ImmutableList.of(west, east));
+
+    assertThat(index.nearest(0f, -179.9f)).isEqualTo(east);
+  }
+
+  @Test
+  public void tiesGoToFirstStation() {
+    WeatherDataRecord first = record("first", 1f, 1f);
+    WeatherDataRecord second = record("second", 1f, 1f);
+    StationIndex index = StationIndex.build(ImmutableList.of(first, second));
+
+    assertThat(index.nearest(1f, 1f).getFilename()).isEqualTo("first");
+  }
+
+  @Test
+  public void matchesLinearScan() {
+    Random random = new Random(0);
+    ImmutableList.Builder<WeatherDataRecord> builder = ImmutableList.builder();
+    for (int i = 0; i < 5000; i++) {
+      // A coarse grid, so there are plenty of exact ties
+      builder.add(record("f" + i, random.nextInt(60) * 0.5f, random.nextInt(60) * 0.5f - 100f));
+    }
+    ImmutableList<WeatherDataRecord> records = builder.build();
+    StationIndex index = StationIndex.build(records);
+
+    for (int i = 0; i < 1000; i++) {
+      float lat = random.nextInt(120) * 0.25f;
+      float lon = random.nextInt(120) * 0.25f - 100f;
+
+      WeatherDataRecord expected =
+          Collections.min(
+              records,
+              (left, right) ->
+                  Double.compare(
+                      Haversine.haversine(left.getLat(), left.getLon(), lat, lon),
+                      Haversine.haversine(right.getLat(), right.getLon(), lat, lon)));
+
+      assertThat(index.nearest(lat, lon)).isSameAs(expected);
+    }
+  }
+
+  @Test
+  public void nearbyReturnsClosestFirst() {
+    StationIndex index =
+        StationIndex.build(
+            ImmutableList.of(
+                record("far", 10f, 10f), record("near", 1f, 1f), record("middle", 5f, 5f)));
+
+    ImmutableList<NearbyStation> stations = index.nearby(0f, 0f, 2, Double.POSITIVE_INFINITY);
+
+    assertThat(stations).hasSize(2);
+    assertThat(stations.get(0).getStation()).isEqualTo("near");
+    assertThat(stations.get(1).getStation()).isEqualTo("middle");
+    assertThat(stations.get(0).getDistance()).isEqualTo(157249);
+  }
+
+  @Test
+  public void nearbyRespectsMaxDistance() {
+    StationIndex index =
+        StationIndex.build(
+            ImmutableList.of(
+                record("far", 10f, 10f), record("near", 1f, 1f), record("middle", 5f, 5f)));
+
+    assertThat(index.nearby(0f, 0f, 0, 1000)).hasSize(2);
+    assertThat(index.nearby(0f, 0f, 0, 100)).isEmpty();
+  }
+
+  @Test
+  public void nearbyMatchesLinearScan() {
+    Random random = new Random(0);
+    ImmutableList.Builder<WeatherDataRecord> builder = ImmutableList.builder();
+    for (int i = 0; i < 5000; i++) {
+      builder.add(record("f" + i, random.nextInt(60) * 0.5f, random.nextInt(60) * 0.5f - 100f));
+    }
+    ImmutableList<WeatherDataRecord> records = builder.build();
+    StationIndex index = StationIndex.build(records);
+
+    for (int i = 0; i < 200; i++) {
+      float lat = random.nextInt(120) * 0.25f;
+      float lon = random.nextInt(120) * 0.25f - 100f;
+      int limit = 1 + random.nextInt(20);
+      double maxKm = random.nextInt(300);
+
+      // Stable sort, so ties stay in index order
+      List<WeatherDataRecord> sorted = new ArrayList<>(records);
+      sorted.sort(
+          (left, right) ->
+              Double.compare(
+                  Haversine.haversine(left.getLat(), left.getLon(), lat, lon),
+                  Haversine.haversine(right.getLat(), right.getLon(), lat, lon)));
+      List<String> expected = new ArrayList<>();
+      for (WeatherDataRecord record : sorted) {
+        if (expected.size() == limit
+            || Haversine.haversine(record.getLat(), record.getLon(), lat, lon) > maxKm) {
+          break;
+        }
+        expected.add(record.getFilename());
+      }
+
+      List<String> actual = new ArrayList<>();
+      for (NearbyStation station : index.nearby(lat, lon, limit, maxKm)) {
+        actual.add(station.getStation());
+      }
+      assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+    }
+  }
+
+  private static WeatherDataRecord record(String filename, float lat, float lon) {
+    return WeatherDataRecord.builder().setFilename(filename).setLat(lat).setLon(lon).build();
+  }
+}
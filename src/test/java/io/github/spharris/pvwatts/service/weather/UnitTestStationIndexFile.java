@@ -0,0 +1,94 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestStationIndexFile {
+
+  private static final StationIndexFile.Entry ENTRY =
+      StationIndexFile.Entry.builder()
+          .setSourceName("23129.tm2")
+          .setSize(1252740L)
+          .setLastModified(1234L)
+          .setRecord(
+              WeatherDataRecord.builder()
+                  .setFilename("23129.tm2")
+                  .setLat(33.816f)
+                  .setLon(-118.15f)
+                  .build())
+          .build();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path indexPath;
+
+  @Before
+  public void createPath() {
+    indexPath = folder.getRoot().toPath().resolve(StationIndexFile.FILE_NAME);
+  }
+
+  @Test
+  public void missingIndexIsEmpty() {
+    assertThat(StationIndexFile.read(indexPath, new Tm2FileSummarizer())).isEmpty();
+  }
+
+  @Test
+  public void roundTrips() {
+    StationIndexFile.write(indexPath, new Tm2FileSummarizer(), ImmutableList.of(ENTRY));
+
+    ImmutableMap<String, StationIndexFile.Entry> result =
+        StationIndexFile.read(indexPath, new Tm2FileSummarizer());
+
+    assertThat(result).containsExactly("23129.tm2", ENTRY);
+  }
+
+  @Test
+  public void roundTripsFailedEntries() {
+    StationIndexFile.Entry failed =
+        StationIndexFile.Entry.builder()
+            .setSourceName("README.txt")
+            .setSize(18L)
+            .setLastModified(5678L)
+            .build();
+    StationIndexFile.write(indexPath, new Tm2FileSummarizer(), ImmutableList.of(ENTRY, failed));
+
+    ImmutableMap<String, StationIndexFile.Entry> result =
+        StationIndexFile.read(indexPath, new Tm2FileSummarizer());
+
+    assertThat(result).containsExactly("23129.tm2", ENTRY, "README.txt", failed);
+    assertThat(result.get("README.txt").isFailed()).isTrue();
+    assertThat(ENTRY.isFailed()).isFalse();
+  }
+
+  @Test
+  public void ignoresIndexForOtherSummarizer() {
+    StationIndexFile.write(indexPath, new Tm2FileSummarizer(), ImmutableList.of(ENTRY));
+
+    assertThat(StationIndexFile.read(indexPath, new Tmy3CsvFileSummarizer())).isEmpty();
+  }
+
+  @Test
+  public void ignoresCorruptIndex() throws Exception {
+    Files.write(indexPath, new byte[] {1, 2, 3});
+
+    assertThat(StationIndexFile.read(indexPath, new Tm2FileSummarizer())).isEmpty();
+  }
+
+  @Test
+  public void matchesSizeAndModificationTime() {
+    assertThat(ENTRY.matches(1252740L, 1234L)).isTrue();
+    assertThat(ENTRY.matches(1252740L, 1235L)).isFalse();
+    assertThat(ENTRY.matches(1L, 1234L)).isFalse();
+  }
+}
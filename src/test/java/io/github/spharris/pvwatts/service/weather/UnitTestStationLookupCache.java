@@ -0,0 +1,76 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestStationLookupCache {
+
+  private static final WeatherDataRecord LONG_BEACH = record("23129.tm2", 33.816f, -118.15f);
+  private static final WeatherDataRecord SAN_JUAN = record("11641.tm2", 18.433f, -66f);
+
+  @Test
+  public void cachesCellsWithOneStation() {
+    StationIndex index = StationIndex.build(ImmutableList.of(LONG_BEACH, SAN_JUAN));
+    StationLookupCache cache = new StationLookupCache();
+
+    assertThat(cache.nearest(index, 34.001f, -118.001f)).isEqualTo(LONG_BEACH);
+    assertThat(cache.nearest(index, 34.002f, -118.002f)).isEqualTo(LONG_BEACH);
+
+    LookupStats stats = cache.stats();
+    assertThat(stats.getMissCount()).isEqualTo(1L);
+    assertThat(stats.getHitCount()).isEqualTo(1L);
+    assertThat(stats.getUnresolvedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void searchesIndexInCellsBetweenStations() {
+    WeatherDataRecord west = record("west", 0f, -0.001f);
+    WeatherDataRecord east = record("east", 0f, 0.001f);
+    StationIndex index = StationIndex.build(ImmutableList.of(west, east));
+    StationLookupCache cache = new StationLookupCache();
+
+    assertThat(cache.nearest(index, 0.001f, -0.0005f)).isEqualTo(west);
+    assertThat(cache.nearest(index, 0.001f, 0.0005f)).isEqualTo(east);
+    assertThat(cache.stats().getUnresolvedCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void ignoresCellsFromOlderIndex() {
+    StationLookupCache cache = new StationLookupCache();
+    cache.nearest(StationIndex.build(ImmutableList.of(SAN_JUAN)), 34f, -118f);
+
+    StationIndex reloaded = StationIndex.build(ImmutableList.of(LONG_BEACH, SAN_JUAN));
+
+    assertThat(cache.nearest(reloaded, 34f, -118f)).isEqualTo(LONG_BEACH);
+  }
+
+  @Test
+  public void matchesIndex() {
+    Random random = new Random(0);
+    ImmutableList.Builder<WeatherDataRecord> builder = ImmutableList.builder();
+    for (int i = 0; i < 2000; i++) {
+      // Crowded enough that many cells lie between stations
+      builder.add(record("f" + i, random.nextFloat() * 0.5f + 40f, random.nextFloat() - 100f));
+    }
+    StationIndex index = StationIndex.build(builder.build());
+    StationLookupCache cache = new StationLookupCache(100);
+
+    for (int i = 0; i < 20000; i++) {
+      float lat = random.nextInt(200) * 0.0025f + 40f;
+      float lon = random.nextInt(400) * 0.0025f - 100f;
+
+      assertThat(cache.nearest(index, lat, lon)).isSameAs(index.nearest(lat, lon));
+    }
+    assertThat(cache.stats().getHitCount()).isGreaterThan(0L);
+  }
+
+  private static WeatherDataRecord record(String filename, float lat, float lon) {
+    return WeatherDataRecord.builder().setFilename(filename).setLat(lat).setLon(lon).build();
+  }
+}
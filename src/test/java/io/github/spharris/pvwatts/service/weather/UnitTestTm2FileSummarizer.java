@@ -4,6 +4,8 @@ import static com.google.common.truth.Truth.assertThat;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -29,4 +31,23 @@ public class UnitTestTm2FileSummarizer {
 
     assertThat(result).isEqualTo(expected);
   }
+
+  @Test
+  public void readsHeaderFromBuffer() throws Exception {
+    ByteBuffer header =
+        ByteBuffer.wrap(
+            " 23129 LONG_BEACH             CA  -8 N 33 49 W 118  9    17\n  1  1  1"
+                .getBytes(StandardCharsets.US_ASCII));
+
+    WeatherDataRecord result = summarizer.summarizeHeader(header);
+
+    assertThat(result.getFilename()).isEqualTo("23129.tm2");
+    assertThat(result.getLat()).isEqualTo(33f + 49f / 60f);
+    assertThat(result.getLon()).isEqualTo(-(118f + 9f / 60f));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rejectsTruncatedHeader() throws Exception {
+    summarizer.summarizeHeader(ByteBuffer.wrap(" 23129 LONG_BEACH".getBytes()));
+  }
 }
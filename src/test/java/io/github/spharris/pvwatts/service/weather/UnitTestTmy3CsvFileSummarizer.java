@@ -2,8 +2,11 @@ package io.github.spharris.pvwatts.service.weather;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 
 public class UnitTestTmy3CsvFileSummarizer {
@@ -26,4 +29,24 @@ public class UnitTestTmy3CsvFileSummarizer {
 
     assertThat(result).isEqualTo(expected);
   }
+
+  @Test
+  public void readsOnlyFirstLineOfHeader() throws Exception {
+    ByteBuffer header =
+        ByteBuffer.wrap(
+            ("690150,\"TWENTYNINE PALMS, \"\"CA\"\"\",CA,-8.0,34.300,-116.167,626\r\n"
+                    + "Date (MM/DD/YYYY),Time (HH:MM),ETR (W/m^2)\n")
+                .getBytes(StandardCharsets.US_ASCII));
+
+    WeatherDataRecord result = summarizer.summarizeHeader(header);
+
+    assertThat(result.getFilename()).isEqualTo("690150TYA.csv");
+    assertThat(result.getLon()).isEqualTo(-116.167f);
+    assertThat(header.position()).isEqualTo(0);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsShortHeader() throws Exception {
+    summarizer.summarizeHeader(ByteBuffer.wrap("690150,TWENTYNINE PALMS\n".getBytes()));
+  }
 }
@@ -0,0 +1,123 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Floats;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestWeatherArchive {
+
+  private static final WeatherData LONG_BEACH =
+      WeatherData.builder()
+          .setLocation("23129")
+          .setCity("LONG_BEACH")
+          .setState("CA")
+          .setLat(33.816f)
+          .setLon(-118.15f)
+          .setTz(-8f)
+          .setElev(17f)
+          .setColumns(
+              ImmutableMap.of(
+                  "gh", new float[] {0f, 474f, 12.5f}, "tdry", new float[] {16.7f, 17f, 15f}))
+          .build();
+
+  private static final WeatherData SAN_JUAN =
+      WeatherData.builder()
+          .setLocation("11641")
+          .setCity("SAN_JUAN")
+          .setState("PR")
+          .setLat(18.433f)
+          .setLon(-66f)
+          .setTz(-4f)
+          .setElev(19f)
+          .setColumns(ImmutableMap.of("gh", new float[] {1f, 2f}))
+          .build();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path archivePath;
+
+  @Before
+  public void writeArchive() throws Exception {
+    archivePath = folder.getRoot().toPath().resolve("weather.pvwa");
+    try (WeatherArchiveWriter writer = WeatherArchiveWriter.create(archivePath)) {
+      writer.add(LONG_BEACH).add(SAN_JUAN).commit();
+    }
+  }
+
+  @Test
+  public void roundTripsStations() throws Exception {
+    WeatherArchive archive = WeatherArchive.open(archivePath);
+
+    assertThat(archive.size()).isEqualTo(2);
+    WeatherData result = archive.getStation("23129").get().toWeatherData();
+    assertThat(result.getCity()).isEqualTo("LONG_BEACH");
+    assertThat(result.getLat()).isEqualTo(33.816f);
+    assertThat(result.getColumns().keySet()).containsExactly("gh", "tdry").inOrder();
+    assertThat(Floats.asList(result.getColumns().get("tdry")))
+        .containsExactly(16.7f, 17f, 15f)
+        .inOrder();
+    WeatherData other = archive.getStation("11641").get().toWeatherData();
+    assertThat(Floats.asList(other.getColumns().get("gh"))).containsExactly(1f, 2f).inOrder();
+  }
+
+  @Test
+  public void returnsColumnsAsViews() throws Exception {
+    WeatherArchive.Station station = WeatherArchive.open(archivePath).getStation("23129").get();
+
+    FloatBuffer column = station.getColumn("gh").get();
+
+    assertThat(column.isReadOnly()).isTrue();
+    assertThat(column.remaining()).isEqualTo(3);
+    assertThat(column.get(1)).isEqualTo(474f);
+    assertThat(station.getColumn("snow").isPresent()).isFalse();
+  }
+
+  @Test
+  public void headerHasNoColumns() throws Exception {
+    WeatherArchive.Station station = WeatherArchive.open(archivePath).getStation("23129").get();
+
+    WeatherData header = station.toWeatherHeader();
+
+    assertThat(header.getLocation()).isEqualTo("23129");
+    assertThat(header.getElev()).isEqualTo(17f);
+    assertThat(header.getColumns()).isEmpty();
+  }
+
+  @Test
+  public void leavesNoTemporaryFiles() throws Exception {
+    assertThat(folder.getRoot().list()).asList().containsExactly("weather.pvwa");
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws Exception {
+    Path other = folder.newFile("23129.tm2").toPath();
+    Files.write(other, " 23129 LONG_BEACH CA -8 N 33 49 W 118  9    17".getBytes());
+
+    WeatherArchive.open(other);
+  }
+
+  @Test
+  public void sourceFindsNearestStation() {
+    ArchiveWeatherSource source = new ArchiveWeatherSource(archivePath).initialize();
+
+    String weatherFile = source.getWeatherFile(33.8f, -118.1f, 100);
+
+    assertThat(weatherFile).isEqualTo(archivePath + "#23129");
+    assertThat(source.getWeatherData(weatherFile).get().getState()).isEqualTo("CA");
+    assertThat(source.getStation(weatherFile).get().getId()).isEqualTo("23129");
+    assertThat(source.getStation("23129").isPresent()).isFalse();
+    assertThat(source.getWeatherFile(0f, 0f, 10)).isNull();
+  }
+}
@@ -0,0 +1,83 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestWeatherDataCache {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void copyWeatherFiles() throws Exception {
+    Path longBeach =
+        Paths.get(getClass().getClassLoader().getResource("weather/tmy2/23129.tm2").toURI());
+    directory = folder.getRoot().toPath();
+    for (int i = 0; i < 4; i++) {
+      Files.copy(longBeach, directory.resolve(i + ".tm2"));
+    }
+  }
+
+  @Test
+  public void disabledCacheReturnsNothing() {
+    WeatherDataCache cache = new WeatherDataCache(0);
+
+    assertThat(cache.get(weatherFile(0)).isPresent()).isFalse();
+  }
+
+  @Test
+  public void holdsFilesUpToTheWholeLimit() {
+    // Each parsed file weighs 525,600 bytes, so three fill 2 MB to within a quarter
+    WeatherDataCache cache = new WeatherDataCache(2);
+
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < 3; i++) {
+        assertThat(cache.get(weatherFile(i)).isPresent()).isTrue();
+      }
+    }
+
+    assertThat(cache.stats().loadCount()).isEqualTo(3);
+    assertThat(cache.stats().hitCount()).isEqualTo(3);
+    assertThat(cache.stats().evictionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void evictsOnceTheLimitIsPassed() {
+    WeatherDataCache cache = new WeatherDataCache(2);
+
+    for (int i = 0; i < 4; i++) {
+      cache.get(weatherFile(i));
+    }
+
+    assertThat(cache.stats().evictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void reloadsModifiedFiles() throws Exception {
+    WeatherDataCache cache = new WeatherDataCache(2);
+    cache.get(weatherFile(0));
+
+    Path file = directory.resolve("0.tm2");
+    Files.setLastModifiedTime(
+        file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    cache.get(weatherFile(0));
+
+    assertThat(cache.stats().loadCount()).isEqualTo(2);
+  }
+
+  private String weatherFile(int i) {
+    return directory.resolve(i + ".tm2").toString();
+  }
+}
@@ -0,0 +1,72 @@
+package io.github.spharris.pvwatts.service.weather;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestWeatherFileParser {
+
+  private static final int ROW = 12;
+
+  @Test
+  public void parsesTm2File() throws Exception {
+    WeatherData data = WeatherFileParser.parse(resource("weather/tmy2/23129.tm2")).get();
+
+    assertThat(data.getLocation()).isEqualTo("23129");
+    assertThat(data.getCity()).isEqualTo("LONG_BEACH");
+    assertThat(data.getState()).isEqualTo("CA");
+    assertThat(data.getTz()).isEqualTo(-8f);
+    assertThat(data.getLat()).isWithin(1e-4f).of(33f + 49f / 60f);
+    assertThat(data.getLon()).isWithin(1e-4f).of(-(118f + 9f / 60f));
+    assertThat(data.getElev()).isEqualTo(17f);
+
+    assertThat(data.getColumns().get("gh")).hasLength(8760);
+    assertThat(data.getColumns().get("year")[ROW]).isEqualTo(1967f);
+    assertThat(data.getColumns().get("hour")[ROW]).isEqualTo(12f);
+    assertThat(data.getColumns().get("minute")[ROW]).isEqualTo(30f);
+    assertThat(data.getColumns().get("gh")[ROW]).isEqualTo(474f);
+    assertThat(data.getColumns().get("dn")[ROW]).isEqualTo(648f);
+    assertThat(data.getColumns().get("df")[ROW]).isEqualTo(125f);
+    assertThat(data.getColumns().get("tdry")[ROW]).isWithin(1e-4f).of(16.7f);
+    assertThat(data.getColumns().get("tdew")[ROW]).isWithin(1e-4f).of(6.7f);
+    assertThat(data.getColumns().get("pres")[ROW]).isEqualTo(1019f);
+    assertThat(data.getColumns().get("wspd")[ROW]).isWithin(1e-4f).of(1.5f);
+    assertThat(data.getColumns()).containsKey("snow");
+  }
+
+  @Test
+  public void parsesTmy3File() throws Exception {
+    WeatherData data = WeatherFileParser.parse(resource("weather/722977TYA.CSV")).get();
+
+    assertThat(data.getLocation()).isEqualTo("722977");
+    assertThat(data.getCity()).isEqualTo("SANTA ANA JOHN WAYNE AP");
+    assertThat(data.getLat()).isEqualTo(33.683f);
+    assertThat(data.getLon()).isEqualTo(-117.867f);
+
+    assertThat(data.getColumns().get("gh")).hasLength(8760);
+    assertThat(data.getColumns().get("year")[ROW]).isEqualTo(2003f);
+    assertThat(data.getColumns().get("hour")[ROW]).isEqualTo(12f);
+    assertThat(data.getColumns().get("gh")[ROW]).isEqualTo(538f);
+    assertThat(data.getColumns().get("dn")[ROW]).isEqualTo(753f);
+    assertThat(data.getColumns().get("tdry")[ROW]).isEqualTo(15.5f);
+    assertThat(data.getColumns().get("wspd")[ROW]).isEqualTo(3.1f);
+    assertThat(data.getColumns().get("alb")[ROW]).isEqualTo(0.16f);
+  }
+
+  @Test
+  public void skipsUnknownFormats() throws Exception {
+    Optional<WeatherData> data = WeatherFileParser.parse(Paths.get("weather.epw"));
+
+    assertThat(data.isPresent()).isFalse();
+  }
+
+  private Path resource(String name) throws Exception {
+    return Paths.get(getClass().getClassLoader().getResource(name).toURI());
+  }
+}
@@ -0,0 +1,57 @@
+package io.github.spharris.pvwatts.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.github.spharris.ssc.utils.FloatArray;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestFloatArraySerializer {
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void emptyArrayIsEmpty() throws Exception {
+    TestClass data = new TestClass();
+    data.setData(FloatArray.of());
+    String expected = "{\"data\":[]}";
+
+    assertThat(mapper.writeValueAsString(data)).isEqualTo(expected);
+  }
+
+  @Test
+  public void writesFloats() throws Exception {
+    TestClass data = new TestClass();
+    data.setData(FloatArray.of(1f, 0.1f, -2.5f));
+    String expected = "{\"data\":[1.0,0.1,-2.5]}";
+
+    assertThat(mapper.writeValueAsString(data)).isEqualTo(expected);
+  }
+
+  @Test
+  public void readsFloats() throws Exception {
+    TestClass data = mapper.readValue("{\"data\":[1,0.1,-2.5]}", TestClass.class);
+
+    assertThat(data.getData()).isEqualTo(FloatArray.of(1f, 0.1f, -2.5f));
+  }
+
+  static class TestClass {
+
+    FloatArray data;
+
+    @JsonDeserialize(using = FloatArrayDeserializer.class)
+    public void setData(FloatArray data) {
+      this.data = data;
+    }
+
+    @JsonSerialize(using = FloatArraySerializer.class)
+    public FloatArray getData() {
+      return data;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package io.github.spharris.ssc;
+
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Compares the cost of running pvwattsv5 with an {@link ExecutionHandler}, which needs a native
+ * callback and a call into Java for every message and progress update, against {@link
+ * SscModule#executeAndGetLog}, which reads the messages back once the run has finished. The
+ * weather is synthetic, so only the relative times mean anything.
+ *
+ * <p>The <tt>pooled</tt> and <tt>timed</tt> runs measure what the services do with and without a
+ * simulation timeout: borrow a module, copy the inputs into a fresh container and run without a
+ * handler, either on the calling thread or through {@link SimulationRunner#runAsync} on another
+ * one. <tt>timed handler</tt> runs the same way, but with a handler wrapped by the deadline. Run
+ * with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.github.spharris.ssc.ExecutionBenchmark
+ * </pre>
+ */
+public final class ExecutionBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 200;
+  private static final int ITERATIONS = 2_000;
+
+  private static final int HOURS = 8760;
+
+  private static final long TIMEOUT_SECONDS = 60;
+
+  private ExecutionBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    Ssc api = SscBinding.DIRECT.load();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SscModule module = new SscModule("pvwattsv5", api);
+        SscModulePool pool = new SscModulePool(name -> new SscModule(name, api));
+        DataContainer weather = new DataContainer(api);
+        DataContainer data = new DataContainer(api)) {
+      setWeather(weather);
+      setInputs(data, weather);
+
+      measure("handler", () -> runWithHandler(module, data, null));
+      measure("log", () -> runWithLog(module, data));
+
+      SimulationRunner runner = new SimulationRunner(pool, () -> new DataContainer(api));
+      measure(
+          "pooled",
+          () ->
+              runner.run(
+                  "pvwattsv5",
+                  (pooled, fresh) -> {
+                    setInputs(fresh, weather);
+                    return runWithLog(pooled, fresh);
+                  }));
+      measure(
+          "timed",
+          () ->
+              runTimed(
+                  runner,
+                  executor,
+                  (pooled, fresh, deadline) -> {
+                    setInputs(fresh, weather);
+                    return runWithLog(pooled, fresh);
+                  }));
+      measure(
+          "timed handler",
+          () ->
+              runTimed(
+                  runner,
+                  executor,
+                  (pooled, fresh, deadline) -> {
+                    setInputs(fresh, weather);
+                    return runWithHandler(pooled, fresh, deadline);
+                  }));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private interface Run {
+    ImmutableList<String> run() throws Exception;
+  }
+
+  private static ImmutableList<String> runWithHandler(
+      SscModule module, DataContainer data, @Nullable Deadline deadline) {
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    ImmutableList.Builder<String> warnings = ImmutableList.builder();
+    ExecutionHandler handler = ExecutionHandlers.messageLoggingHandler(errors, warnings);
+    if (deadline == null) {
+      module.execute(data, handler);
+    } else {
+      module.execute(data, handler, deadline);
+    }
+    return errors.addAll(warnings.build()).build();
+  }
+
+  private static ImmutableList<String> runWithLog(SscModule module, DataContainer data) {
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    ImmutableList.Builder<String> warnings = ImmutableList.builder();
+    ExecutionHandlers.replay(
+        module.executeAndGetLog(data), ExecutionHandlers.messageLoggingHandler(errors, warnings));
+    return errors.addAll(warnings.build()).build();
+  }
+
+  private static ImmutableList<String> runTimed(
+      SimulationRunner runner, Executor executor, SimulationTask<ImmutableList<String>> task)
+      throws Exception {
+    return runner.runAsync("pvwattsv5", TIMEOUT_SECONDS, TimeUnit.SECONDS, task, executor).get();
+  }
+
+  private static void measure(String name, Run run) throws Exception {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      run.run();
+    }
+
+    ImmutableList<String> messages = ImmutableList.of();
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      messages = run.run();
+    }
+    long elapsed = System.nanoTime() - start;
+
+    System.out.println(
+        String.format(
+            "%-14s %10.1f us/run (%d ms total, %d messages per run)",
+            name,
+            (double) TimeUnit.NANOSECONDS.toMicros(elapsed) / ITERATIONS,
+            TimeUnit.NANOSECONDS.toMillis(elapsed),
+            messages.size()));
+  }
+
+  /** A flat, clear-sky-ish year of weather at 40N, 105W. */
+  private static void setWeather(DataContainer weather) {
+    float[] year = new float[HOURS];
+    float[] month = new float[HOURS];
+    float[] day = new float[HOURS];
+    float[] hour = new float[HOURS];
+    float[] dn = new float[HOURS];
+    float[] df = new float[HOURS];
+    float[] tdry = new float[HOURS];
+    float[] wspd = new float[HOURS];
+    int[] daysPerMonth = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    int i = 0;
+    for (int m = 0; m < 12; m++) {
+      for (int d = 0; d < daysPerMonth[m]; d++) {
+        for (int h = 0; h < 24; h++, i++) {
+          double sun = Math.max(0, Math.sin(Math.PI * (h - 6) / 12));
+          year[i] = 2015;
+          month[i] = m + 1;
+          day[i] = d + 1;
+          hour[i] = h;
+          dn[i] = (float) (800 * sun);
+          df[i] = (float) (100 * sun);
+          tdry[i] = 15;
+          wspd[i] = 2;
+        }
+      }
+    }
+
+    weather.setNumber("lat", 40f);
+    weather.setNumber("lon", -105f);
+    weather.setNumber("tz", -7f);
+    weather.setNumber("elev", 1600f);
+    weather.setArray("year", year);
+    weather.setArray("month", month);
+    weather.setArray("day", day);
+    weather.setArray("hour", hour);
+    weather.setArray("dn", dn);
+    weather.setArray("df", df);
+    weather.setArray("tdry", tdry);
+    weather.setArray("wspd", wspd);
+  }
+
+  private static void setInputs(DataContainer data, DataContainer weather) {
+    data.setTable("solar_resource_data", weather);
+    data.setNumber("system_capacity", 4f);
+    data.setNumber("module_type", 0);
+    data.setNumber("dc_ac_ratio", 1.1f);
+    data.setNumber("inv_eff", 96f);
+    data.setNumber("losses", 14f);
+    data.setNumber("array_type", 0);
+    data.setNumber("tilt", 20f);
+    data.setNumber("azimuth", 180f);
+    data.setNumber("gcr", 0.4f);
+    data.setNumber("adjust:constant", 0f);
+  }
+}
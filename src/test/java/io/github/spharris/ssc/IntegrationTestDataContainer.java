@@ -3,11 +3,17 @@ package io.github.spharris.ssc;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.inject.Guice;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Optional;
+import java.util.OptionalInt;
 import javax.inject.Inject;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -16,6 +22,8 @@ public class IntegrationTestDataContainer {
 
   static final float EPSILON = 0f;
 
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
   @Inject DataContainer data;
 
   @Before
@@ -52,6 +60,56 @@ public class IntegrationTestDataContainer {
     assertThat(result.get()).hasValuesWithin(EPSILON).of(values);
   }
 
+  @Test
+  public void getArrayInto() {
+    String field = "field";
+    float[] values = {1, 2, 3};
+
+    data.setArray(field, values);
+    float[] dest = new float[5];
+    OptionalInt length = data.getArrayInto(field, dest);
+
+    assertThat(length.isPresent()).isTrue();
+    assertThat(length.getAsInt()).isEqualTo(3);
+    assertThat(dest).hasValuesWithin(EPSILON).of(new float[] {1, 2, 3, 0, 0});
+  }
+
+  @Test
+  public void getArrayIntoNonExistent() {
+    OptionalInt length = data.getArrayInto("field", new float[1]);
+
+    assertThat(length.isPresent()).isFalse();
+  }
+
+  @Test
+  public void getArrayIntoTooSmall() {
+    String field = "field";
+    data.setArray(field, new float[] {1, 2, 3});
+
+    thrown.expect(IllegalArgumentException.class);
+
+    data.getArrayInto(field, new float[2]);
+  }
+
+  @Test
+  public void getArrayIntoBuffer() {
+    String field = "field";
+    float[] values = {1, 2, 3};
+
+    data.setArray(field, values);
+    FloatBuffer dest =
+        ByteBuffer.allocateDirect(5 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    dest.put(0f);
+    OptionalInt length = data.getArrayInto(field, dest);
+
+    assertThat(length.getAsInt()).isEqualTo(3);
+    assertThat(dest.position()).isEqualTo(4);
+    float[] result = new float[4];
+    dest.flip();
+    dest.get(result);
+    assertThat(result).hasValuesWithin(EPSILON).of(new float[] {0, 1, 2, 3});
+  }
+
   @Test
   public void callsGetMatrixProperly() {
     String field = "field";
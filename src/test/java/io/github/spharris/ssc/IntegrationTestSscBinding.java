@@ -0,0 +1,63 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.FloatByReference;
+import com.sun.jna.ptr.IntByReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntegrationTestSscBinding {
+
+  @Test
+  public void directBindingMatchesProxy() {
+    Ssc direct = SscBinding.DIRECT.load();
+    Ssc proxy = SscBinding.PROXY.load();
+
+    assertThat(direct).isInstanceOf(DirectSsc.class);
+    assertThat(direct.ssc_version()).isEqualTo(proxy.ssc_version());
+    assertThat(direct.ssc_build_info()).isEqualTo(proxy.ssc_build_info());
+    assertThat(direct.ssc_entry_name(direct.ssc_module_entry(0)))
+        .isEqualTo(proxy.ssc_entry_name(proxy.ssc_module_entry(0)));
+  }
+
+  @Test
+  public void directBindingPassesArguments() {
+    Ssc direct = SscBinding.DIRECT.load();
+    Pointer data = direct.ssc_data_create();
+    try {
+      direct.ssc_data_set_number(data, "number", 0.5f);
+      direct.ssc_data_set_array(data, "array", new float[] {1f, 2f, 3f}, 3);
+
+      FloatByReference number = new FloatByReference();
+      assertThat(direct.ssc_data_get_number(data, "number", number)).isTrue();
+      assertThat(number.getValue()).isEqualTo(0.5f);
+
+      IntByReference length = new IntByReference();
+      Pointer array = direct.ssc_data_get_array(data, "array", length);
+      assertThat(length.getValue()).isEqualTo(3);
+      assertThat(array.getFloat(8)).isEqualTo(3f);
+    } finally {
+      direct.ssc_data_free(data);
+    }
+  }
+
+  @Test
+  public void directBindingRunsHandlers() {
+    SscModule module = new SscModule("pvwattsv5", SscBinding.DIRECT.load());
+    DataContainer data = new DataContainer(SscBinding.DIRECT.load());
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    ImmutableList.Builder<String> warnings = ImmutableList.builder();
+
+    // Missing inputs, so SSC reports errors through the handler
+    module.execute(data, ExecutionHandlers.messageLoggingHandler(errors, warnings));
+
+    assertThat(errors.build()).isNotEmpty();
+    data.close();
+    module.close();
+  }
+}
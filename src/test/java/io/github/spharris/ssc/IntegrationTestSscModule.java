@@ -2,6 +2,7 @@ package io.github.spharris.ssc;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import java.util.List;
@@ -127,6 +128,22 @@ public class IntegrationTestSscModule {
     m.close();
   }
 
+  @Test
+  public void logMatchesHandler() {
+    // Missing every input, so SSC logs errors
+    SscModule m = moduleFactory.create("pvsamv1");
+
+    ImmutableList.Builder<LogMessage> handled = ImmutableList.builder();
+    m.execute(data, ExecutionHandlers.messageCollectingHandler(handled));
+    ImmutableList<LogMessage> expected = handled.build();
+
+    assertThat(expected).isNotEmpty();
+    assertThat(m.getLog()).isEqualTo(expected);
+    assertThat(m.executeAndGetLog(data)).isEqualTo(expected);
+
+    m.close();
+  }
+
   private static void populateModuleWithSimData(DataContainer data) throws Exception {
     data.setString("solar_resource_file", "target/test-classes/weather/tmy2/23129.tm2");
     data.setArray(
@@ -0,0 +1,83 @@
+package io.github.spharris.ssc;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.FloatByReference;
+import com.sun.jna.ptr.IntByReference;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-call cost of each {@link SscBinding} for the kinds of calls a simulation makes:
+ * setting and reading numbers, reading an output array and reading module metadata. Run with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.github.spharris.ssc.SscBindingBenchmark
+ * </pre>
+ */
+public final class SscBindingBenchmark {
+
+  private static final int WARMUP_ITERATIONS = 100_000;
+  private static final int ITERATIONS = 1_000_000;
+
+  private SscBindingBenchmark() {}
+
+  public static void main(String[] args) {
+    for (SscBinding binding : SscBinding.values()) {
+      Ssc api = binding.load();
+      Pointer data = api.ssc_data_create();
+      Pointer module = api.ssc_module_create("pvwattsv5");
+      api.ssc_data_set_array(data, "array", new float[12], 12);
+
+      try {
+        measure(binding, "ssc_data_set_number", api, data, module, SscBindingBenchmark::setNumber);
+        measure(binding, "ssc_data_get_number", api, data, module, SscBindingBenchmark::getNumber);
+        measure(binding, "ssc_data_get_array", api, data, module, SscBindingBenchmark::getArray);
+        measure(binding, "ssc_info_name", api, data, module, SscBindingBenchmark::infoName);
+      } finally {
+        api.ssc_module_free(module);
+        api.ssc_data_free(data);
+      }
+    }
+  }
+
+  private interface Call {
+    void run(Ssc api, Pointer data, Pointer module, int iteration);
+  }
+
+  private static void setNumber(Ssc api, Pointer data, Pointer module, int iteration) {
+    api.ssc_data_set_number(data, "number", iteration);
+  }
+
+  private static void getNumber(Ssc api, Pointer data, Pointer module, int iteration) {
+    api.ssc_data_get_number(data, "number", new FloatByReference());
+  }
+
+  private static void getArray(Ssc api, Pointer data, Pointer module, int iteration) {
+    api.ssc_data_get_array(data, "array", new IntByReference());
+  }
+
+  private static void infoName(Ssc api, Pointer data, Pointer module, int iteration) {
+    api.ssc_info_name(api.ssc_module_var_info(module, 0));
+  }
+
+  private static void measure(
+      SscBinding binding, String name, Ssc api, Pointer data, Pointer module, Call call) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      call.run(api, data, module, i);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      call.run(api, data, module, i);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    System.out.println(
+        String.format(
+            "%-6s %-20s %8.1f ns/call (%d ms total)",
+            binding,
+            name,
+            (double) elapsed / ITERATIONS,
+            TimeUnit.NANOSECONDS.toMillis(elapsed)));
+  }
+}
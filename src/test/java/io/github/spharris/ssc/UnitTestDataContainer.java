@@ -3,6 +3,7 @@ package io.github.spharris.ssc;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -10,6 +11,9 @@ import static org.mockito.Mockito.when;
 
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.FloatByReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Optional;
 import org.junit.Before;
 import org.junit.Rule;
@@ -43,6 +47,20 @@ public class UnitTestDataContainer {
     verify(mockApi).ssc_data_set_number(any(Pointer.class), eq(varName), eq(value));
   }
 
+  @Test
+  public void unassign() {
+    data.unassign("var");
+
+    verify(mockApi).ssc_data_unassign(any(Pointer.class), eq("var"));
+  }
+
+  @Test
+  public void clear() {
+    data.clear();
+
+    verify(mockApi).ssc_data_clear(any(Pointer.class));
+  }
+
   @Test
   public void getNonExistentNumber() {
     when(mockApi.ssc_data_get_number(
@@ -151,4 +169,60 @@ public class UnitTestDataContainer {
     verify(mockApi)
         .ssc_data_set_matrix(any(Pointer.class), eq(varName), eq(expected), eq(3), eq(2));
   }
+
+  @Test
+  public void callsSetMatrixProperlyFromInts() {
+    int[][] value = {{1, 2, 3}, {4, 5, 6}};
+
+    String varName = "adsf";
+    data.setMatrix(varName, value);
+
+    float[] expected = {1, 2, 3, 4, 5, 6};
+    verify(mockApi)
+        .ssc_data_set_matrix(any(Pointer.class), eq(varName), eq(expected), eq(2), eq(3));
+  }
+
+  @Test
+  public void callsSetMatrixProperlyFromRowMajor() {
+    float[] value = {1, 2, 3, 4, 5, 6};
+
+    String varName = "adsf";
+    data.setMatrix(varName, value, 3, 2);
+
+    verify(mockApi)
+        .ssc_data_set_matrix(any(Pointer.class), eq(varName), same(value), eq(3), eq(2));
+  }
+
+  @Test
+  public void rowMajorMtxSizeMustMatch() {
+    thrown.expect(IllegalArgumentException.class);
+
+    data.setMatrix("asdf", new float[5], 2, 3);
+  }
+
+  @Test
+  public void setArrayPassesDirectBuffer() {
+    FloatBuffer value =
+        ByteBuffer.allocateDirect(4 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    value.position(1);
+
+    String varName = "adsf";
+    data.setArray(varName, value);
+
+    verify(mockApi)
+        .ssc_data_set_array(any(Pointer.class), eq(varName), any(FloatBuffer.class), eq(3));
+    assertThat(value.position()).isEqualTo(1);
+  }
+
+  @Test
+  public void setArrayCopiesHeapBuffer() {
+    FloatBuffer value = FloatBuffer.wrap(new float[] {1, 2, 3});
+    value.position(1);
+
+    String varName = "adsf";
+    data.setArray(varName, value);
+
+    float[] expected = {2, 3};
+    verify(mockApi).ssc_data_set_array(any(Pointer.class), eq(varName), eq(expected), eq(2));
+  }
 }
@@ -0,0 +1,107 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sun.jna.Pointer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UnitTestDataContainerPool {
+
+  @Mock private Ssc mockApi;
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private final Pointer first = mock(Pointer.class);
+  private final Pointer second = mock(Pointer.class);
+
+  private DataContainerPool pool;
+
+  @Before
+  public void createPool() {
+    when(mockApi.ssc_data_create()).thenReturn(first, second);
+    pool = new DataContainerPool(mockApi, 1);
+  }
+
+  @Test
+  public void reusesClearedTable() {
+    pool.get().close();
+    DataContainer data = pool.get();
+
+    assertThat(data.getPointer()).isSameAs(first);
+    verify(mockApi).ssc_data_clear(first);
+    verify(mockApi, times(1)).ssc_data_create();
+    verify(mockApi, never()).ssc_data_free(any(Pointer.class));
+  }
+
+  @Test
+  public void closedContainerCannotBeUsed() {
+    DataContainer data = pool.get();
+    data.close();
+    pool.get();
+
+    thrown.expect(IllegalStateException.class);
+
+    data.setNumber("var", 0f);
+  }
+
+  @Test
+  public void multipleCloseCallsOnlyReturnOnce() {
+    DataContainer data = pool.get();
+    data.close();
+    data.close();
+
+    verify(mockApi, times(1)).ssc_data_clear(any(Pointer.class));
+    assertThat(pool.getStats().getIdle()).isEqualTo(1);
+  }
+
+  @Test
+  public void freesTablesBeyondMaxIdle() {
+    DataContainer a = pool.get();
+    DataContainer b = pool.get();
+    a.close();
+    b.close();
+
+    verify(mockApi, never()).ssc_data_free(first);
+    verify(mockApi).ssc_data_free(second);
+    DataContainerPoolStats stats = pool.getStats();
+    assertThat(stats.getIdle()).isEqualTo(1);
+    assertThat(stats.getCreatedCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void tracksContainersInUse() {
+    DataContainer data = pool.get();
+
+    assertThat(pool.getStats().getInUse()).isEqualTo(1);
+    data.close();
+    assertThat(pool.getStats().getInUse()).isEqualTo(0);
+  }
+
+  @Test
+  public void closeFreesIdleTables() {
+    DataContainer open = pool.get();
+    pool.get().close();
+
+    pool.close();
+    verify(mockApi).ssc_data_free(second);
+    open.close();
+    verify(mockApi).ssc_data_free(first);
+
+    thrown.expect(IllegalStateException.class);
+
+    pool.get();
+  }
+}
@@ -0,0 +1,179 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sun.jna.Pointer;
+import io.github.spharris.ssc.ParallelSimulationRunner.RejectionPolicy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UnitTestParallelSimulationRunner {
+
+  private static final String MODULE_NAME = "test module";
+
+  @Mock private Ssc mockApi;
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private final AtomicInteger modulesCreated = new AtomicInteger();
+
+  @Before
+  public void createModules() {
+    Pointer fakePointer = mock(Pointer.class);
+    when(mockApi.ssc_module_create(anyString())).thenReturn(fakePointer);
+    when(mockApi.ssc_module_entry(0)).thenReturn(fakePointer);
+    when(mockApi.ssc_entry_name(any(Pointer.class))).thenReturn(MODULE_NAME);
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+  }
+
+  @Test
+  public void runsOnWorkerThread() throws Exception {
+    try (ParallelSimulationRunner runner = createRunner(1, 10, RejectionPolicy.ABORT)) {
+      String thread = runner.submit(MODULE_NAME, (module, data) -> currentThread()).get();
+
+      assertThat(thread).startsWith("ssc-worker-");
+    }
+  }
+
+  @Test
+  public void workerReusesItsModule() throws Exception {
+    try (ParallelSimulationRunner runner = createRunner(1, 10, RejectionPolicy.ABORT)) {
+      SscModule first = runner.submit(MODULE_NAME, (module, data) -> module).get();
+      SscModule second = runner.submit(MODULE_NAME, (module, data) -> module).get();
+
+      assertThat(second).isSameAs(first);
+      assertThat(modulesCreated.get()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void closesDataAfterEachJob() throws Exception {
+    try (ParallelSimulationRunner runner = createRunner(1, 10, RejectionPolicy.ABORT)) {
+      runner.submit(MODULE_NAME, (module, data) -> data).get();
+      runner.submit(MODULE_NAME, (module, data) -> data).get();
+    }
+
+    verify(mockApi, times(2)).ssc_data_free(any(Pointer.class));
+  }
+
+  @Test
+  public void closeFreesWorkerModules() throws Exception {
+    ParallelSimulationRunner runner = createRunner(2, 10, RejectionPolicy.ABORT);
+    runner.submit(MODULE_NAME, (module, data) -> module).get();
+
+    runner.close();
+
+    verify(mockApi, times(modulesCreated.get())).ssc_module_free(any(Pointer.class));
+  }
+
+  @Test
+  public void failedJobFailsFuture() throws Exception {
+    try (ParallelSimulationRunner runner = createRunner(1, 10, RejectionPolicy.ABORT)) {
+      CompletableFuture<Object> result =
+          runner.submit(
+              MODULE_NAME,
+              (module, data) -> {
+                throw new IllegalArgumentException("bad input");
+              });
+
+      thrown.expect(ExecutionException.class);
+      thrown.expectMessage("bad input");
+
+      result.get();
+    }
+  }
+
+  @Test
+  public void abortsWhenQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    try (ParallelSimulationRunner runner = createRunner(1, 1, RejectionPolicy.ABORT)) {
+      runner.submit(MODULE_NAME, (module, data) -> await(release));
+      waitForWorker(runner);
+      runner.submit(MODULE_NAME, (module, data) -> 0);
+
+      CompletableFuture<Integer> rejected = runner.submit(MODULE_NAME, (module, data) -> 0);
+      release.countDown();
+
+      assertThat(rejected.isCompletedExceptionally()).isTrue();
+      try {
+        rejected.get();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+      }
+    }
+  }
+
+  @Test
+  public void callerRunsWhenQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    try (ParallelSimulationRunner runner = createRunner(1, 1, RejectionPolicy.CALLER_RUNS)) {
+      runner.submit(MODULE_NAME, (module, data) -> await(release));
+      waitForWorker(runner);
+      runner.submit(MODULE_NAME, (module, data) -> 0);
+
+      String thread = runner.submit(MODULE_NAME, (module, data) -> currentThread()).get();
+      release.countDown();
+
+      assertThat(thread).isEqualTo(currentThread());
+    }
+  }
+
+  @Test
+  public void rejectsAfterClose() throws Exception {
+    ParallelSimulationRunner runner = createRunner(1, 10, RejectionPolicy.BLOCK);
+    runner.close();
+
+    CompletableFuture<Integer> result = runner.submit(MODULE_NAME, (module, data) -> 0);
+
+    assertThat(result.isCompletedExceptionally()).isTrue();
+  }
+
+  private ParallelSimulationRunner createRunner(
+      int threads, int queueCapacity, RejectionPolicy policy) {
+    return new ParallelSimulationRunner(
+        name -> {
+          modulesCreated.incrementAndGet();
+          return new SscModule(name, mockApi);
+        },
+        () -> new DataContainer(mockApi),
+        threads,
+        queueCapacity,
+        policy);
+  }
+
+  private static void waitForWorker(ParallelSimulationRunner runner) throws InterruptedException {
+    while (runner.getActiveCount() == 0) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static int await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return 0;
+  }
+
+  private static String currentThread() {
+    return Thread.currentThread().getName();
+  }
+}
@@ -0,0 +1,205 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.sun.jna.Pointer;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UnitTestSimulationRunner {
+
+  private static final String MODULE_NAME = "test module";
+
+  @Mock private Ssc mockApi;
+
+  private final List<Runnable> queued = new ArrayList<>();
+
+  private long now = 0;
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return now;
+        }
+      };
+
+  private SimulationRunner runner;
+
+  @Before
+  public void createRunner() {
+    Pointer fakePointer = mock(Pointer.class);
+    when(mockApi.ssc_module_create(anyString())).thenReturn(fakePointer);
+    when(mockApi.ssc_module_entry(0)).thenReturn(fakePointer);
+    when(mockApi.ssc_entry_name(fakePointer)).thenReturn(MODULE_NAME);
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+
+    SscModulePool pool =
+        new SscModulePool(
+            name -> new SscModule(name, mockApi),
+            1,
+            10,
+            10,
+            TimeUnit.SECONDS,
+            Ticker.systemTicker());
+    runner = new SimulationRunner(pool, () -> new DataContainer(mockApi));
+  }
+
+  @Test
+  public void runAsyncReturnsResult() throws Exception {
+    CompletableFuture<String> result =
+        runner.runAsync(
+            MODULE_NAME,
+            1,
+            TimeUnit.MINUTES,
+            (module, data, deadline) -> module.getName(),
+            Runnable::run);
+
+    assertThat(result.get()).isEqualTo(MODULE_NAME);
+  }
+
+  @Test
+  public void cancelledTaskNeverRuns() {
+    AtomicBoolean ran = new AtomicBoolean();
+    CompletableFuture<Boolean> result =
+        runner.runAsync(
+            MODULE_NAME,
+            1,
+            TimeUnit.MINUTES,
+            (module, data, deadline) -> ran.getAndSet(true),
+            queued::add);
+
+    result.cancel(true);
+    queued.forEach(Runnable::run);
+
+    assertThat(ran.get()).isFalse();
+  }
+
+  @Test
+  public void timesOutWhileQueued() throws Exception {
+    AtomicBoolean ran = new AtomicBoolean();
+    CompletableFuture<Boolean> result =
+        runner.runAsync(
+            MODULE_NAME,
+            0,
+            TimeUnit.MILLISECONDS,
+            (module, data, deadline) -> ran.getAndSet(true),
+            queued::add);
+
+    try {
+      result.get();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+    }
+    queued.forEach(Runnable::run);
+
+    assertThat(result.isCompletedExceptionally()).isTrue();
+    assertThat(ran.get()).isFalse();
+  }
+
+  @Test
+  public void resultAfterDeadlineIsDiscarded() throws Exception {
+    CompletableFuture<String> result =
+        runner.runAsync(
+            MODULE_NAME,
+            1,
+            TimeUnit.MILLISECONDS,
+            (module, data, deadline) -> {
+              while (!deadline.isPassed()) {
+                Thread.yield();
+              }
+              return "partial";
+            },
+            Runnable::run);
+
+    try {
+      result.get();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+    }
+    assertThat(result.isCompletedExceptionally()).isTrue();
+  }
+
+  @Test
+  public void rejectedTaskFailsFuture() {
+    CompletableFuture<String> result =
+        runner.runAsync(
+            MODULE_NAME,
+            1,
+            TimeUnit.MINUTES,
+            (module, data, deadline) -> "",
+            task -> {
+              throw new RejectedExecutionException();
+            });
+
+    assertThat(result.isCompletedExceptionally()).isTrue();
+  }
+
+  @Test
+  public void deadlineStopsHandlerWhenPassed() {
+    Deadline deadline = new Deadline(10, ticker, new CompletableFuture<>());
+    ExecutionHandler handler = deadline.wrap(ExecutionHandlers.noOpHandler());
+
+    assertThat(handler.handleProgressUpdate(0, 0, "")).isTrue();
+    assertThat(deadline.getRemaining(TimeUnit.NANOSECONDS)).isEqualTo(10L);
+
+    now = 10;
+    assertThat(handler.handleProgressUpdate(0, 0, "")).isFalse();
+    assertThat(handler.handleLogMessage(MessageType.NOTICE, 0, "")).isFalse();
+    assertThat(deadline.getRemaining(TimeUnit.NANOSECONDS)).isEqualTo(0L);
+  }
+
+  @Test
+  public void deadlineStopsHandlerWhenCancelled() {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    Deadline deadline = new Deadline(10, ticker, future);
+    ExecutionHandler handler = deadline.wrap(ExecutionHandlers.noOpHandler());
+
+    future.cancel(true);
+
+    assertThat(deadline.isExpired()).isTrue();
+    assertThat(deadline.isPassed()).isFalse();
+    assertThat(handler.handleProgressUpdate(0, 0, "")).isFalse();
+  }
+
+  @Test
+  public void deadlinePassesMessagesOn() {
+    List<String> messages = new ArrayList<>();
+    Deadline deadline = new Deadline(10, ticker, new CompletableFuture<>());
+    ExecutionHandler handler =
+        deadline.wrap(
+            new ExecutionHandler() {
+              @Override
+              public boolean handleLogMessage(MessageType type, float time, String message) {
+                messages.add(message);
+                return true;
+              }
+
+              @Override
+              public boolean handleProgressUpdate(float percentComplete, float time, String text) {
+                return true;
+              }
+            });
+
+    now = 20;
+
+    assertThat(handler.handleLogMessage(MessageType.WARNING, 1f, "late")).isFalse();
+    assertThat(messages).containsExactly("late");
+  }
+}
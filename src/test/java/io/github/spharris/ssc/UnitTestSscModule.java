@@ -6,19 +6,27 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
 import com.sun.jna.Pointer;
+import com.sun.jna.ptr.FloatByReference;
+import com.sun.jna.ptr.IntByReference;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
 import io.github.spharris.ssc.exceptions.UnknownModuleNameException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class UnitTestSscModule {
@@ -91,10 +99,100 @@ public class UnitTestSscModule {
     assertThat(vars.get(0)).isEqualTo(expected);
   }
 
+  @Test
+  public void readsLogAfterExecution() {
+    SscModule m = getRealModule();
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+    when(mockApi.ssc_module_log(
+            any(Pointer.class), eq(0), any(IntByReference.class), any(FloatByReference.class)))
+        .thenAnswer(logEntry(3, 0f, "an error"));
+    when(mockApi.ssc_module_log(
+            any(Pointer.class), eq(1), any(IntByReference.class), any(FloatByReference.class)))
+        .thenAnswer(logEntry(2, 1.5f, "a warning"));
+
+    List<LogMessage> log = m.executeAndGetLog(new DataContainer(mockApi));
+
+    verify(mockApi).ssc_module_exec_set_print(0);
+    verify(mockApi).ssc_module_exec(any(Pointer.class), any(Pointer.class));
+    assertThat(log)
+        .containsExactly(
+            LogMessage.create(MessageType.ERROR, 0f, "an error"),
+            LogMessage.create(MessageType.WARNING, 1.5f, "a warning"))
+        .inOrder();
+  }
+
+  @Test
+  public void turnsOffPrintingOnce() {
+    SscModule m = getRealModule();
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+
+    m.executeAndGetLog(new DataContainer(mockApi));
+    m.executeAndGetLog(new DataContainer(mockApi));
+
+    verify(mockApi, times(1)).ssc_module_exec_set_print(0);
+  }
+
+  @Test
+  public void executesWithoutHandlerWithoutDeadline() {
+    SscModule m = getRealModule();
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+
+    m.execute(new DataContainer(mockApi), ExecutionHandlers.noOpHandler(), null);
+
+    verify(mockApi).ssc_module_exec(any(Pointer.class), any(Pointer.class));
+    verify(mockApi, never())
+        .ssc_module_exec_with_handler(
+            any(Pointer.class),
+            any(Pointer.class),
+            any(SscExecutionHandler.class),
+            any(Pointer.class));
+  }
+
+  @Test
+  public void executesWithHandlerWithDeadline() {
+    SscModule m = getRealModule();
+    when(mockApi.ssc_data_create()).thenReturn(mock(Pointer.class));
+    Deadline deadline = new Deadline(0, Ticker.systemTicker(), new CompletableFuture<>());
+
+    m.execute(new DataContainer(mockApi), ExecutionHandlers.noOpHandler(), deadline);
+
+    verify(mockApi)
+        .ssc_module_exec_with_handler(
+            any(Pointer.class),
+            any(Pointer.class),
+            any(SscExecutionHandler.class),
+            any(Pointer.class));
+    verify(mockApi, never()).ssc_module_exec(any(Pointer.class), any(Pointer.class));
+  }
+
+  @Test
+  public void replayedLogMatchesHandler() {
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    ImmutableList.Builder<String> warnings = ImmutableList.builder();
+
+    ExecutionHandlers.replay(
+        ImmutableList.of(
+            LogMessage.create(MessageType.NOTICE, 0f, "a notice"),
+            LogMessage.create(MessageType.WARNING, 0f, "a warning"),
+            LogMessage.create(MessageType.ERROR, 0f, "an error")),
+        ExecutionHandlers.messageLoggingHandler(errors, warnings));
+
+    assertThat(errors.build()).containsExactly("a notice", "an error").inOrder();
+    assertThat(warnings.build()).containsExactly("a warning");
+  }
+
+  private static Answer<String> logEntry(int type, float time, String text) {
+    return invocation -> {
+      ((IntByReference) invocation.getArguments()[2]).setValue(type);
+      ((FloatByReference) invocation.getArguments()[3]).setValue(time);
+      return text;
+    };
+  }
+
   private SscModule getRealModule() {
     Pointer fakePointer = mock(Pointer.class);
     when(mockApi.ssc_module_create(anyString())).thenReturn(fakePointer);
-    when(mockApi.ssc_module_entry(isA(Integer.class))).thenReturn(fakePointer);
+    when(mockApi.ssc_module_entry(0)).thenReturn(fakePointer);
     when(mockApi.ssc_entry_name(isA(Pointer.class))).thenReturn(MODULE_NAME);
 
     return new SscModule(MODULE_NAME, mockApi);
@@ -0,0 +1,234 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.sun.jna.Pointer;
+import io.github.spharris.ssc.exceptions.UnknownModuleNameException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UnitTestSscModulePool {
+
+  private static final String MODULE_NAME = "test module";
+
+  @Mock private Ssc mockApi;
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private long now = 0;
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return now;
+        }
+      };
+
+  @Before
+  public void createModules() {
+    Pointer fakePointer = mock(Pointer.class);
+    when(mockApi.ssc_module_create(MODULE_NAME)).thenReturn(fakePointer);
+    when(mockApi.ssc_module_entry(0)).thenReturn(fakePointer);
+    when(mockApi.ssc_entry_name(isA(Pointer.class))).thenReturn(MODULE_NAME);
+  }
+
+  @Test
+  public void reusesReleasedModule() {
+    SscModulePool pool = createPool(2);
+
+    SscModule first = pool.borrow(MODULE_NAME);
+    pool.release(first);
+    SscModule second = pool.borrow(MODULE_NAME);
+
+    assertThat(second).isSameAs(first);
+    verify(mockApi, times(1)).ssc_module_create(anyString());
+  }
+
+  @Test
+  public void createsModulePerBorrower() {
+    SscModulePool pool = createPool(2);
+
+    SscModule first = pool.borrow(MODULE_NAME);
+    SscModule second = pool.borrow(MODULE_NAME);
+
+    assertThat(second).isNotSameAs(first);
+    ModulePoolStats stats = pool.getStats().get(MODULE_NAME);
+    assertThat(stats.getInUse()).isEqualTo(2);
+    assertThat(stats.getCreatedCount()).isEqualTo(2L);
+    assertThat(stats.getUtilization()).isWithin(0).of(1);
+  }
+
+  @Test
+  public void waitsForReleaseWhenFull() throws Exception {
+    SscModulePool pool = createPool(1);
+    SscModule first = pool.borrow(MODULE_NAME);
+
+    AtomicReference<SscModule> second = new AtomicReference<>();
+    Thread borrower = new Thread(() -> second.set(pool.borrow(MODULE_NAME)));
+    borrower.start();
+    awaitWaiting(borrower);
+    now = TimeUnit.MILLISECONDS.toNanos(5);
+    pool.release(first);
+    borrower.join();
+
+    assertThat(second.get()).isSameAs(first);
+    ModulePoolStats stats = pool.getStats().get(MODULE_NAME);
+    assertThat(stats.getBorrowCount()).isEqualTo(2L);
+    assertThat(stats.getWaitCount()).isEqualTo(1L);
+    assertThat(stats.getMaxWaitNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+  }
+
+  @Test
+  public void evictsIdleModules() {
+    SscModulePool pool = createPool(2);
+    pool.release(pool.borrow(MODULE_NAME));
+
+    now = TimeUnit.SECONDS.toNanos(10);
+    pool.evictIdle();
+    verify(mockApi, never()).ssc_module_free(any(Pointer.class));
+
+    now = TimeUnit.SECONDS.toNanos(11);
+    pool.evictIdle();
+    verify(mockApi).ssc_module_free(any(Pointer.class));
+    ModulePoolStats stats = pool.getStats().get(MODULE_NAME);
+    assertThat(stats.getIdle()).isEqualTo(0);
+    assertThat(stats.getEvictedCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void evictsIdleModulesInBackground() throws Exception {
+    SscModulePool pool =
+        new SscModulePool(
+            name -> new SscModule(name, mockApi), 2, 10, 10, TimeUnit.MILLISECONDS, ticker);
+    pool.release(pool.borrow(MODULE_NAME));
+
+    now = TimeUnit.SECONDS.toNanos(1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (pool.getStats().get(MODULE_NAME).getEvictedCount() == 0
+        && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(pool.getStats().get(MODULE_NAME).getEvictedCount()).isEqualTo(1L);
+    verify(mockApi).ssc_module_free(any(Pointer.class));
+  }
+
+  @Test
+  public void failsAfterBorrowTimeout() {
+    SscModulePool pool =
+        new SscModulePool(
+            name -> new SscModule(name, mockApi), 1, 10_000, 50, TimeUnit.MILLISECONDS, ticker);
+    pool.borrow(MODULE_NAME);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Timed out after 50 ms");
+
+    pool.borrow(MODULE_NAME);
+  }
+
+  @Test
+  public void closeWakesWaitingBorrowers() throws Exception {
+    SscModulePool pool = createPool(1);
+    pool.borrow(MODULE_NAME);
+
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    Thread borrower =
+        new Thread(
+            () -> {
+              try {
+                pool.borrow(MODULE_NAME);
+              } catch (IllegalStateException e) {
+                failure.set(e);
+              }
+            });
+    borrower.start();
+    awaitWaiting(borrower);
+    pool.close();
+    borrower.join(10_000);
+
+    assertThat(failure.get()).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void replacesClosedModule() {
+    SscModulePool pool = createPool(1);
+
+    SscModule first = pool.borrow(MODULE_NAME);
+    first.close();
+    pool.release(first);
+    SscModule second = pool.borrow(MODULE_NAME);
+
+    assertThat(second).isNotSameAs(first);
+    verify(mockApi, times(2)).ssc_module_create(anyString());
+  }
+
+  @Test
+  public void rejectsDoubleRelease() {
+    SscModulePool pool = createPool(2);
+    SscModule module = pool.borrow(MODULE_NAME);
+    pool.release(module);
+
+    thrown.expect(IllegalArgumentException.class);
+
+    pool.release(module);
+  }
+
+  @Test
+  public void unknownModuleDoesNotUseUpPool() {
+    SscModulePool pool = createPool(1);
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        pool.borrow("unknown");
+      } catch (UnknownModuleNameException e) {
+        assertThat(e.getModuleName()).isEqualTo("unknown");
+      }
+    }
+
+    assertThat(pool.getStats().get("unknown").getInUse()).isEqualTo(0);
+  }
+
+  @Test
+  public void closeFreesIdleModules() {
+    SscModulePool pool = createPool(2);
+    SscModule borrowed = pool.borrow(MODULE_NAME);
+    pool.release(pool.borrow(MODULE_NAME));
+
+    pool.close();
+    verify(mockApi, times(1)).ssc_module_free(any(Pointer.class));
+    pool.release(borrowed);
+    verify(mockApi, times(2)).ssc_module_free(any(Pointer.class));
+
+    thrown.expect(IllegalStateException.class);
+
+    pool.borrow(MODULE_NAME);
+  }
+
+  private SscModulePool createPool(int maxSize) {
+    return new SscModulePool(
+        name -> new SscModule(name, mockApi), maxSize, 10, 10, TimeUnit.SECONDS, ticker);
+  }
+
+  private static void awaitWaiting(Thread borrower) throws InterruptedException {
+    while (borrower.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+  }
+}
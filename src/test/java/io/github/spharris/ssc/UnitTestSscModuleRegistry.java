@@ -0,0 +1,132 @@
+package io.github.spharris.ssc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sun.jna.Pointer;
+import io.github.spharris.ssc.exceptions.UnknownModuleNameException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UnitTestSscModuleRegistry {
+
+  private static final String MODULE_NAME = "test module";
+
+  @Mock private Ssc mockApi;
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private final Pointer entry = mock(Pointer.class);
+  private final Pointer module = mock(Pointer.class);
+  private final Pointer info = mock(Pointer.class);
+
+  private SscModuleRegistry registry;
+
+  @Before
+  public void createRegistry() {
+    when(mockApi.ssc_module_entry(0)).thenReturn(entry);
+    when(mockApi.ssc_entry_name(entry)).thenReturn(MODULE_NAME);
+    when(mockApi.ssc_entry_description(entry)).thenReturn("Description");
+    when(mockApi.ssc_entry_version(entry)).thenReturn(2);
+
+    when(mockApi.ssc_module_create(MODULE_NAME)).thenReturn(module);
+    when(mockApi.ssc_module_var_info(module, 0)).thenReturn(info);
+    when(mockApi.ssc_info_var_type(info)).thenReturn(1);
+    when(mockApi.ssc_info_data_type(info)).thenReturn(1);
+    when(mockApi.ssc_info_name(info)).thenReturn("Name");
+    when(mockApi.ssc_info_label(info)).thenReturn("Label");
+    when(mockApi.ssc_info_units(info)).thenReturn("Units");
+    when(mockApi.ssc_info_meta(info)).thenReturn("Meta");
+    when(mockApi.ssc_info_group(info)).thenReturn("Group");
+    when(mockApi.ssc_info_required(info)).thenReturn("Required");
+
+    registry = new SscModuleRegistry(mockApi);
+  }
+
+  @Test
+  public void listsModules() {
+    SscModuleSummary expected =
+        SscModuleSummary.builder()
+            .setName(MODULE_NAME)
+            .setDescription("Description")
+            .setVersion(2)
+            .build();
+
+    assertThat(registry.getModules()).containsExactly(expected);
+  }
+
+  @Test
+  public void readsModulesOnce() {
+    registry.getModules();
+    registry.getModules();
+    registry.getEntry(MODULE_NAME);
+
+    verify(mockApi, times(2)).ssc_module_entry(anyInt());
+  }
+
+  @Test
+  public void findsEntry() {
+    assertThat(registry.getEntry(MODULE_NAME)).isSameAs(entry);
+  }
+
+  @Test
+  public void unknownEntry() {
+    thrown.expect(UnknownModuleNameException.class);
+
+    registry.getEntry("asdf");
+  }
+
+  @Test
+  public void readsVariablesOnce() {
+    registry.getVariables(MODULE_NAME);
+    registry.getVariables(MODULE_NAME);
+
+    verify(mockApi, times(1)).ssc_module_create(MODULE_NAME);
+    verify(mockApi, times(1)).ssc_module_free(module);
+    verify(mockApi, times(2)).ssc_module_var_info(any(Pointer.class), anyInt());
+  }
+
+  @Test
+  public void usesExistingModuleForVariables() {
+    Pointer existing = mock(Pointer.class);
+    when(mockApi.ssc_module_var_info(existing, 0)).thenReturn(info);
+
+    assertThat(registry.getVariables(MODULE_NAME, existing)).hasSize(1);
+    verify(mockApi, times(0)).ssc_module_create(MODULE_NAME);
+    verify(mockApi).ssc_module_var_info(eq(existing), eq(0));
+  }
+
+  @Test
+  public void findsVariableByName() {
+    assertThat(registry.getVariable(MODULE_NAME, "Name").get().getLabel()).isEqualTo("Label");
+    assertThat(registry.getVariable(MODULE_NAME, "Other").isPresent()).isFalse();
+  }
+
+  @Test
+  public void moduleSummaryIncludesVariables() {
+    SscModuleSummary summary = registry.getModule(MODULE_NAME).get();
+
+    assertThat(summary.getVersion()).isEqualTo(2);
+    assertThat(summary.getVariables()).hasSize(1);
+    assertThat(registry.getModule("asdf").isPresent()).isFalse();
+  }
+
+  @Test
+  public void unknownModuleVariables() {
+    thrown.expect(UnknownModuleNameException.class);
+
+    registry.getVariables("asdf");
+  }
+}
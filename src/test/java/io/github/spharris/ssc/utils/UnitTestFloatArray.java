@@ -0,0 +1,69 @@
+package io.github.spharris.ssc.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestFloatArray {
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void readsValues() {
+    FloatArray array = FloatArray.of(1f, 2.5f, -3f);
+
+    assertThat(array.size()).isEqualTo(3);
+    assertThat(array.getFloat(1)).isEqualTo(2.5f);
+    assertThat(array).containsExactly(1f, 2.5f, -3f).inOrder();
+  }
+
+  @Test
+  public void copiesValues() {
+    float[] values = new float[] {1f, 2f};
+    FloatArray array = FloatArray.copyOf(values);
+
+    values[0] = 5f;
+    array.toFloatArray()[1] = 5f;
+
+    assertThat(array).containsExactly(1f, 2f).inOrder();
+  }
+
+  @Test
+  public void copiesIterable() {
+    assertThat(FloatArray.copyOf(ImmutableList.of(1f, 2f)).toFloatArray())
+        .isEqualTo(new float[] {1f, 2f});
+    assertThat(FloatArray.copyOf(ImmutableList.<Float>of()).toFloatArray()).isEmpty();
+  }
+
+  @Test
+  public void equalsBoxedList() {
+    FloatArray array = FloatArray.of(1f, Float.NaN);
+    ImmutableList<Float> list = ImmutableList.of(1f, Float.NaN);
+
+    assertThat(array).isEqualTo(list);
+    assertThat(list).isEqualTo(array);
+    assertThat(array.hashCode()).isEqualTo(list.hashCode());
+    assertThat(array).isEqualTo(FloatArray.copyOf(list));
+    assertThat(array).isNotEqualTo(FloatArray.of(1f));
+  }
+
+  @Test
+  public void isImmutable() {
+    thrown.expect(UnsupportedOperationException.class);
+
+    FloatArray.of(1f).set(0, 2f);
+  }
+
+  @Test
+  public void checksIndex() {
+    thrown.expect(IndexOutOfBoundsException.class);
+
+    FloatArray.of(1f).getFloat(1);
+  }
+}
@@ -80,6 +80,16 @@ public class UnitTestSscVariables {
     verify(data).getArray(VAR_NAME);
   }
 
+  @Test
+  public void floatArrayOutputCallsCorrectFunction() {
+    when(data.getArray(isA(String.class))).thenReturn(Optional.of(new float[] {1.0f}));
+    SscVariable<FloatArray> output = SscVariables.floatArrayOutput(VAR_NAME);
+
+    output.get(data);
+
+    verify(data).getArray(VAR_NAME);
+  }
+
   @Test
   public void stringOutputCallsCorrectFunction() {
     when(data.getString(isA(String.class))).thenReturn(Optional.of("test string"));
@@ -0,0 +1,231 @@
+package io.github.spharris.ssc.worker;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import io.github.spharris.ssc.exceptions.RemoteSimulationException;
+import io.github.spharris.ssc.exceptions.WorkerCrashedException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestSscWorkerPool {
+
+  private static final SimulationRequest OK = request("ok");
+  private static final SimulationRequest FAIL = request("fail");
+  private static final SimulationRequest CRASH = request("crash");
+  private static final SimulationRequest HANG = request("hang");
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private final List<FakeWorker> workers = new CopyOnWriteArrayList<>();
+
+  private volatile long now = 0;
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return now;
+        }
+      };
+
+  @Test
+  public void runsInWorker() throws Exception {
+    try (SscWorkerPool pool = createPool(10)) {
+      SimulationResult result = pool.submit(OK).get();
+
+      assertThat(result.getOutputs().getString("module").get()).isEqualTo("ok");
+      assertThat(workers).hasSize(1);
+    }
+  }
+
+  @Test
+  public void reusesWorker() throws Exception {
+    try (SscWorkerPool pool = createPool(10)) {
+      pool.submit(OK).get();
+      pool.submit(OK).get();
+
+      assertThat(workers).hasSize(1);
+      assertThat(workers.get(0).runs).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void recyclesAfterMaxRuns() throws Exception {
+    try (SscWorkerPool pool = createPool(2)) {
+      for (int i = 0; i < 5; i++) {
+        pool.submit(OK).get();
+      }
+
+      assertThat(workers).hasSize(3);
+      assertThat(workers.get(0).closed).isTrue();
+      assertThat(workers.get(1).closed).isTrue();
+      WorkerStats stats = pool.getStats().get(0);
+      assertThat(stats.getStartCount()).isEqualTo(3L);
+      assertThat(stats.getRecycleCount()).isEqualTo(2L);
+    }
+  }
+
+  @Test
+  public void replacesCrashedWorker() throws Exception {
+    try (SscWorkerPool pool = createPool(10)) {
+      try {
+        pool.submit(CRASH).get();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(WorkerCrashedException.class);
+      }
+      pool.submit(OK).get();
+
+      assertThat(workers).hasSize(2);
+      assertThat(workers.get(0).destroyed).isTrue();
+      assertThat(pool.getStats().get(0).getCrashCount()).isEqualTo(1L);
+    }
+  }
+
+  @Test
+  public void killsWorkerThatTimesOut() throws Exception {
+    try (SscWorkerPool pool = createPool(10, TimeUnit.MILLISECONDS.toNanos(50))) {
+      try {
+        pool.submit(HANG).get(10, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(WorkerCrashedException.class);
+        assertThat(e.getCause().getMessage())
+            .isEqualTo("Worker 0 was killed after running hang for more than 50 ms");
+      }
+      pool.submit(OK).get();
+
+      assertThat(workers).hasSize(2);
+      assertThat(workers.get(0).destroyed).isTrue();
+      assertThat(pool.getStats().get(0).getCrashCount()).isEqualTo(1L);
+    }
+  }
+
+  @Test
+  public void failedSimulationKeepsWorker() throws Exception {
+    try (SscWorkerPool pool = createPool(10)) {
+      try {
+        pool.submit(FAIL).get();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(RemoteSimulationException.class);
+      }
+      pool.submit(OK).get();
+
+      assertThat(workers).hasSize(1);
+      assertThat(pool.getStats().get(0).getFailureCount()).isEqualTo(1L);
+    }
+  }
+
+  @Test
+  public void recordsLatency() throws Exception {
+    try (SscWorkerPool pool = createPool(10)) {
+      pool.submit(OK).get();
+      pool.submit(request("slow")).get();
+
+      WorkerStats stats = pool.getStats().get(0);
+      assertThat(stats.getRunCount()).isEqualTo(2L);
+      assertThat(stats.getTotalLatencyNanos()).isEqualTo(30L);
+      assertThat(stats.getMaxLatencyNanos()).isEqualTo(20L);
+      assertThat(stats.getAverageLatencyNanos()).isEqualTo(15.0);
+    }
+  }
+
+  @Test
+  public void closeShutsDownWorkers() throws Exception {
+    SscWorkerPool pool = createPool(10);
+    pool.submit(OK).get();
+
+    pool.close();
+
+    assertThat(workers.get(0).closed).isTrue();
+    assertThat(pool.getStats().get(0).isRunning()).isFalse();
+  }
+
+  @Test
+  public void rejectsAfterClose() throws Exception {
+    SscWorkerPool pool = createPool(10);
+    pool.close();
+
+    assertThat(pool.submit(OK).isCompletedExceptionally()).isTrue();
+  }
+
+  private SscWorkerPool createPool(int maxRunsPerWorker) {
+    return createPool(maxRunsPerWorker, TimeUnit.MINUTES.toNanos(1));
+  }
+
+  private SscWorkerPool createPool(int maxRunsPerWorker, long runTimeoutNanos) {
+    return new SscWorkerPool(
+        () -> {
+          FakeWorker worker = new FakeWorker();
+          workers.add(worker);
+          return worker;
+        },
+        1,
+        maxRunsPerWorker,
+        runTimeoutNanos,
+        10,
+        ticker);
+  }
+
+  private static SimulationRequest request(String moduleName) {
+    return SimulationRequest.builder().setModuleName(moduleName).build();
+  }
+
+  private final class FakeWorker implements WorkerConnection {
+
+    final CountDownLatch killed = new CountDownLatch(1);
+    volatile int runs;
+    volatile boolean closed;
+    volatile boolean destroyed;
+
+    @Override
+    public SimulationResult run(SimulationRequest request) throws IOException {
+      runs++;
+      switch (request.getModuleName()) {
+        case "crash":
+          throw new IOException("worker died");
+        case "hang":
+          try {
+            killed.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          throw new IOException("worker killed");
+        case "fail":
+          throw new RemoteSimulationException("java.lang.RuntimeException", "failed");
+        case "slow":
+          now += 20;
+          break;
+        default:
+          now += 10;
+          break;
+      }
+
+      return SimulationResult.create(
+          DataTable.builder().setString("module", request.getModuleName()).build(),
+          ImmutableList.of());
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public void destroy() {
+      destroyed = true;
+      killed.countDown();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package io.github.spharris.ssc.worker;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.github.spharris.ssc.ExecutionHandler.MessageType;
+import io.github.spharris.ssc.LogMessage;
+import io.github.spharris.ssc.exceptions.RemoteSimulationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UnitTestWorkerProtocol {
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+  private final DataOutputStream out = new DataOutputStream(bytes);
+
+  @Test
+  public void requestRoundTrip() throws IOException {
+    SimulationRequest request =
+        SimulationRequest.builder()
+            .setModuleName("pvwattsv5")
+            .setInputs(
+                DataTable.builder()
+                    .setNumber("system_capacity", 4f)
+                    .setString("solar_resource_file", "weather.tm2")
+                    .setArray("albedo", new float[] {0.2f, 0.3f})
+                    .setMatrix("shading", new float[][] {{1, 2, 3}, {4, 5, 6}})
+                    .setTable(
+                        "solar_resource_data",
+                        DataTable.builder().setArray("dn", new float[8760]).build())
+                    .build())
+            .setOutputs(ImmutableSet.of("ac_annual", "ac_monthly"))
+            .build();
+
+    WorkerProtocol.writeRequest(out, request);
+    DataInputStream in = input();
+
+    assertThat(in.readByte()).isEqualTo(WorkerProtocol.RUN);
+    assertThat(WorkerProtocol.readRequest(in)).isEqualTo(request);
+  }
+
+  @Test
+  public void resultRoundTrip() throws IOException {
+    SimulationResult result =
+        SimulationResult.create(
+            DataTable.builder().setNumber("ac_annual", 1234.5f).build(),
+            ImmutableList.of(LogMessage.create(MessageType.WARNING, 1.5f, "a warning")));
+
+    WorkerProtocol.writeResult(out, result);
+
+    assertThat(WorkerProtocol.readResponse(input())).isEqualTo(result);
+  }
+
+  @Test
+  public void failureThrowsRemoteException() throws IOException {
+    WorkerProtocol.writeFailure(out, new IllegalArgumentException("bad input"));
+
+    thrown.expect(RemoteSimulationException.class);
+    thrown.expectMessage("java.lang.IllegalArgumentException: bad input");
+
+    WorkerProtocol.readResponse(input());
+  }
+
+  @Test
+  public void helloRoundTrip() throws IOException {
+    WorkerProtocol.writeHello(out);
+
+    WorkerProtocol.readHello(input());
+  }
+
+  @Test
+  public void rejectsBadHello() throws IOException {
+    out.writeInt(0x12345678);
+    out.writeInt(WorkerProtocol.VERSION);
+
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Not an SSC worker");
+
+    WorkerProtocol.readHello(input());
+  }
+
+  @Test
+  public void truncatedResponse() throws IOException {
+    WorkerProtocol.writeResult(
+        out,
+        SimulationResult.create(
+            DataTable.builder().setArray("ac", new float[100]).build(), ImmutableList.of()));
+    byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+
+    thrown.expect(EOFException.class);
+
+    WorkerProtocol.readResponse(new DataInputStream(new ByteArrayInputStream(truncated)));
+  }
+
+  @Test
+  public void tableCopiesArrays() {
+    float[] values = {1, 2};
+    DataTable table = DataTable.builder().setArray("var", values).build();
+    values[0] = 5;
+    table.getArray("var").get()[1] = 5;
+
+    assertThat(table.getArray("var").get()).isEqualTo(new float[] {1, 2});
+  }
+
+  @Test
+  public void tableMatrixFromRowMajor() {
+    DataTable table =
+        DataTable.builder().setMatrix("var", new float[] {1, 2, 3, 4, 5, 6}, 2, 3).build();
+
+    assertThat(table.getMatrix("var").get()).isEqualTo(new float[][] {{1, 2, 3}, {4, 5, 6}});
+    assertThat(table)
+        .isEqualTo(
+            DataTable.builder().setMatrix("var", new float[][] {{1, 2, 3}, {4, 5, 6}}).build());
+  }
+
+  @Test
+  public void tableRejectsWrongMatrixSize() {
+    thrown.expect(IllegalArgumentException.class);
+
+    DataTable.builder().setMatrix("var", new float[5], 2, 3);
+  }
+
+  private DataInputStream input() {
+    return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+}